@@ -28,6 +28,7 @@ import org.teavm.classlib.impl.currency.CurrenciesGenerator;
 import org.teavm.classlib.impl.currency.CurrencyHelper;
 import org.teavm.classlib.impl.lambda.LambdaMetafactorySubstitutor;
 import org.teavm.classlib.impl.record.ObjectMethodsSubstitutor;
+import org.teavm.classlib.impl.regex.ConstantRegexTransformer;
 import org.teavm.classlib.impl.reflection.ReflectionTransformer;
 import org.teavm.classlib.impl.string.DefaultStringTransformer;
 import org.teavm.classlib.impl.string.JSStringConstructorGenerator;
@@ -158,6 +159,10 @@ public class JCLPlugin implements TeaVMPlugin {
 
         host.add(new NumericClassTransformer());
         host.add(new SystemClassTransformer());
+        if (!isBootstrap() && Boolean.parseBoolean(
+                host.getProperties().getProperty("java.util.regex.precompile", "true"))) {
+            host.add(new ConstantRegexTransformer());
+        }
 
         if (!isBootstrap()) {
             List<ReflectionSupplier> reflectionSuppliers = new ArrayList<>();
@@ -198,8 +203,15 @@ public class JCLPlugin implements TeaVMPlugin {
             js.add(new MethodReference(String.class, "<init>", Object.class, void.class),
                     new JSStringConstructorGenerator());
         } else {
-            host.add(new DefaultStringTransformer());
+            host.add(new DefaultStringTransformer(isCompactStrings(host)));
+        }
+    }
+
+    private static boolean isCompactStrings(TeaVMHost host) {
+        if (host.getExtension(TeaVMCHost.class) == null && host.getExtension(TeaVMWasmHost.class) == null) {
+            return false;
         }
+        return Boolean.parseBoolean(host.getProperties().getProperty("teavm.compactStrings", "false"));
     }
 
     private void applyTimeZoneDetection(TeaVMHost host) {
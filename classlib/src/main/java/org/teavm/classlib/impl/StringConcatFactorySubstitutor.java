@@ -15,6 +15,8 @@
  */
 package org.teavm.classlib.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.teavm.dependency.BootstrapMethodSubstitutor;
 import org.teavm.dependency.DynamicCallSite;
 import org.teavm.model.MethodReference;
@@ -28,31 +30,60 @@ import org.teavm.model.instructions.IntegerSubtype;
 public class StringConcatFactorySubstitutor implements BootstrapMethodSubstitutor {
     private ReferenceCache referenceCache = new ReferenceCache();
     private static final String STRING_BUILDER = "java.lang.StringBuilder";
+    private static final ValueType STRING = ValueType.object("java.lang.String");
+    private static final MethodReference STRING_VALUE_OF = new MethodReference(String.class, "valueOf",
+            Object.class, String.class);
+    private static final MethodReference STRING_LENGTH = new MethodReference(String.class, "length", int.class);
     private static final char VALUE_ARGUMENT = '\1';
     private static final char CONST_ARGUMENT = '\2';
 
     @Override
     public ValueEmitter substitute(DynamicCallSite callSite, ProgramEmitter pe) {
-        ValueEmitter sb = pe.construct(STRING_BUILDER);
-
+        List<Part> parts = new ArrayList<>();
         if (callSite.getBootstrapMethod().getName().equals("makeConcatWithConstants")) {
-            appendArgumentWithRecipe(sb, callSite);
+            collectArgumentsWithRecipe(parts, callSite, pe);
         } else {
-            appendSimpleArguments(sb, callSite);
+            collectSimpleArguments(parts, callSite);
+        }
+
+        // Objects are converted to strings in advance, as JDK does, so that the builder
+        // can be allocated with enough capacity to never grow
+        int fixedLength = 0;
+        List<ValueEmitter> strings = new ArrayList<>();
+        for (Part part : parts) {
+            if (part.type == STRING) {
+                part.value = pe.invoke(STRING_VALUE_OF, part.value);
+                strings.add(part.value);
+            } else if (part.type == null) {
+                fixedLength += part.text.length();
+            } else {
+                fixedLength += maxLength(part.type);
+            }
+        }
+
+        ValueEmitter capacity = pe.constant(fixedLength);
+        for (ValueEmitter string : strings) {
+            capacity = capacity.add(string.invokeVirtual(STRING_LENGTH));
+        }
+
+        ValueEmitter sb = pe.construct(STRING_BUILDER, capacity);
+        for (Part part : parts) {
+            sb = part.type != null
+                    ? appendArgument(sb, part.type, part.value)
+                    : appendArgument(sb, STRING, pe.constant(part.text));
         }
 
-        return sb.invokeSpecial("toString", ValueType.object("java.lang.String"));
+        return sb.invokeSpecial("toString", STRING);
     }
 
-    private ValueEmitter appendSimpleArguments(ValueEmitter sb, DynamicCallSite callSite) {
+    private void collectSimpleArguments(List<Part> parts, DynamicCallSite callSite) {
         int parameterCount = callSite.getCalledMethod().parameterCount();
         for (int i = 0; i < parameterCount; ++i) {
-            sb = appendArgument(sb, callSite.getCalledMethod().parameterType(i), callSite.getArguments().get(i));
+            parts.add(new Part(callSite.getCalledMethod().parameterType(i), callSite.getArguments().get(i)));
         }
-        return sb;
     }
 
-    private ValueEmitter appendArgumentWithRecipe(ValueEmitter sb, DynamicCallSite callSite) {
+    private void collectArgumentsWithRecipe(List<Part> parts, DynamicCallSite callSite, ProgramEmitter pe) {
         String recipe = callSite.getBootstrapArguments().get(0).getString();
         int charCount = recipe.length();
         int constantIndex = 0;
@@ -63,16 +94,20 @@ public class StringConcatFactorySubstitutor implements BootstrapMethodSubstituto
             char c = recipe.charAt(i);
             switch (c) {
                 case VALUE_ARGUMENT: {
-                    sb = flushAcc(sb, acc);
+                    flushAcc(parts, acc);
                     ValueType type = callSite.getCalledMethod().parameterType(paramIndex++);
-                    sb = appendArgument(sb, type, callSite.getArguments().get(valueIndex++));
+                    parts.add(new Part(type, callSite.getArguments().get(valueIndex++)));
                     break;
                 }
                 case CONST_ARGUMENT: {
-                    sb = flushAcc(sb, acc);
                     ValueType type = callSite.getCalledMethod().parameterType(paramIndex++);
                     RuntimeConstant poolConstant = callSite.getBootstrapArguments().get(1 + constantIndex++);
-                    sb = appendArgument(sb, type, constant(sb.getProgramEmitter(), poolConstant));
+                    if (poolConstant.getKind() == RuntimeConstant.STRING) {
+                        acc.append(poolConstant.getString());
+                    } else {
+                        flushAcc(parts, acc);
+                        parts.add(new Part(type, constant(pe, poolConstant)));
+                    }
                     break;
                 }
                 default:
@@ -81,22 +116,37 @@ public class StringConcatFactorySubstitutor implements BootstrapMethodSubstituto
             }
         }
 
-        sb = flushAcc(sb, acc);
-        return sb;
+        flushAcc(parts, acc);
     }
 
-    private ValueEmitter flushAcc(ValueEmitter sb, StringBuilder acc) {
-        if (acc.length() == 0) {
-            return sb;
-        } else if (acc.length() == 1) {
-            sb = appendArgument(sb, ValueType.CHARACTER, sb.getProgramEmitter().constant(acc.charAt(0))
-                    .cast(ValueType.CHARACTER));
-        } else {
-            sb = appendArgument(sb, ValueType.object("java.lang.Object"),
-                    sb.getProgramEmitter().constant(acc.toString()));
+    private void flushAcc(List<Part> parts, StringBuilder acc) {
+        if (acc.length() > 0) {
+            parts.add(new Part(acc.toString()));
+            acc.setLength(0);
+        }
+    }
+
+    private static int maxLength(ValueType type) {
+        switch (((ValueType.Primitive) type).getKind()) {
+            case BOOLEAN:
+                return 5;
+            case CHARACTER:
+                return 1;
+            case BYTE:
+                return 4;
+            case SHORT:
+                return 6;
+            case INTEGER:
+                return 11;
+            case LONG:
+                return 20;
+            case FLOAT:
+                return 15;
+            case DOUBLE:
+                return 24;
+            default:
+                return 0;
         }
-        acc.setLength(0);
-        return sb;
     }
 
     private ValueEmitter appendArgument(ValueEmitter sb, ValueType type, ValueEmitter argument) {
@@ -114,7 +164,7 @@ public class StringConcatFactorySubstitutor implements BootstrapMethodSubstituto
                     break;
             }
         } else {
-            type = ValueType.object("java.lang.Object");
+            type = STRING;
         }
         MethodReference method = referenceCache.getCached(new MethodReference(STRING_BUILDER, "append", type,
                 ValueType.object(STRING_BUILDER)));
@@ -139,4 +189,19 @@ public class StringConcatFactorySubstitutor implements BootstrapMethodSubstituto
                 throw new IllegalArgumentException("Unsupported constant type: " + value.getKind());
         }
     }
+
+    static class Part {
+        ValueType type;
+        ValueEmitter value;
+        String text;
+
+        Part(ValueType type, ValueEmitter value) {
+            this.type = type instanceof ValueType.Primitive ? type : STRING;
+            this.value = value;
+        }
+
+        Part(String text) {
+            this.text = text;
+        }
+    }
 }
@@ -0,0 +1,421 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.regex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.classlib.java.util.regex.TPattern;
+import org.teavm.model.AccessLevel;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.ClassHierarchy;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ClassHolderTransformer;
+import org.teavm.model.ClassHolderTransformerContext;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldHolder;
+import org.teavm.model.FieldReference;
+import org.teavm.model.Instruction;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.ValueType;
+import org.teavm.model.Variable;
+import org.teavm.model.emit.ProgramEmitter;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.GetFieldInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.InvokeInstruction;
+import org.teavm.model.instructions.StringConstantInstruction;
+import org.teavm.model.util.DefinitionExtractor;
+
+/**
+ * Moves compilation of constant regular expressions from the call site to build time.
+ * <p>
+ * Every {@code Pattern.compile}, {@code Pattern.matches} and regex-accepting {@code String} method
+ * that receives a constant pattern is validated during the build by {@link TPattern}, the same engine
+ * that runs the generated code, so a pattern is folded only if it would compile at run time as well.
+ * Patterns without metacharacters are replaced by plain string operations (see {@link LiteralRegex}).
+ * Other patterns are compiled once, by the static initializer of a generated holder class,
+ * and then shared by all call sites of the class. Patterns that fail to compile are left as is,
+ * so that the error is still reported at run time, by the same call and with the same exception type.
+ */
+public class ConstantRegexTransformer implements ClassHolderTransformer {
+    private static final String PATTERN = "java.util.regex.Pattern";
+    private static final String MATCHER = "java.util.regex.Matcher";
+    private static final String STRING = "java.lang.String";
+    private static final String CHAR_SEQUENCE = "java.lang.CharSequence";
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final MethodReference COMPILE = new MethodReference(PATTERN, "compile",
+            ValueType.object(STRING), ValueType.object(PATTERN));
+    private static final MethodReference COMPILE_WITH_FLAGS = new MethodReference(PATTERN, "compile",
+            ValueType.object(STRING), ValueType.INTEGER, ValueType.object(PATTERN));
+    private static final MethodReference PATTERN_MATCHES = new MethodReference(PATTERN, "matches",
+            ValueType.object(STRING), ValueType.object(CHAR_SEQUENCE), ValueType.BOOLEAN);
+    private static final MethodReference STRING_MATCHES = new MethodReference(STRING, "matches",
+            ValueType.object(STRING), ValueType.BOOLEAN);
+    private static final MethodReference STRING_SPLIT = new MethodReference(STRING, "split",
+            ValueType.object(STRING), ValueType.arrayOf(ValueType.object(STRING)));
+    private static final MethodReference STRING_SPLIT_WITH_LIMIT = new MethodReference(STRING, "split",
+            ValueType.object(STRING), ValueType.INTEGER, ValueType.arrayOf(ValueType.object(STRING)));
+    private static final MethodReference STRING_REPLACE_ALL = new MethodReference(STRING, "replaceAll",
+            ValueType.object(STRING), ValueType.object(STRING), ValueType.object(STRING));
+    private static final MethodReference STRING_REPLACE_FIRST = new MethodReference(STRING, "replaceFirst",
+            ValueType.object(STRING), ValueType.object(STRING), ValueType.object(STRING));
+
+    private static final MethodReference MATCHER_METHOD = new MethodReference(PATTERN, "matcher",
+            ValueType.object(CHAR_SEQUENCE), ValueType.object(MATCHER));
+    private static final MethodReference MATCHER_MATCHES = new MethodReference(MATCHER, "matches",
+            ValueType.BOOLEAN);
+    private static final MethodReference MATCHER_REPLACE_ALL = new MethodReference(MATCHER, "replaceAll",
+            ValueType.object(STRING), ValueType.object(STRING));
+    private static final MethodReference MATCHER_REPLACE_FIRST = new MethodReference(MATCHER, "replaceFirst",
+            ValueType.object(STRING), ValueType.object(STRING));
+    private static final MethodReference PATTERN_SPLIT = new MethodReference(PATTERN, "split",
+            ValueType.object(CHAR_SEQUENCE), ValueType.arrayOf(ValueType.object(STRING)));
+    private static final MethodReference PATTERN_SPLIT_WITH_LIMIT = new MethodReference(PATTERN, "split",
+            ValueType.object(CHAR_SEQUENCE), ValueType.INTEGER, ValueType.arrayOf(ValueType.object(STRING)));
+    private static final MethodReference STRING_CONTENT_EQUALS = new MethodReference(STRING, "contentEquals",
+            ValueType.object(CHAR_SEQUENCE), ValueType.BOOLEAN);
+    private static final MethodReference STRING_REPLACE = new MethodReference(STRING, "replace",
+            ValueType.object(CHAR_SEQUENCE), ValueType.object(CHAR_SEQUENCE), ValueType.object(STRING));
+    private static final MethodReference LITERAL_SPLIT = new MethodReference(LiteralRegex.class, "split",
+            String.class, String.class, String[].class);
+    private static final MethodReference LITERAL_SPLIT_WITH_LIMIT = new MethodReference(LiteralRegex.class,
+            "split", String.class, String.class, int.class, String[].class);
+    private static final MethodReference LITERAL_REPLACE_FIRST = new MethodReference(LiteralRegex.class,
+            "replaceFirst", String.class, String.class, String.class, String.class);
+
+    private Map<String, String> holderClasses = new HashMap<>();
+    private Set<String> holderClassNames = new HashSet<>();
+    private Object[] constants;
+
+    @Override
+    public void transformClass(ClassHolder cls, ClassHolderTransformerContext context) {
+        if (holderClassNames.contains(cls.getName())) {
+            // Initializer of a holder compiles the pattern itself, it must not refer to another holder
+            return;
+        }
+        for (MethodHolder method : cls.getMethods()) {
+            Program program = method.getProgram();
+            if (program != null) {
+                transformProgram(cls, program, context);
+            }
+        }
+    }
+
+    private void transformProgram(ClassHolder cls, Program program, ClassHolderTransformerContext context) {
+        List<InvokeInstruction> candidates = new ArrayList<>();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction instruction : block) {
+                if (instruction instanceof InvokeInstruction && isCandidate((InvokeInstruction) instruction)) {
+                    candidates.add((InvokeInstruction) instruction);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        collectConstants(program);
+        for (InvokeInstruction invoke : candidates) {
+            transformInvocation(cls, invoke, context);
+        }
+        constants = null;
+    }
+
+    private boolean isCandidate(InvokeInstruction invoke) {
+        MethodReference method = invoke.getMethod();
+        if (method.getClassName().equals(PATTERN)) {
+            return method.equals(COMPILE) || method.equals(COMPILE_WITH_FLAGS) || method.equals(PATTERN_MATCHES);
+        } else if (method.getClassName().equals(STRING)) {
+            return method.equals(STRING_MATCHES) || method.equals(STRING_SPLIT)
+                    || method.equals(STRING_SPLIT_WITH_LIMIT) || method.equals(STRING_REPLACE_ALL)
+                    || method.equals(STRING_REPLACE_FIRST);
+        }
+        return false;
+    }
+
+    private void collectConstants(Program program) {
+        int[] definitionCount = new int[program.variableCount()];
+        Object[] values = new Object[program.variableCount()];
+        int[] assignments = new int[program.variableCount()];
+        DefinitionExtractor defExtractor = new DefinitionExtractor();
+
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Phi phi : block.getPhis()) {
+                definitionCount[phi.getReceiver().getIndex()]++;
+            }
+            for (Instruction instruction : block) {
+                instruction.acceptVisitor(defExtractor);
+                for (Variable var : defExtractor.getDefinedVariables()) {
+                    definitionCount[var.getIndex()]++;
+                }
+                if (instruction instanceof StringConstantInstruction) {
+                    StringConstantInstruction constant = (StringConstantInstruction) instruction;
+                    values[constant.getReceiver().getIndex()] = constant.getConstant();
+                } else if (instruction instanceof IntegerConstantInstruction) {
+                    IntegerConstantInstruction constant = (IntegerConstantInstruction) instruction;
+                    values[constant.getReceiver().getIndex()] = constant.getConstant();
+                } else if (instruction instanceof AssignInstruction) {
+                    AssignInstruction assign = (AssignInstruction) instruction;
+                    assignments[assign.getReceiver().getIndex()] = assign.getAssignee().getIndex() + 1;
+                }
+            }
+        }
+
+        constants = new Object[program.variableCount()];
+        for (int i = 0; i < constants.length; ++i) {
+            int index = i;
+            int steps = 0;
+            while (assignments[index] != 0 && definitionCount[index] == 1 && steps++ < constants.length) {
+                index = assignments[index] - 1;
+            }
+            if (definitionCount[index] == 1 && definitionCount[i] == 1) {
+                constants[i] = values[index];
+            }
+        }
+    }
+
+    private void transformInvocation(ClassHolder cls, InvokeInstruction invoke,
+            ClassHolderTransformerContext context) {
+        MethodReference method = invoke.getMethod();
+        Object regexConstant = constants[invoke.getArguments().get(0).getIndex()];
+        if (!(regexConstant instanceof String)) {
+            return;
+        }
+        String regex = (String) regexConstant;
+
+        int flags = 0;
+        if (method.equals(COMPILE_WITH_FLAGS)) {
+            Object flagsConstant = constants[invoke.getArguments().get(1).getIndex()];
+            if (!(flagsConstant instanceof Integer)) {
+                return;
+            }
+            flags = (Integer) flagsConstant;
+        }
+
+        try {
+            TPattern.compile(regex, flags);
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        if (method.equals(COMPILE) || method.equals(COMPILE_WITH_FLAGS)) {
+            GetFieldInstruction getPattern = getPattern(cls, regex, flags, context);
+            getPattern.setReceiver(invoke.getReceiver());
+            getPattern.setLocation(invoke.getLocation());
+            invoke.replace(getPattern);
+            return;
+        }
+
+        if (method.equals(PATTERN_MATCHES)) {
+            transformMatches(cls, invoke, invoke.getArguments().get(1), regex, context);
+        } else if (method.equals(STRING_MATCHES)) {
+            transformMatches(cls, invoke, invoke.getInstance(), regex, context);
+        } else if (method.equals(STRING_SPLIT) || method.equals(STRING_SPLIT_WITH_LIMIT)) {
+            transformSplit(cls, invoke, regex, context);
+        } else if (method.equals(STRING_REPLACE_ALL) || method.equals(STRING_REPLACE_FIRST)) {
+            transformReplace(cls, invoke, regex, context);
+        }
+    }
+
+    private void transformMatches(ClassHolder cls, InvokeInstruction invoke, Variable input, String regex,
+            ClassHolderTransformerContext context) {
+        String literal = extractLiteral(regex);
+        if (literal != null) {
+            Variable literalVar = insertStringConstant(invoke, literal);
+            invoke.replace(invoke(InvocationType.VIRTUAL, STRING_CONTENT_EQUALS, literalVar, invoke.getReceiver(),
+                    input));
+            return;
+        }
+
+        Variable matcher = insertMatcher(cls, invoke, input, regex, context);
+        invoke.replace(invoke(InvocationType.VIRTUAL, MATCHER_MATCHES, matcher, invoke.getReceiver()));
+    }
+
+    private void transformSplit(ClassHolder cls, InvokeInstruction invoke, String regex,
+            ClassHolderTransformerContext context) {
+        boolean hasLimit = invoke.getArguments().size() > 1;
+        Variable input = invoke.getInstance();
+        String literal = extractLiteral(regex);
+        if (literal != null) {
+            Variable literalVar = insertStringConstant(invoke, literal);
+            InvokeInstruction replacement = hasLimit
+                    ? invoke(InvocationType.SPECIAL, LITERAL_SPLIT_WITH_LIMIT, null, invoke.getReceiver(),
+                            input, literalVar, invoke.getArguments().get(1))
+                    : invoke(InvocationType.SPECIAL, LITERAL_SPLIT, null, invoke.getReceiver(), input, literalVar);
+            invoke.replace(replacement);
+            return;
+        }
+
+        Variable pattern = insertPattern(cls, invoke, regex, context);
+        InvokeInstruction replacement = hasLimit
+                ? invoke(InvocationType.VIRTUAL, PATTERN_SPLIT_WITH_LIMIT, pattern, invoke.getReceiver(), input,
+                        invoke.getArguments().get(1))
+                : invoke(InvocationType.VIRTUAL, PATTERN_SPLIT, pattern, invoke.getReceiver(), input);
+        invoke.replace(replacement);
+    }
+
+    private void transformReplace(ClassHolder cls, InvokeInstruction invoke, String regex,
+            ClassHolderTransformerContext context) {
+        boolean all = invoke.getMethod().equals(STRING_REPLACE_ALL);
+        Variable input = invoke.getInstance();
+        Variable replacement = invoke.getArguments().get(1);
+        Object replacementConstant = constants[replacement.getIndex()];
+        String literal = extractLiteral(regex);
+        if (literal != null && replacementConstant instanceof String
+                && isLiteralReplacement((String) replacementConstant)) {
+            Variable literalVar = insertStringConstant(invoke, literal);
+            invoke.replace(all
+                    ? invoke(InvocationType.VIRTUAL, STRING_REPLACE, input, invoke.getReceiver(), literalVar,
+                            replacement)
+                    : invoke(InvocationType.SPECIAL, LITERAL_REPLACE_FIRST, null, invoke.getReceiver(), input,
+                            literalVar, replacement));
+            return;
+        }
+
+        Variable matcher = insertMatcher(cls, invoke, input, regex, context);
+        invoke.replace(invoke(InvocationType.VIRTUAL, all ? MATCHER_REPLACE_ALL : MATCHER_REPLACE_FIRST,
+                matcher, invoke.getReceiver(), replacement));
+    }
+
+    private Variable insertMatcher(ClassHolder cls, InvokeInstruction invoke, Variable input, String regex,
+            ClassHolderTransformerContext context) {
+        Variable pattern = insertPattern(cls, invoke, regex, context);
+        Variable matcher = invoke.getProgram().createVariable();
+        InvokeInstruction createMatcher = invoke(InvocationType.VIRTUAL, MATCHER_METHOD, pattern, matcher, input);
+        createMatcher.setLocation(invoke.getLocation());
+        invoke.insertPrevious(createMatcher);
+        return matcher;
+    }
+
+    private Variable insertPattern(ClassHolder cls, InvokeInstruction invoke, String regex,
+            ClassHolderTransformerContext context) {
+        Variable pattern = invoke.getProgram().createVariable();
+        GetFieldInstruction getPattern = getPattern(cls, regex, 0, context);
+        getPattern.setReceiver(pattern);
+        getPattern.setLocation(invoke.getLocation());
+        invoke.insertPrevious(getPattern);
+        return pattern;
+    }
+
+    private Variable insertStringConstant(InvokeInstruction invoke, String value) {
+        Variable result = invoke.getProgram().createVariable();
+        StringConstantInstruction constant = new StringConstantInstruction();
+        constant.setConstant(value);
+        constant.setReceiver(result);
+        constant.setLocation(invoke.getLocation());
+        invoke.insertPrevious(constant);
+        return result;
+    }
+
+    private InvokeInstruction invoke(InvocationType type, MethodReference method, Variable instance,
+            Variable receiver, Variable... arguments) {
+        InvokeInstruction invoke = new InvokeInstruction();
+        invoke.setType(type);
+        invoke.setMethod(method);
+        invoke.setInstance(instance);
+        invoke.setReceiver(receiver);
+        invoke.setArguments(arguments);
+        return invoke;
+    }
+
+    private GetFieldInstruction getPattern(ClassHolder cls, String regex, int flags,
+            ClassHolderTransformerContext context) {
+        String key = cls.getName() + ":" + flags + ":" + regex;
+        String holderName = holderClasses.computeIfAbsent(key, k -> createHolderClass(cls, regex, flags, context));
+        GetFieldInstruction getField = new GetFieldInstruction();
+        getField.setField(new FieldReference(holderName, "INSTANCE"));
+        getField.setFieldType(ValueType.object(PATTERN));
+        return getField;
+    }
+
+    private String createHolderClass(ClassHolder cls, String regex, int flags,
+            ClassHolderTransformerContext context) {
+        int index = 0;
+        String prefix = cls.getName() + "$_Regex$";
+        while (holderClassNames.contains(prefix + index + "$")) {
+            ++index;
+        }
+        String className = prefix + index + "$";
+        holderClassNames.add(className);
+
+        ClassHolder holder = new ClassHolder(className);
+        holder.setLevel(AccessLevel.PUBLIC);
+        holder.setParent("java.lang.Object");
+        holder.getModifiers().add(ElementModifier.FINAL);
+
+        FieldHolder instanceField = new FieldHolder("INSTANCE");
+        instanceField.setType(ValueType.object(PATTERN));
+        instanceField.setLevel(AccessLevel.PUBLIC);
+        instanceField.getModifiers().add(ElementModifier.STATIC);
+        instanceField.getModifiers().add(ElementModifier.FINAL);
+        holder.addField(instanceField);
+
+        holder.addMethod(createInitializer(className, regex, flags, context.getHierarchy()));
+        context.submit(holder);
+        return className;
+    }
+
+    private MethodHolder createInitializer(String className, String regex, int flags, ClassHierarchy hierarchy) {
+        MethodHolder initializer = new MethodHolder("<clinit>", ValueType.VOID);
+        initializer.setLevel(AccessLevel.PRIVATE);
+        initializer.getModifiers().add(ElementModifier.STATIC);
+
+        ProgramEmitter pe = ProgramEmitter.create(initializer, hierarchy);
+        pe.setField(className, "INSTANCE", pe.invoke(COMPILE_WITH_FLAGS, pe.constant(regex), pe.constant(flags)));
+        pe.exit();
+
+        return initializer;
+    }
+
+    static String extractLiteral(String regex) {
+        if (regex.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < regex.length(); ++i) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (++i == regex.length()) {
+                    return null;
+                }
+                c = regex.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    return null;
+                }
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                return null;
+            }
+            if (Character.isSurrogate(c)) {
+                return null;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isLiteralReplacement(String replacement) {
+        return replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runtime counterparts of regex operations for patterns that {@link ConstantRegexTransformer}
+ * proved to contain no metacharacters. They behave exactly as the corresponding
+ * {@link java.util.regex.Pattern} methods, but don't need to build and walk a matcher.
+ */
+public final class LiteralRegex {
+    private LiteralRegex() {
+    }
+
+    public static String[] split(String input, String literal) {
+        return split(input, literal, 0);
+    }
+
+    public static String[] split(String input, String literal, int limit) {
+        int index = input.indexOf(literal);
+        if (index < 0 || limit == 1) {
+            return new String[] { input };
+        }
+
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (index >= 0 && (limit <= 0 || parts.size() < limit - 1)) {
+            parts.add(input.substring(start, index));
+            start = index + literal.length();
+            index = input.indexOf(literal, start);
+        }
+        parts.add(input.substring(start));
+
+        int size = parts.size();
+        if (limit == 0) {
+            while (size > 0 && parts.get(size - 1).isEmpty()) {
+                --size;
+            }
+        }
+        return parts.subList(0, size).toArray(new String[size]);
+    }
+
+    public static String replaceFirst(String input, String literal, String replacement) {
+        int index = input.indexOf(literal);
+        if (index < 0) {
+            return input;
+        }
+        return input.substring(0, index) + replacement + input.substring(index + literal.length());
+    }
+}
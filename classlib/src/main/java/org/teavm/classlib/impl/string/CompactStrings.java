@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.string;
+
+/**
+ * Operations on the storage of a string in compact mode. Storage is either {@code byte[]}, when all
+ * characters fit into Latin-1, or {@code char[]} otherwise, so the class of the array plays the role of
+ * the coder and strings don't need an additional field.
+ * <p>
+ * {@link DefaultStringTransformer} turns array casts in this class into unchecked ones, since
+ * every cast is guarded by an {@code instanceof} check. {@code length()} and {@code charAt()} don't
+ * go through this class: the transformer expands the same check directly in {@code String}.
+ */
+public final class CompactStrings {
+    private CompactStrings() {
+    }
+
+    public static Object compress(char[] chars, int offset, int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; ++i) {
+            char c = chars[offset + i];
+            if (c > 0xFF) {
+                char[] copy = new char[count];
+                System.arraycopy(chars, offset, copy, 0, count);
+                return copy;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    public static Object take(char[] chars) {
+        for (char c : chars) {
+            if (c > 0xFF) {
+                return chars;
+            }
+        }
+        byte[] bytes = new byte[chars.length];
+        for (int i = 0; i < chars.length; ++i) {
+            bytes[i] = (byte) chars[i];
+        }
+        return bytes;
+    }
+
+    public static Object substring(Object value, int offset, int count) {
+        if (value instanceof byte[]) {
+            byte[] bytes = new byte[count];
+            System.arraycopy(value, offset, bytes, 0, count);
+            return bytes;
+        }
+        return compress((char[]) value, offset, count);
+    }
+
+    public static void getChars(Object value, int begin, char[] dst, int dstBegin, int length) {
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            for (int i = 0; i < length; ++i) {
+                dst[dstBegin + i] = (char) (bytes[begin + i] & 0xFF);
+            }
+        } else {
+            System.arraycopy(value, begin, dst, dstBegin, length);
+        }
+    }
+
+    // Only used by String.getBytes() for charsets without a Latin-1 shortcut, where the encoder
+    // reads every character anyway, so inflating doesn't change the complexity of the call
+    public static char[] toCharArray(Object value) {
+        if (value instanceof byte[]) {
+            return inflate((byte[]) value);
+        }
+        return (char[]) value;
+    }
+
+    public static byte[] latin1(Object value) {
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    public static char[] inflate(byte[] bytes) {
+        char[] chars = new char[bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i] = (char) (bytes[i] & 0xFF);
+        }
+        return chars;
+    }
+}
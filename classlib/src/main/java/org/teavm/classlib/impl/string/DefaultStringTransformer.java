@@ -15,32 +15,70 @@
  */
 package org.teavm.classlib.impl.string;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.teavm.model.AccessLevel;
+import org.teavm.model.BasicBlock;
 import org.teavm.model.ClassHolder;
 import org.teavm.model.ClassHolderTransformer;
 import org.teavm.model.ClassHolderTransformerContext;
 import org.teavm.model.FieldHolder;
 import org.teavm.model.FieldReference;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
 import org.teavm.model.MethodReference;
+import org.teavm.model.Phi;
 import org.teavm.model.Program;
 import org.teavm.model.ValueType;
+import org.teavm.model.Variable;
 import org.teavm.model.instructions.ArrayElementType;
 import org.teavm.model.instructions.ArrayLengthInstruction;
+import org.teavm.model.instructions.BinaryInstruction;
+import org.teavm.model.instructions.BinaryOperation;
+import org.teavm.model.instructions.BranchingCondition;
+import org.teavm.model.instructions.BranchingInstruction;
+import org.teavm.model.instructions.CastInstruction;
 import org.teavm.model.instructions.ConstructArrayInstruction;
 import org.teavm.model.instructions.GetElementInstruction;
 import org.teavm.model.instructions.GetFieldInstruction;
 import org.teavm.model.instructions.IntegerConstantInstruction;
 import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.InvokeInstruction;
+import org.teavm.model.instructions.IsInstanceInstruction;
+import org.teavm.model.instructions.JumpInstruction;
+import org.teavm.model.instructions.NullConstantInstruction;
+import org.teavm.model.instructions.NumericOperandType;
 import org.teavm.model.instructions.PutFieldInstruction;
 import org.teavm.model.instructions.UnwrapArrayInstruction;
+import org.teavm.model.util.BasicBlockSplitter;
 
 public class DefaultStringTransformer implements ClassHolderTransformer {
+    private static final FieldReference CHARACTERS = new FieldReference("java.lang.String", "characters");
+    private static final ValueType OBJECT = ValueType.object("java.lang.Object");
+    private static final ValueType CHAR_ARRAY = ValueType.arrayOf(ValueType.CHARACTER);
+    private static final ValueType BYTE_ARRAY = ValueType.arrayOf(ValueType.BYTE);
+    private final boolean compact;
+    private final ValueType charactersType;
+
+    public DefaultStringTransformer() {
+        this(false);
+    }
+
+    /**
+     * @param compact whether to store Latin-1 strings as {@code byte[]}, see {@link CompactStrings}.
+     *                Only backends with linear memory (C and Wasm) support this representation.
+     */
+    public DefaultStringTransformer(boolean compact) {
+        this.compact = compact;
+        charactersType = compact ? OBJECT : CHAR_ARRAY;
+    }
+
     @Override
     public void transformClass(ClassHolder cls, ClassHolderTransformerContext context) {
         if (cls.getName().equals("java.lang.String")) {
             transformString(cls);
+        } else if (compact && cls.getName().equals(CompactStrings.class.getName())) {
+            weakenArrayCasts(cls);
         }
     }
 
@@ -51,7 +89,7 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         }
 
         var charactersField = new FieldHolder("characters");
-        charactersField.setType(ValueType.arrayOf(ValueType.CHARACTER));
+        charactersField.setType(charactersType);
         charactersField.setLevel(AccessLevel.PRIVATE);
         cls.addField(charactersField);
 
@@ -66,7 +104,26 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         }
     }
 
+    private void weakenArrayCasts(ClassHolder cls) {
+        for (var method : cls.getMethods()) {
+            if (method.getProgram() == null) {
+                continue;
+            }
+            for (var block : method.getProgram().getBasicBlocks()) {
+                for (var instruction : block) {
+                    if (instruction instanceof CastInstruction) {
+                        var cast = (CastInstruction) instruction;
+                        if (cast.getTargetType() instanceof ValueType.Array) {
+                            cast.setWeak(true);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private void transformProgram(Program program) {
+        var charactersAccess = new ArrayList<InvokeInstruction>();
         for (var block : program.getBasicBlocks()) {
             for (var instruction : block) {
                 if (!(instruction instanceof InvokeInstruction)) {
@@ -90,10 +147,18 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
                         replaceTakeCharArray(invoke);
                         break;
                     case "charactersLength":
-                        replaceCharactersLength(invoke);
+                        if (compact) {
+                            charactersAccess.add(invoke);
+                        } else {
+                            replaceCharactersLength(invoke);
+                        }
                         break;
                     case "charactersGet":
-                        replaceCharactersGet(invoke);
+                        if (compact) {
+                            charactersAccess.add(invoke);
+                        } else {
+                            replaceCharactersGet(invoke);
+                        }
                         break;
                     case "copyCharsToArray":
                         replaceCopyCharsToArray(invoke);
@@ -101,9 +166,30 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
                     case "fastCharArray":
                         replaceFastCharArray(invoke);
                         break;
+                    case "initWithSubstring":
+                        replaceInitWithSubstring(invoke);
+                        break;
+                    case "latin1Characters":
+                        replaceLatin1Characters(invoke);
+                        break;
+                    case "takeLatin1Array":
+                        replaceTakeLatin1Array(invoke);
+                        break;
+                    case "takeUtf16Array":
+                        putCharacters(invoke, invoke.getInstance(), invoke.getArguments().get(0));
+                        invoke.delete();
+                        break;
                 }
             }
         }
+
+        if (!charactersAccess.isEmpty()) {
+            var splitter = new BasicBlockSplitter(program);
+            for (var invoke : charactersAccess) {
+                replaceCompactCharactersAccess(splitter, invoke);
+            }
+            splitter.fixProgram();
+        }
     }
 
     private void replaceInitWithEmptyChars(InvokeInstruction invoke) {
@@ -117,8 +203,8 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         invoke.insertNext(getField);
 
         var putField = new PutFieldInstruction();
-        putField.setField(new FieldReference("java.lang.String", "characters"));
-        putField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        putField.setField(CHARACTERS);
+        putField.setFieldType(charactersType);
         putField.setInstance(invoke.getInstance());
         putField.setValue(getField.getReceiver());
         putField.setLocation(invoke.getLocation());
@@ -131,16 +217,16 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         var program = invoke.getProgram();
 
         var getField = new GetFieldInstruction();
-        getField.setField(new FieldReference("java.lang.String", "characters"));
-        getField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
         getField.setInstance(invoke.getArguments().get(0));
         getField.setReceiver(program.createVariable());
         getField.setLocation(invoke.getLocation());
         invoke.insertNext(getField);
 
         var putField = new PutFieldInstruction();
-        putField.setField(new FieldReference("java.lang.String", "characters"));
-        putField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        putField.setField(CHARACTERS);
+        putField.setFieldType(charactersType);
         putField.setInstance(invoke.getInstance());
         putField.setValue(getField.getReceiver());
         putField.setLocation(invoke.getLocation());
@@ -150,11 +236,23 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
     }
 
     private void replaceInitWithCharArray(InvokeInstruction invoke) {
+        var args = invoke.getArguments();
+        if (compact) {
+            var value = callHelper(invoke, "compress", OBJECT, CHAR_ARRAY, args.get(0), ValueType.INTEGER,
+                    args.get(1), ValueType.INTEGER, args.get(2));
+            putCharacters(invoke, invoke.getProgram().variableAt(0), value);
+            invoke.delete();
+        } else {
+            copyToNewCharArray(invoke, args.get(0), args.get(1), args.get(2));
+        }
+    }
+
+    private void copyToNewCharArray(InvokeInstruction invoke, Variable source, Variable offset, Variable count) {
         var program = invoke.getProgram();
 
         var createArray = new ConstructArrayInstruction();
         createArray.setItemType(ValueType.CHARACTER);
-        createArray.setSize(invoke.getArguments().get(2));
+        createArray.setSize(count);
         createArray.setReceiver(program.createVariable());
         createArray.setLocation(invoke.getLocation());
         invoke.insertNext(createArray);
@@ -168,13 +266,12 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         arrayCopy.setType(InvocationType.SPECIAL);
         arrayCopy.setMethod(new MethodReference(System.class, "arraycopy", Object.class, int.class,
                 Object.class, int.class, int.class, void.class));
-        arrayCopy.setArguments(invoke.getArguments().get(0), invoke.getArguments().get(1),
-                createArray.getReceiver(), zero.getReceiver(), invoke.getArguments().get(2));
+        arrayCopy.setArguments(source, offset, createArray.getReceiver(), zero.getReceiver(), count);
         zero.insertNext(arrayCopy);
 
         var putField = new PutFieldInstruction();
-        putField.setField(new FieldReference("java.lang.String", "characters"));
-        putField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        putField.setField(CHARACTERS);
+        putField.setFieldType(charactersType);
         putField.setInstance(program.variableAt(0));
         putField.setValue(createArray.getReceiver());
         putField.setLocation(invoke.getLocation());
@@ -184,21 +281,20 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
     }
 
     private void replaceTakeCharArray(InvokeInstruction invoke) {
-        var putField = new PutFieldInstruction();
-        putField.setField(new FieldReference("java.lang.String", "characters"));
-        putField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
-        putField.setInstance(invoke.getInstance());
-        putField.setValue(invoke.getArguments().get(0));
-        putField.setLocation(invoke.getLocation());
-        invoke.replace(putField);
+        var value = invoke.getArguments().get(0);
+        if (compact) {
+            value = callHelper(invoke, "take", OBJECT, CHAR_ARRAY, value);
+        }
+        putCharacters(invoke, invoke.getInstance(), value);
+        invoke.delete();
     }
 
     private void replaceCharactersLength(InvokeInstruction invoke) {
         var program = invoke.getProgram();
 
         var getField = new GetFieldInstruction();
-        getField.setField(new FieldReference("java.lang.String", "characters"));
-        getField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
         getField.setInstance(invoke.getInstance());
         getField.setReceiver(program.createVariable());
         getField.setLocation(invoke.getLocation());
@@ -223,8 +319,8 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         var program = invoke.getProgram();
 
         var getField = new GetFieldInstruction();
-        getField.setField(new FieldReference("java.lang.String", "characters"));
-        getField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
         getField.setInstance(invoke.getInstance());
         getField.setReceiver(program.createVariable());
         getField.setLocation(invoke.getLocation());
@@ -246,12 +342,125 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         invoke.delete();
     }
 
+    /*
+     * length() and charAt() are too hot to go through a CompactStrings call, so the coder check is expanded
+     * in place: a single instanceof branch chooses between byte[] and char[] access, and a phi joins the results.
+     */
+    private void replaceCompactCharactersAccess(BasicBlockSplitter splitter, InvokeInstruction invoke) {
+        if (invoke.getReceiver() == null) {
+            invoke.delete();
+            return;
+        }
+
+        var program = invoke.getProgram();
+        var characters = getCharacters(invoke, invoke.getInstance());
+        var block = invoke.getBasicBlock();
+        var joint = splitter.split(block, invoke);
+        invoke.delete();
+
+        var phi = new Phi();
+        phi.setReceiver(invoke.getReceiver());
+        joint.getPhis().add(phi);
+
+        var isLatin1 = new IsInstanceInstruction();
+        isLatin1.setValue(characters);
+        isLatin1.setType(BYTE_ARRAY);
+        isLatin1.setReceiver(program.createVariable());
+        isLatin1.setLocation(invoke.getLocation());
+        block.add(isLatin1);
+
+        var latin1Block = program.createBasicBlock();
+        var utf16Block = program.createBasicBlock();
+        var branch = new BranchingInstruction(BranchingCondition.NOT_EQUAL);
+        branch.setOperand(isLatin1.getReceiver());
+        branch.setConsequent(latin1Block);
+        branch.setAlternative(utf16Block);
+        branch.setLocation(invoke.getLocation());
+        block.add(branch);
+
+        emitCharactersAccess(latin1Block, invoke, characters, ArrayElementType.BYTE, joint, phi);
+        emitCharactersAccess(utf16Block, invoke, characters, ArrayElementType.CHAR, joint, phi);
+    }
+
+    private void emitCharactersAccess(BasicBlock block, InvokeInstruction invoke, Variable characters,
+            ArrayElementType elementType, BasicBlock joint, Phi phi) {
+        var program = block.getProgram();
+        var latin1 = elementType == ArrayElementType.BYTE;
+
+        var cast = new CastInstruction();
+        cast.setValue(characters);
+        cast.setTargetType(latin1 ? BYTE_ARRAY : CHAR_ARRAY);
+        cast.setWeak(true);
+        cast.setReceiver(program.createVariable());
+        cast.setLocation(invoke.getLocation());
+        block.add(cast);
+
+        var unwrapArray = new UnwrapArrayInstruction(elementType);
+        unwrapArray.setArray(cast.getReceiver());
+        unwrapArray.setReceiver(program.createVariable());
+        unwrapArray.setLocation(invoke.getLocation());
+        block.add(unwrapArray);
+
+        Variable result;
+        if (invoke.getMethod().getName().equals("charactersLength")) {
+            var getLength = new ArrayLengthInstruction();
+            getLength.setArray(unwrapArray.getReceiver());
+            getLength.setReceiver(program.createVariable());
+            getLength.setLocation(invoke.getLocation());
+            block.add(getLength);
+            result = getLength.getReceiver();
+        } else {
+            var getFromArray = new GetElementInstruction(elementType);
+            getFromArray.setArray(unwrapArray.getReceiver());
+            getFromArray.setIndex(invoke.getArguments().get(0));
+            getFromArray.setReceiver(program.createVariable());
+            getFromArray.setLocation(invoke.getLocation());
+            block.add(getFromArray);
+            result = getFromArray.getReceiver();
+
+            if (latin1) {
+                var mask = new IntegerConstantInstruction();
+                mask.setConstant(0xFF);
+                mask.setReceiver(program.createVariable());
+                mask.setLocation(invoke.getLocation());
+                block.add(mask);
+
+                var and = new BinaryInstruction(BinaryOperation.AND, NumericOperandType.INT);
+                and.setFirstOperand(result);
+                and.setSecondOperand(mask.getReceiver());
+                and.setReceiver(program.createVariable());
+                and.setLocation(invoke.getLocation());
+                block.add(and);
+                result = and.getReceiver();
+            }
+        }
+
+        var jump = new JumpInstruction();
+        jump.setTarget(joint);
+        jump.setLocation(invoke.getLocation());
+        block.add(jump);
+
+        var incoming = new Incoming();
+        incoming.setSource(block);
+        incoming.setValue(result);
+        phi.getIncomings().add(incoming);
+    }
+
     private void replaceCopyCharsToArray(InvokeInstruction invoke) {
+        var args = invoke.getArguments();
+        if (compact) {
+            var characters = getCharacters(invoke, invoke.getInstance());
+            callHelper(invoke, null, "getChars", ValueType.VOID, OBJECT, characters, ValueType.INTEGER, args.get(0),
+                    CHAR_ARRAY, args.get(1), ValueType.INTEGER, args.get(2), ValueType.INTEGER, args.get(3));
+            invoke.delete();
+            return;
+        }
+
         var program = invoke.getProgram();
 
         var getField = new GetFieldInstruction();
-        getField.setField(new FieldReference("java.lang.String", "characters"));
-        getField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
         getField.setInstance(invoke.getInstance());
         getField.setReceiver(program.createVariable());
         getField.setLocation(invoke.getLocation());
@@ -261,20 +470,107 @@ public class DefaultStringTransformer implements ClassHolderTransformer {
         arrayCopy.setType(InvocationType.SPECIAL);
         arrayCopy.setMethod(new MethodReference(System.class, "arraycopy", Object.class, int.class,
                 Object.class, int.class, int.class, void.class));
-        arrayCopy.setArguments(getField.getReceiver(), invoke.getArguments().get(0), invoke.getArguments().get(1),
-                invoke.getArguments().get(2), invoke.getArguments().get(3));
+        arrayCopy.setArguments(getField.getReceiver(), args.get(0), args.get(1), args.get(2), args.get(3));
         getField.insertNext(arrayCopy);
 
         invoke.delete();
     }
 
     private void replaceFastCharArray(InvokeInstruction invoke) {
+        if (compact) {
+            var characters = getCharacters(invoke, invoke.getInstance());
+            callHelper(invoke, invoke.getReceiver(), "toCharArray", CHAR_ARRAY, OBJECT, characters);
+            invoke.delete();
+            return;
+        }
+
         var getField = new GetFieldInstruction();
-        getField.setField(new FieldReference("java.lang.String", "characters"));
-        getField.setFieldType(ValueType.arrayOf(ValueType.CHARACTER));
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
         getField.setInstance(invoke.getInstance());
         getField.setReceiver(invoke.getReceiver());
         getField.setLocation(invoke.getLocation());
         invoke.replace(getField);
     }
+
+    private void replaceInitWithSubstring(InvokeInstruction invoke) {
+        var args = invoke.getArguments();
+        var characters = getCharacters(invoke, args.get(0));
+        if (compact) {
+            var value = callHelper(invoke, "substring", OBJECT, OBJECT, characters, ValueType.INTEGER, args.get(1),
+                    ValueType.INTEGER, args.get(2));
+            putCharacters(invoke, invoke.getInstance(), value);
+            invoke.delete();
+        } else {
+            copyToNewCharArray(invoke, characters, args.get(1), args.get(2));
+        }
+    }
+
+    private void replaceLatin1Characters(InvokeInstruction invoke) {
+        if (compact) {
+            var characters = getCharacters(invoke, invoke.getInstance());
+            callHelper(invoke, invoke.getReceiver(), "latin1", BYTE_ARRAY, OBJECT, characters);
+            invoke.delete();
+        } else {
+            var nullConstant = new NullConstantInstruction();
+            nullConstant.setReceiver(invoke.getReceiver());
+            nullConstant.setLocation(invoke.getLocation());
+            invoke.replace(nullConstant);
+        }
+    }
+
+    private void replaceTakeLatin1Array(InvokeInstruction invoke) {
+        var value = invoke.getArguments().get(0);
+        if (!compact) {
+            value = callHelper(invoke, "inflate", CHAR_ARRAY, BYTE_ARRAY, value);
+        }
+        putCharacters(invoke, invoke.getInstance(), value);
+        invoke.delete();
+    }
+
+    private Variable getCharacters(Instruction position, Variable instance) {
+        var getField = new GetFieldInstruction();
+        getField.setField(CHARACTERS);
+        getField.setFieldType(charactersType);
+        getField.setInstance(instance);
+        getField.setReceiver(position.getProgram().createVariable());
+        getField.setLocation(position.getLocation());
+        position.insertPrevious(getField);
+        return getField.getReceiver();
+    }
+
+    private void putCharacters(Instruction position, Variable instance, Variable value) {
+        var putField = new PutFieldInstruction();
+        putField.setField(CHARACTERS);
+        putField.setFieldType(charactersType);
+        putField.setInstance(instance);
+        putField.setValue(value);
+        putField.setLocation(position.getLocation());
+        position.insertPrevious(putField);
+    }
+
+    private Variable callHelper(Instruction position, String name, ValueType resultType, Object... typedArguments) {
+        var result = position.getProgram().createVariable();
+        callHelper(position, result, name, resultType, typedArguments);
+        return result;
+    }
+
+    private void callHelper(Instruction position, Variable receiver, String name, ValueType resultType,
+            Object... typedArguments) {
+        var signature = new ValueType[typedArguments.length / 2 + 1];
+        var arguments = new Variable[typedArguments.length / 2];
+        for (var i = 0; i < arguments.length; ++i) {
+            signature[i] = (ValueType) typedArguments[i * 2];
+            arguments[i] = (Variable) typedArguments[i * 2 + 1];
+        }
+        signature[arguments.length] = resultType;
+
+        var call = new InvokeInstruction();
+        call.setType(InvocationType.SPECIAL);
+        call.setMethod(new MethodReference(CompactStrings.class.getName(), name, signature));
+        call.setArguments(arguments);
+        call.setReceiver(receiver);
+        call.setLocation(position.getLocation());
+        position.insertPrevious(call);
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.text;
+
+import java.math.BigInteger;
+
+public final class ShortestDecimalAnalyzerGenerator {
+    private ShortestDecimalAnalyzerGenerator() {
+    }
+
+    public static void main(String[] args) {
+        // For each k, 10^-k = beta * 2^r with 2^125 <= beta < 2^126, g = floor(beta) + 1 split into 63-bit halves
+        var mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (var k = -324; k <= 292; ++k) {
+            var r = (int) ((-k * 913124641741L) >> 38) - 125;
+            BigInteger g;
+            if (k <= 0) {
+                var pow = BigInteger.TEN.pow(-k);
+                g = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            System.out.println(g.shiftRight(63).longValue() + "L, " + g.and(mask).longValue() + "L,");
+        }
+    }
+}
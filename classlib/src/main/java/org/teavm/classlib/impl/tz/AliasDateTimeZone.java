@@ -26,6 +26,10 @@ public class AliasDateTimeZone extends StorableDateTimeZone {
         this.innerZone = innerZone;
     }
 
+    public DateTimeZone getInnerZone() {
+        return innerZone;
+    }
+
     @Override
     public int getOffset(long instant) {
         return innerZone.getOffset(instant);
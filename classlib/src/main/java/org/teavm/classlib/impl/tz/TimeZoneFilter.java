@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.tz;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Restricts set of time zones embedded into generated code. Time zones are listed in
+ * {@code java.util.TimeZone.available} property, separated by commas. An entry can either be a time zone ID
+ * or an area pattern like {@code Europe/*}. When property is not set, all time zones are available.
+ * UTC and GMT are always available.
+ */
+public final class TimeZoneFilter {
+    public static final String PROPERTY = "java.util.TimeZone.available";
+    private static final String[] ALWAYS_AVAILABLE = { "UTC", "GMT", "Etc/UTC", "Etc/GMT" };
+
+    private Set<String> ids = new HashSet<>();
+    private List<String> areas = new ArrayList<>();
+
+    private TimeZoneFilter() {
+    }
+
+    public static TimeZoneFilter fromProperties(Properties properties) {
+        String value = properties.getProperty(PROPERTY, "").trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        TimeZoneFilter filter = new TimeZoneFilter();
+        for (String id : ALWAYS_AVAILABLE) {
+            filter.ids.add(id);
+        }
+        for (String entry : value.split(" *, *")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (entry.endsWith("/*")) {
+                filter.areas.add(entry.substring(0, entry.length() - 1));
+            } else {
+                filter.ids.add(entry);
+            }
+        }
+        return filter;
+    }
+
+    public boolean accepts(String id) {
+        if (ids.contains(id)) {
+            return true;
+        }
+        for (String area : areas) {
+            if (id.startsWith(area)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
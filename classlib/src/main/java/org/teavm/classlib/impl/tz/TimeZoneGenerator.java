@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.teavm.model.MethodReference;
@@ -84,6 +86,10 @@ public class TimeZoneGenerator implements MetadataGenerator {
         } catch (IOException e) {
             throw new RuntimeException("Error generating time zones", e);
         }
+        TimeZoneFilter filter = TimeZoneFilter.fromProperties(context.getProperties());
+        if (filter != null) {
+            zones = filter(zones, filter);
+        }
         for (StorableDateTimeZone tz : zones) {
             String id = tz.getID();
             int sepIndex = id.indexOf('/');
@@ -111,4 +117,24 @@ public class TimeZoneGenerator implements MetadataGenerator {
 
         return result;
     }
+
+    private static Collection<StorableDateTimeZone> filter(Collection<StorableDateTimeZone> zones,
+            TimeZoneFilter filter) {
+        Map<String, StorableDateTimeZone> zoneMap = new LinkedHashMap<>();
+        for (StorableDateTimeZone tz : zones) {
+            zoneMap.put(tz.getID(), tz);
+        }
+
+        Map<String, StorableDateTimeZone> result = new LinkedHashMap<>();
+        for (StorableDateTimeZone tz : zones) {
+            if (!filter.accepts(tz.getID())) {
+                continue;
+            }
+            // Alias is stored as a reference to another zone, so keep the target zone as well
+            while (tz != null && result.putIfAbsent(tz.getID(), tz) == null && tz instanceof AliasDateTimeZone) {
+                tz = zoneMap.get(((AliasDateTimeZone) tz).getInnerZone().getID());
+            }
+        }
+        return result.values();
+    }
 }
@@ -16,6 +16,7 @@
 package org.teavm.classlib.impl.unicode;
 
 import java.util.Map;
+import org.teavm.classlib.impl.tz.TimeZoneFilter;
 import org.teavm.model.MethodReference;
 import org.teavm.platform.metadata.*;
 
@@ -23,6 +24,7 @@ public class TimeZoneLocalizationGenerator implements MetadataGenerator {
     @Override
     public Resource generateMetadata(MetadataGeneratorContext context, MethodReference method) {
         CLDRReader cldr = context.getService(CLDRReader.class);
+        TimeZoneFilter filter = TimeZoneFilter.fromProperties(context.getProperties());
         ResourceMap<TimeZoneLocalization> localizations = context.createResourceMap();
         for (Map.Entry<String, CLDRLocale> locale : cldr.getKnownLocales().entrySet()) {
             TimeZoneLocalization localization = context.createResource(TimeZoneLocalization.class);
@@ -31,6 +33,9 @@ public class TimeZoneLocalizationGenerator implements MetadataGenerator {
             localizations.put(locale.getKey(), localization);
 
             for (CLDRTimeZone tz : locale.getValue().getTimeZones()) {
+                if (filter != null && !filter.accepts(tz.getArea() + "/" + tz.getLocation())) {
+                    continue;
+                }
                 ResourceMap<StringResource> area;
                 if (!map.has(tz.getArea())) {
                     area = context.createResourceMap();
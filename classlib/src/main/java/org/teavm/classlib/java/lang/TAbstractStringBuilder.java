@@ -16,17 +16,30 @@
 package org.teavm.classlib.java.lang;
 
 import java.util.Arrays;
-import org.teavm.classlib.impl.text.DoubleAnalyzer;
-import org.teavm.classlib.impl.text.FloatAnalyzer;
+import org.teavm.classlib.impl.text.ShortestDecimalAnalyzer;
 import org.teavm.classlib.java.io.TSerializable;
 import org.teavm.classlib.java.util.TArrays;
 
 class TAbstractStringBuilder implements TSerializable, TCharSequence {
     static class Constants {
-        static final long[] longLogPowersOfTen = { 1, 10, 100, 10000, 100000000, 10000000000000000L, };
+        static final int[] intPowersOfTen = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000,
+                1000000000 };
+        static final long[] longPowersOfTen = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+                100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+                100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+                1000000000000000000L };
+        static final char[] digitPairs = createDigitPairs();
 
-        static final DoubleAnalyzer.Result doubleAnalysisResult = new DoubleAnalyzer.Result();
-        static final FloatAnalyzer.Result floatAnalysisResult = new FloatAnalyzer.Result();
+        static final ShortestDecimalAnalyzer.Result decimalAnalysisResult = new ShortestDecimalAnalyzer.Result();
+
+        private static char[] createDigitPairs() {
+            var result = new char[200];
+            for (var i = 0; i < 100; ++i) {
+                result[i * 2] = (char) ('0' + i / 10);
+                result[i * 2 + 1] = (char) ('0' + i % 10);
+            }
+            return result;
+        }
     }
 
     char[] buffer;
@@ -94,6 +107,9 @@ class TAbstractStringBuilder implements TSerializable, TCharSequence {
     }
 
     TAbstractStringBuilder insert(int target, int value, int radix) {
+        if (radix == 10) {
+            return insertDecimal(target, value);
+        }
         boolean positive = true;
         if (value < 0) {
             positive = false;
@@ -143,6 +159,9 @@ class TAbstractStringBuilder implements TSerializable, TCharSequence {
     }
 
     protected TAbstractStringBuilder insert(int target, long value, int radix) {
+        if (radix == 10) {
+            return insertDecimal(target, value);
+        }
         boolean positive = true;
         if (value < 0) {
             positive = false;
@@ -227,98 +246,9 @@ class TAbstractStringBuilder implements TSerializable, TCharSequence {
             return this;
         }
 
-        var number = Constants.floatAnalysisResult;
-        FloatAnalyzer.analyze(value, number);
-        int mantissa = number.mantissa;
-        int exp = number.exponent;
-        boolean negative = number.sign;
-        int intPart = 1;
-        int sz = 1; // Decimal point always included
-        if (negative) {
-            ++sz; // including '-' sign of mantissa
-        }
-
-        // Remove trailing zeros
-        int digits = FloatAnalyzer.PRECISION;
-        int zeros = trailingDecimalZeros(mantissa);
-        if (zeros > 0) {
-            digits -= zeros;
-        }
-        var leadingZeros = 0;
-        var leadingZero = false;
-
-        // Handle special case of exponent close to 0
-        if (exp < 7 && exp >= -3) {
-            if (exp >= 0) {
-                intPart = exp + 1;
-                digits = Math.max(digits, intPart + 1);
-                exp = 0;
-            } else {
-                intPart = 0;
-                leadingZeros = -exp - 1;
-                leadingZero = true;
-                sz++;
-                exp = 0;
-            }
-        }
-
-        // Extend buffer to store exponent
-        if (exp != 0) {
-            sz += 2;
-            if (exp <= -10 || exp >= 10) {
-                ++sz;
-            }
-            if (exp < 0) {
-                ++sz;
-            }
-        }
-
-        if (exp != 0 && digits == intPart) {
-            digits++;
-        }
-        sz += digits + leadingZeros;
-
-        // Print mantissa
-        insertSpace(target, target + sz);
-        if (negative) {
-            buffer[target++] = '-';
-        }
-        int pos = FloatAnalyzer.MAX_POS;
-        if (leadingZero) {
-            buffer[target++] = '0';
-            buffer[target++] = '.';
-            while (leadingZeros-- > 0) {
-                buffer[target++] = '0';
-            }
-        }
-        for (int i = 0; i < digits; ++i) {
-            int intDigit;
-            if (pos > 0) {
-                intDigit = mantissa / pos;
-                mantissa %= pos;
-            } else {
-                intDigit = 0;
-            }
-            buffer[target++] = (char) ('0' + intDigit);
-            if (--intPart == 0) {
-                buffer[target++] = '.';
-            }
-            pos /= 10;
-        }
-
-        // Print exponent
-        if (exp != 0) {
-            buffer[target++] = 'E';
-            if (exp < 0) {
-                exp = -exp;
-                buffer[target++] = '-';
-            }
-            if (exp >= 10) {
-                buffer[target++] = (char) ('0' + exp / 10);
-            }
-            buffer[target++] = (char) ('0' + exp % 10);
-        }
-        return this;
+        var number = Constants.decimalAnalysisResult;
+        ShortestDecimalAnalyzer.analyze(value, number);
+        return insertDecimal(target, number.sign, number.mantissa, number.length, number.exponent);
     }
 
     protected TAbstractStringBuilder append(double value) {
@@ -365,145 +295,176 @@ class TAbstractStringBuilder implements TSerializable, TCharSequence {
             return this;
         }
 
-        var number = Constants.doubleAnalysisResult;
-        DoubleAnalyzer.analyze(value, number);
-        long mantissa = number.mantissa;
-        int exp = number.exponent;
-        boolean negative = number.sign;
-        int intPart = 1;
+        var number = Constants.decimalAnalysisResult;
+        ShortestDecimalAnalyzer.analyze(value, number);
+        return insertDecimal(target, number.sign, number.mantissa, number.length, number.exponent);
+    }
 
-        // Get absolute value
-        int sz = 1; // Decimal point always included
+    private TAbstractStringBuilder insertDecimal(int target, int value) {
+        if (value == Integer.MIN_VALUE) {
+            return insert(target, "-2147483648");
+        }
+        boolean negative = value < 0;
         if (negative) {
-            ++sz; // including '-' sign of mantissa
+            value = -value;
         }
+        int sz = decimalLength(value);
+        if (negative) {
+            ++sz;
+        }
+        insertSpace(target, target + sz);
+        if (negative) {
+            buffer[target] = '-';
+        }
+        writeDigits(target + sz, value);
+        return this;
+    }
 
-        // Remove trailing zeros
-        int digits = DoubleAnalyzer.DECIMAL_PRECISION;
-        int zeros = trailingDecimalZeros(mantissa);
-        if (zeros > 0) {
-            digits -= zeros;
+    private TAbstractStringBuilder insertDecimal(int target, long value) {
+        if (value == (int) value) {
+            return insertDecimal(target, (int) value);
+        }
+        if (value == Long.MIN_VALUE) {
+            return insert(target, "-9223372036854775808");
+        }
+        boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+        int sz = decimalLength(value);
+        if (negative) {
+            ++sz;
         }
-        var leadingZeros = 0;
-        var leadingZero = false;
+        insertSpace(target, target + sz);
+        if (negative) {
+            buffer[target] = '-';
+        }
+        writeDigits(target + sz, value);
+        return this;
+    }
 
-        // Handle special case of exponent close to 0
-        if (exp < 7 && exp >= -3) {
-            if (exp >= 0) {
-                intPart = exp + 1;
-                digits = Math.max(digits, intPart + 1);
-                exp = 0;
-            } else {
-                intPart = 0;
-                leadingZeros = -exp - 1;
-                leadingZero = true;
-                sz++;
-                exp = 0;
-            }
+    // Formats number the same way as Double.toString, i.e. 0.mantissa * 10^(exponent + 1)
+    private TAbstractStringBuilder insertDecimal(int target, boolean negative, long mantissa, int digits,
+            int exponent) {
+        boolean scientific = exponent < -3 || exponent >= 7;
+        int intDigits;
+        if (scientific) {
+            intDigits = 1;
+        } else {
+            intDigits = exponent >= 0 ? exponent + 1 : 0;
         }
 
-        // Extend buffer to store exponent
-        if (exp != 0) {
-            sz += 2;
-            if (exp <= -10 || exp >= 10) {
-                ++sz;
-            }
-            if (exp <= -100 || exp >= 100) {
-                ++sz;
-            }
-            if (exp < 0) {
+        int sz;
+        if (intDigits == 0) {
+            sz = 2 - exponent - 1 + digits;
+        } else if (digits <= intDigits) {
+            sz = intDigits + 2;
+        } else {
+            sz = digits + 1;
+        }
+        if (negative) {
+            ++sz;
+        }
+        int exponentDigits = 0;
+        if (scientific) {
+            int absExponent = Math.abs(exponent);
+            exponentDigits = absExponent >= 100 ? 3 : absExponent >= 10 ? 2 : 1;
+            sz += 1 + exponentDigits;
+            if (exponent < 0) {
                 ++sz;
             }
         }
 
-        if (exp != 0 && digits == intPart) {
-            digits++;
-        }
-        sz += digits + leadingZeros;
-
-        // Print mantissa
         insertSpace(target, target + sz);
         if (negative) {
             buffer[target++] = '-';
         }
-        long pos = DoubleAnalyzer.DOUBLE_MAX_POS;
-        if (leadingZero) {
+        if (intDigits == 0) {
             buffer[target++] = '0';
             buffer[target++] = '.';
-            while (leadingZeros-- > 0) {
+            for (int i = exponent + 1; i < 0; ++i) {
                 buffer[target++] = '0';
             }
-        }
-        for (int i = 0; i < digits; ++i) {
-            int intDigit;
-            if (pos > 0) {
-                intDigit = (int) (mantissa / pos);
-                mantissa %= pos;
-            } else {
-                intDigit = 0;
+            target += digits;
+            writeDigits(target, mantissa);
+        } else if (digits <= intDigits) {
+            target += digits;
+            writeDigits(target, mantissa);
+            for (int i = digits; i < intDigits; ++i) {
+                buffer[target++] = '0';
             }
-            buffer[target++] = (char) ('0' + intDigit);
-            if (--intPart == 0) {
-                buffer[target++] = '.';
+            buffer[target++] = '.';
+            buffer[target++] = '0';
+        } else {
+            writeDigits(target + digits + 1, mantissa);
+            for (int i = 0; i < intDigits; ++i) {
+                buffer[target + i] = buffer[target + i + 1];
             }
-            pos /= 10;
+            buffer[target + intDigits] = '.';
+            target += digits + 1;
         }
 
-        // Print exponent
-        if (exp != 0) {
+        if (scientific) {
             buffer[target++] = 'E';
-            if (exp < 0) {
-                exp = -exp;
+            if (exponent < 0) {
                 buffer[target++] = '-';
             }
-            if (exp >= 100) {
-                buffer[target++] = (char) ('0' + exp / 100);
-                exp %= 100;
-                buffer[target++] = (char) ('0' + exp / 10);
-            } else if (exp >= 10) {
-                buffer[target++] = (char) ('0' + exp / 10);
-            }
-            buffer[target++] = (char) ('0' + exp % 10);
+            writeDigits(target + exponentDigits, Math.abs(exponent));
         }
         return this;
     }
 
-    private static int trailingDecimalZeros(int n) {
-        if (n % 1000000000 == 0) {
-            return 9;
-        }
-        int result = 0;
-        int zeros = 1;
-        if (n % 100000000 == 0) {
-            result |= 8;
-            zeros *= 100000000;
+    private static int decimalLength(int value) {
+        int length = 1;
+        while (length < Constants.intPowersOfTen.length && value >= Constants.intPowersOfTen[length]) {
+            ++length;
         }
-        if (n % (zeros * 10000) == 0) {
-            result |= 4;
-            zeros *= 10000;
-        }
-        if (n % (zeros * 100) == 0) {
-            result |= 2;
-            zeros *= 100;
+        return length;
+    }
+
+    private static int decimalLength(long value) {
+        int length = 1;
+        while (length < Constants.longPowersOfTen.length && value >= Constants.longPowersOfTen[length]) {
+            ++length;
         }
-        if (n % (zeros * 10) == 0) {
-            result |= 1;
+        return length;
+    }
+
+    // Writes decimal digits of non-negative value, so that the last one is right before the end position
+    private void writeDigits(int end, int value) {
+        var pairs = Constants.digitPairs;
+        while (value >= 100) {
+            int quotient = value / 100;
+            int pair = (value - quotient * 100) << 1;
+            value = quotient;
+            buffer[--end] = pairs[pair + 1];
+            buffer[--end] = pairs[pair];
+        }
+        if (value >= 10) {
+            int pair = value << 1;
+            buffer[--end] = pairs[pair + 1];
+            buffer[--end] = pairs[pair];
+        } else {
+            buffer[--end] = (char) ('0' + value);
         }
-        return result;
     }
 
-    private static int trailingDecimalZeros(long n) {
-        long zeros = 1;
-        int result = 0;
-        int bit = 16;
-        for (int i = Constants.longLogPowersOfTen.length - 1; i >= 0; --i) {
-            if (n % (zeros * Constants.longLogPowersOfTen[i]) == 0) {
-                result |= bit;
-                zeros *= Constants.longLogPowersOfTen[i];
+    private void writeDigits(int end, long value) {
+        var pairs = Constants.digitPairs;
+        // Split long into chunks of 8 digits to perform most of divisions on ints
+        while (value > Integer.MAX_VALUE) {
+            long quotient = value / 100000000;
+            int chunk = (int) (value - quotient * 100000000);
+            value = quotient;
+            for (int i = 0; i < 4; ++i) {
+                int chunkQuotient = chunk / 100;
+                int pair = (chunk - chunkQuotient * 100) << 1;
+                chunk = chunkQuotient;
+                buffer[--end] = pairs[pair + 1];
+                buffer[--end] = pairs[pair];
             }
-            bit >>>= 1;
         }
-        return result;
+        writeDigits(end, (int) value);
     }
 
     protected TAbstractStringBuilder append(char c) {
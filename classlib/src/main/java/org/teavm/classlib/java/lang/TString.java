@@ -25,6 +25,8 @@ import org.teavm.classlib.java.io.TUnsupportedEncodingException;
 import org.teavm.classlib.java.nio.TByteBuffer;
 import org.teavm.classlib.java.nio.TCharBuffer;
 import org.teavm.classlib.java.nio.charset.TCharset;
+import org.teavm.classlib.java.nio.charset.impl.TAsciiCharset;
+import org.teavm.classlib.java.nio.charset.impl.TIso8859Charset;
 import org.teavm.classlib.java.nio.charset.impl.TUTF8Charset;
 import org.teavm.classlib.java.util.TArrays;
 import org.teavm.classlib.java.util.TComparator;
@@ -126,6 +128,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     private void initWithBytes(byte[] bytes, int offset, int length, TCharset charset) {
+        if (!PlatformDetector.isJavaScript() && initWithLatin1Bytes(bytes, offset, length, charset)) {
+            return;
+        }
         TCharBuffer buffer = charset.decode(TByteBuffer.wrap(bytes, offset, length));
         char[] characters;
         if (buffer.hasArray() && buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
@@ -137,6 +142,25 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         takeCharArray(characters);
     }
 
+    private boolean initWithLatin1Bytes(byte[] bytes, int offset, int length, TCharset charset) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (!(charset instanceof TIso8859Charset)) {
+            if (!(charset instanceof TUTF8Charset) && !(charset instanceof TAsciiCharset)) {
+                return false;
+            }
+            for (int i = 0; i < length; ++i) {
+                if (bytes[offset + i] < 0) {
+                    return false;
+                }
+            }
+        }
+        takeLatin1Array(TArrays.copyOfRange(bytes, offset, offset + length));
+        return true;
+    }
+
+    @NoSideEffects
+    private native void takeLatin1Array(byte[] characters);
+
     public TString(TStringBuffer sb) {
         initWithCharArray(sb.buffer, 0, sb.length());
     }
@@ -146,9 +170,13 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     private TString(int length) {
-        takeCharArray(new char[length]);
+        takeUtf16Array(new char[length]);
     }
 
+    // Unlike takeCharArray, never compacts the array, since callers fill it after the string is created
+    @NoSideEffects
+    private native void takeUtf16Array(char[] characters);
+
     private static TString allocate(int size) {
         return new TString(size);
     }
@@ -441,9 +469,17 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
             }
             return new TString(substringJS(nativeString(), beginIndex, endIndex));
         }
-        return new TString(fastCharArray(), beginIndex, endIndex - beginIndex);
+        Objects.checkFromIndexSize(beginIndex, endIndex - beginIndex, length);
+        return new TString(this, beginIndex, endIndex - beginIndex);
+    }
+
+    private TString(TString source, int offset, int count) {
+        initWithSubstring(source, offset, count);
     }
 
+    @NoSideEffects
+    private native void initWithSubstring(TString source, int offset, int count);
+
     @NoSideEffects
     private native static Object substringJS(Object nativeString, int start, int end);
 
@@ -714,6 +750,15 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     public byte[] getBytes(TCharset charset) {
+        if (!PlatformDetector.isJavaScript()) {
+            var latin1 = latin1Characters();
+            if (latin1 != null) {
+                var result = encodeLatin1(latin1, charset);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
         TByteBuffer buffer = charset.encode(TCharBuffer.wrap(fastCharArray()));
         if (buffer.hasArray() && buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
             return buffer.array();
@@ -727,6 +772,46 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     @NoSideEffects
     private native char[] fastCharArray();
 
+    @NoSideEffects
+    private native byte[] latin1Characters();
+
+    private static byte[] encodeLatin1(byte[] latin1, TCharset charset) {
+        if (charset instanceof TIso8859Charset) {
+            return latin1.clone();
+        } else if (charset instanceof TAsciiCharset) {
+            var result = latin1.clone();
+            for (int i = 0; i < result.length; ++i) {
+                if (result[i] < 0) {
+                    result[i] = '?';
+                }
+            }
+            return result;
+        } else if (charset instanceof TUTF8Charset) {
+            int size = latin1.length;
+            for (byte b : latin1) {
+                if (b < 0) {
+                    size++;
+                }
+            }
+            if (size == latin1.length) {
+                return latin1.clone();
+            }
+            var result = new byte[size];
+            int j = 0;
+            for (byte b : latin1) {
+                if (b < 0) {
+                    int c = b & 0xFF;
+                    result[j++] = (byte) (0xC0 | (c >> 6));
+                    result[j++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    result[j++] = b;
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
     @Override
     public int hashCode() {
         if (hashCode == 0) {
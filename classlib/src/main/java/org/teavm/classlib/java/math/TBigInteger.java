@@ -1249,6 +1249,16 @@ public class TBigInteger extends Number implements Comparable<TBigInteger>, Seri
             return new TBigInteger[] { ZERO, this };
         }
         int thisSign = sign;
+        if (TDivision.useBurnikelZiegler(thisLen, divisorLen)) {
+            TBigInteger[] result = TDivision.divideAndRemainderBurnikelZiegler(abs(), divisor.abs());
+            if (thisSign != divisorSign) {
+                result[0] = result[0].negate();
+            }
+            if (thisSign < 0) {
+                result[1] = result[1].negate();
+            }
+            return result;
+        }
         int quotientLength = thisLen - divisorLen + 1;
         int remainderLength = divisorLen;
         int quotientSign = thisSign == divisorSign ? 1 : -1;
@@ -1299,6 +1309,10 @@ public class TBigInteger extends Number implements Comparable<TBigInteger>, Seri
         if (cmp == LESS) {
             return ZERO;
         }
+        if (TDivision.useBurnikelZiegler(thisLen, divisorLen)) {
+            TBigInteger result = TDivision.divideAndRemainderBurnikelZiegler(abs(), divisor.abs())[0];
+            return thisSign == divisorSign ? result : result.negate();
+        }
         int resLength = thisLen - divisorLen + 1;
         int[] resDigits = new int[resLength];
         int resSign = thisSign == divisorSign ? 1 : -1;
@@ -1335,6 +1349,10 @@ public class TBigInteger extends Number implements Comparable<TBigInteger>, Seri
                 divisor.digits, thisLen)) == LESS) {
             return this;
         }
+        if (TDivision.useBurnikelZiegler(thisLen, divisorLen)) {
+            TBigInteger result = TDivision.divideAndRemainderBurnikelZiegler(abs(), divisor.abs())[1];
+            return sign < 0 ? result.negate() : result;
+        }
         int resLength = divisorLen;
         int[] resDigits = new int[resLength];
         if (resLength == 1) {
@@ -44,6 +44,19 @@ class TConversion {
             308915776, 387420489, 481890304, 594823321, 729000000, 887503681, 1073741824, 1291467969, 1544804416,
             1838265625, 60466176 };
 
+    /**
+     * Break point in digits (number of {@code int} elements) between
+     * divide-and-conquer and schoolbook radix conversion.
+     */
+    static final int whenUseRecursiveToString = 40; // an heuristic value
+
+    private static final double LOG_TWO = Math.log(2.0);
+
+    /**
+     * Cache of powers of radices: {@code radixPowers[radix][i] = radix^(2^i)}.
+     */
+    private static TBigInteger[][] radixPowers = new TBigInteger[Character.MAX_RADIX + 1][];
+
 
     /** @see TBigInteger#toString(int) */
     static String bigInteger2String(TBigInteger val, int radix) {
@@ -72,7 +85,9 @@ class TConversion {
         char[] result = new char[resLengthInChars];
         int currentChar = resLengthInChars;
         int resDigit;
-        if (radix != 16) {
+        if (radix != 16 && numberLength >= whenUseRecursiveToString) {
+            currentChar = writeDigitsRecursive(val.abs(), radix, result, currentChar, 0);
+        } else if (radix != 16) {
             int[] temp = new int[numberLength];
             System.arraycopy(digits, 0, temp, 0, numberLength);
             int tempLen = numberLength;
@@ -119,6 +134,77 @@ class TConversion {
         return new String(result, currentChar, resLengthInChars - currentChar);
     }
 
+    /**
+     * Writes digits of a non-negative number using divide-and-conquer algorithm: the number is
+     * divided by {@code radix^(2^k)} close to its square root, and both quotient and remainder are
+     * converted recursively, so that conversion takes time of a division instead of quadratic time.
+     *
+     * @param end position right after the last digit
+     * @param minDigits minimal number of digits to write, padding with leading zeros
+     * @return position of the first written digit
+     */
+    private static int writeDigitsRecursive(TBigInteger val, int radix, char[] result, int end, int minDigits) {
+        int start;
+        if (val.numberLength < whenUseRecursiveToString) {
+            start = val.sign == 0 ? end : writeDigitsSchoolbook(val, radix, result, end);
+        } else {
+            int exponent = (int) Math.round(Math.log(val.bitLength() * LOG_TWO / Math.log(radix)) / LOG_TWO - 1.0);
+            TBigInteger[] qr = val.divideAndRemainder(radixPower(radix, exponent));
+            int expectedDigits = 1 << exponent;
+            start = writeDigitsRecursive(qr[1], radix, result, end, expectedDigits);
+            start = writeDigitsRecursive(qr[0], radix, result, start, minDigits - expectedDigits);
+        }
+        while (end - start < minDigits) {
+            result[--start] = '0';
+        }
+        return start;
+    }
+
+    private static int writeDigitsSchoolbook(TBigInteger val, int radix, char[] result, int end) {
+        int[] temp = new int[val.numberLength];
+        int tempLen = val.numberLength;
+        System.arraycopy(val.digits, 0, temp, 0, tempLen);
+        int charsPerInt = digitFitInInt[radix];
+        int bigRadix = bigRadices[radix - 2];
+        int currentChar = end;
+        while (true) {
+            int resDigit = TDivision.divideArrayByInt(temp, temp, tempLen, bigRadix);
+            int previous = currentChar;
+            do {
+                result[--currentChar] = Character.forDigit(resDigit % radix, radix);
+                resDigit /= radix;
+            } while (resDigit != 0);
+            while (tempLen > 1 && temp[tempLen - 1] == 0) {
+                tempLen--;
+            }
+            if (tempLen == 1 && temp[0] == 0) {
+                break;
+            }
+            while (previous - currentChar < charsPerInt) {
+                result[--currentChar] = '0';
+            }
+        }
+        return currentChar;
+    }
+
+    private static TBigInteger radixPower(int radix, int exponent) {
+        TBigInteger[] powers = radixPowers[radix];
+        if (powers == null) {
+            powers = new TBigInteger[] { TBigInteger.valueOf(radix) };
+        }
+        if (exponent >= powers.length) {
+            int oldLength = powers.length;
+            TBigInteger[] newPowers = new TBigInteger[exponent + 1];
+            System.arraycopy(powers, 0, newPowers, 0, oldLength);
+            for (int i = oldLength; i <= exponent; ++i) {
+                newPowers[i] = TMultiplication.square(newPowers[i - 1]);
+            }
+            powers = newPowers;
+        }
+        radixPowers[radix] = powers;
+        return powers[exponent];
+    }
+
     /**
      * Builds the correspondent {@code String} representation of {@code val}
      * being scaled by {@code scale}.
@@ -189,6 +275,11 @@ class TConversion {
                     result[--currentChar] = (char) (0x0030 + (prev - v * 10));
                 } while (v != 0);
             }
+        } else if (numberLength >= whenUseRecursiveToString) {
+            currentChar = writeDigitsRecursive(val.abs(), 10, result, currentChar, 0);
+            while (result[currentChar] == '0') {
+                currentChar++;
+            }
         } else {
             int[] temp = new int[numberLength];
             int tempLen = numberLength;
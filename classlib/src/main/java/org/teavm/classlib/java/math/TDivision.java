@@ -339,6 +339,124 @@ class TDivision {
         return new TBigInteger[] { result0, result1 };
     }
 
+    /**
+     * Break point in digits (number of {@code int} elements) of the divisor
+     * between Burnikel-Ziegler and schoolbook division.
+     */
+    static final int whenUseBurnikelZiegler = 80; // an heuristic value
+
+    /**
+     * Minimal difference of lengths (in {@code int} elements) of the dividend
+     * and the divisor to use Burnikel-Ziegler division.
+     */
+    static final int burnikelZieglerOffset = 40;
+
+    static boolean useBurnikelZiegler(int dividendLength, int divisorLength) {
+        return divisorLength >= whenUseBurnikelZiegler
+                && dividendLength - divisorLength >= burnikelZieglerOffset;
+    }
+
+    /**
+     * Computes the quotient and the remainder of two positive numbers using recursive
+     * algorithm by Christoph Burnikel and Joachim Ziegler, "Fast Recursive Division".
+     * The divisor is normalized and padded to {@code n = j * 2^k} ints; the dividend is split
+     * into blocks of {@code n} ints, which are divided one after another using
+     * {@link #divide2n1n(TBigInteger, TBigInteger, int)}.
+     *
+     * @return an array of the form {@code [quotient, remainder]}.
+     */
+    static TBigInteger[] divideAndRemainderBurnikelZiegler(TBigInteger a, TBigInteger b) {
+        int s = b.numberLength;
+        int m = 1 << (32 - Integer.numberOfLeadingZeros(s / whenUseBurnikelZiegler));
+        int j = (s + m - 1) / m;
+        int n = j * m;
+        int n32 = n << 5;
+        int sigma = Math.max(0, n32 - b.bitLength());
+        b = b.shiftLeft(sigma);
+        a = a.shiftLeft(sigma);
+
+        // number of blocks, chosen so that the highest bit of the highest block is zero
+        int t = Math.max((a.bitLength() + n32) / n32, 2);
+        int[] quotientDigits = new int[(t - 1) * n];
+        TBigInteger z = TMultiplication.getRange(a, (t - 2) * n, a.numberLength);
+        for (int i = t - 2; i >= 0; i--) {
+            TBigInteger[] qr = divide2n1n(z, b, n);
+            System.arraycopy(qr[0].digits, 0, quotientDigits, i * n, qr[0].numberLength);
+            z = qr[1];
+            if (i > 0) {
+                z = z.shiftLeft(n32).add(TMultiplication.getRange(a, (i - 1) * n, Math.min(i * n,
+                        a.numberLength)));
+            }
+        }
+
+        TBigInteger quotient = new TBigInteger(1, quotientDigits.length, quotientDigits);
+        quotient.cutOffLeadingZeroes();
+        return new TBigInteger[] { quotient, z.shiftRight(sigma) };
+    }
+
+    /**
+     * Divides a 2n-int number by an n-int number, with the requirement that
+     * {@code a < b * 2^(32n)} and highest bit of {@code b} is set.
+     */
+    private static TBigInteger[] divide2n1n(TBigInteger a, TBigInteger b, int n) {
+        if ((n & 1) != 0 || n < whenUseBurnikelZiegler) {
+            return divideAndRemainderSchoolbook(a, b);
+        }
+        int half = n >> 1;
+        TBigInteger[] qr1 = divide3n2n(TMultiplication.getUpper(a, half), b, half);
+        TBigInteger[] qr2 = divide3n2n(qr1[1].shiftLeft(half << 5).add(TMultiplication.getLower(a, half)), b, half);
+        return new TBigInteger[] { qr1[0].shiftLeft(half << 5).add(qr2[0]), qr2[1] };
+    }
+
+    /**
+     * Divides a 3n-int number by a 2n-int number, with the requirement that
+     * {@code a < b * 2^(32n)} and highest bit of {@code b} is set.
+     */
+    private static TBigInteger[] divide3n2n(TBigInteger a, TBigInteger b, int n) {
+        int shift = n << 5;
+        TBigInteger b1 = TMultiplication.getUpper(b, n);
+        TBigInteger b2 = TMultiplication.getLower(b, n);
+        TBigInteger a12 = TMultiplication.getUpper(a, n);
+        TBigInteger a1 = TMultiplication.getUpper(a, n << 1);
+
+        TBigInteger q;
+        TBigInteger r1;
+        if (a1.compareTo(b1) < 0) {
+            TBigInteger[] qr = divide2n1n(a12, b1, n);
+            q = qr[0];
+            r1 = qr[1];
+        } else {
+            // q = 2^(32n) - 1, r1 = a12 - q * b1
+            q = TBigInteger.getPowerOfTwo(shift).subtract(TBigInteger.ONE);
+            r1 = a12.subtract(b1.shiftLeft(shift)).add(b1);
+        }
+
+        TBigInteger r = r1.shiftLeft(shift).add(TMultiplication.getLower(a, n)).subtract(q.multiply(b2));
+        while (r.sign < 0) {
+            r = r.add(b);
+            q = q.subtract(TBigInteger.ONE);
+        }
+        return new TBigInteger[] { q, r };
+    }
+
+    private static TBigInteger[] divideAndRemainderSchoolbook(TBigInteger a, TBigInteger b) {
+        if (a.compareTo(b) < 0) {
+            return new TBigInteger[] { TBigInteger.ZERO, a };
+        }
+        if (b.numberLength == 1) {
+            return divideAndRemainderByInteger(a, b.digits[0], 1);
+        }
+        int quotientLength = a.numberLength - b.numberLength + 1;
+        int[] quotientDigits = new int[quotientLength];
+        int[] remainderDigits = divide(quotientDigits, quotientLength, a.digits, a.numberLength, b.digits,
+                b.numberLength);
+        TBigInteger quotient = new TBigInteger(1, quotientLength, quotientDigits);
+        TBigInteger remainder = new TBigInteger(1, b.numberLength, remainderDigits);
+        quotient.cutOffLeadingZeroes();
+        remainder.cutOffLeadingZeroes();
+        return new TBigInteger[] { quotient, remainder };
+    }
+
     /**
      * Multiplies an array by int and subtracts it from a subarray of another
      * array.
@@ -30,6 +30,19 @@ class TMultiplication {
      */
     static final int whenUseKaratsuba = 63; // an heuristic value
 
+    /**
+     * Break point in digits (number of {@code int} elements)
+     * between Toom-Cook 3-way and Karatsuba multiply.
+     */
+    static final int whenUseToomCook = 240; // an heuristic value
+
+    /**
+     * Break points in digits (number of {@code int} elements) for squaring
+     * using Karatsuba and Toom-Cook 3-way algorithms respectively.
+     */
+    static final int whenUseKaratsubaSquare = 128;
+    static final int whenUseToomCookSquare = 216;
+
     /**
      * An array with powers of ten that fit in the type {@code int}.
      * ({@code 10^0,10^1,...,10^9})
@@ -79,7 +92,186 @@ class TMultiplication {
      * @see TBigInteger#multiply(TBigInteger)
      */
     static TBigInteger multiply(TBigInteger x, TBigInteger y) {
-        return karatsuba(x, y);
+        if (x.sign == 0 || y.sign == 0) {
+            return TBigInteger.ZERO;
+        }
+        if (x == y) {
+            return square(x);
+        }
+        if (x.numberLength < whenUseToomCook && y.numberLength < whenUseToomCook
+                || x.numberLength < whenUseKaratsuba || y.numberLength < whenUseKaratsuba) {
+            return karatsuba(x, y);
+        }
+        return toomCook3(x, y);
+    }
+
+    /**
+     * Performs the multiplication with the Toom-Cook 3-way algorithm, using evaluation
+     * points 0, 1, -1, 2 and infinity and the interpolation sequence by Marco Bodrato.
+     * Operands are split into three slices, so that five multiplications of a third of
+     * the size are performed instead of nine.
+     *
+     * @param a first factor of the product
+     * @param b second factor of the product
+     * @return {@code a * b}
+     * @see #multiply(TBigInteger, TBigInteger)
+     */
+    static TBigInteger toomCook3(TBigInteger a, TBigInteger b) {
+        int largest = Math.max(a.numberLength, b.numberLength);
+        // k is the size (in ints) of the lower-order slices, the highest-order slice may be shorter
+        int k = (largest + 2) / 3;
+
+        TBigInteger a2 = getToomSlice(a, k, 2);
+        TBigInteger a1 = getToomSlice(a, k, 1);
+        TBigInteger a0 = getToomSlice(a, k, 0);
+        TBigInteger b2 = getToomSlice(b, k, 2);
+        TBigInteger b1 = getToomSlice(b, k, 1);
+        TBigInteger b0 = getToomSlice(b, k, 0);
+
+        TBigInteger v0 = multiply(a0, b0);
+        TBigInteger da1 = a2.add(a0);
+        TBigInteger db1 = b2.add(b0);
+        TBigInteger vm1 = multiply(da1.subtract(a1), db1.subtract(b1));
+        da1 = da1.add(a1);
+        db1 = db1.add(b1);
+        TBigInteger v1 = multiply(da1, db1);
+        TBigInteger v2 = multiply(da1.add(a2).shiftLeft(1).subtract(a0), db1.add(b2).shiftLeft(1).subtract(b0));
+        TBigInteger vinf = multiply(a2, b2);
+
+        TBigInteger t2 = exactDivideBy3(v2.subtract(vm1));
+        TBigInteger tm1 = v1.subtract(vm1).shiftRight(1);
+        TBigInteger t1 = v1.subtract(v0);
+        t2 = t2.subtract(t1).shiftRight(1);
+        t1 = t1.subtract(tm1).subtract(vinf);
+        t2 = t2.subtract(vinf.shiftLeft(1));
+        tm1 = tm1.subtract(t2);
+
+        TBigInteger result = assembleToom(k, vinf, t2, t1, tm1, v0);
+        return a.sign != b.sign ? result.negate() : result;
+    }
+
+    /**
+     * Squares a BigInteger choosing algorithm depending on the size of the operand.
+     */
+    static TBigInteger square(TBigInteger x) {
+        if (x.sign == 0) {
+            return TBigInteger.ZERO;
+        }
+        int len = x.numberLength;
+        if (len < whenUseKaratsubaSquare) {
+            if (len == 1) {
+                long val = unsignedMultAddAdd(x.digits[0], x.digits[0], 0, 0);
+                int valueLo = (int) val;
+                int valueHi = (int) (val >>> 32);
+                return valueHi == 0
+                        ? new TBigInteger(1, valueLo)
+                        : new TBigInteger(1, 2, new int[] { valueLo, valueHi });
+            }
+            TBigInteger result = new TBigInteger(1, len << 1, square(x.digits, len, new int[len << 1]));
+            result.cutOffLeadingZeroes();
+            return result;
+        } else if (len < whenUseToomCookSquare) {
+            return karatsubaSquare(x);
+        } else {
+            return toomCook3Square(x);
+        }
+    }
+
+    /**
+     * Squares a BigInteger using Karatsuba algorithm, which needs only three half-size
+     * squarings: {@code (xh*B + xl)^2 = xh^2 * B^2 + ((xh + xl)^2 - xh^2 - xl^2) * B + xl^2}.
+     */
+    private static TBigInteger karatsubaSquare(TBigInteger x) {
+        int half = (x.numberLength + 1) / 2;
+        TBigInteger xl = getLower(x, half);
+        TBigInteger xh = getUpper(x, half);
+
+        TBigInteger xhs = square(xh);
+        TBigInteger xls = square(xl);
+        int shift = half << 5;
+        return xhs.shiftLeft(shift).add(square(xl.add(xh)).subtract(xhs.add(xls))).shiftLeft(shift).add(xls);
+    }
+
+    /**
+     * Squares a BigInteger using Toom-Cook 3-way algorithm.
+     * @see #toomCook3(TBigInteger, TBigInteger)
+     */
+    private static TBigInteger toomCook3Square(TBigInteger a) {
+        int k = (a.numberLength + 2) / 3;
+
+        TBigInteger a2 = getToomSlice(a, k, 2);
+        TBigInteger a1 = getToomSlice(a, k, 1);
+        TBigInteger a0 = getToomSlice(a, k, 0);
+
+        TBigInteger v0 = square(a0);
+        TBigInteger da1 = a2.add(a0);
+        TBigInteger vm1 = square(da1.subtract(a1));
+        da1 = da1.add(a1);
+        TBigInteger v1 = square(da1);
+        TBigInteger vinf = square(a2);
+        TBigInteger v2 = square(da1.add(a2).shiftLeft(1).subtract(a0));
+
+        TBigInteger t2 = exactDivideBy3(v2.subtract(vm1));
+        TBigInteger tm1 = v1.subtract(vm1).shiftRight(1);
+        TBigInteger t1 = v1.subtract(v0);
+        t2 = t2.subtract(t1).shiftRight(1);
+        t1 = t1.subtract(tm1).subtract(vinf);
+        t2 = t2.subtract(vinf.shiftLeft(1));
+        tm1 = tm1.subtract(t2);
+
+        return assembleToom(k, vinf, t2, t1, tm1, v0);
+    }
+
+    private static TBigInteger assembleToom(int k, TBigInteger vinf, TBigInteger t2, TBigInteger t1,
+            TBigInteger tm1, TBigInteger v0) {
+        int shift = k << 5;
+        return vinf.shiftLeft(shift).add(t2).shiftLeft(shift).add(t1).shiftLeft(shift).add(tm1)
+                .shiftLeft(shift).add(v0);
+    }
+
+    /**
+     * Returns a slice of magnitude of {@code x} to be used in Toom-Cook algorithm. Slices with
+     * indexes 0 and 1 contain {@code k} ints, slice 2 contains the rest of the number.
+     */
+    private static TBigInteger getToomSlice(TBigInteger x, int k, int index) {
+        int start = index * k;
+        int end = index == 2 ? x.numberLength : Math.min(start + k, x.numberLength);
+        return getRange(x, start, end);
+    }
+
+    static TBigInteger getLower(TBigInteger x, int n) {
+        return getRange(x, 0, Math.min(n, x.numberLength));
+    }
+
+    static TBigInteger getUpper(TBigInteger x, int n) {
+        return getRange(x, n, x.numberLength);
+    }
+
+    static TBigInteger getRange(TBigInteger x, int start, int end) {
+        if (start >= end) {
+            return TBigInteger.ZERO;
+        }
+        int length = end - start;
+        int[] digits = new int[length];
+        System.arraycopy(x.digits, start, digits, 0, length);
+        TBigInteger result = new TBigInteger(1, length, digits);
+        result.cutOffLeadingZeroes();
+        return result;
+    }
+
+    /**
+     * Divides a BigInteger by 3, when it's known that the division has no remainder.
+     */
+    private static TBigInteger exactDivideBy3(TBigInteger x) {
+        if (x.sign == 0) {
+            return x;
+        }
+        int length = x.numberLength;
+        int[] digits = new int[length];
+        TDivision.divideArrayByInt(digits, x.digits, length, 3);
+        TBigInteger result = new TBigInteger(x.sign, length, digits);
+        result.cutOffLeadingZeroes();
+        return result;
     }
 
     /**
@@ -347,12 +539,7 @@ class TMultiplication {
                 res = res.multiply(acc);
             }
             // acc = base^(2^i)
-            //a limit where karatsuba performs a faster square than the square algorithm
-            if (acc.numberLength == 1) {
-                acc = acc.multiply(acc); // square
-            } else {
-                acc = new TBigInteger(1, square(acc.digits, acc.numberLength, new int[acc.numberLength << 1]));
-            }
+            acc = square(acc);
         }
         // exponent == 1, multiply one more time
         res = res.multiply(acc);
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.Test;
+
+public class ShortestDecimalAnalyzerTest {
+    @Test
+    public void knownDoubles() {
+        checkDouble(1.0, 1, 1, 0);
+        checkDouble(0.1, 1, 1, -1);
+        checkDouble(1200.0, 12, 2, 3);
+        checkDouble(-0.023, 23, 2, -2);
+        checkDouble(Double.MAX_VALUE, 17976931348623157L, 17, 308);
+        checkDouble(Double.MIN_VALUE, 49, 2, -324);
+        checkDouble(2E-323, 2, 1, -323);
+    }
+
+    @Test
+    public void knownFloats() {
+        checkFloat(1f, 1, 1, 0);
+        checkFloat(0.023f, 23, 2, -2);
+        checkFloat(Float.MAX_VALUE, 34028235, 8, 38);
+        checkFloat(Float.MIN_VALUE, 14, 2, -45);
+        checkFloat(1.17549E-38f, 117549, 6, -38);
+    }
+
+    @Test
+    public void randomDoublesRoundTrip() {
+        var random = new Random(1);
+        var result = new ShortestDecimalAnalyzer.Result();
+        for (var i = 0; i < 100000; ++i) {
+            var value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value) || value == 0) {
+                continue;
+            }
+            ShortestDecimalAnalyzer.analyze(value, result);
+            assertEquals(value, toBigDecimal(result).doubleValue(), 0);
+            assertTrue(result.length <= 17);
+        }
+    }
+
+    @Test
+    public void randomFloatsRoundTrip() {
+        var random = new Random(1);
+        var result = new ShortestDecimalAnalyzer.Result();
+        for (var i = 0; i < 100000; ++i) {
+            var value = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(value) || Float.isInfinite(value) || value == 0) {
+                continue;
+            }
+            ShortestDecimalAnalyzer.analyze(value, result);
+            assertEquals(value, toBigDecimal(result).floatValue(), 0);
+            assertTrue(result.length <= 9);
+        }
+    }
+
+    private static void checkDouble(double value, long mantissa, int length, int exponent) {
+        var result = new ShortestDecimalAnalyzer.Result();
+        ShortestDecimalAnalyzer.analyze(value, result);
+        check(result, value < 0, mantissa, length, exponent);
+    }
+
+    private static void checkFloat(float value, long mantissa, int length, int exponent) {
+        var result = new ShortestDecimalAnalyzer.Result();
+        ShortestDecimalAnalyzer.analyze(value, result);
+        check(result, value < 0, mantissa, length, exponent);
+    }
+
+    private static void check(ShortestDecimalAnalyzer.Result result, boolean sign, long mantissa, int length,
+            int exponent) {
+        assertEquals(sign, result.sign);
+        assertEquals(mantissa, result.mantissa);
+        assertEquals(length, result.length);
+        assertEquals(exponent, result.exponent);
+        assertFalse(mantissa % 10 == 0);
+    }
+
+    private static BigDecimal toBigDecimal(ShortestDecimalAnalyzer.Result result) {
+        var value = BigDecimal.valueOf(result.mantissa).scaleByPowerOfTen(result.exponent - result.length + 1);
+        return result.sign ? value.negate() : value;
+    }
+}
@@ -114,8 +114,10 @@ import org.teavm.model.lowlevel.ClassInitializerEliminator;
 import org.teavm.model.lowlevel.ClassInitializerTransformer;
 import org.teavm.model.lowlevel.ExportDependencyListener;
 import org.teavm.model.lowlevel.LowLevelNullCheckFilter;
+import org.teavm.model.lowlevel.ObjectLayout;
 import org.teavm.model.lowlevel.ShadowStackTransformer;
 import org.teavm.model.lowlevel.WriteBarrierInsertion;
+import org.teavm.model.lowlevel.WriteOnlyFieldElimination;
 import org.teavm.model.optimization.InliningFilterFactory;
 import org.teavm.model.transformation.BoundCheckInsertion;
 import org.teavm.model.transformation.ClassPatch;
@@ -353,8 +355,20 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         writeBarrierInsertion.apply(program);
     }
 
+    private void eliminateWriteOnlyFields(ListableClassHolderSource classes) {
+        var elimination = new WriteOnlyFieldElimination(new ObjectLayout(characteristics));
+        elimination.apply(classes, controller.getDependencyInfo().getCallGraph());
+        if (System.getProperty("org.teavm.logObjectLayout", "false").equals("true")) {
+            System.out.println("Removed write-only fields: " + elimination.getRemovedFields());
+        }
+    }
+
     @Override
     public void emit(ListableClassHolderSource classes, BuildTarget buildTarget, String outputName) throws IOException {
+        if (!incremental && !heapDump) {
+            eliminateWriteOnlyFields(classes);
+        }
+
         VirtualTableProvider vtableProvider = !incremental ? createVirtualTableProvider(classes) : null;
         ClassHierarchy hierarchy = new ClassHierarchy(classes);
         TagRegistry tagRegistry = !incremental ? new TagRegistry(classes, hierarchy) : null;
@@ -394,11 +408,13 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         stringPool = new SimpleStringPool();
         boolean vmAssertions = Boolean.parseBoolean(System.getProperty("teavm.c.vmAssertions", "false"));
         boolean gcStats = Boolean.parseBoolean(System.getProperty("teavm.c.gcStats", "false"));
+        boolean compactStrings = Boolean.parseBoolean(controller.getProperties().getProperty(
+                "teavm.compactStrings", "false"));
         GenerationContext context = new GenerationContext(vtableProvider, characteristics,
                 controller.getDependencyInfo(), stringPool, nameProvider, fileNames,
                 controller.getDiagnostics(), classes, intrinsics, generators, asyncMethods::contains, buildTarget,
                 controller.getClassInitializerInfo(), incremental,
-                vmAssertions, vmAssertions || heapDump, obfuscated);
+                vmAssertions, vmAssertions || heapDump, obfuscated, compactStrings);
 
         BufferedCodeWriter specialWriter = new BufferedCodeWriter(false);
         BufferedCodeWriter configHeaderWriter = new BufferedCodeWriter(false);
@@ -419,6 +435,9 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         if (gcStats) {
             configHeaderWriter.println("#define TEAVM_GC_STATS 1");
         }
+        if (compactStrings) {
+            configHeaderWriter.println("#define TEAVM_COMPACT_STRINGS 1");
+        }
 
         ClassGenerator classGenerator = new ClassGenerator(context, tagRegistry, decompiler,
                 controller.getCacheStatus());
@@ -852,6 +871,10 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
                 ValueType.object("java.lang.String")) + ";");
         writer.println("teavm_charArrayClass = (TeaVM_Class*) &" + context.getNames().forClassInstance(
                 ValueType.arrayOf(ValueType.CHARACTER)) + ";");
+        if (context.isCompactStrings()) {
+            writer.println("teavm_byteArrayClass = (TeaVM_Class*) &" + context.getNames().forClassInstance(
+                    ValueType.arrayOf(ValueType.BYTE)) + ";");
+        }
         writer.println("teavm_initClasses();");
     }
 
@@ -919,6 +942,11 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         return true;
     }
 
+    @Override
+    public boolean needsGuardedDevirtualization() {
+        return true;
+    }
+
     @Override
     public InliningFilterFactory getInliningFilter() {
         return new LowLevelInliningFilterFactory(characteristics);
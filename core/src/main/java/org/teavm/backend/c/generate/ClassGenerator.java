@@ -73,6 +73,7 @@ import org.teavm.model.instructions.IsInstanceInstruction;
 import org.teavm.model.instructions.StringConstantInstruction;
 import org.teavm.model.lowlevel.CallSiteDescriptor;
 import org.teavm.model.lowlevel.Characteristics;
+import org.teavm.model.lowlevel.ObjectLayout;
 import org.teavm.model.util.ReflectionUtil;
 import org.teavm.runtime.CallSite;
 import org.teavm.runtime.RuntimeArray;
@@ -108,6 +109,8 @@ public class ClassGenerator {
     private AstDependencyExtractor dependencyExtractor = new AstDependencyExtractor();
     private List<CallSiteDescriptor> callSites;
     private ClassMetadataRequirements metadataRequirements;
+    private ObjectLayout objectLayout;
+    private boolean logObjectLayout = System.getProperty("org.teavm.logObjectLayout", "false").equals("true");
     private static final int VT_STRUCTURE_INITIALIZER_DEPTH_THRESHOLD = 9;
 
     public ClassGenerator(GenerationContext context, TagRegistry tagRegistry, Decompiler decompiler,
@@ -117,6 +120,7 @@ public class ClassGenerator {
         this.decompiler = decompiler;
         this.cacheStatus = cacheStatus;
         metadataRequirements = new ClassMetadataRequirements(context.getDependencies());
+        objectLayout = new ObjectLayout(context.getCharacteristics());
     }
 
     public void setAstCache(MethodNodeCache astCache) {
@@ -436,10 +440,20 @@ public class ClassGenerator {
             includes.includeClass(parentName);
         }
 
-        FieldReference[] instanceFields = new FieldReference[cls.getFields().size()];
+        List<FieldReader> orderedFields = objectLayout.getInstanceFields(cls);
+        if (logObjectLayout && writeNeeded) {
+            int declaredSize = ObjectLayout.estimateSize(cls.getFields(), 8);
+            int optimizedSize = ObjectLayout.estimateSize(orderedFields, 8);
+            if (optimizedSize < declaredSize) {
+                System.out.println("Object layout of " + cls.getName() + ": " + declaredSize + " -> "
+                        + optimizedSize + " bytes");
+            }
+        }
+
+        FieldReference[] instanceFields = new FieldReference[orderedFields.size()];
         int instanceIndex = 0;
-        for (FieldHolder field : cls.getFields()) {
-            if (field.hasModifier(ElementModifier.STATIC) || isMonitorField(field.getReference())) {
+        for (FieldReader field : orderedFields) {
+            if (isMonitorField(field.getReference())) {
                 continue;
             }
 
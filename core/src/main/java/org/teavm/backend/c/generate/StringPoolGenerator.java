@@ -35,6 +35,16 @@ public class StringPoolGenerator {
             String s = strings.get(i);
             if (s == null) {
                 writer.println("TEAVM_NULL_STRING");
+            } else if (context.isCompactStrings() && isLatin1(s)) {
+                boolean codes = !isAscii(s);
+                String macroName = codes ? "TEAVM_STRING_LATIN1_FROM_CODES" : "TEAVM_STRING_LATIN1";
+                writer.print(macroName + "(" + s.length() + ", " + s.hashCode() + ",");
+                if (codes) {
+                    generateNumericStringLiteral(writer, s);
+                } else {
+                    generateSimpleStringLiteral(writer, s);
+                }
+                writer.print(")");
             } else {
                 boolean codes = hasBadCharacters(s);
                 String macroName = codes ? "TEAVM_STRING_FROM_CODES" : "TEAVM_STRING";
@@ -83,6 +93,25 @@ public class StringPoolGenerator {
         return false;
     }
 
+    private boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); ++i) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAscii(String string) {
+        for (int i = 0; i < string.length(); ++i) {
+            char c = string.charAt(i);
+            if (c == 0 || c > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static void generateSimpleStringLiteral(CodeWriter writer, String string) {
         if (string.isEmpty()) {
             writer.print("\"\"");
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript;
+
+import java.util.Map;
+import org.teavm.model.MethodReference;
+
+/**
+ * Describes generated JavaScript file in a way that allows to tell whether it differs from the previous build
+ * in method bodies only. In this case changed methods can be patched into running code instead of reloading
+ * the whole file.
+ */
+public class HotSwapSnapshot {
+    private final long skeletonHash;
+    private final Map<MethodReference, String> methods;
+
+    public HotSwapSnapshot(long skeletonHash, Map<MethodReference, String> methods) {
+        this.skeletonHash = skeletonHash;
+        this.methods = methods;
+    }
+
+    public long getSkeletonHash() {
+        return skeletonHash;
+    }
+
+    /**
+     * Returns statements that reassign method declarations.
+     */
+    public Map<MethodReference, String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Produces JavaScript code that turns code described by {@code previous} snapshot into the code described
+     * by this snapshot.
+     *
+     * @return code that should be evaluated in the scope of the generated file, empty string if nothing changed,
+     * or {@code null} if changes can't be applied without reloading file (i.e. something besides method bodies
+     * changed, or a class initializer changed).
+     */
+    public String patchSince(HotSwapSnapshot previous) {
+        if (previous == null || previous.skeletonHash != skeletonHash
+                || !previous.methods.keySet().equals(methods.keySet())) {
+            return null;
+        }
+        var sb = new StringBuilder();
+        for (var entry : methods.entrySet()) {
+            var method = entry.getKey();
+            var code = entry.getValue();
+            if (code.equals(previous.methods.get(method))) {
+                continue;
+            }
+            if (method.getName().equals("<clinit>")) {
+                return null;
+            }
+            sb.append(code).append(";\n");
+        }
+        return sb.toString();
+    }
+}
@@ -116,6 +116,8 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
     private TeaVMTargetController controller;
     private boolean obfuscated = true;
     private boolean stackTraceIncluded;
+    private boolean hotSwapEnabled;
+    private HotSwapSnapshot hotSwapSnapshot;
     private final Map<MethodReference, Generator> methodGenerators = new HashMap<>();
     private final Map<MethodReference, Injector> methodInjectors = new HashMap<>();
     private final List<Function<ProviderContext, Generator>> generatorProviders = new ArrayList<>();
@@ -237,6 +239,26 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         this.maxTopLevelNames = maxTopLevelNames;
     }
 
+    /**
+     * Specifies whether generated code should support replacing method bodies at run time. When enabled,
+     * virtual methods call method declarations by name instead of capturing them, and generated
+     * file installs {@code $teavm_hotswap} global function that evaluates code in the scope of the file.
+     * Only takes effect when code is not obfuscated.
+     *
+     * @see #getHotSwapSnapshot()
+     */
+    public void setHotSwapEnabled(boolean hotSwapEnabled) {
+        this.hotSwapEnabled = hotSwapEnabled;
+    }
+
+    /**
+     * Returns snapshot of the last generated file that can be compared with snapshot of another build
+     * of the same program to produce code for {@code $teavm_hotswap}.
+     */
+    public HotSwapSnapshot getHotSwapSnapshot() {
+        return hotSwapSnapshot;
+    }
+
     @Override
     public List<TeaVMHostExtension> getHostExtensions() {
         return Collections.singletonList(this);
@@ -360,6 +382,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
     }
 
     private void emit(ListableClassHolderSource classes, Writer writer, BuildTarget target) {
+        hotSwapSnapshot = null;
         var aliasProvider = obfuscated
                 ? new MinifyingAliasProvider(maxTopLevelNames)
                 : new DefaultAliasProvider(maxTopLevelNames);
@@ -391,6 +414,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
 
         var builder = new OutputSourceWriterBuilder(naming);
         builder.setMinified(obfuscated);
+        builder.setHotSwapEnabled(isHotSwapSupported());
 
         for (var className : classes.getClassNames()) {
             var cls = classes.get(className);
@@ -408,6 +432,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
                 controller.getEntryPoint());
         renderer.setProperties(controller.getProperties());
         renderer.setProgressConsumer(controller::reportProgress);
+        renderer.setLateBoundVirtualMethods(isHotSwapSupported());
 
         for (var listener : rendererListeners) {
             listener.begin(renderer, target);
@@ -482,14 +507,29 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         declarations.write(sourceWriter, 0);
         runtimeEpilogue.write(sourceWriter, 0);
         epilogue.write(sourceWriter, 0);
+        if (isHotSwapSupported()) {
+            printHotSwapHook(sourceWriter);
+        }
 
         printModuleEnd(sourceWriter);
         sourceWriter.finish();
+        hotSwapSnapshot = sourceWriter.getHotSwapSnapshot();
 
         int totalSize = sourceWriter.getOffset() - start;
         printStats(sourceWriter, totalSize);
     }
 
+    private boolean isHotSwapSupported() {
+        return hotSwapEnabled && !obfuscated;
+    }
+
+    private void printHotSwapHook(SourceWriter writer) {
+        writer.append("globalThis.$teavm_hotswap").ws().append("=").ws().append("code").ws().append("=>")
+                .ws().append("{").indent().softNewLine();
+        writer.append("eval(code);").softNewLine();
+        writer.outdent().append("};").newLine();
+    }
+
     private void printWrapperStart(SourceWriter writer) {
         writer.append("\"use strict\";").newLine();
         printModuleStart(writer);
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.codegen;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.teavm.backend.javascript.HotSwapSnapshot;
+import org.teavm.model.MethodReference;
+
+/**
+ * Splits output of {@link OutputSourceWriter} into method declarations and everything else. Method
+ * declarations are remembered as assignments, while the rest is only hashed.
+ */
+class HotSwapRecorder implements Appendable {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private final Appendable innerWriter;
+    private long skeletonHash = FNV_OFFSET;
+    private Map<MethodReference, String> methods = new LinkedHashMap<>();
+    private MethodReference currentMethod;
+    private StringBuilder currentSource;
+
+    HotSwapRecorder(Appendable innerWriter) {
+        this.innerWriter = innerWriter;
+    }
+
+    void startMethod(MethodReference method, String target) {
+        currentMethod = method;
+        currentSource = new StringBuilder(target);
+    }
+
+    void endMethod() {
+        if (currentMethod != null) {
+            methods.put(currentMethod, currentSource.toString());
+            currentMethod = null;
+            currentSource = null;
+        }
+    }
+
+    HotSwapSnapshot snapshot() {
+        return new HotSwapSnapshot(skeletonHash, methods);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        innerWriter.append(csq, start, end);
+        if (currentSource != null) {
+            currentSource.append(csq, start, end);
+        } else {
+            for (int i = start; i < end; ++i) {
+                hash(csq.charAt(i));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        innerWriter.append(c);
+        if (currentSource != null) {
+            currentSource.append(c);
+        } else {
+            hash(c);
+        }
+        return this;
+    }
+
+    private void hash(char c) {
+        skeletonHash = (skeletonHash ^ c) * FNV_PRIME;
+    }
+}
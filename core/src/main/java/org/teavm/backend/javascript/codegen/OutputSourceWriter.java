@@ -22,6 +22,7 @@ import com.carrotsearch.hppc.ObjectIntMap;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import org.teavm.backend.javascript.HotSwapSnapshot;
 import org.teavm.debugging.information.DebugInformationEmitter;
 import org.teavm.debugging.information.DummyDebugInformationEmitter;
 import org.teavm.model.FieldReference;
@@ -30,7 +31,7 @@ import org.teavm.model.MethodReference;
 
 public class OutputSourceWriter extends SourceWriter implements LocationProvider {
     private static final int LET_SEQUENCE_LIMIT = 50;
-    private final Appendable innerWriter;
+    private Appendable innerWriter;
     private int indentSize;
     private final NamingStrategy naming;
     private boolean lineStart;
@@ -49,6 +50,8 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
     private DeclarationType currentDeclarationType;
     private boolean expectingDeclarationName;
     private int letSequenceSize;
+    private HotSwapRecorder hotSwapRecorder;
+    private MethodReference declaredMethod;
 
     OutputSourceWriter(NamingStrategy naming, Appendable innerWriter, int lineWidth) {
         this.naming = naming;
@@ -65,6 +68,15 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
         this.minified = minified;
     }
 
+    void enableHotSwap() {
+        hotSwapRecorder = new HotSwapRecorder(innerWriter);
+        innerWriter = hotSwapRecorder;
+    }
+
+    public HotSwapSnapshot getHotSwapSnapshot() {
+        return hotSwapRecorder != null ? hotSwapRecorder.snapshot() : null;
+    }
+
     public void finish() {
         finishLet();
     }
@@ -158,6 +170,9 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
 
     @Override
     public SourceWriter appendMethod(MethodReference method) {
+        if (expectingDeclarationName && hotSwapRecorder != null) {
+            declaredMethod = method;
+        }
         return appendDeclaration(naming.methodName(method));
     }
 
@@ -216,6 +231,9 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
         if (currentDeclarationType == null || expectingDeclarationName) {
             throw new IllegalStateException();
         }
+        if (hotSwapRecorder != null) {
+            hotSwapRecorder.endMethod();
+        }
         switch (currentDeclarationType) {
             case FUNCTION:
                 newLine();
@@ -263,6 +281,7 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
                 append(name.name).ws().append('=').ws();
                 break;
             case VARIABLE_WITHOUT_VALUE:
+                declaredMethod = null;
                 if (!name.scoped) {
                     if (letSequenceSize++ == 0) {
                         append("let ");
@@ -275,6 +294,12 @@ public class OutputSourceWriter extends SourceWriter implements LocationProvider
                 currentDeclarationType = null;
                 break;
         }
+        if (declaredMethod != null) {
+            var target = name.scoped ? naming.additionalScopeName() + "." + name.name : name.name;
+            hotSwapRecorder.startMethod(declaredMethod, target + " = "
+                    + (currentDeclarationType == DeclarationType.FUNCTION ? "function" : ""));
+            declaredMethod = null;
+        }
         return this;
     }
 
@@ -19,6 +19,7 @@ public class OutputSourceWriterBuilder {
     private NamingStrategy naming;
     private boolean minified;
     private int lineWidth = 512;
+    private boolean hotSwapEnabled;
 
     public OutputSourceWriterBuilder(NamingStrategy naming) {
         this.naming = naming;
@@ -36,9 +37,16 @@ public class OutputSourceWriterBuilder {
         this.lineWidth = lineWidth;
     }
 
+    public void setHotSwapEnabled(boolean hotSwapEnabled) {
+        this.hotSwapEnabled = hotSwapEnabled;
+    }
+
     public OutputSourceWriter build(Appendable innerWriter) {
         var writer = new OutputSourceWriter(naming, innerWriter, lineWidth);
         writer.setMinified(minified);
+        if (hotSwapEnabled) {
+            writer.enableHotSwap();
+        }
         return writer;
     }
 }
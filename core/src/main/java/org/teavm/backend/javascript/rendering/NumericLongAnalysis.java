@@ -0,0 +1,402 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.teavm.ast.AssignmentStatement;
+import org.teavm.ast.BinaryExpr;
+import org.teavm.ast.ConstantExpr;
+import org.teavm.ast.Expr;
+import org.teavm.ast.OperationType;
+import org.teavm.ast.PrimitiveCastExpr;
+import org.teavm.ast.RecursiveVisitor;
+import org.teavm.ast.RegularMethodNode;
+import org.teavm.ast.UnaryExpr;
+import org.teavm.ast.UnaryOperation;
+import org.teavm.ast.VariableExpr;
+import org.teavm.ast.VariableNode;
+import org.teavm.model.util.VariableType;
+
+/**
+ * Finds long expressions and local variables that provably stay within the range where {@code Number}
+ * represents integers exactly, so that they can be computed with plain {@code Number} arithmetic
+ * instead of {@code BigInt}. Leaves of such expressions are long constants, integers widened to long
+ * and local variables that are only assigned such expressions. Ranges are propagated through addition,
+ * subtraction, multiplication, negation and a few bitwise operations. A variable whose range keeps growing,
+ * like a counter incremented in a loop, stays {@code BigInt}.
+ */
+class NumericLongAnalysis {
+    static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+    private static final double SAFE_LIMIT = 9007199254740992.0;
+    private static final int MAX_RANGE_UPDATES = 4;
+    private static final Range INT_RANGE = new Range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    private static final Range UNSIGNED_INT_RANGE = new Range(0, UNSIGNED_INT_MASK);
+
+    private Range[] variableRanges = new Range[0];
+    private Map<Expr, Range> cache = new IdentityHashMap<>();
+    private boolean complete;
+
+    void analyze(RegularMethodNode method) {
+        clear();
+        int variableCount = 0;
+        for (VariableNode variable : method.getVariables()) {
+            variableCount = Math.max(variableCount, variable.getIndex() + 1);
+        }
+        boolean[] candidates = new boolean[variableCount];
+        for (VariableNode variable : method.getVariables()) {
+            if (variable.getType() == VariableType.LONG
+                    && variable.getIndex() > method.getReference().parameterCount()) {
+                candidates[variable.getIndex()] = true;
+            }
+        }
+
+        UsageCollector usages = new UsageCollector(candidates);
+        method.getBody().acceptVisitor(usages);
+
+        boolean changed;
+        do {
+            computeRanges(candidates, usages.assignments);
+            changed = false;
+            for (int i = 0; i < variableCount; ++i) {
+                if (!candidates[i]) {
+                    continue;
+                }
+                // Converting variable to BigInt on every use may cost more than BigInt arithmetic it saves
+                int numericUsages = usages.numericUsages[i] + usages.assignments.get(i).size();
+                if (variableRanges[i] == null || variableRanges[i].isEmpty()
+                        || usages.bigIntUsages[i] > numericUsages) {
+                    candidates[i] = false;
+                    changed = true;
+                }
+            }
+        } while (changed);
+        complete = true;
+    }
+
+    void clear() {
+        variableRanges = new Range[0];
+        cache.clear();
+        complete = false;
+    }
+
+    boolean isNumeric(int variable) {
+        return variable < variableRanges.length && variableRanges[variable] != null;
+    }
+
+    boolean isNumeric(Expr expr) {
+        return rangeOf(expr) != null;
+    }
+
+    private void computeRanges(boolean[] candidates, List<List<Expr>> assignments) {
+        variableRanges = new Range[candidates.length];
+        int[] updates = new int[candidates.length];
+        for (int i = 0; i < candidates.length; ++i) {
+            if (candidates[i]) {
+                variableRanges[i] = Range.EMPTY;
+            }
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for (int i = 0; i < candidates.length; ++i) {
+                if (variableRanges[i] == null) {
+                    continue;
+                }
+                Range range = Range.EMPTY;
+                for (Expr value : assignments.get(i)) {
+                    Range valueRange = rangeOf(value);
+                    if (valueRange == null) {
+                        range = null;
+                        break;
+                    }
+                    range = range.union(valueRange);
+                }
+                if (!Objects.equals(range, variableRanges[i])) {
+                    if (++updates[i] > MAX_RANGE_UPDATES) {
+                        range = null;
+                    }
+                    variableRanges[i] = range;
+                    changed = true;
+                }
+            }
+        } while (changed);
+    }
+
+    private Range rangeOf(Expr expr) {
+        if (!complete) {
+            return computeRange(expr);
+        }
+        Range range = cache.get(expr);
+        if (range == null && !cache.containsKey(expr)) {
+            range = computeRange(expr);
+            cache.put(expr, range);
+        }
+        return range;
+    }
+
+    private Range computeRange(Expr expr) {
+        if (expr instanceof ConstantExpr) {
+            Object value = ((ConstantExpr) expr).getValue();
+            return value instanceof Long ? Range.of((Long) value, (Long) value) : null;
+        } else if (expr instanceof VariableExpr) {
+            int index = ((VariableExpr) expr).getIndex();
+            return index < variableRanges.length ? variableRanges[index] : null;
+        } else if (expr instanceof PrimitiveCastExpr) {
+            PrimitiveCastExpr cast = (PrimitiveCastExpr) expr;
+            return cast.getSource() == OperationType.INT && cast.getTarget() == OperationType.LONG
+                    ? INT_RANGE
+                    : null;
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr unary = (UnaryExpr) expr;
+            if (unary.getType() != OperationType.LONG || unary.getOperation() != UnaryOperation.NEGATE) {
+                return null;
+            }
+            Range operand = rangeOf(unary.getOperand());
+            return operand != null && !operand.isEmpty() ? Range.of(-operand.upper, -operand.lower) : operand;
+        } else if (expr instanceof BinaryExpr) {
+            return computeBinaryRange((BinaryExpr) expr);
+        }
+        return null;
+    }
+
+    private Range computeBinaryRange(BinaryExpr expr) {
+        if (expr.getType() != OperationType.LONG) {
+            return null;
+        }
+        Range first = rangeOf(expr.getFirstOperand());
+        switch (expr.getOperation()) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY: {
+                Range second = rangeOf(expr.getSecondOperand());
+                if (first == null || second == null) {
+                    return null;
+                }
+                if (first.isEmpty() || second.isEmpty()) {
+                    return Range.EMPTY;
+                }
+                switch (expr.getOperation()) {
+                    case ADD:
+                        return Range.of(first.lower + second.lower, first.upper + second.upper);
+                    case SUBTRACT:
+                        return Range.of(first.lower - second.upper, first.upper - second.lower);
+                    default: {
+                        double a = first.lower * second.lower;
+                        double b = first.lower * second.upper;
+                        double c = first.upper * second.lower;
+                        double d = first.upper * second.upper;
+                        return Range.of(Math.min(Math.min(a, b), Math.min(c, d)),
+                                Math.max(Math.max(a, b), Math.max(c, d)));
+                    }
+                }
+            }
+            case BITWISE_AND: {
+                Range second = rangeOf(expr.getSecondOperand());
+                if (first == null || second == null) {
+                    return null;
+                }
+                Long mask = maskOf(expr);
+                if (mask != null) {
+                    return mask == UNSIGNED_INT_MASK ? UNSIGNED_INT_RANGE : new Range(0, mask);
+                }
+                return first.isInt() && second.isInt() ? INT_RANGE : null;
+            }
+            case BITWISE_OR:
+            case BITWISE_XOR: {
+                Range second = rangeOf(expr.getSecondOperand());
+                return first != null && second != null && first.isInt() && second.isInt() ? INT_RANGE : null;
+            }
+            case LEFT_SHIFT: {
+                Integer shift = shiftOf(expr);
+                if (first == null || shift == null) {
+                    return null;
+                }
+                if (first.isEmpty()) {
+                    return first;
+                }
+                double factor = Math.pow(2, shift);
+                return Range.of(first.lower * factor, first.upper * factor);
+            }
+            case RIGHT_SHIFT: {
+                Integer shift = shiftOf(expr);
+                if (first == null || shift == null || !first.isInt()) {
+                    return null;
+                }
+                if (first.isEmpty()) {
+                    return first;
+                }
+                double factor = Math.pow(2, Math.min(shift, 31));
+                return Range.of(Math.floor(first.lower / factor), Math.floor(first.upper / factor));
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns constant operand of {@code &} that can be applied to a numeric operand with either
+     * {@code >>> 0} or with 32-bit {@code &}, i.e. either a mask of lower 32 bits or a non-negative int.
+     */
+    static Long maskOf(BinaryExpr expr) {
+        Long mask = longConstant(expr.getSecondOperand());
+        if (mask == null) {
+            mask = longConstant(expr.getFirstOperand());
+        }
+        if (mask == null) {
+            return null;
+        }
+        return mask == UNSIGNED_INT_MASK || (mask >= 0 && mask <= Integer.MAX_VALUE) ? mask : null;
+    }
+
+    static Integer shiftOf(BinaryExpr expr) {
+        if (!(expr.getSecondOperand() instanceof ConstantExpr)) {
+            return null;
+        }
+        Object value = ((ConstantExpr) expr.getSecondOperand()).getValue();
+        return value instanceof Integer ? (Integer) value & 63 : null;
+    }
+
+    static Long longConstant(Expr expr) {
+        if (!(expr instanceof ConstantExpr)) {
+            return null;
+        }
+        Object value = ((ConstantExpr) expr).getValue();
+        return value instanceof Long ? (Long) value : null;
+    }
+
+    static class Range {
+        static final Range EMPTY = new Range(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+        final double lower;
+        final double upper;
+
+        Range(double lower, double upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        static Range of(double lower, double upper) {
+            return lower > -SAFE_LIMIT && upper < SAFE_LIMIT ? new Range(lower, upper) : null;
+        }
+
+        boolean isEmpty() {
+            return lower > upper;
+        }
+
+        boolean isInt() {
+            return isEmpty() || (lower >= Integer.MIN_VALUE && upper <= Integer.MAX_VALUE);
+        }
+
+        Range union(Range other) {
+            return new Range(Math.min(lower, other.lower), Math.max(upper, other.upper));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Range)) {
+                return false;
+            }
+            Range other = (Range) obj;
+            return lower == other.lower && upper == other.upper;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lower, upper);
+        }
+    }
+
+    static class UsageCollector extends RecursiveVisitor {
+        private boolean[] candidates;
+        private Deque<Expr> parents = new ArrayDeque<>();
+        private boolean numericRoot;
+        List<List<Expr>> assignments = new ArrayList<>();
+        int[] numericUsages;
+        int[] bigIntUsages;
+
+        UsageCollector(boolean[] candidates) {
+            this.candidates = candidates;
+            for (int i = 0; i < candidates.length; ++i) {
+                assignments.add(new ArrayList<>());
+            }
+            numericUsages = new int[candidates.length];
+            bigIntUsages = new int[candidates.length];
+        }
+
+        @Override
+        public void visit(AssignmentStatement statement) {
+            if (!(statement.getLeftValue() instanceof VariableExpr)) {
+                super.visit(statement);
+                return;
+            }
+            int index = ((VariableExpr) statement.getLeftValue()).getIndex();
+            boolean candidate = index < candidates.length && candidates[index];
+            if (candidate) {
+                if (statement.isAsync()) {
+                    candidates[index] = false;
+                } else {
+                    assignments.get(index).add(statement.getRightValue());
+                }
+            }
+            numericRoot = candidate;
+            statement.getRightValue().acceptVisitor(this);
+            numericRoot = false;
+        }
+
+        @Override
+        protected void beforeVisit(Expr expr) {
+            if (expr instanceof VariableExpr) {
+                int index = ((VariableExpr) expr).getIndex();
+                if (index < candidates.length && candidates[index]) {
+                    Expr parent = parents.peek();
+                    if (parent != null ? isNumericContext(parent) : numericRoot) {
+                        numericUsages[index]++;
+                    } else {
+                        bigIntUsages[index]++;
+                    }
+                }
+            }
+            parents.push(expr);
+        }
+
+        @Override
+        protected void afterVisit(Expr expr) {
+            parents.pop();
+        }
+
+        private boolean isNumericContext(Expr parent) {
+            if (parent instanceof BinaryExpr) {
+                return ((BinaryExpr) parent).getType() == OperationType.LONG;
+            } else if (parent instanceof UnaryExpr) {
+                UnaryExpr unary = (UnaryExpr) parent;
+                return unary.getType() == OperationType.LONG && unary.getOperation() == UnaryOperation.NEGATE;
+            } else if (parent instanceof PrimitiveCastExpr) {
+                return ((PrimitiveCastExpr) parent).getSource() == OperationType.LONG;
+            }
+            return false;
+        }
+    }
+}
@@ -94,6 +94,7 @@ public class Renderer implements RenderingManager {
     private AstDependencyExtractor dependencyExtractor = new AstDependencyExtractor();
     private List<ExportedDeclaration> exports;
     private String entryPoint;
+    private boolean lateBoundVirtualMethods;
 
     public static final MethodDescriptor CLINIT_METHOD = new MethodDescriptor("<clinit>", ValueType.VOID);
 
@@ -173,6 +174,14 @@ public class Renderer implements RenderingManager {
         this.properties.putAll(properties);
     }
 
+    /**
+     * When set, virtual method wrappers refer to method declarations by name on each call,
+     * so that reassigning declaration takes effect for already created classes.
+     */
+    public void setLateBoundVirtualMethods(boolean lateBoundVirtualMethods) {
+        this.lateBoundVirtualMethods = lateBoundVirtualMethods;
+    }
+
     public void renderStringPool() throws RenderingException {
         if (context.getStringPool().isEmpty()) {
             return;
@@ -784,13 +793,20 @@ public class Renderer implements RenderingManager {
         emitVirtualFunctionWrapper(ref);
     }
 
-    private void emitVirtualFunctionWrapper(MethodReference method) {
+    void emitVirtualFunctionWrapper(MethodReference method) {
         var forced = context.isForcedFunction(method);
         if (forced) {
-            writer.appendFunction("$rt_wrapFunctionVararg").append("(").appendMethod(method).append(")");
+            writer.appendFunction("$rt_wrapFunctionVararg").append("(");
+            if (lateBoundVirtualMethods) {
+                writer.append("function()").ws().append("{").ws().append("return ").appendMethod(method)
+                        .append(".apply(null,").ws().append("arguments);").ws().append("}");
+            } else {
+                writer.appendMethod(method);
+            }
+            writer.append(")");
             return;
         }
-        if (method.parameterCount() <= 4 && !forced) {
+        if (method.parameterCount() <= 4 && !lateBoundVirtualMethods) {
             writer.appendFunction("$rt_wrapFunction" + method.parameterCount());
             writer.append("(").appendMethod(method).append(")");
             return;
@@ -54,6 +54,7 @@ import org.teavm.ast.NewMultiArrayExpr;
 import org.teavm.ast.OperationType;
 import org.teavm.ast.PrimitiveCastExpr;
 import org.teavm.ast.QualificationExpr;
+import org.teavm.ast.RegularMethodNode;
 import org.teavm.ast.ReturnStatement;
 import org.teavm.ast.SequentialStatement;
 import org.teavm.ast.Statement;
@@ -64,6 +65,7 @@ import org.teavm.ast.SwitchStatement;
 import org.teavm.ast.ThrowStatement;
 import org.teavm.ast.TryCatchStatement;
 import org.teavm.ast.UnaryExpr;
+import org.teavm.ast.UnaryOperation;
 import org.teavm.ast.UnwrapArrayExpr;
 import org.teavm.ast.VariableExpr;
 import org.teavm.ast.WhileStatement;
@@ -100,6 +102,7 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
     private VariableNameGenerator variableNameGenerator;
     private final Deque<LocationStackEntry> locationStack = new ArrayDeque<>();
     private TextLocation lastEmittedLocation = TextLocation.EMPTY;
+    private final NumericLongAnalysis numericLongs = new NumericLongAnalysis();
 
     public StatementRenderer(RenderingContext context, SourceWriter writer) {
         this.context = context;
@@ -121,6 +124,7 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         locationStack.clear();
         lastEmittedLocation = TextLocation.EMPTY;
         variableNameGenerator.clear();
+        numericLongs.clear();
     }
 
     public boolean isAsync() {
@@ -133,6 +137,11 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
 
     public void setCurrentMethod(MethodNode currentMethod) {
         variableNameGenerator.setCurrentMethod(currentMethod);
+        if (currentMethod instanceof RegularMethodNode) {
+            numericLongs.analyze((RegularMethodNode) currentMethod);
+        } else {
+            numericLongs.clear();
+        }
     }
 
     public void setCurrentPart(int currentPart) {
@@ -225,9 +234,14 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         if (statement.getLocation() != null) {
             pushLocation(statement.getLocation());
         }
+        boolean numeric = false;
         if (statement.getLeftValue() != null) {
             if (statement.isAsync()) {
                 writer.append(context.tempVarName());
+            } else if (statement.getLeftValue() instanceof VariableExpr
+                    && numericLongs.isNumeric(((VariableExpr) statement.getLeftValue()).getIndex())) {
+                numeric = true;
+                writer.append(variableName(((VariableExpr) statement.getLeftValue()).getIndex()));
             } else {
                 precedence = Precedence.COMMA;
                 statement.getLeftValue().acceptVisitor(this);
@@ -235,7 +249,11 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
             writer.ws().append("=").ws();
         }
         precedence = Precedence.COMMA;
-        statement.getRightValue().acceptVisitor(this);
+        if (numeric) {
+            renderNumericLong(statement.getRightValue());
+        } else {
+            statement.getRightValue().acceptVisitor(this);
+        }
         writer.append(";").softNewLine();
         if (statement.isAsync()) {
             emitSuspendChecker();
@@ -631,7 +649,12 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
 
     @Override
     public void visit(BinaryExpr expr) {
-        if (expr.getType() == OperationType.LONG) {
+        if (expr.getType() == OperationType.LONG && numericLongs.isNumeric(expr.getFirstOperand())
+                && numericLongs.isNumeric(expr.getSecondOperand()) && isComparison(expr.getOperation())) {
+            visitNumericLongComparison(expr);
+        } else if (expr.getType() == OperationType.LONG && numericLongs.isNumeric(expr)) {
+            visitNumericLongAsBigInt(expr);
+        } else if (expr.getType() == OperationType.LONG) {
             switch (expr.getOperation()) {
                 case ADD:
                     visitBinaryFunction(expr, "Long_add");
@@ -770,8 +793,160 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         }
     }
 
+    private static boolean isComparison(BinaryOperation operation) {
+        switch (operation) {
+            case COMPARE:
+            case EQUALS:
+            case NOT_EQUALS:
+            case LESS:
+            case LESS_OR_EQUALS:
+            case GREATER:
+            case GREATER_OR_EQUALS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void visitNumericLongComparison(BinaryExpr expr) {
+        if (expr.getLocation() != null) {
+            pushLocation(expr.getLocation());
+        }
+        Runnable first = () -> renderNumericLong(expr.getFirstOperand());
+        Runnable second = () -> renderNumericLong(expr.getSecondOperand());
+        switch (expr.getOperation()) {
+            case COMPARE:
+                writer.appendFunction("$rt_compare").append('(');
+                precedence = Precedence.min();
+                first.run();
+                writer.append(",").ws();
+                precedence = Precedence.min();
+                second.run();
+                writer.append(')');
+                break;
+            case EQUALS:
+                visitBinary(BinaryOperation.EQUALS, "===", first, second);
+                break;
+            case NOT_EQUALS:
+                visitBinary(BinaryOperation.NOT_EQUALS, "!==", first, second);
+                break;
+            case LESS:
+                visitBinary(BinaryOperation.LESS, "<", first, second);
+                break;
+            case LESS_OR_EQUALS:
+                visitBinary(BinaryOperation.LESS_OR_EQUALS, "<=", first, second);
+                break;
+            case GREATER:
+                visitBinary(BinaryOperation.GREATER, ">", first, second);
+                break;
+            case GREATER_OR_EQUALS:
+                visitBinary(BinaryOperation.GREATER_OR_EQUALS, ">=", first, second);
+                break;
+            default:
+                break;
+        }
+        if (expr.getLocation() != null) {
+            popLocation();
+        }
+    }
+
+    private void visitNumericLongAsBigInt(Expr expr) {
+        writer.appendFunction("Long_fromSafeNumber").append('(');
+        precedence = Precedence.min();
+        renderNumericLong(expr);
+        writer.append(')');
+    }
+
+    /**
+     * Renders long expression, proven by {@link NumericLongAnalysis} to fit into safe integer range,
+     * as an ordinary {@code Number}.
+     */
+    private void renderNumericLong(Expr expr) {
+        if (expr.getLocation() != null) {
+            pushLocation(expr.getLocation());
+        }
+        if (expr instanceof ConstantExpr) {
+            long value = (Long) ((ConstantExpr) expr).getValue();
+            if (value < 0) {
+                writer.append('(').append(Long.toString(value)).append(')');
+            } else {
+                writer.append(Long.toString(value));
+            }
+        } else if (expr instanceof VariableExpr) {
+            writer.append(variableName(((VariableExpr) expr).getIndex()));
+        } else if (expr instanceof PrimitiveCastExpr) {
+            ((PrimitiveCastExpr) expr).getValue().acceptVisitor(this);
+        } else if (expr instanceof UnaryExpr) {
+            Precedence outerPrecedence = precedence;
+            if (outerPrecedence.ordinal() > Precedence.UNARY.ordinal()) {
+                writer.append('(');
+            }
+            writer.append(" -");
+            precedence = Precedence.UNARY;
+            renderNumericLong(((UnaryExpr) expr).getOperand());
+            if (outerPrecedence.ordinal() > Precedence.UNARY.ordinal()) {
+                writer.append(')');
+            }
+        } else {
+            renderNumericLongBinary((BinaryExpr) expr);
+        }
+        if (expr.getLocation() != null) {
+            popLocation();
+        }
+    }
+
+    private void renderNumericLongBinary(BinaryExpr expr) {
+        Runnable first = () -> renderNumericLong(expr.getFirstOperand());
+        Runnable second = () -> renderNumericLong(expr.getSecondOperand());
+        switch (expr.getOperation()) {
+            case ADD:
+                visitBinary(BinaryOperation.ADD, "+", first, second);
+                break;
+            case SUBTRACT:
+                visitBinary(BinaryOperation.SUBTRACT, "-", first, second);
+                break;
+            case MULTIPLY:
+                visitBinary(BinaryOperation.MULTIPLY, "*", first, second);
+                break;
+            case BITWISE_AND: {
+                Long mask = NumericLongAnalysis.maskOf(expr);
+                if (mask != null && mask == NumericLongAnalysis.UNSIGNED_INT_MASK) {
+                    Long secondConstant = NumericLongAnalysis.longConstant(expr.getSecondOperand());
+                    Runnable operand = secondConstant != null && secondConstant == mask ? first : second;
+                    visitBinary(BinaryOperation.UNSIGNED_RIGHT_SHIFT, ">>>", operand, () -> writer.append("0"));
+                } else {
+                    visitBinary(BinaryOperation.BITWISE_AND, "&", first, second);
+                }
+                break;
+            }
+            case BITWISE_OR:
+                visitBinary(BinaryOperation.BITWISE_OR, "|", first, second);
+                break;
+            case BITWISE_XOR:
+                visitBinary(BinaryOperation.BITWISE_XOR, "^", first, second);
+                break;
+            case LEFT_SHIFT: {
+                long factor = 1L << NumericLongAnalysis.shiftOf(expr);
+                visitBinary(BinaryOperation.MULTIPLY, "*", first, () -> writer.append(Long.toString(factor)));
+                break;
+            }
+            case RIGHT_SHIFT: {
+                int shift = Math.min(NumericLongAnalysis.shiftOf(expr), 31);
+                visitBinary(BinaryOperation.RIGHT_SHIFT, ">>", first, () -> writer.append(Integer.toString(shift)));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Operation " + expr.getOperation() + " is not numeric");
+        }
+    }
+
     @Override
     public void visit(UnaryExpr expr) {
+        if (expr.getType() == OperationType.LONG && expr.getOperation() == UnaryOperation.NEGATE
+                && numericLongs.isNumeric(expr)) {
+            visitNumericLongAsBigInt(expr);
+            return;
+        }
         if (expr.getLocation() != null) {
             pushLocation(expr.getLocation());
         }
@@ -928,6 +1103,10 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
                 }
                 break;
             case LONG:
+                if (numericLongs.isNumeric(expr.getValue())) {
+                    renderNumericLongCast(expr);
+                    break;
+                }
                 switch (expr.getTarget()) {
                     case INT:
                         precedence = Precedence.MEMBER_ACCESS;
@@ -976,6 +1155,24 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         }
     }
 
+    private void renderNumericLongCast(PrimitiveCastExpr expr) {
+        switch (expr.getTarget()) {
+            case INT:
+                visitBinary(BinaryOperation.BITWISE_OR, "|", () -> renderNumericLong(expr.getValue()),
+                        () -> writer.append("0"));
+                break;
+            case FLOAT:
+            case DOUBLE:
+                // Adding zero turns negative zero, which long arithmetic can't produce, into positive zero
+                visitBinary(BinaryOperation.ADD, "+", () -> renderNumericLong(expr.getValue()),
+                        () -> writer.append("0"));
+                break;
+            default:
+                visitNumericLongAsBigInt(expr.getValue());
+                break;
+        }
+    }
+
     private Expr extractLongRightShiftedBy32(Expr expr) {
         if (!(expr instanceof BinaryExpr)) {
             return null;
@@ -1043,6 +1240,10 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
 
     @Override
     public void visit(VariableExpr expr) {
+        if (numericLongs.isNumeric(expr.getIndex())) {
+            visitNumericLongAsBigInt(expr);
+            return;
+        }
         if (expr.getLocation() != null) {
             pushLocation(expr.getLocation());
         }
@@ -192,4 +192,9 @@ public class WasmGCTarget implements TeaVMTarget {
     public boolean needsSystemArrayCopyOptimization() {
         return false;
     }
+
+    @Override
+    public boolean needsGuardedDevirtualization() {
+        return true;
+    }
 }
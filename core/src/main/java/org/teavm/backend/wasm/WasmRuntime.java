@@ -19,6 +19,7 @@ import org.teavm.backend.wasm.runtime.WasmSupport;
 import org.teavm.interop.Address;
 import org.teavm.interop.StaticInit;
 import org.teavm.interop.Unmanaged;
+import org.teavm.runtime.RuntimeClass;
 import org.teavm.runtime.RuntimeObject;
 
 @StaticInit
@@ -232,9 +233,9 @@ public final class WasmRuntime {
         int hashCode = 0;
         int length = string.characters.length;
         Address chars = Address.ofData(string.characters);
+        boolean latin1 = isLatin1(string);
         for (int i = 0; i < length; ++i) {
-            hashCode = 31 * hashCode + chars.getChar();
-            chars = chars.add(2);
+            hashCode = 31 * hashCode + charAt(chars, i, latin1);
         }
         return hashCode;
     }
@@ -247,17 +248,29 @@ public final class WasmRuntime {
 
         Address firstChars = Address.ofData(first.characters);
         Address secondChars = Address.ofData(second.characters);
+        boolean firstLatin1 = isLatin1(first);
+        boolean secondLatin1 = isLatin1(second);
         int length = first.characters.length;
         for (int i = 0; i < length; ++i) {
-            if (firstChars.getChar() != secondChars.getChar()) {
+            if (charAt(firstChars, i, firstLatin1) != charAt(secondChars, i, secondLatin1)) {
                 return false;
             }
-            firstChars = firstChars.add(2);
-            secondChars = secondChars.add(2);
         }
         return true;
     }
 
+    @Unmanaged
+    private static boolean isLatin1(RuntimeString string) {
+        RuntimeObject characters = Address.ofObject(string.characters).toStructure();
+        int flags = RuntimeClass.getClass(characters).itemType.flags;
+        return ((flags >> RuntimeClass.PRIMITIVE_SHIFT) & RuntimeClass.PRIMITIVE_MASK) == RuntimeClass.BYTE_PRIMITIVE;
+    }
+
+    @Unmanaged
+    private static char charAt(Address chars, int index, boolean latin1) {
+        return latin1 ? (char) (chars.add(index).getByte() & 0xFF) : chars.add(index * 2).getChar();
+    }
+
     public static String[] resourceMapKeys(Address map) {
         String[] result = new String[resourceMapSize(map)];
         fillResourceMapKeys(map, result);
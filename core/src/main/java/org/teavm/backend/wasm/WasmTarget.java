@@ -154,8 +154,10 @@ import org.teavm.model.lowlevel.Characteristics;
 import org.teavm.model.lowlevel.ClassInitializerEliminator;
 import org.teavm.model.lowlevel.ClassInitializerTransformer;
 import org.teavm.model.lowlevel.LowLevelNullCheckFilter;
+import org.teavm.model.lowlevel.ObjectLayout;
 import org.teavm.model.lowlevel.ShadowStackTransformer;
 import org.teavm.model.lowlevel.WriteBarrierInsertion;
+import org.teavm.model.lowlevel.WriteOnlyFieldElimination;
 import org.teavm.model.optimization.InliningFilterFactory;
 import org.teavm.model.transformation.BoundCheckInsertion;
 import org.teavm.model.transformation.ClassPatch;
@@ -465,12 +467,25 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
         writeBarrierInsertion.apply(program);
     }
 
+    private void eliminateWriteOnlyFields(ListableClassHolderSource classes) {
+        var elimination = new WriteOnlyFieldElimination(new ObjectLayout(characteristics));
+        elimination.apply(classes, controller.getDependencyInfo().getCallGraph());
+        if (System.getProperty("org.teavm.logObjectLayout", "false").equals("true")) {
+            System.out.println("Removed write-only fields: " + elimination.getRemovedFields());
+        }
+    }
+
     @Override
     public void emit(ListableClassHolderSource classes, BuildTarget buildTarget, String outputName)
             throws IOException {
         prepareStats();
+        if (!debugging) {
+            eliminateWriteOnlyFields(classes);
+        }
 
         var statsCollector = this.statsCollector != null ? this.statsCollector : WasmBinaryStatsCollector.EMPTY;
+        var compactStrings = Boolean.parseBoolean(controller.getProperties().getProperty(
+                "teavm.compactStrings", "false"));
         WasmModule module = new WasmModule();
 
         var vtableProvider = createVirtualTableProvider(classes);
@@ -495,6 +510,7 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
 
         Decompiler decompiler = new Decompiler(classes, new HashSet<>(), false);
         var stringPool = classGenerator.getStringPool();
+        stringPool.setCompact(compactStrings);
         WasmTag exceptionTag = null;
         if (exceptionsUsed) {
             exceptionTag = new WasmTag(functionTypes.of(null));
@@ -550,7 +566,7 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
                 asyncMethods::contains);
 
         generateMethods(classes, context, generator, classGenerator, binaryWriter, module, dwarfClassGen);
-        new WasmInteropFunctionGenerator(classGenerator, functionTypes).generateFunctions(module);
+        new WasmInteropFunctionGenerator(classGenerator, functionTypes, compactStrings).generateFunctions(module);
         exceptionHandlingIntrinsic.postProcess(context.callSites());
         generateIsSupertypeFunctions(tagRegistry, classGenerator, functions);
         classGenerator.postProcess();
@@ -1085,6 +1101,11 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
         return true;
     }
 
+    @Override
+    public boolean needsGuardedDevirtualization() {
+        return true;
+    }
+
     @Override
     public InliningFilterFactory getInliningFilter() {
         return new LowLevelInliningFilterFactory(characteristics);
@@ -55,6 +55,7 @@ import org.teavm.model.classes.VirtualTable;
 import org.teavm.model.classes.VirtualTableEntry;
 import org.teavm.model.classes.VirtualTableProvider;
 import org.teavm.model.lowlevel.Characteristics;
+import org.teavm.model.lowlevel.ObjectLayout;
 import org.teavm.model.util.ReflectionUtil;
 import org.teavm.runtime.RuntimeClass;
 import org.teavm.runtime.RuntimeObject;
@@ -106,6 +107,8 @@ public class WasmClassGenerator {
     private ClassInitializerInfo classInitializerInfo;
     private DwarfClassGenerator dwarfClassGenerator;
     private WasmBinaryStatsCollector statsCollector;
+    private ObjectLayout objectLayout;
+    private boolean logObjectLayout = System.getProperty("org.teavm.logObjectLayout", "false").equals("true");
 
     private static final int CLASS_SIZE = 1;
     private static final int CLASS_FLAGS = 2;
@@ -141,6 +144,7 @@ public class WasmClassGenerator {
         this.characteristics = characteristics;
         this.dwarfClassGenerator = dwarfClassGenerator;
         this.statsCollector = statsCollector;
+        objectLayout = new ObjectLayout(characteristics);
     }
 
     public WasmStringPool getStringPool() {
@@ -324,7 +328,7 @@ public class WasmClassGenerator {
             fillVirtualTable(vtable, array);
         }
 
-        List<FieldReference> fields = getReferenceFields(binaryData.cls);
+        List<FieldReference> fields = getReferenceFields(binaryData);
         if (!fields.isEmpty()) {
             DataValue layoutSize = DataPrimitives.SHORT.createValue();
             layoutSize.setShort(0, (short) fields.size());
@@ -381,9 +385,10 @@ public class WasmClassGenerator {
         return valuesAddress;
     }
 
-    private List<FieldReference> getReferenceFields(ClassReader cls) {
-        return cls.getFields().stream()
+    private List<FieldReference> getReferenceFields(ClassBinaryData binaryData) {
+        return binaryData.cls.getFields().stream()
                 .filter(field -> !field.hasModifier(ElementModifier.STATIC))
+                .filter(field -> binaryData.fieldLayout.containsKey(field.getName()))
                 .filter(field -> isReferenceType(field.getType()))
                 .filter(field -> !field.getOwnerName().equals("java.lang.Object")
                         && !field.getName().equals("monitor"))
@@ -515,13 +520,19 @@ public class WasmClassGenerator {
         data.isInferface = cls.hasModifier(ElementModifier.INTERFACE);
         data.cls = cls;
 
+        if (data.alignment == 0 && !cls.getFields().isEmpty()) {
+            data.alignment = getTypeSize(cls.getFields().iterator().next().getType());
+        }
+
+        var processedCls = processedClassSource.get(cls.getName());
         for (FieldReader field : cls.getFields()) {
-            int desiredAlignment = getTypeSize(field.getType());
             if (field.hasModifier(ElementModifier.STATIC)) {
                 DataType type = asDataType(field.getType());
                 DataValue value = type.createValue();
-                if (field.getInitialValue() != null) {
-                    setInitialValue(field.getType(), value, field.getInitialValue());
+                var processedField = processedCls != null ? processedCls.getField(field.getName()) : null;
+                var initialValue = processedField != null ? processedField.getInitialValue() : field.getInitialValue();
+                if (initialValue != null) {
+                    setInitialValue(field.getType(), value, initialValue);
                 }
                 var address = binaryWriter.append(value);
                 data.fieldLayout.put(field.getName(), address);
@@ -529,17 +540,30 @@ public class WasmClassGenerator {
                     dwarfClass.registerStaticField(field.getName(), field.getType(), address);
                     dwarfClassGenerator.getTypePtr(field.getType());
                 }
-            } else {
-                int offset = align(data.size, desiredAlignment);
-                data.fieldLayout.put(field.getName(), offset);
-                data.size = offset + desiredAlignment;
-                if (dwarfClass != null) {
-                    dwarfClass.registerField(field.getName(), field.getType(), offset);
-                    dwarfClassGenerator.getTypePtr(field.getType());
-                }
             }
-            if (data.alignment == 0) {
-                data.alignment = desiredAlignment;
+        }
+
+        var instanceFields = objectLayout.getInstanceFields(cls);
+        if (processedCls != null && !objectLayout.hasFixedLayout(cls.getName())) {
+            instanceFields.removeIf(field -> processedCls.getField(field.getName()) == null);
+        }
+        if (logObjectLayout) {
+            int declaredSize = ObjectLayout.estimateSize(cls.getFields(), 4);
+            int optimizedSize = ObjectLayout.estimateSize(instanceFields, 4);
+            if (optimizedSize < declaredSize) {
+                System.out.println("Object layout of " + cls.getName() + ": " + declaredSize + " -> "
+                        + optimizedSize + " bytes");
+            }
+        }
+
+        for (FieldReader field : instanceFields) {
+            int desiredAlignment = getTypeSize(field.getType());
+            int offset = align(data.size, desiredAlignment);
+            data.fieldLayout.put(field.getName(), offset);
+            data.size = offset + desiredAlignment;
+            if (dwarfClass != null) {
+                dwarfClass.registerField(field.getName(), field.getType(), offset);
+                dwarfClassGenerator.getTypePtr(field.getType());
             }
         }
     }
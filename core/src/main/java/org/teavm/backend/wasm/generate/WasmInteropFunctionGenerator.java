@@ -41,15 +41,21 @@ import org.teavm.runtime.RuntimeClass;
 public class WasmInteropFunctionGenerator {
     private WasmClassGenerator classGenerator;
     private WasmFunctionTypes functionTypes;
+    private boolean compactStrings;
 
-    public WasmInteropFunctionGenerator(WasmClassGenerator classGenerator, WasmFunctionTypes functionTypes) {
+    public WasmInteropFunctionGenerator(WasmClassGenerator classGenerator, WasmFunctionTypes functionTypes,
+            boolean compactStrings) {
         this.classGenerator = classGenerator;
         this.functionTypes = functionTypes;
+        this.compactStrings = compactStrings;
     }
 
     public void generateFunctions(WasmModule module) {
         module.functions.add(allocateString());
         module.functions.add(stringData());
+        if (compactStrings) {
+            module.functions.add(stringLatin1());
+        }
 
         module.functions.add(allocateArray("teavm_allocateObjectArray", ValueType.parse(Object.class)));
         module.functions.add(allocateArray("teavm_allocateStringArray", ValueType.parse(String.class)));
@@ -127,6 +133,28 @@ public class WasmInteropFunctionGenerator {
         return function;
     }
 
+    private WasmFunction stringLatin1() {
+        var function = new WasmFunction(functionTypes.of(WasmType.INT32, WasmType.INT32));
+        function.setName("teavm_stringLatin1");
+        function.setExportName(function.getName());
+
+        WasmLocal stringLocal = new WasmLocal(WasmType.INT32, "string");
+        function.add(stringLocal);
+
+        int offset = classGenerator.getFieldOffset(new FieldReference("java.lang.String", "characters"));
+        WasmExpression chars = new WasmLoadInt32(4, new WasmGetLocal(stringLocal), WasmInt32Subtype.INT32, offset);
+        WasmExpression header = new WasmLoadInt32(4, chars, WasmInt32Subtype.INT32);
+        WasmExpression classPointer = new WasmIntBinary(WasmIntType.INT32, WasmIntBinaryOperation.SHL, header,
+                new WasmInt32Constant(3));
+        int byteArrayClass = classGenerator.getClassPointer(ValueType.arrayOf(ValueType.BYTE));
+        WasmExpression isLatin1 = new WasmIntBinary(WasmIntType.INT32, WasmIntBinaryOperation.EQ, classPointer,
+                new WasmInt32Constant(byteArrayClass));
+
+        function.getBody().add(new WasmReturn(isLatin1));
+
+        return function;
+    }
+
     private WasmFunction arrayData(String name, int alignment) {
         var function = new WasmFunction(functionTypes.of(WasmType.INT32, WasmType.INT32));
         function.setName(name);
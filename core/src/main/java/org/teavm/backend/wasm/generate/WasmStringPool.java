@@ -40,6 +40,7 @@ public class WasmStringPool {
             DataPrimitives.ADDRESS, /* characters */
             DataPrimitives.INT /* hash code */);
     private WasmBinaryStatsCollector statsCollector;
+    private boolean compact;
 
     public WasmStringPool(WasmClassGenerator classGenerator, BinaryWriter binaryWriter,
             WasmBinaryStatsCollector statsCollector) {
@@ -48,6 +49,10 @@ public class WasmStringPool {
         this.statsCollector = statsCollector;
     }
 
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
     public int getStringPointer(String value) {
         Integer pointer = stringMap.get(value);
         if (pointer == null) {
@@ -60,17 +65,25 @@ public class WasmStringPool {
     private int generateStringPointer(String value) {
         var start = binaryWriter.getAddress();
 
-        DataArray charactersType = new DataArray(DataPrimitives.SHORT, value.length());
+        boolean latin1 = compact && isLatin1(value);
+        DataArray charactersType = new DataArray(latin1 ? DataPrimitives.BYTE : DataPrimitives.SHORT,
+                value.length());
         DataStructure wrapperType = new DataStructure((byte) 0, arrayHeaderType, charactersType);
         DataValue wrapper = wrapperType.createValue();
         DataValue header = wrapper.getValue(0);
         DataValue characters = wrapper.getValue(1);
 
-        int classPointer = classGenerator.getClassPointer(ValueType.arrayOf(ValueType.CHARACTER));
+        int classPointer = classGenerator.getClassPointer(ValueType.arrayOf(latin1
+                ? ValueType.BYTE
+                : ValueType.CHARACTER));
         header.setInt(0, (classPointer >>> 3) | RuntimeObject.GC_MARKED);
         header.setInt(2, value.length());
         for (int i = 0; i < value.length(); ++i) {
-            characters.setShort(i, (short) value.charAt(i));
+            if (latin1) {
+                characters.setByte(i, (byte) value.charAt(i));
+            } else {
+                characters.setShort(i, (short) value.charAt(i));
+            }
         }
 
         DataValue stringObject = stringType.createValue();
@@ -84,4 +97,13 @@ public class WasmStringPool {
 
         return stringPointer;
     }
+
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -193,17 +193,18 @@ class WasmValueImpl extends Value {
                 return null;
             }
             var primitiveType = ((PrimitiveLayout) elementType).primitiveType();
-            if (primitiveType != PrimitiveType.CHARACTER) {
+            var latin1 = primitiveType == PrimitiveType.BYTE;
+            if (primitiveType != PrimitiveType.CHARACTER && !latin1) {
                 return null;
             }
             var length = readInt(data, 8);
-            return callFrame.getMemory(address + 12, length * 2).then(charsData -> {
+            return callFrame.getMemory(address + 12, latin1 ? length : length * 2).then(charsData -> {
                 if (charsData == null) {
                     return null;
                 }
                 var sb = new StringBuilder("\"");
                 for (var i = 0; i < length; ++i) {
-                    appendChar(sb, (char) readShort(charsData, i * 2));
+                    appendChar(sb, latin1 ? (char) (charsData[i] & 0xFF) : (char) readShort(charsData, i * 2));
                 }
                 sb.append("\"");
                 return sb.toString();
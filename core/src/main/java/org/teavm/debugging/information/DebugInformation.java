@@ -42,8 +42,10 @@ public class DebugInformation {
     RecordArray callSiteMapping;
     RecordArray statementStartMapping;
     RecordArray[] variableMappings;
+    byte[][] encodedVariableMappings;
     RecordArray[] lineCallSites;
     RecordArray[] controlFlowGraphs;
+    byte[][] encodedControlFlowGraphs;
     List<ClassMetadata> classesMetadata;
     Map<String, ClassMetadata> classMetadataByJsName;
     RecordArray methodEntrances;
@@ -137,7 +139,7 @@ public class DebugInformation {
         if (fileIndex == null) {
             return Collections.emptyList();
         }
-        RecordArray description = fileIndex >= 0 ? fileDescriptions[fileIndex] : null;
+        RecordArray description = fileIndex >= 0 ? getFileDescriptions()[fileIndex] : null;
         if (description == null) {
             return Collections.emptyList();
         }
@@ -236,7 +238,7 @@ public class DebugInformation {
         if (varIndex == null) {
             return new String[0];
         }
-        RecordArray mapping = variableMappings[varIndex];
+        RecordArray mapping = getVariableMapping(varIndex);
         if (mapping == null) {
             return new String[0];
         }
@@ -261,7 +263,7 @@ public class DebugInformation {
         if (fileIndex == null) {
             return null;
         }
-        RecordArray cfg = controlFlowGraphs[fileIndex];
+        RecordArray cfg = getControlFlowGraph(fileIndex);
         if (cfg == null) {
             return null;
         }
@@ -340,7 +342,7 @@ public class DebugInformation {
         if (index == null) {
             return new GeneratedLocation[0];
         }
-        int[] data = methodEntrances.get(index).getArray(0);
+        int[] data = getMethodEntrances().get(index).getArray(0);
         GeneratedLocation[] entrances = new GeneratedLocation[data.length / 2];
         for (int i = 0; i < entrances.length; ++i) {
             entrances[i] = new GeneratedLocation(data[i * 2], data[i * 2 + 1]);
@@ -353,6 +355,7 @@ public class DebugInformation {
         if (methodIndex == null) {
             return new MethodReference[0];
         }
+        MethodTree methodTree = getMethodTree();
         int start = methodTree.offsets[methodIndex];
         int end = methodTree.offsets[methodIndex + 1];
         MethodReference[] result = new MethodReference[end - start];
@@ -381,7 +384,7 @@ public class DebugInformation {
         if (fileIndex == null) {
             return new DebuggerCallSite[0];
         }
-        RecordArray mapping = lineCallSites[fileIndex];
+        RecordArray mapping = getLineCallSites()[fileIndex];
         if (location.getLine() >= mapping.size()) {
             return new DebuggerCallSite[0];
         }
@@ -451,11 +454,59 @@ public class DebugInformation {
 
     void rebuild() {
         rebuildMaps();
-        rebuildFileDescriptions();
-        rebuildEntrances();
-        rebuildMethodTree();
-        rebuildLineCallSites();
         rebuildClassMap();
+        fileDescriptions = null;
+        methodEntrances = null;
+        methodTree = null;
+        lineCallSites = null;
+    }
+
+    // Instances are shared by the debugger and dev server threads, so lazily decoded sections are only
+    // published under the lock, like the lazily built indexes below
+    synchronized RecordArray getVariableMapping(int index) {
+        RecordArray mapping = variableMappings[index];
+        if (mapping == null && encodedVariableMappings != null && encodedVariableMappings[index] != null) {
+            mapping = DebugInformationReader.decodeMultiMapping(encodedVariableMappings[index]);
+            variableMappings[index] = mapping;
+        }
+        return mapping;
+    }
+
+    synchronized RecordArray getControlFlowGraph(int index) {
+        RecordArray cfg = controlFlowGraphs[index];
+        if (cfg == null && encodedControlFlowGraphs != null && encodedControlFlowGraphs[index] != null) {
+            cfg = DebugInformationReader.decodeCFG(encodedControlFlowGraphs[index]);
+            controlFlowGraphs[index] = cfg;
+        }
+        return cfg;
+    }
+
+    private synchronized RecordArray[] getFileDescriptions() {
+        if (fileDescriptions == null) {
+            rebuildFileDescriptions();
+        }
+        return fileDescriptions;
+    }
+
+    private synchronized RecordArray getMethodEntrances() {
+        if (methodEntrances == null) {
+            rebuildEntrances();
+        }
+        return methodEntrances;
+    }
+
+    private synchronized MethodTree getMethodTree() {
+        if (methodTree == null) {
+            rebuildMethodTree();
+        }
+        return methodTree;
+    }
+
+    private synchronized RecordArray[] getLineCallSites() {
+        if (lineCallSites == null) {
+            rebuildLineCallSites();
+        }
+        return lineCallSites;
     }
 
     void rebuildMaps() {
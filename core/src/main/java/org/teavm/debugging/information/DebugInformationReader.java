@@ -15,6 +15,7 @@
  */
 package org.teavm.debugging.information;
 
+import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -54,20 +55,43 @@ class DebugInformationReader {
         }
         debugInfo.statementStartMapping = readBooleanMapping();
         debugInfo.callSiteMapping = readCallSiteMapping();
-        debugInfo.variableMappings = readVariableMappings(debugInfo.variableNames.length);
+        debugInfo.variableMappings = new RecordArray[debugInfo.variableNames.length];
+        debugInfo.encodedVariableMappings = readVariableMappings(debugInfo.variableNames.length);
         debugInfo.classesMetadata = readClassesMetadata(debugInfo.classNames.length);
-        debugInfo.controlFlowGraphs = readCFGs(debugInfo.fileNames.length);
+        debugInfo.controlFlowGraphs = new RecordArray[debugInfo.fileNames.length];
+        debugInfo.encodedControlFlowGraphs = readCFGs(debugInfo.fileNames.length);
         debugInfo.rebuild();
         return debugInfo;
     }
 
-    private RecordArray[] readVariableMappings(int count) throws IOException {
-        RecordArray[] mappings = new RecordArray[count];
+    /*
+     * Variable mappings and control flow graphs are only needed by debugger, one variable or file at a time,
+     * and take most of the space. They are stored as length-prefixed sections and kept encoded until
+     * first access.
+     */
+    static RecordArray decodeMultiMapping(byte[] data) {
+        try {
+            return new DebugInformationReader(new ByteArrayInputStream(data), null).readMultiMapping();
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted variable mapping", e);
+        }
+    }
+
+    static RecordArray decodeCFG(byte[] data) {
+        try {
+            return new DebugInformationReader(new ByteArrayInputStream(data), null).readCFG();
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted control flow graph", e);
+        }
+    }
+
+    private byte[][] readVariableMappings(int count) throws IOException {
+        byte[][] mappings = new byte[count][];
         int varCount = readUnsignedNumber();
         int lastVar = 0;
         while (varCount-- > 0) {
             lastVar += readUnsignedNumber();
-            mappings[lastVar] = readMultiMapping();
+            mappings[lastVar] = readSection();
         }
         return mappings;
     }
@@ -94,10 +118,10 @@ class DebugInformationReader {
         return classes;
     }
 
-    private RecordArray[] readCFGs(int count) throws IOException {
-        RecordArray[] cfgs = new RecordArray[count];
+    private byte[][] readCFGs(int count) throws IOException {
+        byte[][] cfgs = new byte[count][];
         for (int i = 0; i < count; ++i) {
-            cfgs[i] = readCFG();
+            cfgs[i] = readSection();
         }
         return cfgs;
     }
@@ -341,7 +365,15 @@ class DebugInformationReader {
         return size > 0 ? readStringChars(size - 1) : null;
     }
 
+    private byte[] readSection() throws IOException {
+        return readBytes(readUnsignedNumber());
+    }
+
     private String readStringChars(int size) throws IOException {
+        return new String(readBytes(size), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(int size) throws IOException {
         byte[] bytes = new byte[size];
         int pos = 0;
         while (pos < bytes.length) {
@@ -351,6 +383,6 @@ class DebugInformationReader {
             }
             pos += read;
         }
-        return new String(bytes, StandardCharsets.UTF_8);
+        return bytes;
     }
 }
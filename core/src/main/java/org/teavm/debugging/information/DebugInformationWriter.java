@@ -15,7 +15,9 @@
  */
 package org.teavm.debugging.information;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -60,13 +62,13 @@ class DebugInformationWriter {
         int lastVar = 0;
         writeUnsignedNumber(nonNullVariableMappings(debugInfo));
         for (int i = 0; i < debugInfo.variableMappings.length; ++i) {
-            RecordArray mapping = debugInfo.variableMappings[i];
+            RecordArray mapping = debugInfo.getVariableMapping(i);
             if (mapping == null) {
                 continue;
             }
             writeUnsignedNumber(i - lastVar);
             lastVar = i;
-            writeMultiMapping(mapping);
+            writeSection(() -> writeMultiMapping(mapping));
         }
     }
 
@@ -89,7 +91,7 @@ class DebugInformationWriter {
     private int nonNullVariableMappings(DebugInformation debugInfo) {
         int count = 0;
         for (int i = 0; i < debugInfo.variableMappings.length; ++i) {
-            if (debugInfo.variableMappings[i] != null) {
+            if (debugInfo.getVariableMapping(i) != null) {
                 ++count;
             }
         }
@@ -207,10 +209,28 @@ class DebugInformationWriter {
 
     private void writeCFGs(DebugInformation debugInfo) throws IOException {
         for (int i = 0; i < debugInfo.controlFlowGraphs.length; ++i) {
-            writeCFG(debugInfo.controlFlowGraphs[i]);
+            RecordArray cfg = debugInfo.getControlFlowGraph(i);
+            writeSection(() -> writeCFG(cfg));
         }
     }
 
+    private void writeSection(SectionWriter sectionWriter) throws IOException {
+        DataOutput mainOutput = output;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        output = new DataOutputStream(buffer);
+        try {
+            sectionWriter.write();
+        } finally {
+            output = mainOutput;
+        }
+        writeUnsignedNumber(buffer.size());
+        output.write(buffer.toByteArray());
+    }
+
+    private interface SectionWriter {
+        void write() throws IOException;
+    }
+
     private void writeCFG(RecordArray mapping) throws IOException {
         if (mapping == null) {
             writeUnsignedNumber(0);
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.debugging.information;
+
+import java.util.Objects;
+import org.teavm.model.MethodReference;
+
+public final class DeobfuscatedFrame {
+    private final MethodReference method;
+    private final String fileName;
+    private final int line;
+
+    public DeobfuscatedFrame(MethodReference method, String fileName, int line) {
+        this.method = method;
+        this.fileName = fileName;
+        this.line = line;
+    }
+
+    public MethodReference getMethod() {
+        return method;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeobfuscatedFrame)) {
+            return false;
+        }
+        DeobfuscatedFrame that = (DeobfuscatedFrame) o;
+        return line == that.line && method.equals(that.method) && Objects.equals(fileName, that.fileName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, fileName, line);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(method.getClassName()).append('.').append(method.getName()).append('(');
+        if (fileName != null) {
+            sb.append(fileName);
+            if (line >= 0) {
+                sb.append(':').append(line);
+            }
+        } else {
+            sb.append("Unknown Source");
+        }
+        return sb.append(')').toString();
+    }
+}
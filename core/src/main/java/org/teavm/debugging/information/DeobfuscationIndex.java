@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.debugging.information;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.common.RecordArray;
+import org.teavm.model.MethodReference;
+
+/**
+ * Immutable index that maps generated locations to source frames, intended for deobfuscating large
+ * amounts of stack traces. Unlike {@link DebugInformation}, it can be queried from multiple threads
+ * and does not allocate anything besides resulting frames.
+ * <p>
+ * For each layer, the four mappings (file, line, class and method) are merged into a single sorted
+ * array of generated locations, so that a lookup is a single binary search per layer.
+ */
+public class DeobfuscationIndex {
+    private final LayerIndex[] layers;
+    private final MethodReference[] methods;
+    private final String[] fileNames;
+
+    public DeobfuscationIndex(DebugInformation debugInformation) {
+        fileNames = debugInformation.fileNames.clone();
+
+        Map<Long, Integer> methodIndexes = new HashMap<>();
+        List<MethodReference> methodList = new ArrayList<>();
+        layers = new LayerIndex[debugInformation.layers.length];
+        for (int i = 0; i < layers.length; ++i) {
+            layers[i] = new LayerIndex(debugInformation, debugInformation.layers[i], methodIndexes, methodList);
+        }
+        methods = methodList.toArray(new MethodReference[0]);
+    }
+
+    /**
+     * Returns frames for given location in generated file, starting from the innermost inlined method.
+     * Returns empty list when location does not belong to any method.
+     *
+     * @param line zero-based line in generated file.
+     * @param column zero-based column in generated file.
+     */
+    public List<DeobfuscatedFrame> getFrames(int line, int column) {
+        long key = key(line, column);
+        List<DeobfuscatedFrame> result = new ArrayList<>(layers.length);
+        for (LayerIndex layer : layers) {
+            int index = layer.find(key);
+            if (index < 0 || layer.methods[index] < 0) {
+                break;
+            }
+            int file = layer.files[index];
+            result.add(new DeobfuscatedFrame(methods[layer.methods[index]], file >= 0 ? fileNames[file] : null,
+                    layer.lines[index]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static long key(int line, int column) {
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static long key(RecordArray.Record record) {
+        return key(record.get(0), record.get(1));
+    }
+
+    static final class LayerIndex {
+        final long[] keys;
+        final int[] methods;
+        final int[] files;
+        final int[] lines;
+
+        LayerIndex(DebugInformation debugInformation, DebugInformation.Layer layer, Map<Long, Integer> methodIndexes,
+                List<MethodReference> methodList) {
+            RecordArray[] mappings = { layer.classMapping, layer.methodMapping, layer.fileMapping,
+                    layer.lineMapping };
+            keys = mergeKeys(mappings);
+            methods = new int[keys.length];
+            files = new int[keys.length];
+            lines = new int[keys.length];
+
+            int[] pointers = new int[mappings.length];
+            Arrays.fill(pointers, -1);
+            int[] values = new int[mappings.length];
+            for (int i = 0; i < keys.length; ++i) {
+                for (int j = 0; j < mappings.length; ++j) {
+                    RecordArray mapping = mappings[j];
+                    while (pointers[j] + 1 < mapping.size() && key(mapping.get(pointers[j] + 1)) <= keys[i]) {
+                        ++pointers[j];
+                    }
+                    values[j] = pointers[j] >= 0 ? mapping.get(pointers[j]).get(2) : -1;
+                }
+                int classId = values[0];
+                int methodId = values[1];
+                if (classId >= 0 && methodId >= 0) {
+                    long exactMethod = ((long) classId << 32) | methodId;
+                    methods[i] = methodIndexes.computeIfAbsent(exactMethod, k -> {
+                        methodList.add(new MethodReference(debugInformation.getClassName(classId),
+                                debugInformation.getMethod(methodId)));
+                        return methodList.size() - 1;
+                    });
+                } else {
+                    methods[i] = -1;
+                }
+                files[i] = values[2];
+                lines[i] = values[3];
+            }
+        }
+
+        private static long[] mergeKeys(RecordArray[] mappings) {
+            int size = 0;
+            for (RecordArray mapping : mappings) {
+                size += mapping.size();
+            }
+            long[] keys = new long[size];
+            int index = 0;
+            for (RecordArray mapping : mappings) {
+                for (int i = 0; i < mapping.size(); ++i) {
+                    keys[index++] = key(mapping.get(i));
+                }
+            }
+            Arrays.sort(keys);
+            int unique = 0;
+            for (int i = 0; i < keys.length; ++i) {
+                if (unique == 0 || keys[unique - 1] != keys[i]) {
+                    keys[unique++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, unique);
+        }
+
+        int find(long key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
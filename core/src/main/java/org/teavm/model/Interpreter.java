@@ -66,6 +66,7 @@ public class Interpreter {
 
         try {
             while (true) {
+                enterBlock(currentBlock);
                 InstructionIterator iterator = currentBlock.iterateInstructions();
                 try {
                     while (iterator.hasNext()) {
@@ -179,7 +180,7 @@ public class Interpreter {
                             result = a * b;
                             break;
                         case DIVIDE:
-                            result = a * b;
+                            result = a / b;
                             break;
                         case MODULO:
                             result = a % b;
@@ -196,6 +197,15 @@ public class Interpreter {
                         case XOR:
                             result = a ^ b;
                             break;
+                        case SHIFT_LEFT:
+                            result = a << b;
+                            break;
+                        case SHIFT_RIGHT:
+                            result = a >> b;
+                            break;
+                        case SHIFT_RIGHT_UNSIGNED:
+                            result = a >>> b;
+                            break;
                         default:
                             throw new IllegalArgumentException("Unknown operation: " + op);
                     }
@@ -204,6 +214,22 @@ public class Interpreter {
                 }
                 case LONG: {
                     long a = (Long) variables[first.getIndex()];
+                    switch (op) {
+                        case SHIFT_LEFT:
+                            variables[receiver.getIndex()] = a << (Integer) variables[second.getIndex()];
+                            return;
+                        case SHIFT_RIGHT:
+                            variables[receiver.getIndex()] = a >> (Integer) variables[second.getIndex()];
+                            return;
+                        case SHIFT_RIGHT_UNSIGNED:
+                            variables[receiver.getIndex()] = a >>> (Integer) variables[second.getIndex()];
+                            return;
+                        case COMPARE:
+                            variables[receiver.getIndex()] = Long.compare(a, (Long) variables[second.getIndex()]);
+                            return;
+                        default:
+                            break;
+                    }
                     long b = (Long) variables[second.getIndex()];
                     long result;
                     switch (op) {
@@ -217,14 +243,11 @@ public class Interpreter {
                             result = a * b;
                             break;
                         case DIVIDE:
-                            result = a * b;
+                            result = a / b;
                             break;
                         case MODULO:
                             result = a % b;
                             break;
-                        case COMPARE:
-                            result = Long.compare(a, b);
-                            break;
                         case AND:
                             result = a & b;
                             break;
@@ -243,6 +266,10 @@ public class Interpreter {
                 case FLOAT: {
                     float a = (Float) variables[first.getIndex()];
                     float b = (Float) variables[second.getIndex()];
+                    if (op == BinaryOperation.COMPARE) {
+                        variables[receiver.getIndex()] = Float.compare(a, b);
+                        return;
+                    }
                     float result;
                     switch (op) {
                         case ADD:
@@ -255,14 +282,11 @@ public class Interpreter {
                             result = a * b;
                             break;
                         case DIVIDE:
-                            result = a * b;
+                            result = a / b;
                             break;
                         case MODULO:
                             result = a % b;
                             break;
-                        case COMPARE:
-                            result = Float.compare(a, b);
-                            break;
                         case AND:
                         case OR:
                         case XOR:
@@ -277,6 +301,10 @@ public class Interpreter {
                 case DOUBLE: {
                     double a = (Double) variables[first.getIndex()];
                     double b = (Double) variables[second.getIndex()];
+                    if (op == BinaryOperation.COMPARE) {
+                        variables[receiver.getIndex()] = Double.compare(a, b);
+                        return;
+                    }
                     double result;
                     switch (op) {
                         case ADD:
@@ -289,14 +317,11 @@ public class Interpreter {
                             result = a * b;
                             break;
                         case DIVIDE:
-                            result = a * b;
+                            result = a / b;
                             break;
                         case MODULO:
                             result = a % b;
                             break;
-                        case COMPARE:
-                            result = Double.compare(a, b);
-                            break;
                         case AND:
                         case OR:
                         case XOR:
@@ -572,14 +597,14 @@ public class Interpreter {
         @Override
         public void exit(VariableReader valueToReturn) {
             state = State.EXITED;
-            result = variables[valueToReturn.getIndex()];
+            result = valueToReturn != null ? variables[valueToReturn.getIndex()] : null;
         }
 
         @Override
         public void raise(VariableReader exception) {
             Throwable e = (Throwable) variables[exception.getIndex()];
             if (!pickExceptionHandler(e)) {
-                state = State.EXITED;
+                state = State.THROWN;
                 result = e;
             }
         }
@@ -614,60 +639,20 @@ public class Interpreter {
 
         @Override
         public void create(VariableReader receiver, String type) {
-            Class<?> cls;
-            try {
-                cls = Class.forName(type, false, classLoader);
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("Class not found: " + type);
-            }
-            variables[receiver.getIndex()] = null;
+            variables[receiver.getIndex()] = createInstance(type);
         }
 
         @Override
         public void getField(VariableReader receiver, VariableReader instance, FieldReference field,
                 ValueType fieldType) {
-            Field jvmField = getJvmField(field);
-
             Object jvmInstance = instance != null ? variables[instance.getIndex()] : null;
-            Object result;
-            try {
-                result = jvmField.get(jvmInstance);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Can't get field value: " + field);
-            }
-
-            variables[receiver.getIndex()] = result;
+            variables[receiver.getIndex()] = readField(field, jvmInstance);
         }
 
         @Override
         public void putField(VariableReader instance, FieldReference field, VariableReader value, ValueType fieldType) {
-            Field jvmField = getJvmField(field);
-
             Object jvmInstance = instance != null ? variables[instance.getIndex()] : null;
-            try {
-                jvmField.set(jvmInstance, variables[value.getIndex()]);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Can't get field value: " + field);
-            }
-        }
-
-        private Field getJvmField(FieldReference field) {
-            Class<?> cls;
-            try {
-                cls = Class.forName(field.getClassName(), false, classLoader);
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("Class not found: " + field.getClassName());
-            }
-
-            Field jvmField;
-            try {
-                jvmField = cls.getDeclaredField(field.getFieldName());
-            } catch (NoSuchFieldException e) {
-                throw new RuntimeException("Field not found: " + field);
-            }
-
-            jvmField.setAccessible(true);
-            return jvmField;
+            writeField(field, jvmInstance, variables[value.getIndex()]);
         }
 
         @Override
@@ -682,7 +667,7 @@ public class Interpreter {
             int length = Array.getLength(jvmArray);
             Object copy = Array.newInstance(jvmArray.getClass().getComponentType(), length);
             for (int i = 0; i < length; ++i) {
-                Array.set(copy, i, Array.get(array, i));
+                Array.set(copy, i, Array.get(jvmArray, i));
             }
             variables[receiver.getIndex()] = copy;
         }
@@ -697,7 +682,7 @@ public class Interpreter {
                 ArrayElementType type) {
             Object jvmArray = variables[array.getIndex()];
             int indexValue = (Integer) variables[index.getIndex()];
-            variables[receiver.getIndex()] = Array.get(jvmArray, indexValue);
+            variables[receiver.getIndex()] = fromJvmElement(Array.get(jvmArray, indexValue));
         }
 
         @Override
@@ -705,52 +690,23 @@ public class Interpreter {
                 ArrayElementType type) {
             Object jvmArray = variables[array.getIndex()];
             int indexValue = (Integer) variables[index.getIndex()];
-            Array.set(jvmArray, indexValue, variables[value.getIndex()]);
+            Array.set(jvmArray, indexValue, toJvmElement(jvmArray, variables[value.getIndex()]));
         }
 
         @Override
         public void invoke(VariableReader receiver, VariableReader instance, MethodReference method,
                 List<? extends VariableReader> arguments, InvocationType type) {
-            Method jvmMethod = asJvmMethod(method);
             Object[] jvmArgs = new Object[arguments.size()];
             for (int i = 0; i < jvmArgs.length; ++i) {
                 jvmArgs[i] = variables[arguments.get(i).getIndex()];
             }
             Object jvmInstance = instance != null ? variables[instance.getIndex()] : null;
-            Object result;
-            try {
-                result = jvmMethod.invoke(jvmInstance, jvmArgs);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new RuntimeException("Error calling method " + method, e);
-            }
+            Object result = invokeMethod(method, jvmInstance, jvmArgs);
             if (receiver != null) {
                 variables[receiver.getIndex()] = result;
             }
         }
 
-        private Method asJvmMethod(MethodReference method) {
-            Class<?> cls;
-            try {
-                cls = Class.forName(method.getClassName(), false, classLoader);
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("Can't find class " + method.getClassName());
-            }
-
-            Class<?>[] jvmParameters = new Class[method.parameterCount()];
-            for (int i = 0; i < method.parameterCount(); ++i) {
-                jvmParameters[i] = asJvmClass(method.parameterType(i));
-            }
-            Class<?> jvmReturnType = asJvmClass(method.getReturnType());
-            for (Method jvmMethod : cls.getDeclaredMethods()) {
-                if (Arrays.equals(jvmMethod.getParameterTypes(), jvmParameters)
-                        && jvmReturnType.equals(jvmMethod.getReturnType())) {
-                    return jvmMethod;
-                }
-            }
-
-            throw new RuntimeException("Method not found: " + method);
-        }
-
         @Override
         public void invokeDynamic(VariableReader receiver, VariableReader instance, MethodDescriptor method,
                 List<? extends VariableReader> arguments, MethodHandle bootstrapMethod,
@@ -762,16 +718,12 @@ public class Interpreter {
         public void isInstance(VariableReader receiver, VariableReader value, ValueType type) {
             Object jvmValue = variables[value.getIndex()];
             Class<?> jvmType = asJvmClass(type);
-            variables[receiver.getIndex()] = jvmType.isInstance(jvmValue);
+            variables[receiver.getIndex()] = jvmType.isInstance(jvmValue) ? 1 : 0;
         }
 
         @Override
         public void initClass(String className) {
-            try {
-                Class.forName(className);
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("Class not found: " + className);
-            }
+            initializeClass(className);
         }
 
         @Override
@@ -795,44 +747,159 @@ public class Interpreter {
         public void boundCheck(VariableReader receiver, VariableReader index, VariableReader array, boolean lower) {
             variables[receiver.getIndex()] = variables[index.getIndex()];
         }
+    };
 
-        private Class<?> asJvmClass(ValueType type) {
-            if (type instanceof ValueType.Primitive) {
-                switch (((ValueType.Primitive) type).getKind()) {
-                    case BOOLEAN:
-                        return boolean.class;
-                    case BYTE:
-                        return byte.class;
-                    case SHORT:
-                        return short.class;
-                    case CHARACTER:
-                        return char.class;
-                    case INTEGER:
-                        return int.class;
-                    case LONG:
-                        return long.class;
-                    case FLOAT:
-                        return float.class;
-                    case DOUBLE:
-                        return double.class;
-                    default:
-                        break;
-                }
-            } else if (type instanceof ValueType.Void) {
-                return void.class;
-            } else if (type instanceof ValueType.Array) {
-                Class<?> itemJvmClass = asJvmClass(((ValueType.Array) type).getItemType());
-                return Array.newInstance(itemJvmClass, 0).getClass();
-            } else if (type instanceof ValueType.Object) {
-                try {
-                    Class.forName(((ValueType.Object) type).getClassName(), false, classLoader);
-                } catch (ClassNotFoundException e) {
-                    throw new IllegalArgumentException("Class not found: " + type);
-                }
+    // Values of boolean, byte, short and char types are represented by Integer, like in the program model,
+    // while JVM arrays of these types hold their own wrapper types
+    private static Object fromJvmElement(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else if (value instanceof Byte || value instanceof Short) {
+            return ((Number) value).intValue();
+        } else if (value instanceof Character) {
+            return (int) (Character) value;
+        }
+        return value;
+    }
+
+    private static Object toJvmElement(Object array, Object value) {
+        if (array instanceof boolean[]) {
+            return (Integer) value != 0;
+        } else if (array instanceof byte[]) {
+            return (byte) (int) (Integer) value;
+        } else if (array instanceof short[]) {
+            return (short) (int) (Integer) value;
+        } else if (array instanceof char[]) {
+            return (char) (int) (Integer) value;
+        }
+        return value;
+    }
+
+    protected void enterBlock(BasicBlockReader block) {
+    }
+
+    protected Object createInstance(String className) {
+        try {
+            Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Class not found: " + className);
+        }
+        return null;
+    }
+
+    protected Object readField(FieldReference field, Object instance) {
+        Field jvmField = getJvmField(field);
+        try {
+            return jvmField.get(instance);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Can't get field value: " + field);
+        }
+    }
+
+    protected void writeField(FieldReference field, Object instance, Object value) {
+        Field jvmField = getJvmField(field);
+        try {
+            jvmField.set(instance, value);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Can't set field value: " + field);
+        }
+    }
+
+    private Field getJvmField(FieldReference field) {
+        Class<?> cls;
+        try {
+            cls = Class.forName(field.getClassName(), false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Class not found: " + field.getClassName());
+        }
+
+        Field jvmField;
+        try {
+            jvmField = cls.getDeclaredField(field.getFieldName());
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException("Field not found: " + field);
+        }
+
+        jvmField.setAccessible(true);
+        return jvmField;
+    }
+
+    protected Object invokeMethod(MethodReference method, Object instance, Object[] arguments) {
+        Method jvmMethod = asJvmMethod(method);
+        try {
+            return jvmMethod.invoke(instance, arguments);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Error calling method " + method, e);
+        }
+    }
+
+    private Method asJvmMethod(MethodReference method) {
+        Class<?> cls;
+        try {
+            cls = Class.forName(method.getClassName(), false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Can't find class " + method.getClassName());
+        }
+
+        Class<?>[] jvmParameters = new Class[method.parameterCount()];
+        for (int i = 0; i < method.parameterCount(); ++i) {
+            jvmParameters[i] = asJvmClass(method.parameterType(i));
+        }
+        Class<?> jvmReturnType = asJvmClass(method.getReturnType());
+        for (Method jvmMethod : cls.getDeclaredMethods()) {
+            if (Arrays.equals(jvmMethod.getParameterTypes(), jvmParameters)
+                    && jvmReturnType.equals(jvmMethod.getReturnType())) {
+                return jvmMethod;
             }
-            throw new IllegalArgumentException("Unknown type: " + type);
         }
-    };
+
+        throw new RuntimeException("Method not found: " + method);
+    }
+
+    protected void initializeClass(String className) {
+        try {
+            Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Class not found: " + className);
+        }
+    }
+
+    private Class<?> asJvmClass(ValueType type) {
+        if (type instanceof ValueType.Primitive) {
+            switch (((ValueType.Primitive) type).getKind()) {
+                case BOOLEAN:
+                    return boolean.class;
+                case BYTE:
+                    return byte.class;
+                case SHORT:
+                    return short.class;
+                case CHARACTER:
+                    return char.class;
+                case INTEGER:
+                    return int.class;
+                case LONG:
+                    return long.class;
+                case FLOAT:
+                    return float.class;
+                case DOUBLE:
+                    return double.class;
+                default:
+                    break;
+            }
+        } else if (type instanceof ValueType.Void) {
+            return void.class;
+        } else if (type instanceof ValueType.Array) {
+            Class<?> itemJvmClass = asJvmClass(((ValueType.Array) type).getItemType());
+            return Array.newInstance(itemJvmClass, 0).getClass();
+        } else if (type instanceof ValueType.Object) {
+            try {
+                return Class.forName(((ValueType.Object) type).getClassName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Class not found: " + type);
+            }
+        }
+        throw new IllegalArgumentException("Unknown type: " + type);
+    }
 
     private enum State {
         EXECUTING,
@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model;
+
+/**
+ * Allows to share class source between compilations that run concurrently. Classes are parsed and
+ * pre-optimized under a lock, all of their programs are materialized before being published,
+ * and afterwards they are only read by compilers.
+ */
+public class SynchronizedClassHolderSource implements ClassHolderSource {
+    private final ClassHolderSource innerSource;
+
+    public SynchronizedClassHolderSource(ClassHolderSource innerSource) {
+        this.innerSource = innerSource;
+    }
+
+    @Override
+    public synchronized ClassHolder get(String name) {
+        var cls = innerSource.get(name);
+        if (cls != null) {
+            for (var method : cls.getMethods()) {
+                method.getProgram();
+            }
+        }
+        return cls;
+    }
+}
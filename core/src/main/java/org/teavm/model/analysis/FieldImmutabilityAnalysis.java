@@ -0,0 +1,381 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.callgraph.FieldAccessSite;
+import org.teavm.interop.StaticInit;
+import org.teavm.interop.Structure;
+import org.teavm.model.BasicBlockReader;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReader;
+import org.teavm.model.FieldReference;
+import org.teavm.model.ListableClassReaderSource;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodHandle;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ProgramReader;
+import org.teavm.model.RuntimeConstant;
+import org.teavm.model.TryCatchBlockReader;
+import org.teavm.model.ValueType;
+import org.teavm.model.VariableReader;
+import org.teavm.model.instructions.AbstractInstructionReader;
+import org.teavm.model.instructions.BinaryBranchingCondition;
+import org.teavm.model.instructions.BranchingCondition;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.SwitchTableEntryReader;
+
+/**
+ * Finds fields that can't change their values after initialization. An instance field is immutable
+ * when it's only written to {@code this} by constructors of the declaring class. A static field is immutable
+ * when it's only written by the static initializer of the declaring class, and the class is initialized
+ * at startup according to {@link ClassInitializerInfo}, so that no code except the initializer itself can
+ * observe the field before it's written.
+ *
+ * <p>Additionally, a static field is considered constant when its only write stores a numeric constant and
+ * happens unconditionally at the start of the static initializer, before any call, since no other code can
+ * observe the field before the write.</p>
+ *
+ * <p>Fields accessed by methods that don't access them explicitly, for example, via reflection,
+ * are never immutable. Such accesses are taken from the call graph.</p>
+ */
+public class FieldImmutabilityAnalysis implements FieldImmutabilityInfo {
+    private static final String INIT = "<init>";
+    private static final String CLINIT = "<clinit>";
+    private ListableClassReaderSource classes;
+    private Map<FieldReference, FieldInfo> fieldInfoMap = new HashMap<>();
+    private Map<FieldReference, FieldReference> resolvedFields = new HashMap<>();
+    private Set<FieldReference> immutableFields = new HashSet<>();
+    private Map<FieldReference, Number> constants = new HashMap<>();
+
+    public FieldImmutabilityAnalysis(ListableClassReaderSource classes) {
+        this.classes = classes;
+    }
+
+    public void analyze(CallGraph callGraph, ClassInitializerInfo initializerInfo) {
+        if (fieldInfoMap == null) {
+            return;
+        }
+
+        for (String className : classes.getClassNames()) {
+            ClassReader cls = classes.get(className);
+            for (MethodReader method : cls.getMethods()) {
+                ProgramReader program = method.getProgram();
+                if (program != null) {
+                    analyzeMethod(method, program);
+                }
+            }
+        }
+
+        for (Map.Entry<FieldReference, FieldInfo> entry : fieldInfoMap.entrySet()) {
+            FieldReference field = entry.getKey();
+            FieldInfo info = entry.getValue();
+            if (info.mutable || !info.written || isStructureField(field)) {
+                continue;
+            }
+            if (info.isStatic && (initializerInfo.isDynamicInitializer(field.getClassName())
+                    || isStaticInit(field.getClassName()))) {
+                continue;
+            }
+            if (hasImplicitAccess(callGraph, field, info)) {
+                continue;
+            }
+            immutableFields.add(field);
+            if (info.isStatic && info.constant != null && !info.nonConstantWrite) {
+                constants.put(field, info.constant);
+            }
+        }
+
+        fieldInfoMap = null;
+        classes = null;
+    }
+
+    @Override
+    public boolean isImmutable(FieldReference field) {
+        return immutableFields.contains(resolvedFields.getOrDefault(field, field));
+    }
+
+    @Override
+    public Number getConstantValue(FieldReference field) {
+        return constants.get(resolvedFields.getOrDefault(field, field));
+    }
+
+    public Set<? extends FieldReference> getImmutableFields() {
+        return immutableFields;
+    }
+
+    private boolean isStructureField(FieldReference field) {
+        return classes.isSuperType(Structure.class.getName(), field.getClassName()).orElse(true);
+    }
+
+    private boolean isStaticInit(String className) {
+        ClassReader cls = classes.get(className);
+        return cls == null || cls.getAnnotations().get(StaticInit.class.getName()) != null;
+    }
+
+    private boolean hasImplicitAccess(CallGraph callGraph, FieldReference field, FieldInfo info) {
+        for (FieldAccessSite site : callGraph.getFieldAccess(field)) {
+            if (!info.accessors.contains(site.getCallee().getMethod())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void analyzeMethod(MethodReader method, ProgramReader program) {
+        ProgramStructureReader structure = new ProgramStructureReader(program);
+        structure.read();
+
+        FieldAccessAnalyzer analyzer = new FieldAccessAnalyzer(method, structure);
+        for (BasicBlockReader block : program.getBasicBlocks()) {
+            analyzer.initialSequence = structure.isInEntrySequence(block.getIndex());
+            block.readAllInstructions(analyzer);
+        }
+    }
+
+    private FieldInfo getFieldInfo(FieldReference field) {
+        FieldReader fieldReader = classes.resolve(field);
+        if (fieldReader == null) {
+            return null;
+        }
+        if (!fieldReader.getReference().equals(field)) {
+            resolvedFields.put(field, fieldReader.getReference());
+        }
+        return fieldInfoMap.computeIfAbsent(fieldReader.getReference(), ref -> {
+            FieldInfo info = new FieldInfo();
+            info.className = ref.getClassName();
+            info.isStatic = fieldReader.hasModifier(ElementModifier.STATIC);
+            return info;
+        });
+    }
+
+    class FieldAccessAnalyzer extends AbstractInstructionReader {
+        private MethodReader method;
+        private ProgramStructureReader structure;
+        boolean initialSequence;
+
+        FieldAccessAnalyzer(MethodReader method, ProgramStructureReader structure) {
+            this.method = method;
+            this.structure = structure;
+        }
+
+        @Override
+        public void getField(VariableReader receiver, VariableReader instance, FieldReference field,
+                ValueType fieldType) {
+            FieldInfo info = getFieldInfo(field);
+            if (info != null) {
+                info.accessors.add(method.getReference());
+            }
+        }
+
+        @Override
+        public void putField(VariableReader instance, FieldReference field, VariableReader value,
+                ValueType fieldType) {
+            FieldInfo info = getFieldInfo(field);
+            if (info == null) {
+                return;
+            }
+            info.accessors.add(method.getReference());
+            info.written = true;
+
+            boolean ownMethod = method.getOwnerName().equals(info.className);
+            if (instance == null) {
+                if (!ownMethod || !method.getName().equals(CLINIT)) {
+                    info.mutable = true;
+                } else if (initialSequence && info.constant == null
+                        && structure.constantValues[value.getIndex()] != null) {
+                    info.constant = structure.constantValues[value.getIndex()];
+                } else {
+                    info.nonConstantWrite = true;
+                }
+            } else if (!ownMethod || !method.getName().equals(INIT) || !structure.thisAliases[instance.getIndex()]) {
+                info.mutable = true;
+            }
+        }
+
+        @Override
+        public void invoke(VariableReader receiver, VariableReader instance, MethodReference method,
+                List<? extends VariableReader> arguments, InvocationType type) {
+            initialSequence = false;
+        }
+
+        @Override
+        public void invokeDynamic(VariableReader receiver, VariableReader instance, MethodDescriptor method,
+                List<? extends VariableReader> arguments, MethodHandle bootstrapMethod,
+                List<RuntimeConstant> bootstrapArguments) {
+            initialSequence = false;
+        }
+
+        @Override
+        public void initClass(String className) {
+            initialSequence = false;
+        }
+
+        @Override
+        public void monitorEnter(VariableReader objectRef) {
+            initialSequence = false;
+        }
+
+        @Override
+        public void monitorExit(VariableReader objectRef) {
+            initialSequence = false;
+        }
+    }
+
+    /**
+     * Collects constant values of variables, copies of {@code this} and the sequence of blocks that are
+     * executed unconditionally when the method starts, until the first branch or join.
+     */
+    static class ProgramStructureReader extends AbstractInstructionReader {
+        private ProgramReader program;
+        Number[] constantValues;
+        boolean[] thisAliases;
+        private int[] incomingEdges;
+        private int[] jumpTargets;
+        private boolean[] entrySequence;
+        private int currentBlock;
+        private boolean firstPass;
+        private boolean changed;
+
+        ProgramStructureReader(ProgramReader program) {
+            this.program = program;
+            constantValues = new Number[program.variableCount()];
+            thisAliases = new boolean[program.variableCount()];
+            if (thisAliases.length > 0) {
+                thisAliases[0] = true;
+            }
+            incomingEdges = new int[program.basicBlockCount()];
+            jumpTargets = new int[program.basicBlockCount()];
+            Arrays.fill(jumpTargets, -1);
+            entrySequence = new boolean[program.basicBlockCount()];
+        }
+
+        void read() {
+            firstPass = true;
+            do {
+                changed = false;
+                for (BasicBlockReader block : program.getBasicBlocks()) {
+                    currentBlock = block.getIndex();
+                    block.readAllInstructions(this);
+                    if (firstPass) {
+                        for (TryCatchBlockReader tryCatch : block.readTryCatchBlocks()) {
+                            incomingEdges[tryCatch.getHandler().getIndex()]++;
+                        }
+                    }
+                }
+                firstPass = false;
+            } while (changed);
+
+            if (entrySequence.length > 0 && incomingEdges[0] == 0) {
+                int block = 0;
+                while (block >= 0 && !entrySequence[block]) {
+                    entrySequence[block] = true;
+                    int next = jumpTargets[block];
+                    block = next >= 0 && incomingEdges[next] == 1 ? next : -1;
+                }
+            }
+        }
+
+        boolean isInEntrySequence(int block) {
+            return entrySequence[block];
+        }
+
+        private void addEdge(BasicBlockReader target) {
+            if (firstPass) {
+                incomingEdges[target.getIndex()]++;
+            }
+        }
+
+        @Override
+        public void integerConstant(VariableReader receiver, int cst) {
+            constantValues[receiver.getIndex()] = cst;
+        }
+
+        @Override
+        public void longConstant(VariableReader receiver, long cst) {
+            constantValues[receiver.getIndex()] = cst;
+        }
+
+        @Override
+        public void floatConstant(VariableReader receiver, float cst) {
+            constantValues[receiver.getIndex()] = cst;
+        }
+
+        @Override
+        public void doubleConstant(VariableReader receiver, double cst) {
+            constantValues[receiver.getIndex()] = cst;
+        }
+
+        @Override
+        public void assign(VariableReader receiver, VariableReader assignee) {
+            if (constantValues[receiver.getIndex()] == null && constantValues[assignee.getIndex()] != null) {
+                constantValues[receiver.getIndex()] = constantValues[assignee.getIndex()];
+                changed = true;
+            }
+            if (!thisAliases[receiver.getIndex()] && thisAliases[assignee.getIndex()]) {
+                thisAliases[receiver.getIndex()] = true;
+                changed = true;
+            }
+        }
+
+        @Override
+        public void jumpIf(BranchingCondition cond, VariableReader operand, BasicBlockReader consequent,
+                BasicBlockReader alternative) {
+            addEdge(consequent);
+            addEdge(alternative);
+        }
+
+        @Override
+        public void jumpIf(BinaryBranchingCondition cond, VariableReader first, VariableReader second,
+                BasicBlockReader consequent, BasicBlockReader alternative) {
+            addEdge(consequent);
+            addEdge(alternative);
+        }
+
+        @Override
+        public void jump(BasicBlockReader target) {
+            addEdge(target);
+            jumpTargets[currentBlock] = target.getIndex();
+        }
+
+        @Override
+        public void choose(VariableReader condition, List<? extends SwitchTableEntryReader> table,
+                BasicBlockReader defaultTarget) {
+            for (SwitchTableEntryReader entry : table) {
+                addEdge(entry.getTarget());
+            }
+            addEdge(defaultTarget);
+        }
+    }
+
+    static class FieldInfo {
+        String className;
+        boolean isStatic;
+        boolean written;
+        boolean mutable;
+        boolean nonConstantWrite;
+        Number constant;
+        Set<MethodReference> accessors = new HashSet<>();
+    }
+}
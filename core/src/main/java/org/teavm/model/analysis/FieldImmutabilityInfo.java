@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import org.teavm.model.FieldReference;
+
+public interface FieldImmutabilityInfo {
+    /**
+     * Tells whether the field keeps its value once initialized, i.e. the field is written only by
+     * constructors of its class (instance fields) or by the static initializer of its class (static fields).
+     */
+    boolean isImmutable(FieldReference field);
+
+    /**
+     * Returns the value of a static field that is always the same numeric constant when observed outside
+     * of the static initializer of its class, or {@code null} if the field is not known to be a constant.
+     */
+    Number getConstantValue(FieldReference field);
+
+    FieldImmutabilityInfo EMPTY = new FieldImmutabilityInfo() {
+        @Override
+        public boolean isImmutable(FieldReference field) {
+            return false;
+        }
+
+        @Override
+        public Number getConstantValue(FieldReference field) {
+            return null;
+        }
+    };
+}
@@ -0,0 +1,563 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntSet;
+import com.carrotsearch.hppc.IntStack;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import java.util.Arrays;
+import org.teavm.common.DisjointSet;
+import org.teavm.common.DominatorTree;
+import org.teavm.common.Graph;
+import org.teavm.common.GraphUtils;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.ArrayLengthInstruction;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.BinaryInstruction;
+import org.teavm.model.instructions.BinaryOperation;
+import org.teavm.model.instructions.BranchingInstruction;
+import org.teavm.model.instructions.ConstructArrayInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.NullCheckInstruction;
+import org.teavm.model.instructions.NumericOperandType;
+import org.teavm.model.instructions.UnwrapArrayInstruction;
+import org.teavm.model.util.ProgramUtils;
+
+/**
+ * Proves facts about integer variables used as array indexes: that a variable is non-negative and that
+ * it is less than length of an array. Facts come from constants, array lengths, conditions that dominate
+ * the place of use and from induction variables, like {@code i} in {@code for (int i = 0; i < a.length; ++i)}.
+ * <p>
+ * Phis are handled optimistically: first every phi is supposed to satisfy all facts, then facts that
+ * don't follow from incoming values are dropped until nothing changes. Increments and decrements are
+ * only trusted when a dominating condition proves they can't overflow. Program must be in SSA form.
+ */
+public class IndexRangeAnalysis {
+    private static final IntSet ANY = new IntHashSet();
+    private static final int ZERO = -1;
+
+    private DisjointSet aliases = new DisjointSet();
+    private boolean[] isConstant;
+    private int[] constantValue;
+    private boolean[] isArrayLength;
+    private int[] lengthOf;
+    private int[] comparisonLeft;
+    private int[] comparisonRight;
+    private boolean[] nonNegative;
+    private IntSet[] lessThanLength;
+    private IntSet[] notGreaterThanLength;
+    private Fact[] blockFacts;
+    private boolean[] reachable;
+
+    public IndexRangeAnalysis(Program program) {
+        int variableCount = program.variableCount();
+        for (int i = 0; i < variableCount; ++i) {
+            aliases.create();
+        }
+        isConstant = new boolean[variableCount];
+        constantValue = new int[variableCount];
+        isArrayLength = new boolean[variableCount];
+        lengthOf = new int[variableCount];
+        Arrays.fill(lengthOf, -1);
+        comparisonLeft = new int[variableCount];
+        Arrays.fill(comparisonLeft, -1);
+        comparisonRight = new int[variableCount];
+        nonNegative = new boolean[variableCount];
+        lessThanLength = new IntSet[variableCount];
+        notGreaterThanLength = new IntSet[variableCount];
+        blockFacts = new Fact[program.basicBlockCount()];
+        reachable = new boolean[program.basicBlockCount()];
+        if (program.basicBlockCount() == 0) {
+            return;
+        }
+
+        findAliases(program);
+        findDefinitions(program);
+        findConditions(program);
+        propagate(program);
+    }
+
+    public boolean isNonNegative(Variable variable, BasicBlock block) {
+        return isAtLeast(index(variable), 0, block.getIndex());
+    }
+
+    public boolean isLessThanArrayLength(Variable variable, Variable array, BasicBlock block) {
+        return contains(lessThanLengthAt(index(variable), block.getIndex()), index(array));
+    }
+
+    private void findAliases(Program program) {
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction instruction : block) {
+                if (instruction instanceof AssignInstruction) {
+                    AssignInstruction assign = (AssignInstruction) instruction;
+                    aliases.union(assign.getAssignee().getIndex(), assign.getReceiver().getIndex());
+                } else if (instruction instanceof NullCheckInstruction) {
+                    NullCheckInstruction nullCheck = (NullCheckInstruction) instruction;
+                    aliases.union(nullCheck.getValue().getIndex(), nullCheck.getReceiver().getIndex());
+                } else if (instruction instanceof UnwrapArrayInstruction) {
+                    UnwrapArrayInstruction unwrap = (UnwrapArrayInstruction) instruction;
+                    aliases.union(unwrap.getArray().getIndex(), unwrap.getReceiver().getIndex());
+                }
+            }
+        }
+    }
+
+    private void findDefinitions(Program program) {
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction instruction : block) {
+                if (instruction instanceof IntegerConstantInstruction) {
+                    IntegerConstantInstruction constant = (IntegerConstantInstruction) instruction;
+                    int receiver = index(constant.getReceiver());
+                    isConstant[receiver] = true;
+                    constantValue[receiver] = constant.getConstant();
+                } else if (instruction instanceof ArrayLengthInstruction) {
+                    ArrayLengthInstruction arrayLength = (ArrayLengthInstruction) instruction;
+                    int receiver = index(arrayLength.getReceiver());
+                    isArrayLength[receiver] = true;
+                    lengthOf[receiver] = index(arrayLength.getArray());
+                } else if (instruction instanceof ConstructArrayInstruction) {
+                    // Size is not known to be non-negative before the array is created,
+                    // but it's equal to the length wherever the array is accessible.
+                    ConstructArrayInstruction construct = (ConstructArrayInstruction) instruction;
+                    int size = index(construct.getSize());
+                    if (!isArrayLength[size]) {
+                        lengthOf[size] = index(construct.getReceiver());
+                    }
+                } else if (instruction instanceof BinaryInstruction) {
+                    BinaryInstruction binary = (BinaryInstruction) instruction;
+                    if (binary.getOperation() == BinaryOperation.COMPARE
+                            && binary.getOperandType() == NumericOperandType.INT) {
+                        int receiver = index(binary.getReceiver());
+                        comparisonLeft[receiver] = index(binary.getFirstOperand());
+                        comparisonRight[receiver] = index(binary.getSecondOperand());
+                    }
+                }
+            }
+        }
+    }
+
+    private void findConditions(Program program) {
+        Graph cfg = ProgramUtils.buildControlFlowGraph(program);
+        DominatorTree dom = GraphUtils.buildDominatorTree(cfg);
+        Graph domGraph = GraphUtils.buildDominatorGraph(dom, cfg.size());
+
+        Fact[] edgeFacts = new Fact[program.basicBlockCount()];
+        for (BasicBlock block : program.getBasicBlocks()) {
+            if (!(block.getLastInstruction() instanceof BranchingInstruction)) {
+                continue;
+            }
+            BranchingInstruction branching = (BranchingInstruction) block.getLastInstruction();
+            int consequent = branching.getConsequent().getIndex();
+            int alternative = branching.getAlternative().getIndex();
+            if (consequent == alternative) {
+                continue;
+            }
+
+            int operand = index(branching.getOperand());
+            int a = operand;
+            int b = ZERO;
+            if (comparisonLeft[operand] >= 0) {
+                a = comparisonLeft[operand];
+                b = comparisonRight[operand];
+            }
+
+            // Facts of an edge hold in its target only if there's no other way to get there
+            boolean useConsequent = cfg.incomingEdgesCount(consequent) == 1;
+            boolean useAlternative = cfg.incomingEdgesCount(alternative) == 1;
+            switch (branching.getCondition()) {
+                case LESS:
+                    if (useConsequent) {
+                        edgeFacts[consequent] = new Fact(a, b, true, null);
+                    }
+                    if (useAlternative) {
+                        edgeFacts[alternative] = new Fact(b, a, false, null);
+                    }
+                    break;
+                case GREATER_OR_EQUAL:
+                    if (useConsequent) {
+                        edgeFacts[consequent] = new Fact(b, a, false, null);
+                    }
+                    if (useAlternative) {
+                        edgeFacts[alternative] = new Fact(a, b, true, null);
+                    }
+                    break;
+                case GREATER:
+                    if (useConsequent) {
+                        edgeFacts[consequent] = new Fact(b, a, true, null);
+                    }
+                    if (useAlternative) {
+                        edgeFacts[alternative] = new Fact(a, b, false, null);
+                    }
+                    break;
+                case LESS_OR_EQUAL:
+                    if (useConsequent) {
+                        edgeFacts[consequent] = new Fact(a, b, false, null);
+                    }
+                    if (useAlternative) {
+                        edgeFacts[alternative] = new Fact(b, a, true, null);
+                    }
+                    break;
+                case EQUAL:
+                    if (useConsequent) {
+                        edgeFacts[consequent] = new Fact(a, b, false, new Fact(b, a, false, null));
+                    }
+                    break;
+                case NOT_EQUAL:
+                    if (useAlternative) {
+                        edgeFacts[alternative] = new Fact(a, b, false, new Fact(b, a, false, null));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        IntStack stack = new IntStack();
+        stack.push(0);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            reachable[node] = true;
+            int idom = dom.immediateDominatorOf(node);
+            Fact facts = idom >= 0 ? blockFacts[idom] : null;
+            for (Fact fact = edgeFacts[node]; fact != null; fact = fact.next) {
+                facts = new Fact(fact.lesser, fact.greater, fact.strict, facts);
+            }
+            blockFacts[node] = facts;
+            for (int successor : domGraph.outgoingEdges(node)) {
+                stack.push(successor);
+            }
+        }
+    }
+
+    private void propagate(Program program) {
+        for (BasicBlock block : program.getBasicBlocks()) {
+            if (!reachable[block.getIndex()]) {
+                continue;
+            }
+            for (Phi phi : block.getPhis()) {
+                assumeAll(index(phi.getReceiver()));
+            }
+            for (Instruction instruction : block) {
+                if (isTracked(instruction)) {
+                    assumeAll(index(((BinaryInstruction) instruction).getReceiver()));
+                }
+            }
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for (BasicBlock block : program.getBasicBlocks()) {
+                if (!reachable[block.getIndex()]) {
+                    continue;
+                }
+                for (Phi phi : block.getPhis()) {
+                    changed |= update(phi);
+                }
+                for (Instruction instruction : block) {
+                    if (isTracked(instruction)) {
+                        changed |= update((BinaryInstruction) instruction, block.getIndex());
+                    }
+                }
+            }
+        } while (changed);
+    }
+
+    private boolean isTracked(Instruction instruction) {
+        if (!(instruction instanceof BinaryInstruction)) {
+            return false;
+        }
+        BinaryInstruction binary = (BinaryInstruction) instruction;
+        if (binary.getOperandType() != NumericOperandType.INT) {
+            return false;
+        }
+        switch (binary.getOperation()) {
+            case ADD:
+            case SUBTRACT:
+            case AND:
+            case MODULO:
+            case SHIFT_RIGHT:
+            case SHIFT_RIGHT_UNSIGNED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void assumeAll(int variable) {
+        nonNegative[variable] = true;
+        lessThanLength[variable] = ANY;
+        notGreaterThanLength[variable] = ANY;
+    }
+
+    private boolean update(Phi phi) {
+        boolean isNonNegative = true;
+        IntSet lessThan = ANY;
+        IntSet notGreaterThan = ANY;
+        for (Incoming incoming : phi.getIncomings()) {
+            int value = index(incoming.getValue());
+            int source = incoming.getSource().getIndex();
+            if (!reachable[source]) {
+                continue;
+            }
+            isNonNegative &= isAtLeast(value, 0, source);
+            lessThan = intersect(lessThan, lessThanLengthAt(value, source));
+            notGreaterThan = intersect(notGreaterThan, notGreaterThanLengthAt(value, source));
+        }
+        return set(index(phi.getReceiver()), isNonNegative, lessThan, notGreaterThan);
+    }
+
+    private boolean update(BinaryInstruction insn, int block) {
+        int first = index(insn.getFirstOperand());
+        int second = index(insn.getSecondOperand());
+        int receiver = index(insn.getReceiver());
+        switch (insn.getOperation()) {
+            case ADD:
+                if (isConstant[second]) {
+                    return updateIncrement(receiver, first, constantValue[second], block);
+                } else if (isConstant[first]) {
+                    return updateIncrement(receiver, second, constantValue[first], block);
+                }
+                break;
+            case SUBTRACT:
+                if (isConstant[second]) {
+                    return updateIncrement(receiver, first, -(long) constantValue[second], block);
+                }
+                break;
+            case AND:
+                return set(receiver, isAtLeast(first, 0, block) || isAtLeast(second, 0, block), null, null);
+            case MODULO:
+            case SHIFT_RIGHT:
+                return set(receiver, isAtLeast(first, 0, block), null, null);
+            case SHIFT_RIGHT_UNSIGNED:
+                return set(receiver, isConstant[second] && (constantValue[second] & 31) != 0, null, null);
+            default:
+                break;
+        }
+        return set(receiver, false, null, null);
+    }
+
+    // Increment is long, so that negating Integer.MIN_VALUE does not overflow
+    private boolean updateIncrement(int receiver, int operand, long increment, int block) {
+        if (increment == 0) {
+            return set(receiver, isAtLeast(operand, 0, block), lessThanLengthAt(operand, block),
+                    notGreaterThanLengthAt(operand, block));
+        } else if (increment == 1) {
+            // x < len implies x + 1 <= len, and any strict upper bound of x guarantees that x + 1 won't overflow
+            IntSet lessThan = lessThanLengthAt(operand, block);
+            boolean noOverflow = size(lessThan) != 0 || hasUpperBound(operand, block);
+            return set(receiver, noOverflow && isAtLeast(operand, -1, block), null, lessThan);
+        } else if (increment < 0) {
+            // x <= len implies x - d < len, unless x - d underflows, which can't happen for non-negative x
+            long decrement = -increment;
+            IntSet lessThan = isAtLeast(operand, 0, block) ? notGreaterThanLengthAt(operand, block) : null;
+            return set(receiver, isAtLeast(operand, decrement, block), lessThan, lessThan);
+        }
+        return set(receiver, false, null, null);
+    }
+
+    private boolean set(int variable, boolean isNonNegative, IntSet lessThan, IntSet notGreaterThan) {
+        boolean changed = false;
+        if (nonNegative[variable] && !isNonNegative) {
+            nonNegative[variable] = false;
+            changed = true;
+        }
+
+        IntSet oldLessThan = lessThanLength[variable];
+        IntSet newLessThan = intersect(oldLessThan, lessThan);
+        if (size(oldLessThan) != size(newLessThan)) {
+            lessThanLength[variable] = newLessThan;
+            changed = true;
+        }
+
+        IntSet oldNotGreaterThan = notGreaterThanLength[variable];
+        IntSet newNotGreaterThan = intersect(oldNotGreaterThan, union(notGreaterThan, newLessThan));
+        if (size(oldNotGreaterThan) != size(newNotGreaterThan)) {
+            notGreaterThanLength[variable] = newNotGreaterThan;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private boolean isAtLeast(int variable, long bound, int block) {
+        if (variable == ZERO || isConstant[variable]) {
+            return constantOf(variable) >= bound;
+        }
+        if (bound <= 0 && (nonNegative[variable] || isArrayLength[variable])) {
+            return true;
+        }
+        for (Fact fact = blockFacts[block]; fact != null; fact = fact.next) {
+            if (fact.greater != variable) {
+                continue;
+            }
+            int lesser = fact.lesser;
+            long lesserBound;
+            if (lesser == ZERO || isConstant[lesser]) {
+                lesserBound = constantOf(lesser);
+            } else if (nonNegative[lesser] || isArrayLength[lesser]) {
+                lesserBound = 0;
+            } else {
+                continue;
+            }
+            if (lesserBound + (fact.strict ? 1 : 0) >= bound) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasUpperBound(int variable, int block) {
+        if (variable == ZERO || isConstant[variable]) {
+            return constantOf(variable) < Integer.MAX_VALUE;
+        }
+        for (Fact fact = blockFacts[block]; fact != null; fact = fact.next) {
+            if (fact.lesser == variable && (fact.strict || (isConstant(fact.greater)
+                    && constantOf(fact.greater) < Integer.MAX_VALUE))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private IntSet lessThanLengthAt(int variable, int block) {
+        if (variable == ZERO) {
+            return null;
+        }
+        IntSet result = lessThanLength[variable];
+        for (Fact fact = blockFacts[block]; fact != null; fact = fact.next) {
+            if (fact.lesser != variable || fact.greater == ZERO) {
+                continue;
+            }
+            int greater = fact.greater;
+            if (fact.strict) {
+                result = union(result, notGreaterThanLength[greater]);
+                if (lengthOf[greater] >= 0) {
+                    result = union(result, lengthOf[greater]);
+                }
+            } else {
+                result = union(result, lessThanLength[greater]);
+            }
+        }
+        return result;
+    }
+
+    private IntSet notGreaterThanLengthAt(int variable, int block) {
+        if (variable == ZERO) {
+            return null;
+        }
+        IntSet result = union(notGreaterThanLength[variable], lessThanLengthAt(variable, block));
+        if (lengthOf[variable] >= 0) {
+            result = union(result, lengthOf[variable]);
+        }
+        for (Fact fact = blockFacts[block]; fact != null; fact = fact.next) {
+            if (fact.lesser == variable && !fact.strict && fact.greater != ZERO) {
+                int greater = fact.greater;
+                result = union(result, notGreaterThanLength[greater]);
+                if (lengthOf[greater] >= 0) {
+                    result = union(result, lengthOf[greater]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isConstant(int variable) {
+        return variable == ZERO || isConstant[variable];
+    }
+
+    private int constantOf(int variable) {
+        return variable == ZERO ? 0 : constantValue[variable];
+    }
+
+    private int index(Variable variable) {
+        return aliases.find(variable.getIndex());
+    }
+
+    private static boolean contains(IntSet set, int value) {
+        return set == ANY || (set != null && set.contains(value));
+    }
+
+    private static int size(IntSet set) {
+        return set == ANY ? -1 : set != null ? set.size() : 0;
+    }
+
+    private static IntSet union(IntSet set, int value) {
+        if (contains(set, value)) {
+            return set;
+        }
+        IntSet result = new IntHashSet();
+        if (set != null) {
+            result.addAll(set);
+        }
+        result.add(value);
+        return result;
+    }
+
+    private static IntSet union(IntSet a, IntSet b) {
+        if (a == ANY || b == ANY) {
+            return ANY;
+        }
+        if (b == null || b.isEmpty()) {
+            return a;
+        }
+        if (a == null || a.isEmpty()) {
+            return b;
+        }
+        IntSet result = new IntHashSet(a);
+        result.addAll(b);
+        return result;
+    }
+
+    private static IntSet intersect(IntSet a, IntSet b) {
+        if (a == ANY) {
+            return b;
+        }
+        if (b == ANY) {
+            return a;
+        }
+        if (a == null || b == null) {
+            return null;
+        }
+        IntSet result = new IntHashSet();
+        for (IntCursor cursor : a) {
+            if (b.contains(cursor.value)) {
+                result.add(cursor.value);
+            }
+        }
+        return result;
+    }
+
+    static class Fact {
+        final int lesser;
+        final int greater;
+        final boolean strict;
+        final Fact next;
+
+        Fact(int lesser, int greater, boolean strict, Fact next) {
+            this.lesser = lesser;
+            this.greater = greater;
+            this.strict = strict;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.teavm.common.DisjointSet;
+import org.teavm.model.BasicBlockReader;
+import org.teavm.model.FieldReference;
+import org.teavm.model.IncomingReader;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodHandle;
+import org.teavm.model.MethodReference;
+import org.teavm.model.PhiReader;
+import org.teavm.model.ProgramReader;
+import org.teavm.model.RuntimeConstant;
+import org.teavm.model.TextLocation;
+import org.teavm.model.ValueType;
+import org.teavm.model.VariableReader;
+import org.teavm.model.instructions.ArrayElementType;
+import org.teavm.model.instructions.BinaryBranchingCondition;
+import org.teavm.model.instructions.BinaryOperation;
+import org.teavm.model.instructions.BranchingCondition;
+import org.teavm.model.instructions.CastIntegerDirection;
+import org.teavm.model.instructions.InstructionReader;
+import org.teavm.model.instructions.IntegerSubtype;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.NumericOperandType;
+import org.teavm.model.instructions.SwitchTableEntryReader;
+
+/**
+ * Computes {@link MethodEscapeSummary} of methods on demand. Summaries of callees are computed before
+ * summaries of callers, only non-virtual calls are followed, other calls are assumed to let all their
+ * arguments escape. Recursive calls get conservative summaries.
+ */
+public class MethodEscapeSummaries {
+    private static final int MAX_DEPTH = 32;
+    private final Function<MethodReference, ProgramReader> programProvider;
+    private final Map<MethodReference, MethodEscapeSummary> cache = new HashMap<>();
+    private final Set<MethodReference> methodsInProgress = new HashSet<>();
+
+    public MethodEscapeSummaries(Function<MethodReference, ProgramReader> programProvider) {
+        this.programProvider = programProvider;
+    }
+
+    public MethodEscapeSummary get(MethodReference method) {
+        MethodEscapeSummary result = cache.get(method);
+        if (result != null) {
+            return result;
+        }
+        if (methodsInProgress.size() >= MAX_DEPTH || !methodsInProgress.add(method)) {
+            return MethodEscapeSummary.conservative(method.parameterCount());
+        }
+        try {
+            ProgramReader program = programProvider.apply(method);
+            result = program != null && program.basicBlockCount() > 0
+                    ? analyze(program, method)
+                    : MethodEscapeSummary.conservative(method.parameterCount());
+        } finally {
+            methodsInProgress.remove(method);
+        }
+        cache.put(method, result);
+        return result;
+    }
+
+    public void invalidate(MethodReference method) {
+        cache.remove(method);
+    }
+
+    private MethodEscapeSummary analyze(ProgramReader program, MethodReference method) {
+        Analyzer analyzer = new Analyzer(program.variableCount());
+        for (int i = 0; i <= method.parameterCount(); ++i) {
+            analyzer.foreign[i] = true;
+        }
+        for (int i = 0; i < program.basicBlockCount(); ++i) {
+            BasicBlockReader block = program.basicBlockAt(i);
+            for (PhiReader phi : block.readPhis()) {
+                for (IncomingReader incoming : phi.readIncomings()) {
+                    analyzer.alias(phi.getReceiver(), incoming.getValue());
+                }
+            }
+            if (block.getExceptionVariable() != null) {
+                analyzer.foreign[block.getExceptionVariable().getIndex()] = true;
+            }
+            block.readAllInstructions(analyzer);
+        }
+
+        int[] classes = analyzer.aliases.pack(program.variableCount());
+        boolean[] escapingClasses = new boolean[program.variableCount()];
+        boolean[] foreignClasses = new boolean[program.variableCount()];
+        boolean[] freshClasses = new boolean[program.variableCount()];
+        boolean[] returnedClasses = new boolean[program.variableCount()];
+        for (int i = 0; i < program.variableCount(); ++i) {
+            int cls = classes[i];
+            escapingClasses[cls] |= analyzer.escaping[i];
+            foreignClasses[cls] |= analyzer.foreign[i];
+            freshClasses[cls] |= analyzer.fresh[i];
+            returnedClasses[cls] |= analyzer.returned[i];
+        }
+
+        boolean[] escapingParameters = new boolean[method.parameterCount() + 1];
+        for (int i = 0; i < escapingParameters.length; ++i) {
+            escapingParameters[i] = escapingClasses[classes[i]] || returnedClasses[classes[i]];
+        }
+
+        boolean returnsFresh = analyzer.returnsValue;
+        for (int i = 0; i < program.variableCount(); ++i) {
+            if (returnedClasses[i] && (!freshClasses[i] || foreignClasses[i] || escapingClasses[i])) {
+                returnsFresh = false;
+                break;
+            }
+        }
+
+        return new MethodEscapeSummary(escapingParameters, returnsFresh);
+    }
+
+    class Analyzer implements InstructionReader {
+        final DisjointSet aliases = new DisjointSet();
+        final boolean[] escaping;
+        final boolean[] foreign;
+        final boolean[] fresh;
+        final boolean[] returned;
+        boolean returnsValue;
+
+        Analyzer(int variableCount) {
+            for (int i = 0; i < variableCount; ++i) {
+                aliases.create();
+            }
+            escaping = new boolean[variableCount];
+            foreign = new boolean[variableCount];
+            fresh = new boolean[variableCount];
+            returned = new boolean[variableCount];
+        }
+
+        void alias(VariableReader a, VariableReader b) {
+            aliases.union(a.getIndex(), b.getIndex());
+        }
+
+        void escape(VariableReader var) {
+            if (var != null) {
+                escaping[var.getIndex()] = true;
+            }
+        }
+
+        void foreign(VariableReader var) {
+            if (var != null) {
+                foreign[var.getIndex()] = true;
+            }
+        }
+
+        @Override
+        public void location(TextLocation location) {
+        }
+
+        @Override
+        public void nop() {
+        }
+
+        @Override
+        public void classConstant(VariableReader receiver, ValueType cst) {
+            foreign(receiver);
+        }
+
+        @Override
+        public void nullConstant(VariableReader receiver) {
+        }
+
+        @Override
+        public void integerConstant(VariableReader receiver, int cst) {
+        }
+
+        @Override
+        public void longConstant(VariableReader receiver, long cst) {
+        }
+
+        @Override
+        public void floatConstant(VariableReader receiver, float cst) {
+        }
+
+        @Override
+        public void doubleConstant(VariableReader receiver, double cst) {
+        }
+
+        @Override
+        public void stringConstant(VariableReader receiver, String cst) {
+            foreign(receiver);
+        }
+
+        @Override
+        public void binary(BinaryOperation op, VariableReader receiver, VariableReader first, VariableReader second,
+                NumericOperandType type) {
+        }
+
+        @Override
+        public void negate(VariableReader receiver, VariableReader operand, NumericOperandType type) {
+        }
+
+        @Override
+        public void assign(VariableReader receiver, VariableReader assignee) {
+            alias(receiver, assignee);
+        }
+
+        @Override
+        public void cast(VariableReader receiver, VariableReader value, ValueType targetType, boolean weak) {
+            alias(receiver, value);
+        }
+
+        @Override
+        public void cast(VariableReader receiver, VariableReader value, NumericOperandType sourceType,
+                NumericOperandType targetType) {
+        }
+
+        @Override
+        public void cast(VariableReader receiver, VariableReader value, IntegerSubtype type,
+                CastIntegerDirection targetType) {
+        }
+
+        @Override
+        public void jumpIf(BranchingCondition cond, VariableReader operand, BasicBlockReader consequent,
+                BasicBlockReader alternative) {
+        }
+
+        @Override
+        public void jumpIf(BinaryBranchingCondition cond, VariableReader first, VariableReader second,
+                BasicBlockReader consequent, BasicBlockReader alternative) {
+        }
+
+        @Override
+        public void jump(BasicBlockReader target) {
+        }
+
+        @Override
+        public void choose(VariableReader condition, List<? extends SwitchTableEntryReader> table,
+                BasicBlockReader defaultTarget) {
+        }
+
+        @Override
+        public void exit(VariableReader valueToReturn) {
+            if (valueToReturn != null) {
+                returned[valueToReturn.getIndex()] = true;
+                returnsValue = true;
+            }
+        }
+
+        @Override
+        public void raise(VariableReader exception) {
+            escape(exception);
+        }
+
+        @Override
+        public void createArray(VariableReader receiver, ValueType itemType, VariableReader size) {
+            fresh[receiver.getIndex()] = true;
+        }
+
+        @Override
+        public void createArray(VariableReader receiver, ValueType itemType,
+                List<? extends VariableReader> dimensions) {
+            fresh[receiver.getIndex()] = true;
+        }
+
+        @Override
+        public void create(VariableReader receiver, String type) {
+            fresh[receiver.getIndex()] = true;
+        }
+
+        @Override
+        public void getField(VariableReader receiver, VariableReader instance, FieldReference field,
+                ValueType fieldType) {
+            foreign(receiver);
+        }
+
+        @Override
+        public void putField(VariableReader instance, FieldReference field, VariableReader value,
+                ValueType fieldType) {
+            escape(value);
+        }
+
+        @Override
+        public void arrayLength(VariableReader receiver, VariableReader array) {
+        }
+
+        @Override
+        public void cloneArray(VariableReader receiver, VariableReader array) {
+            fresh[receiver.getIndex()] = true;
+        }
+
+        @Override
+        public void unwrapArray(VariableReader receiver, VariableReader array, ArrayElementType elementType) {
+            alias(receiver, array);
+        }
+
+        @Override
+        public void getElement(VariableReader receiver, VariableReader array, VariableReader index,
+                ArrayElementType type) {
+            foreign(receiver);
+        }
+
+        @Override
+        public void putElement(VariableReader array, VariableReader index, VariableReader value,
+                ArrayElementType type) {
+            escape(value);
+        }
+
+        @Override
+        public void invoke(VariableReader receiver, VariableReader instance, MethodReference method,
+                List<? extends VariableReader> arguments, InvocationType type) {
+            MethodEscapeSummary summary = type == InvocationType.SPECIAL ? get(method) : null;
+            if (instance != null && (summary == null || summary.parameterEscapes(0))) {
+                escape(instance);
+            }
+            for (int i = 0; i < arguments.size(); ++i) {
+                if (summary == null || summary.parameterEscapes(i + 1)) {
+                    escape(arguments.get(i));
+                }
+            }
+            if (receiver != null) {
+                if (summary != null && summary.returnsFreshObject()) {
+                    fresh[receiver.getIndex()] = true;
+                } else {
+                    foreign(receiver);
+                }
+            }
+        }
+
+        @Override
+        public void invokeDynamic(VariableReader receiver, VariableReader instance, MethodDescriptor method,
+                List<? extends VariableReader> arguments, MethodHandle bootstrapMethod,
+                List<RuntimeConstant> bootstrapArguments) {
+            escape(instance);
+            for (VariableReader argument : arguments) {
+                escape(argument);
+            }
+            foreign(receiver);
+        }
+
+        @Override
+        public void isInstance(VariableReader receiver, VariableReader value, ValueType type) {
+        }
+
+        @Override
+        public void initClass(String className) {
+        }
+
+        @Override
+        public void nullCheck(VariableReader receiver, VariableReader value) {
+            alias(receiver, value);
+        }
+
+        @Override
+        public void monitorEnter(VariableReader objectRef) {
+            escape(objectRef);
+        }
+
+        @Override
+        public void monitorExit(VariableReader objectRef) {
+            escape(objectRef);
+        }
+
+        @Override
+        public void boundCheck(VariableReader receiver, VariableReader index, VariableReader array, boolean lower) {
+        }
+    }
+}
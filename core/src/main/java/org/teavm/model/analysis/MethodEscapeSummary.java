@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Describes how a method treats object references passed to it, as seen by its callers.
+ */
+public class MethodEscapeSummary {
+    private final boolean[] escapingParameters;
+    private final boolean returnsFreshObject;
+
+    MethodEscapeSummary(boolean[] escapingParameters, boolean returnsFreshObject) {
+        this.escapingParameters = escapingParameters;
+        this.returnsFreshObject = returnsFreshObject;
+    }
+
+    static MethodEscapeSummary conservative(int parameterCount) {
+        boolean[] escapingParameters = new boolean[parameterCount + 1];
+        Arrays.fill(escapingParameters, true);
+        return new MethodEscapeSummary(escapingParameters, false);
+    }
+
+    /**
+     * Tells whether the method may store the parameter in the heap, return it, throw it or pass it to another
+     * method that does so.
+     *
+     * @param index index of parameter, 0 stands for {@code this}
+     */
+    public boolean parameterEscapes(int index) {
+        return escapingParameters[index];
+    }
+
+    /**
+     * Tells whether every non-null value returned by the method is an object allocated during method call
+     * and not reachable from anywhere else.
+     */
+    public boolean returnsFreshObject() {
+        return returnsFreshObject;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+/**
+ * Describes which effects a call to a method may have, including effects of methods it calls.
+ */
+public class MethodSideEffectSummary {
+    static final MethodSideEffectSummary NONE = new MethodSideEffectSummary(false, false, false, false);
+    static final MethodSideEffectSummary CONSERVATIVE = new MethodSideEffectSummary(true, true, true, true);
+    private final boolean readsHeap;
+    private final boolean writesHeap;
+    private final boolean allocates;
+    private final boolean mayThrow;
+
+    MethodSideEffectSummary(boolean readsHeap, boolean writesHeap, boolean allocates, boolean mayThrow) {
+        this.readsHeap = readsHeap;
+        this.writesHeap = writesHeap;
+        this.allocates = allocates;
+        this.mayThrow = mayThrow;
+    }
+
+    MethodSideEffectSummary union(MethodSideEffectSummary other) {
+        if (other == this || other == NONE) {
+            return this;
+        } else if (this == NONE) {
+            return other;
+        }
+        return new MethodSideEffectSummary(readsHeap || other.readsHeap, writesHeap || other.writesHeap,
+                allocates || other.allocates, mayThrow || other.mayThrow);
+    }
+
+    /**
+     * Tells whether the method may read a non-final field or an array element.
+     */
+    public boolean readsHeap() {
+        return readsHeap;
+    }
+
+    /**
+     * Tells whether the method may write a field or an array element, initialize a class, enter a monitor or
+     * do anything else the compiler can't see.
+     */
+    public boolean writesHeap() {
+        return writesHeap;
+    }
+
+    /**
+     * Tells whether the method may allocate a new object or array.
+     */
+    public boolean allocates() {
+        return allocates;
+    }
+
+    /**
+     * Tells whether the method may throw an exception explicitly. Exceptions caused by dereferencing
+     * {@code null} or by array indexes out of bounds are not taken into account, the same way as
+     * {@link org.teavm.model.optimization.UnusedVariableElimination} does not take them into account for
+     * field and array reads.
+     */
+    public boolean mayThrow() {
+        return mayThrow;
+    }
+
+    /**
+     * Tells whether two calls with the same arguments always produce the same result and nothing else
+     * can be observed, so that calls can be numbered as values and moved out of loops.
+     */
+    public boolean isPure() {
+        return !readsHeap && !writesHeap && !allocates;
+    }
+
+    /**
+     * Tells whether a call can be removed when its result is not used.
+     */
+    public boolean isRemovable() {
+        return !writesHeap && !mayThrow;
+    }
+}
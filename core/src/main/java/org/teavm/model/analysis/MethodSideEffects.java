@@ -0,0 +1,351 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.callgraph.CallGraphNode;
+import org.teavm.callgraph.CallSite;
+import org.teavm.interop.NoSideEffects;
+import org.teavm.model.BasicBlockReader;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReader;
+import org.teavm.model.FieldReference;
+import org.teavm.model.ListableClassReaderSource;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodHandle;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ProgramReader;
+import org.teavm.model.RuntimeConstant;
+import org.teavm.model.ValueType;
+import org.teavm.model.VariableReader;
+import org.teavm.model.instructions.AbstractInstructionReader;
+import org.teavm.model.instructions.ArrayElementType;
+import org.teavm.model.instructions.InvocationType;
+
+/**
+ * Computes {@link MethodSideEffectSummary} of all methods of a program. Effects of a method are the union
+ * of effects of its own instructions and of effects of all methods it may call. Callees are taken both from
+ * direct calls in the method's program and from the call graph, so virtual calls contribute effects of all
+ * their implementations. Summaries are computed as a fixed point, starting from summaries of the methods' own
+ * instructions, so recursive methods don't necessarily get conservative summaries.
+ *
+ * <p>Methods without program get conservative summaries, unless they are marked with {@link NoSideEffects},
+ * in which case they are only assumed to read the heap and to allocate objects.</p>
+ *
+ * <p>Reads of final fields and of fields that {@link FieldImmutabilityInfo} reports as immutable
+ * are not considered heap reads.</p>
+ */
+public class MethodSideEffects {
+    public static final MethodSideEffects UNKNOWN = new MethodSideEffects(null, FieldImmutabilityInfo.EMPTY,
+            new HashMap<>());
+    private static final MethodSideEffectSummary NATIVE_NO_SIDE_EFFECTS = new MethodSideEffectSummary(
+            true, false, true, false);
+    private final ClassReaderSource classes;
+    private final FieldImmutabilityInfo immutability;
+    private final Map<MethodReference, MethodSideEffectSummary> summaries;
+
+    private MethodSideEffects(ClassReaderSource classes, FieldImmutabilityInfo immutability,
+            Map<MethodReference, MethodSideEffectSummary> summaries) {
+        this.classes = classes;
+        this.immutability = immutability;
+        this.summaries = summaries;
+    }
+
+    public static MethodSideEffects compute(ListableClassReaderSource classes, CallGraph callGraph,
+            FieldImmutabilityInfo immutability) {
+        Map<MethodReference, MethodInfo> methods = new LinkedHashMap<>();
+        for (String className : classes.getClassNames()) {
+            ClassReader cls = classes.get(className);
+            for (MethodReader method : cls.getMethods()) {
+                ProgramReader program = method.getProgram();
+                if (program != null) {
+                    methods.put(method.getReference(), analyzeLocally(classes, immutability, callGraph, method,
+                            program));
+                }
+            }
+        }
+
+        MethodSideEffects result = new MethodSideEffects(classes, immutability, new HashMap<>());
+        Map<MethodInfo, List<MethodInfo>> callers = new HashMap<>();
+        for (MethodInfo info : methods.values()) {
+            for (MethodReference calleeRef : info.calleeReferences) {
+                MethodInfo callee = methods.get(calleeRef);
+                if (callee == null) {
+                    MethodReader implementation = classes.resolveImplementation(calleeRef);
+                    if (implementation != null) {
+                        callee = methods.get(implementation.getReference());
+                    }
+                }
+                if (callee != null) {
+                    info.callees.add(callee);
+                    callers.computeIfAbsent(callee, k -> new ArrayList<>()).add(info);
+                } else {
+                    info.local = info.local.union(result.getWithoutProgram(calleeRef));
+                }
+            }
+            info.summary = info.local;
+        }
+
+        Queue<MethodInfo> queue = new ArrayDeque<>(methods.values());
+        Set<MethodInfo> queued = new LinkedHashSet<>(methods.values());
+        while (!queue.isEmpty()) {
+            MethodInfo info = queue.remove();
+            queued.remove(info);
+            MethodSideEffectSummary summary = info.local;
+            for (MethodInfo callee : info.callees) {
+                summary = summary.union(callee.summary);
+            }
+            if (!equal(summary, info.summary)) {
+                info.summary = summary;
+                for (MethodInfo caller : callers.getOrDefault(info, List.of())) {
+                    if (queued.add(caller)) {
+                        queue.add(caller);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<MethodReference, MethodInfo> entry : methods.entrySet()) {
+            result.summaries.put(entry.getKey(), entry.getValue().summary);
+        }
+        return result;
+    }
+
+    private static MethodInfo analyzeLocally(ClassReaderSource classes, FieldImmutabilityInfo immutability,
+            CallGraph callGraph, MethodReader method, ProgramReader program) {
+        LocalEffectReader reader = new LocalEffectReader(classes, immutability);
+        for (BasicBlockReader block : program.getBasicBlocks()) {
+            block.readAllInstructions(reader);
+        }
+
+        MethodInfo info = new MethodInfo();
+        info.calleeReferences.addAll(reader.directCallees);
+        CallGraphNode node = callGraph.getNode(method.getReference());
+        boolean hasCallGraphCallees = false;
+        if (node != null) {
+            for (CallSite callSite : node.getCallSites()) {
+                for (CallGraphNode callee : callSite.getCalledMethods()) {
+                    info.calleeReferences.add(callee.getMethod());
+                    hasCallGraphCallees = true;
+                }
+            }
+        }
+        info.local = reader.unknownEffects || (reader.virtualCalls && !hasCallGraphCallees)
+                ? MethodSideEffectSummary.CONSERVATIVE
+                : new MethodSideEffectSummary(reader.readsHeap, reader.writesHeap, reader.allocates,
+                        reader.mayThrow);
+        return info;
+    }
+
+    private static boolean equal(MethodSideEffectSummary a, MethodSideEffectSummary b) {
+        return a.readsHeap() == b.readsHeap() && a.writesHeap() == b.writesHeap()
+                && a.allocates() == b.allocates() && a.mayThrow() == b.mayThrow();
+    }
+
+    public MethodSideEffectSummary get(MethodReference method) {
+        MethodSideEffectSummary summary = summaries.get(method);
+        if (summary != null) {
+            return summary;
+        }
+        if (classes == null) {
+            return MethodSideEffectSummary.CONSERVATIVE;
+        }
+        MethodReader implementation = classes.resolveImplementation(method);
+        if (implementation != null) {
+            summary = summaries.get(implementation.getReference());
+            if (summary != null) {
+                return summary;
+            }
+        }
+        return getWithoutProgram(method);
+    }
+
+    private MethodSideEffectSummary getWithoutProgram(MethodReference method) {
+        MethodReader implementation = classes.resolveImplementation(method);
+        if (implementation == null) {
+            return MethodSideEffectSummary.CONSERVATIVE;
+        }
+        ClassReader cls = classes.get(implementation.getOwnerName());
+        if (implementation.getAnnotations().get(NoSideEffects.class.getName()) != null
+                || (cls != null && cls.getAnnotations().get(NoSideEffects.class.getName()) != null)) {
+            return NATIVE_NO_SIDE_EFFECTS;
+        }
+        return MethodSideEffectSummary.CONSERVATIVE;
+    }
+
+    /**
+     * Tells whether the method may initialize fields that are otherwise considered unchangeable, i.e. whether
+     * it's a constructor or a static initializer, or it writes a final or an immutable field (which happens
+     * when constructors are inlined). Pure methods may read such fields, so in these methods calls can't be
+     * treated as values and immutable fields can't be treated as invariant, since they may have
+     * different values before and after initialization.
+     */
+    public boolean initializesFields(MethodReader method, ProgramReader program) {
+        if (classes == null || method.getName().equals("<init>") || method.getName().equals("<clinit>")) {
+            return true;
+        }
+        LocalEffectReader reader = new LocalEffectReader(classes, immutability);
+        for (BasicBlockReader block : program.getBasicBlocks()) {
+            block.readAllInstructions(reader);
+            if (reader.writesImmutableFields) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static class MethodInfo {
+        final Set<MethodReference> calleeReferences = new LinkedHashSet<>();
+        final Set<MethodInfo> callees = new LinkedHashSet<>();
+        MethodSideEffectSummary local;
+        MethodSideEffectSummary summary;
+    }
+
+    static class LocalEffectReader extends AbstractInstructionReader {
+        private final ClassReaderSource classes;
+        private final FieldImmutabilityInfo immutability;
+        final Set<MethodReference> directCallees = new LinkedHashSet<>();
+        boolean readsHeap;
+        boolean writesHeap;
+        boolean allocates;
+        boolean mayThrow;
+        boolean virtualCalls;
+        boolean unknownEffects;
+        boolean writesImmutableFields;
+
+        LocalEffectReader(ClassReaderSource classes, FieldImmutabilityInfo immutability) {
+            this.classes = classes;
+            this.immutability = immutability;
+        }
+
+        private boolean isImmutable(FieldReference field) {
+            FieldReader fieldReader = classes.resolve(field);
+            return fieldReader != null && (fieldReader.hasModifier(ElementModifier.FINAL)
+                    || immutability.isImmutable(fieldReader.getReference()));
+        }
+
+        @Override
+        public void raise(VariableReader exception) {
+            mayThrow = true;
+        }
+
+        @Override
+        public void createArray(VariableReader receiver, ValueType itemType, VariableReader size) {
+            allocates = true;
+        }
+
+        @Override
+        public void createArray(VariableReader receiver, ValueType itemType,
+                List<? extends VariableReader> dimensions) {
+            allocates = true;
+        }
+
+        @Override
+        public void create(VariableReader receiver, String type) {
+            allocates = true;
+        }
+
+        @Override
+        public void getField(VariableReader receiver, VariableReader instance, FieldReference field,
+                ValueType fieldType) {
+            if (!isImmutable(field)) {
+                readsHeap = true;
+            }
+        }
+
+        @Override
+        public void putField(VariableReader instance, FieldReference field, VariableReader value,
+                ValueType fieldType) {
+            writesHeap = true;
+            if (isImmutable(field)) {
+                writesImmutableFields = true;
+            }
+        }
+
+        @Override
+        public void cloneArray(VariableReader receiver, VariableReader array) {
+            readsHeap = true;
+            allocates = true;
+        }
+
+        @Override
+        public void getElement(VariableReader receiver, VariableReader array, VariableReader index,
+                ArrayElementType elementType) {
+            readsHeap = true;
+        }
+
+        @Override
+        public void putElement(VariableReader array, VariableReader index, VariableReader value,
+                ArrayElementType elementType) {
+            writesHeap = true;
+        }
+
+        @Override
+        public void invoke(VariableReader receiver, VariableReader instance, MethodReference method,
+                List<? extends VariableReader> arguments, InvocationType type) {
+            if (type == InvocationType.SPECIAL) {
+                directCallees.add(method);
+            } else {
+                virtualCalls = true;
+            }
+        }
+
+        @Override
+        public void invokeDynamic(VariableReader receiver, VariableReader instance, MethodDescriptor method,
+                List<? extends VariableReader> arguments, MethodHandle bootstrapMethod,
+                List<RuntimeConstant> bootstrapArguments) {
+            unknownEffects = true;
+        }
+
+        @Override
+        public void initClass(String className) {
+            writesHeap = true;
+        }
+
+        @Override
+        public void nullCheck(VariableReader receiver, VariableReader value) {
+            mayThrow = true;
+        }
+
+        @Override
+        public void monitorEnter(VariableReader objectRef) {
+            writesHeap = true;
+        }
+
+        @Override
+        public void monitorExit(VariableReader objectRef) {
+            writesHeap = true;
+        }
+
+        @Override
+        public void boundCheck(VariableReader receiver, VariableReader index, VariableReader array,
+                boolean lower) {
+            mayThrow = true;
+        }
+    }
+}
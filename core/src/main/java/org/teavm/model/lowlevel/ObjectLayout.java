@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.lowlevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReader;
+import org.teavm.model.ValueType;
+
+public class ObjectLayout {
+    private static final Set<String> classesWithFixedLayout = new HashSet<>(Arrays.asList(
+            "java.lang.Object", "java.lang.String", "java.lang.Class",
+            "java.lang.ref.Reference", "java.lang.ref.WeakReference", "java.lang.ref.SoftReference",
+            "java.lang.ref.ReferenceQueue"
+    ));
+    /*
+     * Primitive NIO buffers are passed to native functions by C backend, which reads their `array` field
+     * directly via TEAVM_FIELD, regardless of whether any Java code reads this field.
+     */
+    private static final String[] packagesWithFixedLayout = {
+            "org.teavm.runtime.", "org.teavm.interop.", "org.teavm.backend.", "java.nio."
+    };
+
+    private Characteristics characteristics;
+
+    public ObjectLayout(Characteristics characteristics) {
+        this.characteristics = characteristics;
+    }
+
+    public boolean hasFixedLayout(String className) {
+        if (classesWithFixedLayout.contains(className) || characteristics.isStructure(className)) {
+            return true;
+        }
+        for (String prefix : packagesWithFixedLayout) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<FieldReader> getInstanceFields(ClassReader cls) {
+        List<FieldReader> fields = new ArrayList<>();
+        for (FieldReader field : cls.getFields()) {
+            if (!field.hasModifier(ElementModifier.STATIC)) {
+                fields.add(field);
+            }
+        }
+        if (!hasFixedLayout(cls.getName())) {
+            fields.sort(Comparator.comparingInt(field -> rank(field.getType())));
+        }
+        return fields;
+    }
+
+    /*
+     * Fields of equal rank keep declaration order, since sorting is stable. References are placed between
+     * 8-byte and 4-byte primitives, which leaves no gaps for both 32-bit and 64-bit pointers.
+     */
+    private static int rank(ValueType type) {
+        if (type instanceof ValueType.Primitive) {
+            switch (((ValueType.Primitive) type).getKind()) {
+                case LONG:
+                case DOUBLE:
+                    return 0;
+                case INTEGER:
+                case FLOAT:
+                    return 2;
+                case SHORT:
+                case CHARACTER:
+                    return 3;
+                case BOOLEAN:
+                case BYTE:
+                    return 4;
+            }
+        }
+        return 1;
+    }
+
+    public static int estimateSize(Iterable<? extends FieldReader> fields, int pointerSize) {
+        int size = 0;
+        int alignment = 1;
+        for (FieldReader field : fields) {
+            if (field.hasModifier(ElementModifier.STATIC)) {
+                continue;
+            }
+            int fieldSize = typeSize(field.getType(), pointerSize);
+            size = align(size, fieldSize) + fieldSize;
+            alignment = Math.max(alignment, fieldSize);
+        }
+        return align(size, alignment);
+    }
+
+    private static int typeSize(ValueType type, int pointerSize) {
+        if (type instanceof ValueType.Primitive) {
+            switch (((ValueType.Primitive) type).getKind()) {
+                case BOOLEAN:
+                case BYTE:
+                    return 1;
+                case SHORT:
+                case CHARACTER:
+                    return 2;
+                case INTEGER:
+                case FLOAT:
+                    return 4;
+                case LONG:
+                case DOUBLE:
+                    return 8;
+            }
+        }
+        return pointerSize;
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.lowlevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.callgraph.FieldAccessSite;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldHolder;
+import org.teavm.model.FieldReader;
+import org.teavm.model.FieldReference;
+import org.teavm.model.Instruction;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReference;
+import org.teavm.model.instructions.GetFieldInstruction;
+import org.teavm.model.instructions.PutFieldInstruction;
+
+public class WriteOnlyFieldElimination {
+    private ObjectLayout layout;
+    private Set<FieldReference> removedFields = new LinkedHashSet<>();
+
+    public WriteOnlyFieldElimination(ObjectLayout layout) {
+        this.layout = layout;
+    }
+
+    public void apply(ListableClassHolderSource classes, CallGraph callGraph) {
+        Set<FieldReference> readFields = new HashSet<>();
+        Map<FieldReference, Set<MethodReference>> accessors = new HashMap<>();
+        for (MethodHolder method : methodsWithPrograms(classes)) {
+            for (BasicBlock block : method.getProgram().getBasicBlocks()) {
+                for (Instruction insn : block) {
+                    if (insn instanceof GetFieldInstruction) {
+                        FieldReference field = resolve(classes, ((GetFieldInstruction) insn).getField());
+                        readFields.add(field);
+                        accessors.computeIfAbsent(field, k -> new HashSet<>()).add(method.getReference());
+                    } else if (insn instanceof PutFieldInstruction) {
+                        FieldReference field = resolve(classes, ((PutFieldInstruction) insn).getField());
+                        accessors.computeIfAbsent(field, k -> new HashSet<>()).add(method.getReference());
+                    }
+                }
+            }
+        }
+
+        List<FieldHolder> fieldsToRemove = new ArrayList<>();
+        for (String className : classes.getClassNames()) {
+            if (layout.hasFixedLayout(className)) {
+                continue;
+            }
+            for (FieldHolder field : classes.get(className).getFields()) {
+                FieldReference reference = field.getReference();
+                if (!field.hasModifier(ElementModifier.STATIC) && !readFields.contains(reference)
+                        && !hasImplicitAccess(classes, callGraph, reference,
+                                accessors.getOrDefault(reference, Collections.emptySet()))) {
+                    fieldsToRemove.add(field);
+                    removedFields.add(reference);
+                }
+            }
+        }
+        if (removedFields.isEmpty()) {
+            return;
+        }
+
+        for (MethodHolder method : methodsWithPrograms(classes)) {
+            for (BasicBlock block : method.getProgram().getBasicBlocks()) {
+                for (Instruction insn : block) {
+                    if (insn instanceof PutFieldInstruction) {
+                        FieldReference field = ((PutFieldInstruction) insn).getField();
+                        if (removedFields.contains(resolve(classes, field))) {
+                            insn.delete();
+                        }
+                    }
+                }
+            }
+        }
+
+        for (FieldHolder field : fieldsToRemove) {
+            classes.get(field.getOwnerName()).removeField(field);
+        }
+    }
+
+    public Set<FieldReference> getRemovedFields() {
+        return removedFields;
+    }
+
+    /*
+     * Field can be accessed by code that is not represented by field instructions, e.g. by generators
+     * or intrinsics. Dependency analysis still records such accesses in call graph. Methods that were
+     * removed after dependency analysis can't access anything.
+     */
+    private static boolean hasImplicitAccess(ListableClassHolderSource classes, CallGraph callGraph,
+            FieldReference field, Set<MethodReference> accessors) {
+        for (FieldAccessSite site : callGraph.getFieldAccess(field)) {
+            MethodReference method = site.getCallee().getMethod();
+            if (!accessors.contains(method) && classes.getMethod(method) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FieldReference resolve(ListableClassHolderSource classes, FieldReference field) {
+        FieldReader resolved = classes.resolve(field);
+        return resolved != null ? resolved.getReference() : field;
+    }
+
+    private static List<MethodHolder> methodsWithPrograms(ListableClassHolderSource classes) {
+        List<MethodHolder> methods = new ArrayList<>();
+        for (String className : classes.getClassNames()) {
+            for (MethodHolder method : classes.get(className).getMethods()) {
+                if (method.getProgram() != null) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+}
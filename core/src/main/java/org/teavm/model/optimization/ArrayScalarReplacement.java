@@ -0,0 +1,385 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.AbstractInstructionVisitor;
+import org.teavm.model.instructions.ArrayLengthInstruction;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.BoundCheckInstruction;
+import org.teavm.model.instructions.CastIntegerDirection;
+import org.teavm.model.instructions.CastIntegerInstruction;
+import org.teavm.model.instructions.ConstructArrayInstruction;
+import org.teavm.model.instructions.GetElementInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.IntegerSubtype;
+import org.teavm.model.instructions.NullCheckInstruction;
+import org.teavm.model.instructions.PutElementInstruction;
+import org.teavm.model.instructions.UnwrapArrayInstruction;
+import org.teavm.model.util.PhiUpdater;
+import org.teavm.model.util.UsageExtractor;
+
+/**
+ * Replaces small arrays of constant length with local variables, provided that arrays don't leave method
+ * and are only accessed by constant indexes.
+ */
+public class ArrayScalarReplacement implements MethodOptimization {
+    private static final int MAX_LENGTH = 8;
+    private Program program;
+    private MethodReference method;
+    private int[] constants;
+    private boolean[] isConstant;
+    private int[] candidates;
+    private List<ConstructArrayInstruction> constructors;
+    private boolean[] invalid;
+
+    @Override
+    public boolean optimize(MethodOptimizationContext context, Program program) {
+        this.program = program;
+        method = context.getMethod().getReference();
+        try {
+            return perform();
+        } finally {
+            this.program = null;
+            method = null;
+            constants = null;
+            isConstant = null;
+            candidates = null;
+            constructors = null;
+            invalid = null;
+        }
+    }
+
+    private boolean perform() {
+        findCandidates();
+        if (constructors.isEmpty()) {
+            return false;
+        }
+        propagateAliases();
+        validate();
+
+        Variable[][] elements = new Variable[constructors.size()][];
+        boolean hasReplacements = false;
+        for (int i = 0; i < constructors.size(); ++i) {
+            if (invalid[i]) {
+                continue;
+            }
+            Variable array = constructors.get(i).getReceiver();
+            elements[i] = new Variable[constants[constructors.get(i).getSize().getIndex()]];
+            for (int j = 0; j < elements[i].length; ++j) {
+                Variable element = program.createVariable();
+                if (array.getDebugName() != null) {
+                    element.setDebugName(array.getDebugName() + "$" + j);
+                }
+                if (array.getLabel() != null) {
+                    element.setLabel(array.getLabel() + "$" + j);
+                }
+                elements[i][j] = element;
+            }
+            hasReplacements = true;
+        }
+        if (!hasReplacements) {
+            return false;
+        }
+
+        ReplacementVisitor visitor = new ReplacementVisitor(elements);
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction instruction : block) {
+                instruction.acceptVisitor(visitor);
+            }
+        }
+
+        Variable[] arguments = new Variable[method.parameterCount() + 1];
+        for (int i = 0; i < arguments.length; ++i) {
+            arguments[i] = program.variableAt(i);
+        }
+        new PhiUpdater().updatePhis(program, arguments);
+        return true;
+    }
+
+    private void findCandidates() {
+        constants = new int[program.variableCount()];
+        isConstant = new boolean[program.variableCount()];
+        candidates = new int[program.variableCount()];
+        Arrays.fill(candidates, -1);
+        constructors = new ArrayList<>();
+
+        List<ConstructArrayInstruction> allConstructors = new ArrayList<>();
+        List<BoundCheckInstruction> boundChecks = new ArrayList<>();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction instruction : block) {
+                if (instruction instanceof IntegerConstantInstruction) {
+                    IntegerConstantInstruction constant = (IntegerConstantInstruction) instruction;
+                    constants[constant.getReceiver().getIndex()] = constant.getConstant();
+                    isConstant[constant.getReceiver().getIndex()] = true;
+                } else if (instruction instanceof ConstructArrayInstruction) {
+                    allConstructors.add((ConstructArrayInstruction) instruction);
+                } else if (instruction instanceof BoundCheckInstruction) {
+                    boundChecks.add((BoundCheckInstruction) instruction);
+                }
+            }
+        }
+        propagateConstantsThroughBoundChecks(boundChecks);
+
+        for (ConstructArrayInstruction constructor : allConstructors) {
+            int size = constructor.getSize().getIndex();
+            if (isConstant[size] && constants[size] >= 0 && constants[size] <= MAX_LENGTH) {
+                candidates[constructor.getReceiver().getIndex()] = constructors.size();
+                constructors.add(constructor);
+            }
+        }
+        invalid = new boolean[constructors.size()];
+    }
+
+    // Bound checks are inserted before optimizations, so elements are accessed by the checked index.
+    // When check passes, its result equals to the index.
+    private void propagateConstantsThroughBoundChecks(List<BoundCheckInstruction> boundChecks) {
+        boolean changed;
+        do {
+            changed = false;
+            for (BoundCheckInstruction boundCheck : boundChecks) {
+                int index = boundCheck.getIndex().getIndex();
+                int receiver = boundCheck.getReceiver().getIndex();
+                if (isConstant[index] && !isConstant[receiver]) {
+                    constants[receiver] = constants[index];
+                    isConstant[receiver] = true;
+                    changed = true;
+                }
+            }
+        } while (changed);
+    }
+
+    private void propagateAliases() {
+        boolean changed;
+        do {
+            changed = false;
+            for (BasicBlock block : program.getBasicBlocks()) {
+                for (Instruction instruction : block) {
+                    Variable from;
+                    Variable to;
+                    if (instruction instanceof AssignInstruction) {
+                        from = ((AssignInstruction) instruction).getAssignee();
+                        to = ((AssignInstruction) instruction).getReceiver();
+                    } else if (instruction instanceof NullCheckInstruction) {
+                        from = ((NullCheckInstruction) instruction).getValue();
+                        to = ((NullCheckInstruction) instruction).getReceiver();
+                    } else if (instruction instanceof UnwrapArrayInstruction) {
+                        from = ((UnwrapArrayInstruction) instruction).getArray();
+                        to = ((UnwrapArrayInstruction) instruction).getReceiver();
+                    } else {
+                        continue;
+                    }
+                    if (candidates[from.getIndex()] >= 0 && candidates[to.getIndex()] < 0) {
+                        candidates[to.getIndex()] = candidates[from.getIndex()];
+                        changed = true;
+                    }
+                }
+            }
+        } while (changed);
+    }
+
+    private void validate() {
+        UsageExtractor usageExtractor = new UsageExtractor();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Phi phi : block.getPhis()) {
+                for (Incoming incoming : phi.getIncomings()) {
+                    invalidate(incoming.getValue());
+                }
+            }
+            if (block.getExceptionVariable() != null) {
+                invalidate(block.getExceptionVariable());
+            }
+            for (Instruction instruction : block) {
+                instruction.acceptVisitor(usageExtractor);
+                for (Variable var : usageExtractor.getUsedVariables()) {
+                    if (candidates[var.getIndex()] >= 0 && !isAllowedUsage(instruction, var)) {
+                        invalidate(var);
+                    }
+                }
+            }
+        }
+    }
+
+    private void invalidate(Variable var) {
+        int candidate = candidates[var.getIndex()];
+        if (candidate >= 0) {
+            invalid[candidate] = true;
+        }
+    }
+
+    private boolean isAllowedUsage(Instruction instruction, Variable var) {
+        if (instruction instanceof AssignInstruction) {
+            return ((AssignInstruction) instruction).getAssignee() == var;
+        } else if (instruction instanceof NullCheckInstruction) {
+            return ((NullCheckInstruction) instruction).getValue() == var;
+        } else if (instruction instanceof UnwrapArrayInstruction) {
+            return ((UnwrapArrayInstruction) instruction).getArray() == var;
+        } else if (instruction instanceof ArrayLengthInstruction) {
+            return ((ArrayLengthInstruction) instruction).getArray() == var;
+        } else if (instruction instanceof GetElementInstruction) {
+            GetElementInstruction getElement = (GetElementInstruction) instruction;
+            return getElement.getArray() == var && isIndexInRange(getElement.getIndex(), var);
+        } else if (instruction instanceof PutElementInstruction) {
+            PutElementInstruction putElement = (PutElementInstruction) instruction;
+            return putElement.getArray() == var && putElement.getValue() != var
+                    && isIndexInRange(putElement.getIndex(), var);
+        } else if (instruction instanceof BoundCheckInstruction) {
+            BoundCheckInstruction boundCheck = (BoundCheckInstruction) instruction;
+            return boundCheck.getArray() == var && isIndexInRange(boundCheck.getIndex(), var);
+        }
+        return false;
+    }
+
+    private boolean isIndexInRange(Variable index, Variable array) {
+        if (!isConstant[index.getIndex()]) {
+            return false;
+        }
+        int value = constants[index.getIndex()];
+        ConstructArrayInstruction constructor = constructors.get(candidates[array.getIndex()]);
+        return value >= 0 && value < constants[constructor.getSize().getIndex()];
+    }
+
+    class ReplacementVisitor extends AbstractInstructionVisitor {
+        private Variable[][] elements;
+
+        ReplacementVisitor(Variable[][] elements) {
+            this.elements = elements;
+        }
+
+        private Variable[] elementsOf(Variable var) {
+            if (var.getIndex() >= candidates.length) {
+                return null;
+            }
+            int candidate = candidates[var.getIndex()];
+            return candidate >= 0 ? elements[candidate] : null;
+        }
+
+        @Override
+        public void visit(ConstructArrayInstruction insn) {
+            Variable[] vars = elementsOf(insn.getReceiver());
+            if (vars == null) {
+                return;
+            }
+            for (Variable var : vars) {
+                Instruction initializer = ScalarReplacement.generateDefaultValue(insn.getItemType(), var);
+                initializer.setLocation(insn.getLocation());
+                insn.insertPrevious(initializer);
+            }
+            insn.delete();
+        }
+
+        @Override
+        public void visit(AssignInstruction insn) {
+            if (elementsOf(insn.getAssignee()) != null) {
+                insn.delete();
+            }
+        }
+
+        @Override
+        public void visit(NullCheckInstruction insn) {
+            if (elementsOf(insn.getValue()) != null) {
+                insn.delete();
+            }
+        }
+
+        @Override
+        public void visit(UnwrapArrayInstruction insn) {
+            if (elementsOf(insn.getArray()) != null) {
+                insn.delete();
+            }
+        }
+
+        @Override
+        public void visit(ArrayLengthInstruction insn) {
+            Variable[] vars = elementsOf(insn.getArray());
+            if (vars != null) {
+                IntegerConstantInstruction replacement = new IntegerConstantInstruction();
+                replacement.setConstant(vars.length);
+                replacement.setReceiver(insn.getReceiver());
+                replacement.setLocation(insn.getLocation());
+                insn.replace(replacement);
+            }
+        }
+
+        @Override
+        public void visit(GetElementInstruction insn) {
+            Variable[] vars = elementsOf(insn.getArray());
+            if (vars != null) {
+                AssignInstruction replacement = new AssignInstruction();
+                replacement.setAssignee(vars[constants[insn.getIndex().getIndex()]]);
+                replacement.setReceiver(insn.getReceiver());
+                replacement.setLocation(insn.getLocation());
+                insn.replace(replacement);
+            }
+        }
+
+        @Override
+        public void visit(PutElementInstruction insn) {
+            Variable[] vars = elementsOf(insn.getArray());
+            if (vars == null) {
+                return;
+            }
+            Variable value = insn.getValue();
+            IntegerSubtype subtype = null;
+            switch (insn.getType()) {
+                case BYTE:
+                    subtype = IntegerSubtype.BYTE;
+                    break;
+                case SHORT:
+                    subtype = IntegerSubtype.SHORT;
+                    break;
+                case CHAR:
+                    subtype = IntegerSubtype.CHAR;
+                    break;
+                default:
+                    break;
+            }
+            if (subtype != null) {
+                CastIntegerInstruction cast = new CastIntegerInstruction(subtype, CastIntegerDirection.FROM_INTEGER);
+                cast.setValue(value);
+                cast.setReceiver(program.createVariable());
+                cast.setLocation(insn.getLocation());
+                insn.insertPrevious(cast);
+                value = cast.getReceiver();
+            }
+            AssignInstruction replacement = new AssignInstruction();
+            replacement.setAssignee(value);
+            replacement.setReceiver(vars[constants[insn.getIndex().getIndex()]]);
+            replacement.setLocation(insn.getLocation());
+            insn.replace(replacement);
+        }
+
+        @Override
+        public void visit(BoundCheckInstruction insn) {
+            if (insn.getArray() != null && elementsOf(insn.getArray()) != null) {
+                AssignInstruction replacement = new AssignInstruction();
+                replacement.setAssignee(insn.getIndex());
+                replacement.setReceiver(insn.getReceiver());
+                replacement.setLocation(insn.getLocation());
+                insn.replace(replacement);
+            }
+        }
+    }
+}
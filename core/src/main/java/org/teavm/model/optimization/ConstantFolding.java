@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import org.teavm.model.instructions.BinaryOperation;
+import org.teavm.model.instructions.CastIntegerDirection;
+import org.teavm.model.instructions.IntegerSubtype;
+import org.teavm.model.instructions.NumericOperandType;
+
+final class ConstantFolding {
+    private ConstantFolding() {
+    }
+
+    static Number binary(BinaryOperation operation, NumericOperandType type, Number first, Number second) {
+        switch (type) {
+            case INT: {
+                int p = first.intValue();
+                int q = second.intValue();
+                switch (operation) {
+                    case ADD:
+                        return p + q;
+                    case SUBTRACT:
+                        return p - q;
+                    case MULTIPLY:
+                        return p * q;
+                    case DIVIDE:
+                        return q != 0 ? p / q : null;
+                    case MODULO:
+                        return q != 0 ? p % q : null;
+                    case COMPARE:
+                        return Integer.compare(p, q);
+                    case AND:
+                        return p & q;
+                    case OR:
+                        return p | q;
+                    case XOR:
+                        return p ^ q;
+                    case SHIFT_LEFT:
+                        return p << q;
+                    case SHIFT_RIGHT:
+                        return p >> q;
+                    case SHIFT_RIGHT_UNSIGNED:
+                        return p >>> q;
+                }
+                break;
+            }
+            case LONG: {
+                long p = first.longValue();
+                long q = second.longValue();
+                switch (operation) {
+                    case ADD:
+                        return p + q;
+                    case SUBTRACT:
+                        return p - q;
+                    case MULTIPLY:
+                        return p * q;
+                    case DIVIDE:
+                        return q != 0 ? p / q : null;
+                    case MODULO:
+                        return q != 0 ? p % q : null;
+                    case COMPARE:
+                        return Long.compare(p, q);
+                    case AND:
+                        return p & q;
+                    case OR:
+                        return p | q;
+                    case XOR:
+                        return p ^ q;
+                    case SHIFT_LEFT:
+                        return p << q;
+                    case SHIFT_RIGHT:
+                        return p >> q;
+                    case SHIFT_RIGHT_UNSIGNED:
+                        return p >>> q;
+                }
+                break;
+            }
+            case FLOAT: {
+                float p = first.floatValue();
+                float q = second.floatValue();
+                switch (operation) {
+                    case ADD:
+                        return p + q;
+                    case SUBTRACT:
+                        return p - q;
+                    case MULTIPLY:
+                        return p * q;
+                    case DIVIDE:
+                        return q != 0 ? p / q : null;
+                    case MODULO:
+                        return q != 0 ? p % q : null;
+                    case COMPARE:
+                        return p > q ? 1 : p < q ? -1 : p == q ? 0 : 1;
+                    default:
+                        break;
+                }
+                break;
+            }
+            case DOUBLE: {
+                double p = first.doubleValue();
+                double q = second.doubleValue();
+                switch (operation) {
+                    case ADD:
+                        return p + q;
+                    case SUBTRACT:
+                        return p - q;
+                    case MULTIPLY:
+                        return p * q;
+                    case DIVIDE:
+                        return q != 0 ? p / q : null;
+                    case MODULO:
+                        return q != 0 ? p % q : null;
+                    case COMPARE:
+                        return p > q ? 1 : p < q ? -1 : p == q ? 0 : 1;
+                    default:
+                        break;
+                }
+                break;
+            }
+        }
+        return null;
+    }
+
+    static Number negate(NumericOperandType type, Number value) {
+        switch (type) {
+            case INT:
+                return -value.intValue();
+            case LONG:
+                return -value.longValue();
+            case FLOAT:
+                return -value.floatValue();
+            case DOUBLE:
+                return -value.doubleValue();
+        }
+        return null;
+    }
+
+    static Number castNumber(NumericOperandType targetType, Number value) {
+        switch (targetType) {
+            case INT:
+                return value.intValue();
+            case LONG:
+                return value.longValue();
+            case FLOAT:
+                return value.floatValue();
+            case DOUBLE:
+                return value.doubleValue();
+        }
+        return null;
+    }
+
+    static Number castInteger(IntegerSubtype targetType, CastIntegerDirection direction, Number value) {
+        if (direction == CastIntegerDirection.TO_INTEGER) {
+            return value;
+        }
+        switch (targetType) {
+            case BYTE:
+                return value.intValue() << 24 >> 24;
+            case SHORT:
+                return value.intValue() << 16 >> 16;
+            case CHAR:
+                return value.intValue() & 0xFFFF;
+        }
+        return null;
+    }
+}
@@ -29,6 +29,7 @@ import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.SwitchTableEntryReader;
 
 public class DefaultInliningStrategy implements InliningStrategy {
+    private static final int ALLOCATION_EXPOSING_COMPLEXITY = 10;
     private final int complexityThreshold;
     private final int depthThreshold;
     private final int totalComplexityThreshold;
@@ -99,13 +100,16 @@ public class DefaultInliningStrategy implements InliningStrategy {
             }
 
             Complexity complexity = getComplexity(method, context);
+            boolean exposesAllocation = context.exposesAllocation();
             if (onceUsedOnly && !context.isUsedOnce(method)) {
-                if (complexity.callsToUsedOnceMethods || complexity.score > 1) {
+                int limit = exposesAllocation ? ALLOCATION_EXPOSING_COMPLEXITY : 1;
+                if (complexity.callsToUsedOnceMethods || complexity.score > limit) {
                     return null;
                 }
             }
 
-            if (complexity.score > complexityThreshold
+            int threshold = exposesAllocation ? complexityThreshold * 2 : complexityThreshold;
+            if (complexity.score > threshold
                     || complexityHolder.complexity + complexity.score > totalComplexityThreshold) {
                 return null;
             }
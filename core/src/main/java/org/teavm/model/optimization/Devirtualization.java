@@ -15,9 +15,14 @@
  */
 package org.teavm.model.optimization;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.teavm.common.OptionalPredicate;
 import org.teavm.dependency.DependencyInfo;
@@ -26,14 +31,23 @@ import org.teavm.dependency.ValueDependencyInfo;
 import org.teavm.model.BasicBlock;
 import org.teavm.model.ClassHierarchy;
 import org.teavm.model.ClassReader;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.Incoming;
 import org.teavm.model.Instruction;
 import org.teavm.model.MethodHolder;
 import org.teavm.model.MethodReference;
+import org.teavm.model.Phi;
 import org.teavm.model.Program;
 import org.teavm.model.ValueType;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.BranchingCondition;
+import org.teavm.model.instructions.BranchingInstruction;
 import org.teavm.model.instructions.CastInstruction;
 import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.InvokeInstruction;
+import org.teavm.model.instructions.IsInstanceInstruction;
+import org.teavm.model.instructions.JumpInstruction;
+import org.teavm.model.util.BasicBlockSplitter;
 
 public class Devirtualization {
     static final boolean shouldLog = System.getProperty("org.teavm.logDevirtualization", "false").equals("true");
@@ -43,8 +57,10 @@ public class Devirtualization {
     private Set<? extends MethodReference> readonlyVirtualMethods = Collections.unmodifiableSet(virtualMethods);
     private int virtualCallSites;
     private int directCallSites;
+    private int guardedCallSites;
     private int remainingCasts;
     private int eliminatedCasts;
+    private int maxGuardedImplementations = 1;
 
     public Devirtualization(DependencyInfo dependency, ClassHierarchy hierarchy) {
         this.dependency = dependency;
@@ -59,6 +75,10 @@ public class Devirtualization {
         return directCallSites;
     }
 
+    public int getGuardedCallSites() {
+        return guardedCallSites;
+    }
+
     public int getRemainingCasts() {
         return remainingCasts;
     }
@@ -67,6 +87,18 @@ public class Devirtualization {
         return eliminatedCasts;
     }
 
+    public int getMaxGuardedImplementations() {
+        return maxGuardedImplementations;
+    }
+
+    /**
+     * Sets how many implementations a virtual call site may resolve to so that it is still turned into
+     * a chain of {@code instanceof} guards followed by direct calls. Values less than 2 disable guarded calls.
+     */
+    public void setMaxGuardedImplementations(int maxGuardedImplementations) {
+        this.maxGuardedImplementations = maxGuardedImplementations;
+    }
+
     public void apply(MethodHolder method) {
         MethodDependencyInfo methodDep = dependency.getMethod(method.getReference());
         if (methodDep == null) {
@@ -78,23 +110,33 @@ public class Devirtualization {
             System.out.println("DEVIRTUALIZATION running at " + method.getReference());
         }
 
+        List<GuardedCall> guardedCalls = new ArrayList<>();
         for (int i = 0; i < program.basicBlockCount(); ++i) {
             BasicBlock block = program.basicBlockAt(i);
             for (Instruction insn : block) {
                 if (insn instanceof InvokeInstruction) {
-                    applyToInvoke(methodDep, program, (InvokeInstruction) insn);
+                    applyToInvoke(methodDep, program, (InvokeInstruction) insn, guardedCalls);
                 } else if (insn instanceof CastInstruction) {
                     applyToCast(methodDep, (CastInstruction) insn);
                 }
             }
         }
 
+        if (!guardedCalls.isEmpty()) {
+            var splitter = new BasicBlockSplitter(program);
+            for (GuardedCall guardedCall : guardedCalls) {
+                expandGuardedCall(program, splitter, guardedCall.invoke, guardedCall.implementations);
+            }
+            splitter.fixProgram();
+        }
+
         if (shouldLog) {
             System.out.println("DEVIRTUALIZATION complete for " + method.getReference());
         }
     }
 
-    private void applyToInvoke(MethodDependencyInfo methodDep, Program program, InvokeInstruction invoke) {
+    private void applyToInvoke(MethodDependencyInfo methodDep, Program program, InvokeInstruction invoke,
+            List<GuardedCall> guardedCalls) {
         if (invoke.getType() != InvocationType.VIRTUAL) {
             return;
         }
@@ -126,6 +168,32 @@ public class Devirtualization {
             invoke.setMethod(resolvedImplementaiton);
             directCallSites++;
         } else {
+            List<MethodReference> guardedImplementations = implementations.size() <= maxGuardedImplementations
+                    ? orderGuardedImplementations(invoke, implementations)
+                    : null;
+            if (guardedImplementations != null) {
+                if (shouldLog) {
+                    System.out.print("GUARDED CALL " + invoke.getMethod() + " resolved to [");
+                    boolean first = true;
+                    for (MethodReference impl : guardedImplementations) {
+                        if (!first) {
+                            System.out.print(", ");
+                        }
+                        first = false;
+                        System.out.print(impl.getClassName());
+                    }
+                    System.out.print("]");
+                    if (invoke.getLocation() != null) {
+                        System.out.print(" at " + invoke.getLocation().getFileName() + ":"
+                                + invoke.getLocation().getLine());
+                    }
+                    System.out.println();
+                }
+                guardedCalls.add(new GuardedCall(invoke, guardedImplementations));
+                guardedCallSites++;
+                return;
+            }
+
             virtualMethods.addAll(implementations);
             if (shouldLog) {
                 System.out.print("VIRTUAL CALL " + invoke.getMethod() + " resolved to [");
@@ -148,6 +216,117 @@ public class Devirtualization {
         }
     }
 
+    /*
+     * Orders implementations so that a class always goes before its superclasses. This way a receiver
+     * that passes instanceof check of some implementation's class can't belong to any of the subsequent
+     * implementations, and the last implementation can be called without a guard, the same way as
+     * monomorphic call sites are devirtualized. Returns null if the call site can't be expanded.
+     */
+    private List<MethodReference> orderGuardedImplementations(InvokeInstruction invoke,
+            Set<MethodReference> implementations) {
+        if (implementations.size() < 2 || !invoke.getBasicBlock().getTryCatchBlocks().isEmpty()) {
+            return null;
+        }
+        Map<String, Integer> depths = new HashMap<>();
+        for (MethodReference implementation : implementations) {
+            int depth = classDepth(implementation.getClassName());
+            if (depth < 0) {
+                return null;
+            }
+            depths.put(implementation.getClassName(), depth);
+        }
+        List<MethodReference> result = new ArrayList<>(implementations);
+        result.sort(Comparator.comparingInt(implementation -> -depths.get(implementation.getClassName())));
+        return result;
+    }
+
+    private int classDepth(String className) {
+        int depth = 0;
+        while (className != null) {
+            ClassReader cls = hierarchy.getClassSource().get(className);
+            if (cls == null || cls.hasModifier(ElementModifier.INTERFACE)) {
+                return -1;
+            }
+            className = cls.getParent();
+            depth++;
+        }
+        return depth;
+    }
+
+    private void expandGuardedCall(Program program, BasicBlockSplitter splitter, InvokeInstruction invoke,
+            List<MethodReference> implementations) {
+        BasicBlock block = invoke.getBasicBlock();
+        BasicBlock joint = splitter.split(block, invoke);
+        invoke.delete();
+
+        Phi phi = null;
+        if (invoke.getReceiver() != null) {
+            phi = new Phi();
+            phi.setReceiver(invoke.getReceiver());
+            joint.getPhis().add(phi);
+        }
+
+        BasicBlock current = block;
+        for (int i = 0; i < implementations.size() - 1; ++i) {
+            MethodReference implementation = implementations.get(i);
+            BasicBlock target = program.createBasicBlock();
+            BasicBlock next = program.createBasicBlock();
+
+            var isInstance = new IsInstanceInstruction();
+            isInstance.setValue(invoke.getInstance());
+            isInstance.setType(ValueType.object(implementation.getClassName()));
+            isInstance.setReceiver(program.createVariable());
+            isInstance.setLocation(invoke.getLocation());
+            current.add(isInstance);
+
+            var branch = new BranchingInstruction(BranchingCondition.NOT_EQUAL);
+            branch.setOperand(isInstance.getReceiver());
+            branch.setConsequent(target);
+            branch.setAlternative(next);
+            branch.setLocation(invoke.getLocation());
+            current.add(branch);
+
+            emitDirectCall(program, target, invoke, implementation, joint, phi);
+            current = next;
+        }
+        emitDirectCall(program, current, invoke, implementations.get(implementations.size() - 1), joint, phi);
+    }
+
+    private void emitDirectCall(Program program, BasicBlock block, InvokeInstruction invoke,
+            MethodReference implementation, BasicBlock joint, Phi phi) {
+        Variable instance = invoke.getInstance();
+        if (!implementation.getClassName().equals(invoke.getMethod().getClassName())) {
+            var cast = new CastInstruction();
+            cast.setValue(instance);
+            cast.setTargetType(ValueType.object(implementation.getClassName()));
+            cast.setWeak(true);
+            cast.setReceiver(program.createVariable());
+            cast.setLocation(invoke.getLocation());
+            block.add(cast);
+            instance = cast.getReceiver();
+        }
+
+        var call = new InvokeInstruction();
+        call.setType(InvocationType.SPECIAL);
+        call.setMethod(implementation);
+        call.setInstance(instance);
+        call.setArguments(invoke.getArguments().toArray(new Variable[0]));
+        call.setLocation(invoke.getLocation());
+        if (phi != null) {
+            call.setReceiver(program.createVariable());
+            var incoming = new Incoming();
+            incoming.setSource(block);
+            incoming.setValue(call.getReceiver());
+            phi.getIncomings().add(incoming);
+        }
+        block.add(call);
+
+        var jump = new JumpInstruction();
+        jump.setTarget(joint);
+        jump.setLocation(invoke.getLocation());
+        block.add(jump);
+    }
+
     private void applyToCast(MethodDependencyInfo methodDep, CastInstruction cast) {
         ValueDependencyInfo var = methodDep.getVariable(cast.getValue().getIndex());
         if (var == null) {
@@ -229,4 +408,14 @@ public class Devirtualization {
     public Set<? extends MethodReference> getVirtualMethods() {
         return readonlyVirtualMethods;
     }
+
+    private static class GuardedCall {
+        final InvokeInstruction invoke;
+        final List<MethodReference> implementations;
+
+        GuardedCall(InvokeInstruction invoke, List<MethodReference> implementations) {
+            this.invoke = invoke;
+            this.implementations = implementations;
+        }
+    }
 }
@@ -31,6 +31,8 @@ import org.teavm.model.Instruction;
 import org.teavm.model.InvokeDynamicInstruction;
 import org.teavm.model.Program;
 import org.teavm.model.Variable;
+import org.teavm.model.analysis.FieldImmutabilityInfo;
+import org.teavm.model.analysis.MethodSideEffects;
 import org.teavm.model.instructions.AbstractInstructionVisitor;
 import org.teavm.model.instructions.ArrayLengthInstruction;
 import org.teavm.model.instructions.AssignInstruction;
@@ -52,6 +54,7 @@ import org.teavm.model.instructions.GetElementInstruction;
 import org.teavm.model.instructions.GetFieldInstruction;
 import org.teavm.model.instructions.InstructionVisitor;
 import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.InvokeInstruction;
 import org.teavm.model.instructions.IsInstanceInstruction;
 import org.teavm.model.instructions.LongConstantInstruction;
@@ -81,6 +84,8 @@ public class GlobalValueNumbering implements MethodOptimization {
     private int currentBlockIndex;
     private DominatorTree domTree;
     private boolean namesPreserved;
+    private MethodSideEffects sideEffects = MethodSideEffects.UNKNOWN;
+    private FieldImmutabilityInfo immutability = FieldImmutabilityInfo.EMPTY;
 
     private static class KnownValue {
         int value;
@@ -93,7 +98,16 @@ public class GlobalValueNumbering implements MethodOptimization {
 
     @Override
     public boolean optimize(MethodOptimizationContext context, Program program) {
-        return optimize(program);
+        if (!context.getSideEffects().initializesFields(context.getMethod(), program)) {
+            sideEffects = context.getSideEffects();
+            immutability = context.getFieldImmutability();
+        }
+        try {
+            return optimize(program);
+        } finally {
+            sideEffects = MethodSideEffects.UNKNOWN;
+            immutability = FieldImmutabilityInfo.EMPTY;
+        }
     }
 
     public boolean optimize(Program program) {
@@ -342,177 +356,8 @@ public class GlobalValueNumbering implements MethodOptimization {
         private void evaluateBinary(BinaryOperation operation, NumericOperandType type, int a, int b) {
             Number first = numericConstants[a];
             Number second = numericConstants[b];
-            if (first == null || second == null) {
-                return;
-            }
-
-            switch (type) {
-                case INT: {
-                    int p = first.intValue();
-                    int q = second.intValue();
-                    switch (operation) {
-                        case ADD:
-                            evaluatedConstant = p + q;
-                            break;
-                        case SUBTRACT:
-                            evaluatedConstant = p - q;
-                            break;
-                        case MULTIPLY:
-                            evaluatedConstant = p * q;
-                            break;
-                        case DIVIDE:
-                            if (q != 0) {
-                                evaluatedConstant = p / q;
-                            }
-                            break;
-                        case MODULO:
-                            if (q != 0) {
-                                evaluatedConstant = p % q;
-                            }
-                            break;
-                        case COMPARE:
-                            evaluatedConstant = Integer.compare(p, q);
-                            break;
-                        case AND:
-                            evaluatedConstant = p & q;
-                            break;
-                        case OR:
-                            evaluatedConstant = p | q;
-                            break;
-                        case XOR:
-                            evaluatedConstant = p ^ q;
-                            break;
-                        case SHIFT_LEFT:
-                            evaluatedConstant = p << q;
-                            break;
-                        case SHIFT_RIGHT:
-                            evaluatedConstant = p >> q;
-                            break;
-                        case SHIFT_RIGHT_UNSIGNED:
-                            evaluatedConstant = p >>> q;
-                            break;
-                    }
-                    break;
-                }
-                case LONG: {
-                    long p = first.longValue();
-                    long q = second.longValue();
-                    switch (operation) {
-                        case ADD:
-                            evaluatedConstant = p + q;
-                            break;
-                        case SUBTRACT:
-                            evaluatedConstant = p - q;
-                            break;
-                        case MULTIPLY:
-                            evaluatedConstant = p * q;
-                            break;
-                        case DIVIDE:
-                            if (q != 0) {
-                                evaluatedConstant = p / q;
-                            }
-                            break;
-                        case MODULO:
-                            if (q != 0) {
-                                evaluatedConstant = p % q;
-                            }
-                            break;
-                        case COMPARE:
-                            evaluatedConstant = Long.compare(p, q);
-                            break;
-                        case AND:
-                            evaluatedConstant = p & q;
-                            break;
-                        case OR:
-                            evaluatedConstant = p | q;
-                            break;
-                        case XOR:
-                            evaluatedConstant = p ^ q;
-                            break;
-                        case SHIFT_LEFT:
-                            evaluatedConstant = p << q;
-                            break;
-                        case SHIFT_RIGHT:
-                            evaluatedConstant = p >> q;
-                            break;
-                        case SHIFT_RIGHT_UNSIGNED:
-                            evaluatedConstant = p >>> q;
-                            break;
-                    }
-                    break;
-                }
-                case FLOAT: {
-                    float p = first.floatValue();
-                    float q = second.floatValue();
-                    switch (operation) {
-                        case ADD:
-                            evaluatedConstant = p + q;
-                            break;
-                        case SUBTRACT:
-                            evaluatedConstant = p - q;
-                            break;
-                        case MULTIPLY:
-                            evaluatedConstant = p * q;
-                            break;
-                        case DIVIDE:
-                            if (q != 0) {
-                                evaluatedConstant = p / q;
-                            }
-                            break;
-                        case MODULO:
-                            if (q != 0) {
-                                evaluatedConstant = p % q;
-                            }
-                            break;
-                        case COMPARE:
-                            evaluatedConstant = p > q ? 1 : p < q ? -1 : p == q ? 0 : 1;
-                            break;
-                        case AND:
-                        case OR:
-                        case XOR:
-                        case SHIFT_LEFT:
-                        case SHIFT_RIGHT:
-                        case SHIFT_RIGHT_UNSIGNED:
-                            break;
-                    }
-                    break;
-                }
-                case DOUBLE: {
-                    double p = first.doubleValue();
-                    double q = second.doubleValue();
-                    switch (operation) {
-                        case ADD:
-                            evaluatedConstant = p + q;
-                            break;
-                        case SUBTRACT:
-                            evaluatedConstant = p - q;
-                            break;
-                        case MULTIPLY:
-                            evaluatedConstant = p * q;
-                            break;
-                        case DIVIDE:
-                            if (q != 0) {
-                                evaluatedConstant = p / q;
-                            }
-                            break;
-                        case MODULO:
-                            if (q != 0) {
-                                evaluatedConstant = p % q;
-                            }
-                            break;
-                        case COMPARE:
-                            evaluatedConstant = p > q ? 1 : p < q ? -1 : p == q ? 0 : 1;
-                            break;
-                        case AND:
-                        case OR:
-                        case XOR:
-                        case SHIFT_LEFT:
-                        case SHIFT_RIGHT:
-                        case SHIFT_RIGHT_UNSIGNED:
-                            break;
-                    }
-                    break;
-                }
+            if (first != null && second != null) {
+                evaluatedConstant = ConstantFolding.binary(operation, type, first, second);
             }
         }
 
@@ -525,20 +370,7 @@ public class GlobalValueNumbering implements MethodOptimization {
 
             Number value = numericConstants[a];
             if (value != null) {
-                switch (insn.getOperandType()) {
-                    case INT:
-                        evaluatedConstant = -value.intValue();
-                        break;
-                    case LONG:
-                        evaluatedConstant = -value.longValue();
-                        break;
-                    case FLOAT:
-                        evaluatedConstant = -value.floatValue();
-                        break;
-                    case DOUBLE:
-                        evaluatedConstant = -value.doubleValue();
-                        break;
-                }
+                evaluatedConstant = ConstantFolding.negate(insn.getOperandType(), value);
             }
 
             receiver = insn.getReceiver().getIndex();
@@ -583,20 +415,7 @@ public class GlobalValueNumbering implements MethodOptimization {
 
             Number value = numericConstants[a];
             if (value != null) {
-                switch (insn.getTargetType()) {
-                    case INT:
-                        evaluatedConstant = value.intValue();
-                        break;
-                    case LONG:
-                        evaluatedConstant = value.longValue();
-                        break;
-                    case FLOAT:
-                        evaluatedConstant = value.floatValue();
-                        break;
-                    case DOUBLE:
-                        evaluatedConstant = value.doubleValue();
-                        break;
-                }
+                evaluatedConstant = ConstantFolding.castNumber(insn.getTargetType(), value);
             }
 
             receiver = insn.getReceiver().getIndex();
@@ -611,24 +430,7 @@ public class GlobalValueNumbering implements MethodOptimization {
 
             Number value = numericConstants[a];
             if (value != null) {
-                switch (insn.getDirection()) {
-                    case TO_INTEGER:
-                        evaluatedConstant = value;
-                        break;
-                    case FROM_INTEGER: {
-                        switch (insn.getTargetType()) {
-                            case BYTE:
-                                evaluatedConstant = value.intValue() << 24 >> 24;
-                                break;
-                            case SHORT:
-                                evaluatedConstant = value.intValue() << 16 >> 16;
-                                break;
-                            case CHAR:
-                                evaluatedConstant = value.intValue() & 0xFFFF;
-                                break;
-                        }
-                    }
-                }
+                evaluatedConstant = ConstantFolding.castInteger(insn.getTargetType(), insn.getDirection(), value);
             }
 
             receiver = insn.getReceiver().getIndex();
@@ -684,10 +486,27 @@ public class GlobalValueNumbering implements MethodOptimization {
 
         @Override
         public void visit(GetFieldInstruction insn) {
+            String value = null;
+            if (immutability.isImmutable(insn.getField())) {
+                value = insn.getInstance() != null
+                        ? "@" + map[insn.getInstance().getIndex()] + "." + insn.getField()
+                        : "." + insn.getField();
+            }
+
             if (insn.getInstance() != null) {
                 int instance = replaceMap[insn.getInstance().getIndex()];
                 insn.setInstance(program.variableAt(instance));
             }
+
+            if (value != null) {
+                bind(insn.getReceiver().getIndex(), value);
+                Number constant = immutability.getConstantValue(insn.getField());
+                if (constant != null) {
+                    evaluatedConstant = constant;
+                    numericConstants[insn.getReceiver().getIndex()] = constant;
+                }
+                receiver = insn.getReceiver().getIndex();
+            }
         }
 
         @Override
@@ -742,11 +561,28 @@ public class GlobalValueNumbering implements MethodOptimization {
 
         @Override
         public void visit(InvokeInstruction insn) {
+            String value = null;
+            if (insn.getReceiver() != null && insn.getType() == InvocationType.SPECIAL
+                    && sideEffects.get(insn.getMethod()).isPure()) {
+                StringBuilder sb = new StringBuilder("invoke ").append(insn.getMethod());
+                if (insn.getInstance() != null) {
+                    sb.append(" @").append(map[insn.getInstance().getIndex()]);
+                }
+                for (Variable argument : insn.getArguments()) {
+                    sb.append(" @").append(map[argument.getIndex()]);
+                }
+                value = sb.toString();
+            }
+
             if (insn.getInstance() != null) {
                 int instance = replaceMap[insn.getInstance().getIndex()];
                 insn.setInstance(program.variableAt(instance));
             }
             insn.replaceArguments(mapper);
+
+            if (value != null) {
+                bind(insn.getReceiver().getIndex(), value);
+            }
         }
 
         @Override
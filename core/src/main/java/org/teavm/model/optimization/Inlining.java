@@ -48,11 +48,16 @@ import org.teavm.model.ProgramReader;
 import org.teavm.model.TextLocation;
 import org.teavm.model.TryCatchBlock;
 import org.teavm.model.ValueType;
+import org.teavm.model.Variable;
 import org.teavm.model.VariableReader;
 import org.teavm.model.analysis.ClassInference;
+import org.teavm.model.analysis.MethodEscapeSummaries;
+import org.teavm.model.analysis.MethodEscapeSummary;
 import org.teavm.model.instructions.AbstractInstructionReader;
 import org.teavm.model.instructions.AssignInstruction;
 import org.teavm.model.instructions.CastInstruction;
+import org.teavm.model.instructions.ConstructArrayInstruction;
+import org.teavm.model.instructions.ConstructInstruction;
 import org.teavm.model.instructions.ExitInstruction;
 import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.InvokeInstruction;
@@ -75,6 +80,7 @@ public class Inlining {
     private boolean devirtualization;
     private ClassInference classInference;
     private InliningFilterFactory filterFactory;
+    private MethodEscapeSummaries escapeSummaries;
 
     public Inlining(ClassHierarchy hierarchy, DependencyInfo dependencyInfo, InliningStrategy strategy,
             ListableClassReaderSource classes, Predicate<MethodReference> externalMethods,
@@ -86,6 +92,10 @@ public class Inlining {
         this.devirtualization = devirtualization;
         this.filterFactory = filterFactory;
         usageCounter = new MethodUsageCounter(externalMethods);
+        escapeSummaries = new MethodEscapeSummaries(method -> {
+            MethodReader methodReader = getMethod(method);
+            return methodReader != null ? methodReader.getProgram() : null;
+        });
 
         for (String className : classes.getClassNames()) {
             ClassReader cls = classes.get(className);
@@ -178,6 +188,7 @@ public class Inlining {
 
         new UnreachableBasicBlockEliminator().optimize(program);
         strategy.methodChanged(method);
+        escapeSummaries.invalidate(method);
     }
 
     private boolean applyOnce(Program program, MethodReference method) {
@@ -348,6 +359,7 @@ public class Inlining {
         InliningFilter filter = filterFactory.createFilter(method);
 
         ContextImpl context = new ContextImpl();
+        Set<Variable> allocations = findAllocations(program);
         for (BasicBlock block : program.getBasicBlocks()) {
             if (!block.getTryCatchBlocks().isEmpty()) {
                 continue;
@@ -387,6 +399,7 @@ public class Inlining {
                 }
 
                 context.depth = depth;
+                context.exposesAllocation = exposesAllocation(invoke, allocations);
                 InliningStep innerStep = step.tryInline(invokedMethod.getReference(), invokedMethod.getProgram(),
                         context);
                 if (innerStep == null) {
@@ -419,6 +432,37 @@ public class Inlining {
         return plan;
     }
 
+    private Set<Variable> findAllocations(Program program) {
+        Set<Variable> allocations = new HashSet<>();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction insn : block) {
+                if (insn instanceof ConstructInstruction) {
+                    allocations.add(((ConstructInstruction) insn).getReceiver());
+                } else if (insn instanceof ConstructArrayInstruction) {
+                    allocations.add(((ConstructArrayInstruction) insn).getReceiver());
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private boolean exposesAllocation(InvokeInstruction invoke, Set<Variable> allocations) {
+        MethodEscapeSummary summary = escapeSummaries.get(invoke.getMethod());
+        if (invoke.getReceiver() != null && summary.returnsFreshObject()) {
+            return true;
+        }
+        if (invoke.getInstance() != null && allocations.contains(invoke.getInstance())
+                && !summary.parameterEscapes(0)) {
+            return true;
+        }
+        for (int i = 0; i < invoke.getArguments().size(); ++i) {
+            if (allocations.contains(invoke.getArguments().get(i)) && !summary.parameterEscapes(i + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private MethodReader getMethod(MethodReference methodRef) {
         ClassReader cls = classes.get(methodRef.getClassName());
         return cls != null ? cls.getMethod(methodRef.getDescriptor()) : null;
@@ -509,6 +553,7 @@ public class Inlining {
 
     class ContextImpl implements InliningContext {
         int depth;
+        boolean exposesAllocation;
 
         @Override
         public boolean isUsedOnce(MethodReference method) {
@@ -529,5 +574,10 @@ public class Inlining {
         public int getDepth() {
             return depth;
         }
+
+        @Override
+        public boolean exposesAllocation() {
+            return exposesAllocation;
+        }
     }
 }
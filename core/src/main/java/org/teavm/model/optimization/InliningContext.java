@@ -24,4 +24,11 @@ public interface InliningContext {
     ProgramReader getProgram(MethodReference method);
 
     int getDepth();
+
+    /**
+     * Tells whether current call site passes an object allocated by caller to a parameter that does not escape
+     * callee, or receives a fresh object allocated by callee. Inlining such a call may allow to replace
+     * allocation with local variables.
+     */
+    boolean exposesAllocation();
 }
@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.Instruction;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.InvokeInstruction;
+
+/**
+ * Propagates constant arguments and constant return values across direct calls, then removes branches
+ * and methods that turn out to be dead.
+ *
+ * <p>A method is considered internal when it is not external according to the given predicate (i.e. it is
+ * neither called virtually nor from outside of the compiled code) and it has at least one direct call site.
+ * Parameters of internal methods start unknown and get the meet of arguments passed from executable call sites
+ * of reachable methods; other methods are reachable from the start and their parameters are overdefined.
+ * Analysis of each method is done with {@link SparseConditionalConstantPropagation}, and methods are re-analyzed
+ * until neither parameters nor return values change. Return values of methods that never return normally
+ * are then considered overdefined, so that calls to them don't hide the code that follows.
+ * Internal methods that were never reached lose their bodies, the same way {@link Inlining} drops methods
+ * without usages.</p>
+ */
+public class InterproceduralConstantPropagation {
+    private ListableClassHolderSource classes;
+    private Predicate<MethodReference> externalMethods;
+    private Map<MethodReference, MethodState> states = new LinkedHashMap<>();
+    private Map<MethodReference, MethodState> resolvedStates = new HashMap<>();
+    private Queue<MethodState> queue = new ArrayDeque<>();
+    private int constantParameters;
+    private int constantReturnValues;
+    private int removedMethods;
+
+    public InterproceduralConstantPropagation(ListableClassHolderSource classes,
+            Predicate<MethodReference> externalMethods) {
+        this.classes = classes;
+        this.externalMethods = externalMethods;
+    }
+
+    public int getConstantParameters() {
+        return constantParameters;
+    }
+
+    public int getConstantReturnValues() {
+        return constantReturnValues;
+    }
+
+    public int getRemovedMethods() {
+        return removedMethods;
+    }
+
+    public void apply() {
+        collectMethods();
+        for (MethodState state : states.values()) {
+            if (!state.internal) {
+                state.reached = true;
+                enqueue(state);
+            }
+        }
+        do {
+            while (!queue.isEmpty()) {
+                MethodState state = queue.remove();
+                state.queued = false;
+                analyze(state);
+            }
+        } while (settleReturnValues());
+
+        Set<MethodState> referenced = new HashSet<>();
+        for (MethodState state : states.values()) {
+            if (state.reached) {
+                rewrite(state);
+                collectReferences(state, referenced);
+            }
+        }
+        for (MethodState state : states.values()) {
+            if (!state.reached && !referenced.contains(state)) {
+                state.method.setProgram(null);
+                removedMethods++;
+            }
+        }
+    }
+
+    private boolean settleReturnValues() {
+        for (MethodState state : states.values()) {
+            if (state.reached && state.returnValue == null) {
+                state.returnValue = SparseConditionalConstantPropagation.OVERDEFINED;
+                for (MethodState caller : state.callers) {
+                    enqueue(caller);
+                }
+            }
+        }
+        return !queue.isEmpty();
+    }
+
+    private void collectReferences(MethodState state, Set<MethodState> referenced) {
+        for (BasicBlock block : state.method.getProgram().getBasicBlocks()) {
+            for (Instruction insn : block) {
+                if (insn instanceof InvokeInstruction) {
+                    MethodState callee = resolve(((InvokeInstruction) insn).getMethod());
+                    if (callee != null) {
+                        referenced.add(callee);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collectMethods() {
+        for (String className : classes.getClassNames()) {
+            ClassHolder cls = classes.get(className);
+            for (MethodHolder method : cls.getMethods()) {
+                if (method.getProgram() != null) {
+                    states.put(method.getReference(), new MethodState(method));
+                }
+            }
+        }
+        for (MethodState state : states.values()) {
+            for (BasicBlock block : state.method.getProgram().getBasicBlocks()) {
+                for (Instruction insn : block) {
+                    if (insn instanceof InvokeInstruction
+                            && ((InvokeInstruction) insn).getType() == InvocationType.SPECIAL) {
+                        MethodState callee = resolve(((InvokeInstruction) insn).getMethod());
+                        if (callee != null && !externalMethods.test(callee.method.getReference())) {
+                            callee.internal = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void analyze(MethodState state) {
+        Program program = state.method.getProgram();
+        SparseConditionalConstantPropagation sccp = new SparseConditionalConstantPropagation(
+                state.internal ? state.parameters : null, method -> getReturnValue(method, state));
+        sccp.setOptimistic(true);
+        sccp.analyze(program, state.method.parameterCount());
+
+        for (BasicBlock block : program.getBasicBlocks()) {
+            if (!sccp.isExecutable(block)) {
+                continue;
+            }
+            for (Instruction insn : block) {
+                if (!(insn instanceof InvokeInstruction)) {
+                    continue;
+                }
+                InvokeInstruction invoke = (InvokeInstruction) insn;
+                if (invoke.getType() != InvocationType.SPECIAL) {
+                    continue;
+                }
+                MethodState callee = resolve(invoke.getMethod());
+                if (callee == null || !callee.internal) {
+                    continue;
+                }
+                boolean changed = !callee.reached;
+                callee.reached = true;
+                List<? extends Variable> arguments = invoke.getArguments();
+                for (int i = 0; i < arguments.size(); ++i) {
+                    Object oldValue = callee.parameters[i];
+                    Object newValue = SparseConditionalConstantPropagation.meet(oldValue,
+                            sccp.getValue(arguments.get(i)));
+                    if (!Objects.equals(oldValue, newValue)) {
+                        callee.parameters[i] = newValue;
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    enqueue(callee);
+                }
+            }
+        }
+
+        Object returnValue = SparseConditionalConstantPropagation.meet(state.returnValue, sccp.getReturnValue());
+        if (!Objects.equals(returnValue, state.returnValue)) {
+            state.returnValue = returnValue;
+            for (MethodState caller : state.callers) {
+                enqueue(caller);
+            }
+        }
+        sccp.cleanup();
+    }
+
+    private Object getReturnValue(MethodReference method, MethodState caller) {
+        MethodState callee = resolve(method);
+        if (callee == null) {
+            return SparseConditionalConstantPropagation.OVERDEFINED;
+        }
+        callee.callers.add(caller);
+        return callee.returnValue;
+    }
+
+    private void rewrite(MethodState state) {
+        if (state.internal) {
+            for (Object value : state.parameters) {
+                if (value instanceof Number) {
+                    constantParameters++;
+                }
+            }
+        }
+        if (state.returnValue instanceof Number) {
+            constantReturnValues++;
+        }
+
+        SparseConditionalConstantPropagation sccp = new SparseConditionalConstantPropagation(
+                state.internal ? state.parameters : null, method -> {
+                    MethodState callee = resolve(method);
+                    return callee != null ? callee.returnValue : SparseConditionalConstantPropagation.OVERDEFINED;
+                });
+        sccp.analyze(state.method.getProgram(), state.method.parameterCount());
+        sccp.rewrite();
+        sccp.cleanup();
+    }
+
+    private MethodState resolve(MethodReference method) {
+        return resolvedStates.computeIfAbsent(method, m -> {
+            MethodState state = states.get(m);
+            if (state == null) {
+                MethodReader implementation = classes.resolveImplementation(m);
+                if (implementation != null) {
+                    state = states.get(implementation.getReference());
+                }
+            }
+            return state;
+        });
+    }
+
+    private void enqueue(MethodState state) {
+        if (!state.queued) {
+            state.queued = true;
+            queue.add(state);
+        }
+    }
+
+    static class MethodState {
+        final MethodHolder method;
+        final Object[] parameters;
+        final Set<MethodState> callers = new LinkedHashSet<>();
+        boolean internal;
+        boolean reached;
+        boolean queued;
+        Object returnValue;
+
+        MethodState(MethodHolder method) {
+            this.method = method;
+            parameters = new Object[method.parameterCount()];
+        }
+    }
+}
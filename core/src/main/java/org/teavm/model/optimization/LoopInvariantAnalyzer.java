@@ -15,6 +15,8 @@
  */
 package org.teavm.model.optimization;
 
+import org.teavm.model.analysis.FieldImmutabilityInfo;
+import org.teavm.model.analysis.MethodSideEffects;
 import org.teavm.model.analysis.NullnessInformation;
 import org.teavm.model.instructions.AbstractInstructionVisitor;
 import org.teavm.model.instructions.ArrayLengthInstruction;
@@ -27,7 +29,10 @@ import org.teavm.model.instructions.CastNumberInstruction;
 import org.teavm.model.instructions.ClassConstantInstruction;
 import org.teavm.model.instructions.DoubleConstantInstruction;
 import org.teavm.model.instructions.FloatConstantInstruction;
+import org.teavm.model.instructions.GetFieldInstruction;
 import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.InvokeInstruction;
 import org.teavm.model.instructions.IsInstanceInstruction;
 import org.teavm.model.instructions.LongConstantInstruction;
 import org.teavm.model.instructions.NegateInstruction;
@@ -39,12 +44,25 @@ import org.teavm.model.instructions.UnwrapArrayInstruction;
 
 public class LoopInvariantAnalyzer extends AbstractInstructionVisitor {
     private NullnessInformation nullness;
+    private MethodSideEffects sideEffects;
+    private FieldImmutabilityInfo immutability;
     public boolean canMove;
     public boolean constant;
     public boolean sideEffect;
 
     public LoopInvariantAnalyzer(NullnessInformation nullness) {
+        this(nullness, MethodSideEffects.UNKNOWN);
+    }
+
+    public LoopInvariantAnalyzer(NullnessInformation nullness, MethodSideEffects sideEffects) {
+        this(nullness, sideEffects, FieldImmutabilityInfo.EMPTY);
+    }
+
+    public LoopInvariantAnalyzer(NullnessInformation nullness, MethodSideEffects sideEffects,
+            FieldImmutabilityInfo immutability) {
         this.nullness = nullness;
+        this.sideEffects = sideEffects;
+        this.immutability = immutability;
     }
 
     public void reset() {
@@ -150,4 +168,23 @@ public class LoopInvariantAnalyzer extends AbstractInstructionVisitor {
             sideEffect = true;
         }
     }
+
+    @Override
+    public void visit(InvokeInstruction insn) {
+        if (insn.getReceiver() != null && insn.getType() == InvocationType.SPECIAL
+                && sideEffects.get(insn.getMethod()).isPure()) {
+            canMove = true;
+            sideEffect = true;
+        }
+    }
+
+    @Override
+    public void visit(GetFieldInstruction insn) {
+        if (immutability.isImmutable(insn.getField())) {
+            canMove = true;
+            if (insn.getInstance() != null && !nullness.isNotNull(insn.getInstance())) {
+                sideEffect = true;
+            }
+        }
+    }
 }
@@ -30,12 +30,16 @@ import org.teavm.model.Instruction;
 import org.teavm.model.Phi;
 import org.teavm.model.Program;
 import org.teavm.model.Variable;
+import org.teavm.model.analysis.FieldImmutabilityInfo;
+import org.teavm.model.analysis.MethodSideEffects;
 import org.teavm.model.analysis.NullnessInformation;
 import org.teavm.model.instructions.AbstractInstructionVisitor;
 import org.teavm.model.instructions.ClassConstantInstruction;
 import org.teavm.model.instructions.DoubleConstantInstruction;
 import org.teavm.model.instructions.FloatConstantInstruction;
+import org.teavm.model.instructions.GetFieldInstruction;
 import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvokeInstruction;
 import org.teavm.model.instructions.JumpInstruction;
 import org.teavm.model.instructions.LongConstantInstruction;
 import org.teavm.model.instructions.NullConstantInstruction;
@@ -79,7 +83,13 @@ public class LoopInvariantMotion implements MethodOptimization {
 
         DefinitionExtractor defExtractor = new DefinitionExtractor();
         UsageExtractor useExtractor = new UsageExtractor();
-        LoopInvariantAnalyzer analyzer = new LoopInvariantAnalyzer(nullness);
+        MethodSideEffects sideEffects = context.getSideEffects();
+        FieldImmutabilityInfo immutability = context.getFieldImmutability();
+        if (sideEffects.initializesFields(context.getMethod(), program)) {
+            sideEffects = MethodSideEffects.UNKNOWN;
+            immutability = FieldImmutabilityInfo.EMPTY;
+        }
+        LoopInvariantAnalyzer analyzer = new LoopInvariantAnalyzer(nullness, sideEffects, immutability);
         CopyConstantVisitor constantCopier = new CopyConstantVisitor();
         int[][] loopExits = ControlFlowUtils.findLoopExits(graph);
 
@@ -112,6 +122,10 @@ public class LoopInvariantMotion implements MethodOptimization {
                 if (analyzer.sideEffect && !dominatesExits) {
                     continue;
                 }
+                if ((insn instanceof InvokeInstruction || insn instanceof GetFieldInstruction) && analyzer.sideEffect
+                        && !block.getTryCatchBlocks().isEmpty()) {
+                    continue;
+                }
                 insn.acceptVisitor(useExtractor);
                 Loop commonUseLoop = null;
                 for (Variable use : useExtractor.getUsedVariables()) {
@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.IntIntMap;
+import com.carrotsearch.hppc.IntSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import org.teavm.common.DominatorTree;
+import org.teavm.common.Graph;
+import org.teavm.common.GraphUtils;
+import org.teavm.common.Loop;
+import org.teavm.common.LoopGraph;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.JumpInstruction;
+import org.teavm.model.util.BasicBlockMapper;
+import org.teavm.model.util.PhiUpdater;
+import org.teavm.model.util.ProgramUtils;
+import org.teavm.model.util.TransitionExtractor;
+
+/**
+ * Loops of a program with the sets of their blocks, as needed by loop transformations.
+ * Blocks copied by {@link #copyBlocks(int[], IntUnaryOperator)} keep original variables,
+ * so a transformation has to call {@link #restoreSsa(int)} after it's done with copying,
+ * the same way {@link LoopInversionImpl} does. Blocks that became unreachable are removed at this point.
+ */
+class LoopNest {
+    final Program program;
+    final Graph cfg;
+    final DominatorTree dom;
+    final List<LoopInfo> loops;
+
+    LoopNest(Program program) {
+        this.program = program;
+        cfg = ProgramUtils.buildControlFlowGraph(program);
+        dom = GraphUtils.buildDominatorTree(cfg);
+
+        LoopGraph loopGraph = new LoopGraph(cfg);
+        Map<Loop, LoopInfo> loopMap = new HashMap<>();
+        loops = new ArrayList<>();
+        for (int node = 0; node < cfg.size(); ++node) {
+            Loop innermostLoop = loopGraph.loopAt(node);
+            for (Loop loop = innermostLoop; loop != null; loop = loop.getParent()) {
+                getLoopInfo(loopMap, loop).nodes.add(node);
+            }
+
+            // LoopGraph does not report loops that consist of a single block
+            if ((innermostLoop == null || innermostLoop.getHead() != node) && hasSelfLoop(node)) {
+                LoopInfo parent = innermostLoop != null ? getLoopInfo(loopMap, innermostLoop) : null;
+                LoopInfo selfLoop = new LoopInfo(node, parent);
+                selfLoop.nodes.add(node);
+                if (parent != null) {
+                    parent.innermost = false;
+                }
+                loops.add(selfLoop);
+            }
+        }
+        loops.addAll(loopMap.values());
+        loops.sort(Comparator.comparingInt((LoopInfo loop) -> -loop.depth).thenComparingInt(loop -> loop.head));
+
+        for (LoopInfo loop : loops) {
+            loop.simple = true;
+            for (int node : loop.nodes.toArray()) {
+                BasicBlock block = program.basicBlockAt(node);
+                loop.size += block.instructionCount();
+                if (!block.getTryCatchBlocks().isEmpty() || !dom.dominates(loop.head, node)) {
+                    loop.simple = false;
+                }
+            }
+        }
+    }
+
+    private boolean hasSelfLoop(int node) {
+        for (int succ : cfg.outgoingEdges(node)) {
+            if (succ == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LoopInfo getLoopInfo(Map<Loop, LoopInfo> cache, Loop loop) {
+        LoopInfo result = cache.get(loop);
+        if (result == null) {
+            LoopInfo parent = loop.getParent() != null ? getLoopInfo(cache, loop.getParent()) : null;
+            result = new LoopInfo(loop.getHead(), parent);
+            if (parent != null) {
+                parent.innermost = false;
+            }
+            cache.put(loop, result);
+        }
+        return result;
+    }
+
+    static int programSize(Program program) {
+        int size = 0;
+        for (BasicBlock block : program.getBasicBlocks()) {
+            size += block.instructionCount();
+        }
+        return size;
+    }
+
+    /**
+     * Creates copies of given blocks. Jumps between copied blocks and phi incomings that come from copied
+     * blocks are redirected to corresponding copies, jumps to other blocks are kept.
+     *
+     * @param targetOverride receives index of original jump target and returns index of block
+     *                       the copied jump should go to instead, or -1 to keep default behaviour.
+     * @return map from indexes of original blocks to indexes of their copies.
+     */
+    IntIntMap copyBlocks(int[] nodes, IntUnaryOperator targetOverride) {
+        IntIntMap copies = new IntIntHashMap();
+        for (int node : nodes) {
+            copies.put(node, program.createBasicBlock().getIndex());
+        }
+
+        BasicBlockMapper blockMapper = new BasicBlockMapper((int block) -> {
+            int target = targetOverride.applyAsInt(block);
+            return target >= 0 ? target : copies.getOrDefault(block, block);
+        });
+        for (int node : nodes) {
+            BasicBlock source = program.basicBlockAt(node);
+            BasicBlock target = program.basicBlockAt(copies.get(node));
+            List<Instruction> instructionCopies = ProgramUtils.copyInstructions(source.getFirstInstruction(),
+                    null, program);
+            for (Instruction insn : instructionCopies) {
+                insn.acceptVisitor(blockMapper);
+                target.add(insn);
+            }
+            for (Phi phi : source.getPhis()) {
+                Phi phiCopy = new Phi();
+                phiCopy.setReceiver(phi.getReceiver());
+                for (Incoming incoming : phi.getIncomings()) {
+                    Incoming incomingCopy = new Incoming();
+                    int incomingSource = incoming.getSource().getIndex();
+                    incomingCopy.setSource(program.basicBlockAt(copies.getOrDefault(incomingSource,
+                            incomingSource)));
+                    incomingCopy.setValue(incoming.getValue());
+                    phiCopy.getIncomings().add(incomingCopy);
+                }
+                target.getPhis().add(phiCopy);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Replaces branching instruction with unconditional jump to one of its targets, removing phi incomings
+     * that come from other targets.
+     */
+    static void replaceWithJump(Instruction insn, BasicBlock target) {
+        BasicBlock block = insn.getBasicBlock();
+        TransitionExtractor transitionExtractor = new TransitionExtractor();
+        insn.acceptVisitor(transitionExtractor);
+        for (BasicBlock oldTarget : transitionExtractor.getTargets()) {
+            if (oldTarget != target) {
+                oldTarget.removeIncomingsFrom(block);
+            }
+        }
+
+        JumpInstruction jump = new JumpInstruction();
+        jump.setTarget(target);
+        jump.setLocation(insn.getLocation());
+        insn.replace(jump);
+    }
+
+    void restoreSsa(int parameterCount) {
+        new UnreachableBasicBlockEliminator().optimize(program);
+        Variable[] inputs = new Variable[parameterCount];
+        for (int i = 0; i < inputs.length; ++i) {
+            inputs[i] = program.variableAt(i);
+        }
+        new PhiUpdater().updatePhis(program, inputs);
+    }
+
+    static class LoopInfo {
+        final int head;
+        final LoopInfo parent;
+        final int depth;
+        final IntSet nodes = new IntHashSet();
+        boolean innermost = true;
+        boolean simple;
+        int size;
+
+        LoopInfo(int head, LoopInfo parent) {
+            this.head = head;
+            this.parent = parent;
+            depth = parent != null ? parent.depth + 1 : 0;
+        }
+
+        boolean overlaps(LoopInfo other) {
+            return nodes.contains(other.head) || other.nodes.contains(head);
+        }
+    }
+}
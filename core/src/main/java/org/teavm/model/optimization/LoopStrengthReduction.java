@@ -0,0 +1,288 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.BinaryInstruction;
+import org.teavm.model.instructions.BinaryOperation;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.LongConstantInstruction;
+import org.teavm.model.instructions.NumericOperandType;
+import org.teavm.model.util.DefinitionExtractor;
+
+/**
+ * Replaces multiplication of an induction variable by a constant with a new induction variable.
+ * For example, the following loop:
+ *
+ * ```
+ * for (int i = 0; i < n; ++i) {
+ *     a[i * 3] = 0;
+ * }
+ * ```
+ *
+ * is transformed to
+ *
+ * ```
+ * for (int i = 0, j = 0; i < n; ++i, j += 3) {
+ *     a[j] = 0;
+ * }
+ * ```
+ *
+ * Since both int and long arithmetic wrap around on overflow, the transformation is exact.
+ */
+public class LoopStrengthReduction implements MethodOptimization {
+    private static final int MAX_ASSIGNMENT_CHAIN = 16;
+    private Program program;
+    private Instruction[] definitions;
+
+    @Override
+    public boolean optimize(MethodOptimizationContext context, Program program) {
+        this.program = program;
+        LoopNest nest = new LoopNest(program);
+        collectDefinitions();
+
+        boolean affected = false;
+        for (LoopNest.LoopInfo loop : nest.loops) {
+            if (loop.simple && reduce(loop)) {
+                affected = true;
+            }
+        }
+
+        this.program = null;
+        definitions = null;
+        return affected;
+    }
+
+    private void collectDefinitions() {
+        definitions = new Instruction[program.variableCount()];
+        DefinitionExtractor defExtractor = new DefinitionExtractor();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Instruction insn : block) {
+                insn.acceptVisitor(defExtractor);
+                for (Variable var : defExtractor.getDefinedVariables()) {
+                    definitions[var.getIndex()] = insn;
+                }
+            }
+        }
+    }
+
+    private boolean reduce(LoopNest.LoopInfo loop) {
+        Map<Variable, InductionVariable> inductionVariables = new LinkedHashMap<>();
+        for (Phi phi : program.basicBlockAt(loop.head).getPhis()) {
+            InductionVariable inductionVariable = getInductionVariable(loop, phi);
+            if (inductionVariable != null) {
+                inductionVariables.put(phi.getReceiver(), inductionVariable);
+            }
+        }
+        if (inductionVariables.isEmpty()) {
+            return false;
+        }
+
+        int[] nodes = loop.nodes.toArray();
+        Arrays.sort(nodes);
+        List<BinaryInstruction> candidates = new ArrayList<>();
+        List<InductionVariable> candidateVariables = new ArrayList<>();
+        List<Long> candidateFactors = new ArrayList<>();
+        for (int node : nodes) {
+            for (Instruction insn : program.basicBlockAt(node)) {
+                if (!(insn instanceof BinaryInstruction)) {
+                    continue;
+                }
+                BinaryInstruction binary = (BinaryInstruction) insn;
+                if (binary.getOperation() != BinaryOperation.MULTIPLY) {
+                    continue;
+                }
+                InductionVariable inductionVariable = inductionVariables.get(resolve(binary.getFirstOperand()));
+                Long factor = getConstant(binary.getSecondOperand());
+                if (inductionVariable == null || factor == null) {
+                    inductionVariable = inductionVariables.get(resolve(binary.getSecondOperand()));
+                    factor = getConstant(binary.getFirstOperand());
+                }
+                if (inductionVariable == null || factor == null || factor == 0 || factor == 1
+                        || binary.getOperandType() != inductionVariable.type) {
+                    continue;
+                }
+                candidates.add(binary);
+                candidateVariables.add(inductionVariable);
+                candidateFactors.add(factor);
+            }
+        }
+
+        for (int i = 0; i < candidates.size(); ++i) {
+            BinaryInstruction binary = candidates.get(i);
+            InductionVariable inductionVariable = candidateVariables.get(i);
+            Variable derived = inductionVariable.derivedVariables.computeIfAbsent(candidateFactors.get(i),
+                    factor -> createDerivedVariable(loop, inductionVariable, factor));
+            AssignInstruction assign = new AssignInstruction();
+            assign.setAssignee(derived);
+            assign.setReceiver(binary.getReceiver());
+            assign.setLocation(binary.getLocation());
+            binary.replace(assign);
+        }
+        return !candidates.isEmpty();
+    }
+
+    private InductionVariable getInductionVariable(LoopNest.LoopInfo loop, Phi phi) {
+        NumericOperandType type = null;
+        long[] steps = new long[phi.getIncomings().size()];
+        boolean hasInitialValue = false;
+        for (int i = 0; i < steps.length; ++i) {
+            Incoming incoming = phi.getIncomings().get(i);
+            if (!loop.nodes.contains(incoming.getSource().getIndex())) {
+                hasInitialValue = true;
+                continue;
+            }
+            Instruction insn = definitionOf(resolve(incoming.getValue()));
+            if (!(insn instanceof BinaryInstruction)) {
+                return null;
+            }
+            BinaryInstruction increment = (BinaryInstruction) insn;
+            if (increment.getOperandType() != NumericOperandType.INT
+                    && increment.getOperandType() != NumericOperandType.LONG) {
+                return null;
+            }
+            if (type != null && type != increment.getOperandType()) {
+                return null;
+            }
+            type = increment.getOperandType();
+
+            Long step = null;
+            if (resolve(increment.getFirstOperand()) == phi.getReceiver()) {
+                step = getConstant(increment.getSecondOperand());
+            } else if (increment.getOperation() == BinaryOperation.ADD
+                    && resolve(increment.getSecondOperand()) == phi.getReceiver()) {
+                step = getConstant(increment.getFirstOperand());
+            }
+            if (step == null) {
+                return null;
+            }
+            switch (increment.getOperation()) {
+                case ADD:
+                    steps[i] = step;
+                    break;
+                case SUBTRACT:
+                    steps[i] = -step;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return type != null && hasInitialValue ? new InductionVariable(phi, type, steps) : null;
+    }
+
+    private Variable createDerivedVariable(LoopNest.LoopInfo loop, InductionVariable inductionVariable,
+            long factor) {
+        Phi phi = new Phi();
+        phi.setReceiver(program.createVariable());
+        List<Incoming> incomings = inductionVariable.phi.getIncomings();
+        for (int i = 0; i < incomings.size(); ++i) {
+            Incoming incoming = incomings.get(i);
+            BasicBlock source = incoming.getSource();
+            Variable value;
+            if (loop.nodes.contains(source.getIndex())) {
+                value = emit(source, BinaryOperation.ADD, inductionVariable.type, phi.getReceiver(),
+                        inductionVariable.steps[i] * factor);
+            } else {
+                value = emit(source, BinaryOperation.MULTIPLY, inductionVariable.type, incoming.getValue(),
+                        factor);
+            }
+            Incoming derivedIncoming = new Incoming();
+            derivedIncoming.setSource(source);
+            derivedIncoming.setValue(value);
+            phi.getIncomings().add(derivedIncoming);
+        }
+        program.basicBlockAt(loop.head).getPhis().add(phi);
+        return phi.getReceiver();
+    }
+
+    private Variable emit(BasicBlock block, BinaryOperation operation, NumericOperandType type, Variable operand,
+            long constant) {
+        Instruction last = block.getLastInstruction();
+        Instruction constantInsn;
+        Variable constantVar = program.createVariable();
+        if (type == NumericOperandType.INT) {
+            IntegerConstantInstruction intConstant = new IntegerConstantInstruction();
+            intConstant.setConstant((int) constant);
+            intConstant.setReceiver(constantVar);
+            constantInsn = intConstant;
+        } else {
+            LongConstantInstruction longConstant = new LongConstantInstruction();
+            longConstant.setConstant(constant);
+            longConstant.setReceiver(constantVar);
+            constantInsn = longConstant;
+        }
+        constantInsn.setLocation(last.getLocation());
+        last.insertPrevious(constantInsn);
+
+        BinaryInstruction binary = new BinaryInstruction(operation, type);
+        binary.setFirstOperand(operand);
+        binary.setSecondOperand(constantVar);
+        binary.setReceiver(program.createVariable());
+        binary.setLocation(last.getLocation());
+        last.insertPrevious(binary);
+        return binary.getReceiver();
+    }
+
+    private Instruction definitionOf(Variable var) {
+        return var.getIndex() < definitions.length ? definitions[var.getIndex()] : null;
+    }
+
+    private Variable resolve(Variable var) {
+        for (int i = 0; i < MAX_ASSIGNMENT_CHAIN; ++i) {
+            Instruction insn = definitionOf(var);
+            if (!(insn instanceof AssignInstruction)) {
+                break;
+            }
+            var = ((AssignInstruction) insn).getAssignee();
+        }
+        return var;
+    }
+
+    private Long getConstant(Variable var) {
+        Instruction insn = definitionOf(resolve(var));
+        if (insn instanceof IntegerConstantInstruction) {
+            return (long) ((IntegerConstantInstruction) insn).getConstant();
+        } else if (insn instanceof LongConstantInstruction) {
+            return ((LongConstantInstruction) insn).getConstant();
+        }
+        return null;
+    }
+
+    private static class InductionVariable {
+        final Phi phi;
+        final NumericOperandType type;
+        final long[] steps;
+        final Map<Long, Variable> derivedVariables = new HashMap<>();
+
+        InductionVariable(Phi phi, NumericOperandType type, long[] steps) {
+            this.phi = phi;
+            this.type = type;
+            this.steps = steps;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import com.carrotsearch.hppc.IntIntMap;
+import java.util.Arrays;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.BinaryBranchingInstruction;
+import org.teavm.model.instructions.BinaryInstruction;
+import org.teavm.model.instructions.BranchingInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.NumericOperandType;
+import org.teavm.model.util.BasicBlockMapper;
+import org.teavm.model.util.DefinitionExtractor;
+
+/**
+ * Fully unrolls innermost loops that run a small constant number of iterations. Trip count is computed
+ * by evaluating the only exit condition of a loop for consecutive iterations, which works when
+ * the condition depends on integer induction variables with constant initial values and steps.
+ * A loop is unrolled only if it is entered at most {@code maxTripCount} times and the unrolled
+ * code is not larger than {@code maxSize} instructions.
+ * A single loop is unrolled per run, since unrolling invalidates loop nest and variable definitions
+ * that trip counts of remaining loops are computed from. The rest is done by subsequent runs of optimizer.
+ */
+public class LoopUnrolling implements MethodOptimization {
+    private static final int MAX_EVALUATION_DEPTH = 16;
+    private final int maxTripCount;
+    private final int maxSize;
+    private Program program;
+    private LoopNest nest;
+    private LoopNest.LoopInfo currentLoop;
+    private Instruction[] definitions;
+    private Phi[] phiDefinitions;
+
+    public LoopUnrolling(int maxTripCount, int maxSize) {
+        this.maxTripCount = maxTripCount;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public boolean optimize(MethodOptimizationContext context, Program program) {
+        this.program = program;
+        nest = new LoopNest(program);
+        collectDefinitions();
+
+        boolean affected = false;
+        for (LoopNest.LoopInfo loop : nest.loops) {
+            if (loop.innermost && loop.simple && tryUnroll(loop)) {
+                nest.restoreSsa(context.getMethod().parameterCount() + 1);
+                affected = true;
+                break;
+            }
+        }
+
+        this.program = null;
+        nest = null;
+        currentLoop = null;
+        definitions = null;
+        phiDefinitions = null;
+        return affected;
+    }
+
+    private void collectDefinitions() {
+        definitions = new Instruction[program.variableCount()];
+        phiDefinitions = new Phi[program.variableCount()];
+        DefinitionExtractor defExtractor = new DefinitionExtractor();
+        for (BasicBlock block : program.getBasicBlocks()) {
+            for (Phi phi : block.getPhis()) {
+                phiDefinitions[phi.getReceiver().getIndex()] = phi;
+            }
+            for (Instruction insn : block) {
+                insn.acceptVisitor(defExtractor);
+                for (Variable var : defExtractor.getDefinedVariables()) {
+                    definitions[var.getIndex()] = insn;
+                }
+            }
+        }
+    }
+
+    private boolean tryUnroll(LoopNest.LoopInfo loop) {
+        int latch = -1;
+        for (int pred : nest.cfg.incomingEdges(loop.head)) {
+            if (loop.nodes.contains(pred)) {
+                if (latch >= 0) {
+                    return false;
+                }
+                latch = pred;
+            }
+        }
+
+        int exiting = -1;
+        int exit = -1;
+        for (int node : loop.nodes.toArray()) {
+            for (int succ : nest.cfg.outgoingEdges(node)) {
+                if (!loop.nodes.contains(succ)) {
+                    if (exiting >= 0) {
+                        return false;
+                    }
+                    exiting = node;
+                    exit = succ;
+                }
+            }
+        }
+        if (latch < 0 || exiting < 0 || !nest.dom.dominates(exiting, latch)) {
+            return false;
+        }
+
+        currentLoop = loop;
+        Instruction exitInsn = program.basicBlockAt(exiting).getLastInstruction();
+        int tripCount = -1;
+        for (int iteration = 0; iteration <= maxTripCount; ++iteration) {
+            BasicBlock target = evaluateBranch(exitInsn, iteration);
+            if (target == null) {
+                return false;
+            }
+            if (target.getIndex() == exit) {
+                tripCount = iteration;
+                break;
+            }
+        }
+        if (tripCount < 0 || loop.size * (tripCount + 1) > maxSize) {
+            return false;
+        }
+
+        unroll(loop, latch, exiting, exit, tripCount);
+        return true;
+    }
+
+    /*
+     * Copy k of the loop body executes k-th iteration. Back edge of each copy goes to header of the next
+     * copy, the exit condition is replaced by an unconditional jump. The back edge of the last copy is
+     * unreachable and is removed along with the rest of the last copy after exit.
+     */
+    private void unroll(LoopNest.LoopInfo loop, int latch, int exiting, int exit, int tripCount) {
+        int[] nodes = loop.nodes.toArray();
+        Arrays.sort(nodes);
+        IntIntMap[] copies = new IntIntMap[tripCount + 1];
+        int nextHead = -1;
+        for (int iteration = tripCount; iteration > 0; --iteration) {
+            int currentNextHead = nextHead;
+            copies[iteration] = nest.copyBlocks(nodes, block -> block == loop.head ? currentNextHead : -1);
+            nextHead = copies[iteration].get(loop.head);
+        }
+
+        if (tripCount > 0) {
+            int firstCopyHead = nextHead;
+            program.basicBlockAt(latch).getLastInstruction().acceptVisitor(new BasicBlockMapper(
+                    (int block) -> block == loop.head ? firstCopyHead : block));
+            program.basicBlockAt(loop.head).removeIncomingsFrom(program.basicBlockAt(latch));
+        }
+        for (int iteration = 1; iteration <= tripCount; ++iteration) {
+            BasicBlock headCopy = program.basicBlockAt(copies[iteration].get(loop.head));
+            BasicBlock latchCopy = program.basicBlockAt(copies[iteration].get(latch));
+            BasicBlock previousLatch = program.basicBlockAt(copyOf(copies, iteration - 1, latch));
+            for (Phi phi : headCopy.getPhis()) {
+                for (int i = 0; i < phi.getIncomings().size(); ++i) {
+                    Incoming incoming = phi.getIncomings().get(i);
+                    if (incoming.getSource() == latchCopy) {
+                        incoming.setSource(previousLatch);
+                    } else {
+                        phi.getIncomings().remove(i--);
+                    }
+                }
+            }
+        }
+
+        BasicBlock exitBlock = program.basicBlockAt(exit);
+        BasicBlock originalExiting = program.basicBlockAt(exiting);
+        BasicBlock lastExiting = program.basicBlockAt(copyOf(copies, tripCount, exiting));
+        for (Phi phi : exitBlock.getPhis()) {
+            for (Incoming incoming : phi.getIncomings()) {
+                if (incoming.getSource() == originalExiting) {
+                    incoming.setSource(lastExiting);
+                }
+            }
+        }
+
+        for (int iteration = 0; iteration <= tripCount; ++iteration) {
+            Instruction exitInsn = program.basicBlockAt(copyOf(copies, iteration, exiting)).getLastInstruction();
+            LoopNest.replaceWithJump(exitInsn, iteration == tripCount
+                    ? exitBlock
+                    : getOtherTarget(exitInsn, exitBlock));
+        }
+    }
+
+    private static int copyOf(IntIntMap[] copies, int iteration, int node) {
+        return iteration == 0 ? node : copies[iteration].get(node);
+    }
+
+    private static BasicBlock getOtherTarget(Instruction insn, BasicBlock target) {
+        if (insn instanceof BranchingInstruction) {
+            BranchingInstruction branch = (BranchingInstruction) insn;
+            return branch.getConsequent() == target ? branch.getAlternative() : branch.getConsequent();
+        } else {
+            BinaryBranchingInstruction branch = (BinaryBranchingInstruction) insn;
+            return branch.getConsequent() == target ? branch.getAlternative() : branch.getConsequent();
+        }
+    }
+
+    private BasicBlock evaluateBranch(Instruction insn, int iteration) {
+        if (insn instanceof BranchingInstruction) {
+            BranchingInstruction branch = (BranchingInstruction) insn;
+            Integer value = evaluate(branch.getOperand(), iteration, 0);
+            if (value == null) {
+                return null;
+            }
+            boolean result;
+            switch (branch.getCondition()) {
+                case EQUAL:
+                    result = value == 0;
+                    break;
+                case NOT_EQUAL:
+                    result = value != 0;
+                    break;
+                case LESS:
+                    result = value < 0;
+                    break;
+                case LESS_OR_EQUAL:
+                    result = value <= 0;
+                    break;
+                case GREATER:
+                    result = value > 0;
+                    break;
+                case GREATER_OR_EQUAL:
+                    result = value >= 0;
+                    break;
+                default:
+                    return null;
+            }
+            return result ? branch.getConsequent() : branch.getAlternative();
+        } else if (insn instanceof BinaryBranchingInstruction) {
+            BinaryBranchingInstruction branch = (BinaryBranchingInstruction) insn;
+            Integer first = evaluate(branch.getFirstOperand(), iteration, 0);
+            Integer second = evaluate(branch.getSecondOperand(), iteration, 0);
+            if (first == null || second == null) {
+                return null;
+            }
+            boolean result;
+            switch (branch.getCondition()) {
+                case EQUAL:
+                    result = first.intValue() == second.intValue();
+                    break;
+                case NOT_EQUAL:
+                    result = first.intValue() != second.intValue();
+                    break;
+                default:
+                    return null;
+            }
+            return result ? branch.getConsequent() : branch.getAlternative();
+        }
+        return null;
+    }
+
+    private Integer evaluate(Variable var, int iteration, int depth) {
+        if (depth > MAX_EVALUATION_DEPTH) {
+            return null;
+        }
+        Phi phi = phiDefinitions[var.getIndex()];
+        if (phi != null) {
+            if (phi.getBasicBlock().getIndex() == currentLoop.head) {
+                return evaluateInductionVariable(phi, iteration, depth);
+            }
+            if (phi.getIncomings().size() == 1 && !currentLoop.nodes.contains(phi.getBasicBlock().getIndex())) {
+                return evaluate(phi.getIncomings().get(0).getValue(), iteration, depth + 1);
+            }
+            return null;
+        }
+
+        Instruction insn = definitions[var.getIndex()];
+        if (insn instanceof IntegerConstantInstruction) {
+            return ((IntegerConstantInstruction) insn).getConstant();
+        } else if (insn instanceof AssignInstruction) {
+            return evaluate(((AssignInstruction) insn).getAssignee(), iteration, depth + 1);
+        } else if (insn instanceof BinaryInstruction) {
+            BinaryInstruction binary = (BinaryInstruction) insn;
+            if (binary.getOperandType() != NumericOperandType.INT) {
+                return null;
+            }
+            Integer first = evaluate(binary.getFirstOperand(), iteration, depth + 1);
+            Integer second = evaluate(binary.getSecondOperand(), iteration, depth + 1);
+            if (first == null || second == null) {
+                return null;
+            }
+            switch (binary.getOperation()) {
+                case ADD:
+                    return first + second;
+                case SUBTRACT:
+                    return first - second;
+                case MULTIPLY:
+                    return first * second;
+                case COMPARE:
+                    return Integer.compare(first, second);
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private Integer evaluateInductionVariable(Phi phi, int iteration, int depth) {
+        Integer initialValue = null;
+        Integer step = null;
+        for (Incoming incoming : phi.getIncomings()) {
+            if (currentLoop.nodes.contains(incoming.getSource().getIndex())) {
+                step = getStep(phi.getReceiver(), incoming.getValue(), depth + 1);
+                if (step == null) {
+                    return null;
+                }
+            } else {
+                Integer value = evaluate(incoming.getValue(), 0, depth + 1);
+                if (value == null || (initialValue != null && initialValue.intValue() != value)) {
+                    return null;
+                }
+                initialValue = value;
+            }
+        }
+        if (initialValue == null || step == null) {
+            return null;
+        }
+        return initialValue + iteration * step;
+    }
+
+    private Integer getStep(Variable inductionVariable, Variable next, int depth) {
+        if (depth > MAX_EVALUATION_DEPTH) {
+            return null;
+        }
+        Instruction insn = definitions[next.getIndex()];
+        if (insn instanceof AssignInstruction) {
+            return getStep(inductionVariable, ((AssignInstruction) insn).getAssignee(), depth + 1);
+        }
+        if (!(insn instanceof BinaryInstruction)) {
+            return null;
+        }
+        BinaryInstruction binary = (BinaryInstruction) insn;
+        if (binary.getOperandType() != NumericOperandType.INT) {
+            return null;
+        }
+        switch (binary.getOperation()) {
+            case ADD:
+                if (binary.getFirstOperand() == inductionVariable) {
+                    return getConstant(binary.getSecondOperand());
+                } else if (binary.getSecondOperand() == inductionVariable) {
+                    return getConstant(binary.getFirstOperand());
+                }
+                return null;
+            case SUBTRACT: {
+                if (binary.getFirstOperand() != inductionVariable) {
+                    return null;
+                }
+                Integer value = getConstant(binary.getSecondOperand());
+                return value != null ? -value : null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private Integer getConstant(Variable var) {
+        Instruction insn = definitions[var.getIndex()];
+        return insn instanceof IntegerConstantInstruction ? ((IntegerConstantInstruction) insn).getConstant() : null;
+    }
+}
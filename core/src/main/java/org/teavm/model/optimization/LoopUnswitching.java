@@ -0,0 +1,202 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import com.carrotsearch.hppc.IntIntMap;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.BinaryBranchingInstruction;
+import org.teavm.model.instructions.BranchingInstruction;
+import org.teavm.model.instructions.JumpInstruction;
+import org.teavm.model.util.BasicBlockMapper;
+import org.teavm.model.util.ProgramUtils;
+
+/**
+ * Moves conditions that don't depend on loop iteration out of loops. Loop is duplicated, one copy
+ * takes only the consequent of the condition, another one takes only the alternative, and the condition
+ * itself is checked once before the loop. Only loops of at most {@code maxLoopSize} instructions are
+ * unswitched, and only while the method stays under {@code maxProgramSize} instructions.
+ * A single condition is unswitched per run, the rest is done by subsequent runs of optimizer.
+ */
+public class LoopUnswitching implements MethodOptimization {
+    private final int maxLoopSize;
+    private final int maxProgramSize;
+
+    public LoopUnswitching(int maxLoopSize, int maxProgramSize) {
+        this.maxLoopSize = maxLoopSize;
+        this.maxProgramSize = maxProgramSize;
+    }
+
+    @Override
+    public boolean optimize(MethodOptimizationContext context, Program program) {
+        LoopNest nest = new LoopNest(program);
+        BasicBlock[] definedAt = ProgramUtils.getVariableDefinitionPlaces(program);
+        int programSize = LoopNest.programSize(program);
+
+        for (int i = nest.loops.size() - 1; i >= 0; --i) {
+            LoopNest.LoopInfo loop = nest.loops.get(i);
+            if (!loop.simple || loop.size > maxLoopSize || programSize + loop.size > maxProgramSize) {
+                continue;
+            }
+            Instruction condition = findInvariantCondition(loop, program, definedAt);
+            if (condition != null) {
+                unswitch(nest, loop, condition);
+                nest.restoreSsa(context.getMethod().parameterCount() + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Instruction findInvariantCondition(LoopNest.LoopInfo loop, Program program, BasicBlock[] definedAt) {
+        int[] nodes = loop.nodes.toArray();
+        Arrays.sort(nodes);
+        for (int node : nodes) {
+            Instruction insn = program.basicBlockAt(node).getLastInstruction();
+            if (insn instanceof BranchingInstruction) {
+                BranchingInstruction branch = (BranchingInstruction) insn;
+                if (isInvariant(loop, branch.getOperand(), definedAt)
+                        && isInternalBranch(loop, branch.getConsequent(), branch.getAlternative())) {
+                    return insn;
+                }
+            } else if (insn instanceof BinaryBranchingInstruction) {
+                BinaryBranchingInstruction branch = (BinaryBranchingInstruction) insn;
+                if (isInvariant(loop, branch.getFirstOperand(), definedAt)
+                        && isInvariant(loop, branch.getSecondOperand(), definedAt)
+                        && isInternalBranch(loop, branch.getConsequent(), branch.getAlternative())) {
+                    return insn;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInvariant(LoopNest.LoopInfo loop, Variable var, BasicBlock[] definedAt) {
+        BasicBlock block = var.getIndex() < definedAt.length ? definedAt[var.getIndex()] : null;
+        return block == null || !loop.nodes.contains(block.getIndex());
+    }
+
+    private static boolean isInternalBranch(LoopNest.LoopInfo loop, BasicBlock consequent, BasicBlock alternative) {
+        return consequent != alternative && loop.nodes.contains(consequent.getIndex())
+                && loop.nodes.contains(alternative.getIndex());
+    }
+
+    private void unswitch(LoopNest nest, LoopNest.LoopInfo loop, Instruction condition) {
+        Program program = nest.program;
+        int[] nodes = loop.nodes.toArray();
+        Arrays.sort(nodes);
+        BasicBlock head = program.basicBlockAt(loop.head);
+        BasicBlock preheader = createPreheader(nest, loop);
+
+        Set<BasicBlock> exits = new LinkedHashSet<>();
+        for (int node : nodes) {
+            for (int succ : nest.cfg.outgoingEdges(node)) {
+                if (!loop.nodes.contains(succ)) {
+                    exits.add(program.basicBlockAt(succ));
+                }
+            }
+        }
+
+        IntIntMap copies = nest.copyBlocks(nodes, block -> -1);
+        for (BasicBlock exit : exits) {
+            for (Phi phi : exit.getPhis()) {
+                for (Incoming incoming : phi.getIncomings().toArray(new Incoming[0])) {
+                    int source = incoming.getSource().getIndex();
+                    if (loop.nodes.contains(source)) {
+                        Incoming incomingCopy = new Incoming();
+                        incomingCopy.setSource(program.basicBlockAt(copies.get(source)));
+                        incomingCopy.setValue(incoming.getValue());
+                        phi.getIncomings().add(incomingCopy);
+                    }
+                }
+            }
+        }
+
+        BasicBlock headCopy = program.basicBlockAt(copies.get(loop.head));
+        Instruction conditionCopy = program.basicBlockAt(copies.get(condition.getBasicBlock().getIndex()))
+                .getLastInstruction();
+        Instruction preheaderCondition;
+        if (condition instanceof BranchingInstruction) {
+            BranchingInstruction branch = (BranchingInstruction) condition;
+            LoopNest.replaceWithJump(condition, branch.getConsequent());
+            LoopNest.replaceWithJump(conditionCopy, ((BranchingInstruction) conditionCopy).getAlternative());
+
+            BranchingInstruction newBranch = new BranchingInstruction(branch.getCondition());
+            newBranch.setOperand(branch.getOperand());
+            newBranch.setConsequent(head);
+            newBranch.setAlternative(headCopy);
+            preheaderCondition = newBranch;
+        } else {
+            BinaryBranchingInstruction branch = (BinaryBranchingInstruction) condition;
+            LoopNest.replaceWithJump(condition, branch.getConsequent());
+            LoopNest.replaceWithJump(conditionCopy, ((BinaryBranchingInstruction) conditionCopy).getAlternative());
+
+            BinaryBranchingInstruction newBranch = new BinaryBranchingInstruction(branch.getCondition());
+            newBranch.setFirstOperand(branch.getFirstOperand());
+            newBranch.setSecondOperand(branch.getSecondOperand());
+            newBranch.setConsequent(head);
+            newBranch.setAlternative(headCopy);
+            preheaderCondition = newBranch;
+        }
+        preheaderCondition.setLocation(condition.getLocation());
+        preheader.getLastInstruction().replace(preheaderCondition);
+    }
+
+    private BasicBlock createPreheader(LoopNest nest, LoopNest.LoopInfo loop) {
+        Program program = nest.program;
+        BasicBlock head = program.basicBlockAt(loop.head);
+        BasicBlock preheader = program.createBasicBlock();
+        JumpInstruction jump = new JumpInstruction();
+        jump.setTarget(head);
+        preheader.add(jump);
+
+        for (Phi phi : head.getPhis()) {
+            Phi preheaderPhi = new Phi();
+            preheaderPhi.setReceiver(program.createVariable());
+            preheaderPhi.getReceiver().setLabel(phi.getReceiver().getLabel());
+            preheaderPhi.getReceiver().setDebugName(phi.getReceiver().getDebugName());
+            for (int i = 0; i < phi.getIncomings().size(); ++i) {
+                Incoming incoming = phi.getIncomings().get(i);
+                if (!loop.nodes.contains(incoming.getSource().getIndex())) {
+                    phi.getIncomings().remove(i--);
+                    preheaderPhi.getIncomings().add(incoming);
+                }
+            }
+            preheader.getPhis().add(preheaderPhi);
+
+            Incoming incoming = new Incoming();
+            incoming.setSource(preheader);
+            incoming.setValue(preheaderPhi.getReceiver());
+            phi.getIncomings().add(incoming);
+        }
+
+        BasicBlockMapper mapper = new BasicBlockMapper((int block) -> block == loop.head
+                ? preheader.getIndex() : block);
+        for (int pred : nest.cfg.incomingEdges(loop.head)) {
+            if (!loop.nodes.contains(pred)) {
+                program.basicBlockAt(pred).getLastInstruction().acceptVisitor(mapper);
+            }
+        }
+        return preheader;
+    }
+}
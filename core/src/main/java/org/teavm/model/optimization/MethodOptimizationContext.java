@@ -19,6 +19,8 @@ import org.teavm.dependency.DependencyInfo;
 import org.teavm.model.ClassHierarchy;
 import org.teavm.model.ClassReaderSource;
 import org.teavm.model.MethodReader;
+import org.teavm.model.analysis.FieldImmutabilityInfo;
+import org.teavm.model.analysis.MethodSideEffects;
 
 public interface MethodOptimizationContext {
     MethodReader getMethod();
@@ -28,4 +30,12 @@ public interface MethodOptimizationContext {
     ClassReaderSource getClassSource();
 
     ClassHierarchy getHierarchy();
+
+    default MethodSideEffects getSideEffects() {
+        return MethodSideEffects.UNKNOWN;
+    }
+
+    default FieldImmutabilityInfo getFieldImmutability() {
+        return FieldImmutabilityInfo.EMPTY;
+    }
 }
@@ -0,0 +1,519 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntSet;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import org.teavm.common.Graph;
+import org.teavm.common.GraphUtils;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.Incoming;
+import org.teavm.model.Instruction;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Phi;
+import org.teavm.model.Program;
+import org.teavm.model.TryCatchBlock;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.AssignInstruction;
+import org.teavm.model.instructions.BinaryBranchingInstruction;
+import org.teavm.model.instructions.BinaryInstruction;
+import org.teavm.model.instructions.BranchingInstruction;
+import org.teavm.model.instructions.CastIntegerInstruction;
+import org.teavm.model.instructions.CastNumberInstruction;
+import org.teavm.model.instructions.DoubleConstantInstruction;
+import org.teavm.model.instructions.ExitInstruction;
+import org.teavm.model.instructions.FloatConstantInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvocationType;
+import org.teavm.model.instructions.InvokeInstruction;
+import org.teavm.model.instructions.JumpInstruction;
+import org.teavm.model.instructions.LongConstantInstruction;
+import org.teavm.model.instructions.NegateInstruction;
+import org.teavm.model.instructions.SwitchInstruction;
+import org.teavm.model.instructions.SwitchTableEntry;
+import org.teavm.model.util.DefinitionExtractor;
+import org.teavm.model.util.InstructionVariableMapper;
+import org.teavm.model.util.ProgramUtils;
+import org.teavm.model.util.TransitionExtractor;
+
+/**
+ * Sparse conditional constant propagation by Wegman and Zadeck. Unlike {@link GlobalValueNumbering} and
+ * {@link ConstantConditionElimination}, it evaluates only the blocks reachable under the constants found so far,
+ * so constants that flow through phis of loops and through branches that are never taken are found as well.
+ *
+ * <p>Every variable takes one of three values: unknown yet (represented by {@code null}), a numeric constant
+ * or overdefined. Values of parameters and of method calls can be supplied externally, which is
+ * how {@link InterproceduralConstantPropagation} reuses this analysis. A branch on a value that remains
+ * unknown after the analysis (e.g. the result of a call that never returns) is considered to take
+ * all of its targets, unless the analysis is optimistic.</p>
+ */
+public class SparseConditionalConstantPropagation implements MethodOptimization {
+    static final Object OVERDEFINED = new Object();
+    private Object[] parameterValues;
+    private Function<MethodReference, Object> returnValues;
+    private Program program;
+    private int parameterCount;
+    private Object[] values;
+    private boolean[] executable;
+    private IntSet[] executableEdges;
+    private boolean changed;
+    private boolean optimistic;
+    private DefinitionExtractor defExtractor = new DefinitionExtractor();
+    private TransitionExtractor transitionExtractor = new TransitionExtractor();
+
+    public SparseConditionalConstantPropagation() {
+        this(null, method -> OVERDEFINED);
+    }
+
+    SparseConditionalConstantPropagation(Object[] parameterValues, Function<MethodReference, Object> returnValues) {
+        this.parameterValues = parameterValues;
+        this.returnValues = returnValues;
+    }
+
+    @Override
+    public boolean optimize(MethodOptimizationContext context, Program program) {
+        analyze(program, context.getMethod().parameterCount());
+        boolean affected = rewrite();
+        cleanup();
+        return affected;
+    }
+
+    void setOptimistic(boolean optimistic) {
+        this.optimistic = optimistic;
+    }
+
+    void analyze(Program program, int parameterCount) {
+        this.program = program;
+        this.parameterCount = parameterCount;
+        values = new Object[program.variableCount()];
+        executable = new boolean[program.basicBlockCount()];
+        executableEdges = new IntSet[program.basicBlockCount()];
+        for (int i = 0; i <= parameterCount; ++i) {
+            Object value = i > 0 && parameterValues != null ? parameterValues[i - 1] : null;
+            values[i] = value != null ? value : OVERDEFINED;
+        }
+        if (program.basicBlockCount() == 0) {
+            return;
+        }
+
+        Graph cfg = ProgramUtils.buildControlFlowGraph(program);
+        int[] order = GraphUtils.dfs(cfg);
+        int[] blocks = new int[order.length];
+        Arrays.fill(blocks, -1);
+        for (int i = 0; i < order.length; ++i) {
+            if (i == 0 || order[i] != 0) {
+                blocks[order[i]] = i;
+            }
+        }
+
+        executable[0] = true;
+        do {
+            do {
+                changed = false;
+                for (int index : blocks) {
+                    if (index >= 0 && executable[index]) {
+                        evaluate(program.basicBlockAt(index));
+                    }
+                }
+            } while (changed);
+        } while (!optimistic && settleUnknownConditions());
+    }
+
+    private boolean settleUnknownConditions() {
+        for (int i = 0; i < program.basicBlockCount(); ++i) {
+            if (!executable[i]) {
+                continue;
+            }
+            BasicBlock block = program.basicBlockAt(i);
+            if (hasUnknownCondition(block.getLastInstruction())) {
+                block.getLastInstruction().acceptVisitor(transitionExtractor);
+                for (BasicBlock successor : transitionExtractor.getTargets()) {
+                    markEdge(block, successor);
+                }
+            }
+        }
+        return changed;
+    }
+
+    void cleanup() {
+        program = null;
+        values = null;
+        executable = null;
+        executableEdges = null;
+    }
+
+    boolean isExecutable(BasicBlock block) {
+        return executable[block.getIndex()];
+    }
+
+    Object getValue(Variable variable) {
+        return values[variable.getIndex()];
+    }
+
+    Object getReturnValue() {
+        Object result = null;
+        for (int i = 0; i < program.basicBlockCount(); ++i) {
+            if (!executable[i]) {
+                continue;
+            }
+            Instruction last = program.basicBlockAt(i).getLastInstruction();
+            if (last instanceof ExitInstruction) {
+                Variable value = ((ExitInstruction) last).getValueToReturn();
+                result = meet(result, value != null ? getValue(value) : OVERDEFINED);
+            }
+        }
+        return result;
+    }
+
+    private void evaluate(BasicBlock block) {
+        for (Phi phi : block.getPhis()) {
+            IntSet edges = executableEdges[block.getIndex()];
+            Object value = null;
+            for (Incoming incoming : phi.getIncomings()) {
+                if (edges != null && edges.contains(incoming.getSource().getIndex())) {
+                    value = meet(value, getValue(incoming.getValue()));
+                }
+            }
+            update(phi.getReceiver(), value);
+        }
+        if (block.getExceptionVariable() != null) {
+            update(block.getExceptionVariable(), OVERDEFINED);
+        }
+
+        for (Instruction insn : block) {
+            evaluate(insn);
+        }
+
+        BasicBlock target = constantTarget(block.getLastInstruction());
+        if (target != null) {
+            markEdge(block, target);
+        } else if (!hasUnknownCondition(block.getLastInstruction())) {
+            block.getLastInstruction().acceptVisitor(transitionExtractor);
+            for (BasicBlock successor : transitionExtractor.getTargets()) {
+                markEdge(block, successor);
+            }
+        }
+        for (TryCatchBlock tryCatch : block.getTryCatchBlocks()) {
+            markEdge(block, tryCatch.getHandler());
+        }
+    }
+
+    private void evaluate(Instruction insn) {
+        if (insn instanceof IntegerConstantInstruction) {
+            IntegerConstantInstruction constant = (IntegerConstantInstruction) insn;
+            update(constant.getReceiver(), constant.getConstant());
+        } else if (insn instanceof LongConstantInstruction) {
+            LongConstantInstruction constant = (LongConstantInstruction) insn;
+            update(constant.getReceiver(), constant.getConstant());
+        } else if (insn instanceof FloatConstantInstruction) {
+            FloatConstantInstruction constant = (FloatConstantInstruction) insn;
+            update(constant.getReceiver(), constant.getConstant());
+        } else if (insn instanceof DoubleConstantInstruction) {
+            DoubleConstantInstruction constant = (DoubleConstantInstruction) insn;
+            update(constant.getReceiver(), constant.getConstant());
+        } else if (insn instanceof AssignInstruction) {
+            AssignInstruction assign = (AssignInstruction) insn;
+            update(assign.getReceiver(), getValue(assign.getAssignee()));
+        } else if (insn instanceof BinaryInstruction) {
+            BinaryInstruction binary = (BinaryInstruction) insn;
+            Object first = getValue(binary.getFirstOperand());
+            Object second = getValue(binary.getSecondOperand());
+            Object result;
+            if (first == null || second == null) {
+                result = null;
+            } else if (first == OVERDEFINED || second == OVERDEFINED) {
+                result = OVERDEFINED;
+            } else {
+                result = fold(ConstantFolding.binary(binary.getOperation(), binary.getOperandType(),
+                        (Number) first, (Number) second));
+            }
+            update(binary.getReceiver(), result);
+        } else if (insn instanceof NegateInstruction) {
+            NegateInstruction negate = (NegateInstruction) insn;
+            Object operand = getValue(negate.getOperand());
+            update(negate.getReceiver(), operand instanceof Number
+                    ? fold(ConstantFolding.negate(negate.getOperandType(), (Number) operand))
+                    : operand);
+        } else if (insn instanceof CastNumberInstruction) {
+            CastNumberInstruction cast = (CastNumberInstruction) insn;
+            Object operand = getValue(cast.getValue());
+            update(cast.getReceiver(), operand instanceof Number
+                    ? fold(ConstantFolding.castNumber(cast.getTargetType(), (Number) operand))
+                    : operand);
+        } else if (insn instanceof CastIntegerInstruction) {
+            CastIntegerInstruction cast = (CastIntegerInstruction) insn;
+            Object operand = getValue(cast.getValue());
+            update(cast.getReceiver(), operand instanceof Number
+                    ? fold(ConstantFolding.castInteger(cast.getTargetType(), cast.getDirection(), (Number) operand))
+                    : operand);
+        } else if (insn instanceof InvokeInstruction) {
+            InvokeInstruction invoke = (InvokeInstruction) insn;
+            if (invoke.getReceiver() != null) {
+                update(invoke.getReceiver(), invoke.getType() == InvocationType.SPECIAL
+                        ? returnValues.apply(invoke.getMethod())
+                        : OVERDEFINED);
+            }
+        } else {
+            insn.acceptVisitor(defExtractor);
+            for (Variable var : defExtractor.getDefinedVariables()) {
+                update(var, OVERDEFINED);
+            }
+        }
+    }
+
+    private BasicBlock constantTarget(Instruction insn) {
+        if (insn instanceof BranchingInstruction) {
+            BranchingInstruction branching = (BranchingInstruction) insn;
+            Object value = getValue(branching.getOperand());
+            if (!(value instanceof Integer)) {
+                return null;
+            }
+            int constant = (Integer) value;
+            boolean result;
+            switch (branching.getCondition()) {
+                case EQUAL:
+                    result = constant == 0;
+                    break;
+                case NOT_EQUAL:
+                    result = constant != 0;
+                    break;
+                case GREATER:
+                    result = constant > 0;
+                    break;
+                case GREATER_OR_EQUAL:
+                    result = constant >= 0;
+                    break;
+                case LESS:
+                    result = constant < 0;
+                    break;
+                case LESS_OR_EQUAL:
+                    result = constant <= 0;
+                    break;
+                default:
+                    return null;
+            }
+            return result ? branching.getConsequent() : branching.getAlternative();
+        } else if (insn instanceof BinaryBranchingInstruction) {
+            BinaryBranchingInstruction branching = (BinaryBranchingInstruction) insn;
+            Object first = getValue(branching.getFirstOperand());
+            Object second = getValue(branching.getSecondOperand());
+            if (!(first instanceof Integer) || !(second instanceof Integer)) {
+                return null;
+            }
+            switch (branching.getCondition()) {
+                case EQUAL:
+                    return first.equals(second) ? branching.getConsequent() : branching.getAlternative();
+                case NOT_EQUAL:
+                    return !first.equals(second) ? branching.getConsequent() : branching.getAlternative();
+                default:
+                    return null;
+            }
+        } else if (insn instanceof SwitchInstruction) {
+            SwitchInstruction switchInsn = (SwitchInstruction) insn;
+            Object value = getValue(switchInsn.getCondition());
+            if (!(value instanceof Integer)) {
+                return null;
+            }
+            for (SwitchTableEntry entry : switchInsn.getEntries()) {
+                if (entry.getCondition() == (Integer) value) {
+                    return entry.getTarget();
+                }
+            }
+            return switchInsn.getDefaultTarget();
+        }
+        return null;
+    }
+
+    private boolean hasUnknownCondition(Instruction insn) {
+        if (insn instanceof BranchingInstruction) {
+            return getValue(((BranchingInstruction) insn).getOperand()) == null;
+        } else if (insn instanceof BinaryBranchingInstruction) {
+            BinaryBranchingInstruction branching = (BinaryBranchingInstruction) insn;
+            return getValue(branching.getFirstOperand()) == null || getValue(branching.getSecondOperand()) == null;
+        } else if (insn instanceof SwitchInstruction) {
+            return getValue(((SwitchInstruction) insn).getCondition()) == null;
+        }
+        return false;
+    }
+
+    private void markEdge(BasicBlock source, BasicBlock target) {
+        IntSet edges = executableEdges[target.getIndex()];
+        if (edges == null) {
+            edges = new IntHashSet();
+            executableEdges[target.getIndex()] = edges;
+        }
+        if (edges.add(source.getIndex())) {
+            executable[target.getIndex()] = true;
+            changed = true;
+        }
+    }
+
+    private void update(Variable variable, Object value) {
+        Object oldValue = values[variable.getIndex()];
+        Object newValue = meet(oldValue, value);
+        if (!Objects.equals(oldValue, newValue)) {
+            values[variable.getIndex()] = newValue;
+            changed = true;
+        }
+    }
+
+    static Object meet(Object a, Object b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return a.equals(b) ? a : OVERDEFINED;
+    }
+
+    private static Object fold(Number value) {
+        return value != null ? value : OVERDEFINED;
+    }
+
+    boolean rewrite() {
+        boolean affected = false;
+        for (int i = 0; i < program.basicBlockCount(); ++i) {
+            if (!executable[i]) {
+                continue;
+            }
+            BasicBlock block = program.basicBlockAt(i);
+            for (int j = 0; j < block.getPhis().size(); ++j) {
+                Phi phi = block.getPhis().get(j);
+                Instruction constant = createConstant(phi.getReceiver());
+                if (constant != null) {
+                    block.getPhis().remove(j--);
+                    block.addFirst(constant);
+                    affected = true;
+                }
+            }
+
+            Instruction insn = block.getFirstInstruction();
+            while (insn != null) {
+                Instruction next = insn.getNext();
+                if (rewrite(insn)) {
+                    affected = true;
+                }
+                insn = next;
+            }
+
+            Instruction last = block.getLastInstruction();
+            if (!(last instanceof JumpInstruction)) {
+                BasicBlock target = constantTarget(last);
+                if (target != null) {
+                    LoopNest.replaceWithJump(last, target);
+                    affected = true;
+                }
+            }
+        }
+
+        if (parameterValues != null && program.basicBlockCount() > 0) {
+            for (int i = 1; i <= parameterCount; ++i) {
+                Object value = getValue(program.variableAt(i));
+                if (value instanceof Number) {
+                    replaceParameter(program.variableAt(i), value);
+                    affected = true;
+                }
+            }
+        }
+
+        if (affected) {
+            new UnreachableBasicBlockEliminator().optimize(program);
+        }
+        return affected;
+    }
+
+    private boolean rewrite(Instruction insn) {
+        if (insn instanceof InvokeInstruction) {
+            InvokeInstruction invoke = (InvokeInstruction) insn;
+            if (invoke.getReceiver() == null) {
+                return false;
+            }
+            Instruction constant = createConstant(invoke.getReceiver());
+            if (constant == null) {
+                return false;
+            }
+            constant.setLocation(insn.getLocation());
+            invoke.setReceiver(null);
+            invoke.insertNext(constant);
+            return true;
+        }
+
+        Variable receiver;
+        if (insn instanceof AssignInstruction) {
+            receiver = ((AssignInstruction) insn).getReceiver();
+        } else if (insn instanceof BinaryInstruction) {
+            receiver = ((BinaryInstruction) insn).getReceiver();
+        } else if (insn instanceof NegateInstruction) {
+            receiver = ((NegateInstruction) insn).getReceiver();
+        } else if (insn instanceof CastNumberInstruction) {
+            receiver = ((CastNumberInstruction) insn).getReceiver();
+        } else if (insn instanceof CastIntegerInstruction) {
+            receiver = ((CastIntegerInstruction) insn).getReceiver();
+        } else {
+            return false;
+        }
+        Instruction constant = createConstant(receiver);
+        if (constant == null) {
+            return false;
+        }
+        constant.setLocation(insn.getLocation());
+        insn.replace(constant);
+        return true;
+    }
+
+    private void replaceParameter(Variable parameter, Object value) {
+        Variable replacement = program.createVariable();
+        replacement.setDebugName(parameter.getDebugName());
+        replacement.setLabel(parameter.getLabel());
+        InstructionVariableMapper mapper = new InstructionVariableMapper(var -> var == parameter ? replacement : var);
+        for (BasicBlock block : program.getBasicBlocks()) {
+            mapper.apply(block);
+        }
+        program.basicBlockAt(0).addFirst(createConstant(value, replacement));
+    }
+
+    private Instruction createConstant(Variable receiver) {
+        return createConstant(getValue(receiver), receiver);
+    }
+
+    private static Instruction createConstant(Object value, Variable receiver) {
+        if (value instanceof Integer) {
+            IntegerConstantInstruction insn = new IntegerConstantInstruction();
+            insn.setConstant((Integer) value);
+            insn.setReceiver(receiver);
+            return insn;
+        } else if (value instanceof Long) {
+            LongConstantInstruction insn = new LongConstantInstruction();
+            insn.setConstant((Long) value);
+            insn.setReceiver(receiver);
+            return insn;
+        } else if (value instanceof Float) {
+            FloatConstantInstruction insn = new FloatConstantInstruction();
+            insn.setConstant((Float) value);
+            insn.setReceiver(receiver);
+            return insn;
+        } else if (value instanceof Double) {
+            DoubleConstantInstruction insn = new DoubleConstantInstruction();
+            insn.setConstant((Double) value);
+            insn.setReceiver(receiver);
+            return insn;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.interop.StaticInit;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.BasicBlockReader;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldHolder;
+import org.teavm.model.FieldReader;
+import org.teavm.model.FieldReference;
+import org.teavm.model.InterpretException;
+import org.teavm.model.Interpreter;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.ProgramReader;
+import org.teavm.model.ValueType;
+import org.teavm.model.Variable;
+import org.teavm.model.instructions.ArrayElementType;
+import org.teavm.model.instructions.ConstructArrayInstruction;
+import org.teavm.model.instructions.DoubleConstantInstruction;
+import org.teavm.model.instructions.ExitInstruction;
+import org.teavm.model.instructions.FloatConstantInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.LongConstantInstruction;
+import org.teavm.model.instructions.PutElementInstruction;
+import org.teavm.model.instructions.PutFieldInstruction;
+import org.teavm.model.instructions.UnwrapArrayInstruction;
+
+/**
+ * Runs class initializers at build time, when they only compute values of the class's own static fields.
+ * Primitives and strings become initial values of fields, and the initializer is removed. Primitive arrays
+ * can't be initial values, so for them the initializer is replaced by one that fills each array from
+ * constants, the same way Java compiler does for array initializers. Decompiler turns it into creation of
+ * array from data, and class initializer analysis can run such initializer eagerly.
+ */
+public class StaticInitializerEvaluation {
+    private static final MethodDescriptor CLINIT = new MethodDescriptor("<clinit>", void.class);
+    private static final int MAX_BLOCKS = 200000;
+    private static final int MAX_DEPTH = 16;
+    private static final int MAX_ARRAY_ELEMENTS = 65536;
+    private static final String[] excludedPackages = {
+            "org.teavm.interop.", "org.teavm.runtime.", "org.teavm.platform.", "org.teavm.jso.",
+            "org.teavm.backend."
+    };
+    private ListableClassHolderSource classes;
+    private ClassLoader classLoader;
+    private List<String> evaluatedClasses = new ArrayList<>();
+    private Set<String> replacedInitializers = new HashSet<>();
+    private int blockCount;
+
+    public StaticInitializerEvaluation(ListableClassHolderSource classes, ClassLoader classLoader) {
+        this.classes = classes;
+        this.classLoader = classLoader;
+    }
+
+    public List<String> getEvaluatedClasses() {
+        return evaluatedClasses;
+    }
+
+    public void apply() {
+        boolean changed;
+        do {
+            changed = false;
+            for (String className : classes.getClassNames()) {
+                ClassHolder cls = classes.get(className);
+                MethodHolder initializer = cls.getMethod(CLINIT);
+                if (initializer == null || replacedInitializers.contains(className)
+                        || !isEligible(cls, initializer)) {
+                    continue;
+                }
+                Map<String, Object> values = evaluate(cls, initializer);
+                if (values == null) {
+                    continue;
+                }
+                Map<FieldHolder, Object> arrays = new LinkedHashMap<>();
+                for (FieldHolder field : cls.getFields()) {
+                    if (field.hasModifier(ElementModifier.STATIC)) {
+                        Object value = values.get(field.getName());
+                        if (value != null && value.getClass().isArray()) {
+                            arrays.put(field, value);
+                            value = null;
+                        }
+                        field.setInitialValue(value);
+                    }
+                }
+                if (arrays.isEmpty()) {
+                    cls.removeMethod(initializer);
+                } else {
+                    initializer.setProgram(createArrayInitializer(arrays));
+                    replacedInitializers.add(className);
+                }
+                evaluatedClasses.add(className);
+                changed = true;
+            }
+        } while (changed);
+    }
+
+    private boolean isEligible(ClassHolder cls, MethodHolder initializer) {
+        if (initializer.getProgram() == null || isExcluded(cls.getName())
+                || cls.getAnnotations().get(StaticInit.class.getName()) != null) {
+            return false;
+        }
+        return cls.getParent() == null || !hasInitializer(cls.getParent());
+    }
+
+    private boolean hasInitializer(String className) {
+        ClassHolder cls = classes.get(className);
+        return cls != null && cls.getMethod(CLINIT) != null;
+    }
+
+    private static boolean isExcluded(String className) {
+        for (String prefix : excludedPackages) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> evaluate(ClassHolder cls, MethodHolder initializer) {
+        Map<String, Object> values = new HashMap<>();
+        for (FieldHolder field : cls.getFields()) {
+            if (field.hasModifier(ElementModifier.STATIC)) {
+                values.put(field.getName(), initialValue(field));
+            }
+        }
+
+        blockCount = 0;
+        try {
+            new Evaluator(cls.getName(), values, 0).run(initializer.getProgram(), new Object[1]);
+        } catch (InterpretException | RuntimeException e) {
+            return null;
+        }
+
+        Set<Object> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        int arrayElements = 0;
+        for (FieldHolder field : cls.getFields()) {
+            if (!field.hasModifier(ElementModifier.STATIC)) {
+                continue;
+            }
+            Object value = values.get(field.getName());
+            if (field.getType() instanceof ValueType.Primitive || value == null
+                    || (value instanceof String && field.getType().isObject(String.class))) {
+                continue;
+            }
+            // Each field gets its own copy of an array, so arrays shared between fields can't be restored
+            if (!isPrimitiveArray(field.getType(), value) || !arrays.add(value)) {
+                return null;
+            }
+            arrayElements += Array.getLength(value);
+            if (arrayElements > MAX_ARRAY_ELEMENTS) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static boolean isPrimitiveArray(ValueType type, Object value) {
+        if (!(type instanceof ValueType.Array)) {
+            return false;
+        }
+        ValueType itemType = ((ValueType.Array) type).getItemType();
+        if (!(itemType instanceof ValueType.Primitive)) {
+            return false;
+        }
+        switch (((ValueType.Primitive) itemType).getKind()) {
+            case BOOLEAN:
+                return value instanceof boolean[];
+            case BYTE:
+                return value instanceof byte[];
+            case SHORT:
+                return value instanceof short[];
+            case CHARACTER:
+                return value instanceof char[];
+            case INTEGER:
+                return value instanceof int[];
+            case LONG:
+                return value instanceof long[];
+            case FLOAT:
+                return value instanceof float[];
+            case DOUBLE:
+                return value instanceof double[];
+        }
+        return false;
+    }
+
+    /*
+     * Emits the same instructions as Java compiler emits for array initializer, i.e. stores of constants
+     * to all elements in order, so that decompiler recognizes them as array created from data.
+     */
+    private static Program createArrayInitializer(Map<FieldHolder, Object> arrays) {
+        Program program = new Program();
+        program.createVariable();
+        BasicBlock block = program.createBasicBlock();
+
+        for (Map.Entry<FieldHolder, Object> entry : arrays.entrySet()) {
+            FieldHolder field = entry.getKey();
+            Object array = entry.getValue();
+            ValueType itemType = ((ValueType.Array) field.getType()).getItemType();
+            int length = Array.getLength(array);
+
+            ConstructArrayInstruction construct = new ConstructArrayInstruction();
+            construct.setItemType(itemType);
+            construct.setSize(intConstant(program, block, length));
+            construct.setReceiver(program.createVariable());
+            block.add(construct);
+
+            if (!isZero(array)) {
+                ArrayElementType elementType = elementType((ValueType.Primitive) itemType);
+                UnwrapArrayInstruction unwrap = new UnwrapArrayInstruction(elementType);
+                unwrap.setArray(construct.getReceiver());
+                unwrap.setReceiver(program.createVariable());
+                block.add(unwrap);
+                for (int i = 0; i < length; ++i) {
+                    PutElementInstruction put = new PutElementInstruction(elementType);
+                    put.setArray(unwrap.getReceiver());
+                    put.setIndex(intConstant(program, block, i));
+                    put.setValue(constant(program, block, Array.get(array, i)));
+                    block.add(put);
+                }
+            }
+
+            PutFieldInstruction putField = new PutFieldInstruction();
+            putField.setField(field.getReference());
+            putField.setFieldType(field.getType());
+            putField.setValue(construct.getReceiver());
+            block.add(putField);
+        }
+
+        block.add(new ExitInstruction());
+        return program;
+    }
+
+    private static boolean isZero(Object array) {
+        for (int i = Array.getLength(array) - 1; i >= 0; --i) {
+            if (!isZeroElement(Array.get(array, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZeroElement(Object element) {
+        if (element instanceof Float) {
+            return Float.floatToRawIntBits((Float) element) == 0;
+        } else if (element instanceof Double) {
+            return Double.doubleToRawLongBits((Double) element) == 0;
+        } else if (element instanceof Long) {
+            return (Long) element == 0;
+        }
+        return toInt(element) == 0;
+    }
+
+    private static ArrayElementType elementType(ValueType.Primitive type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+                return ArrayElementType.BYTE;
+            case SHORT:
+                return ArrayElementType.SHORT;
+            case CHARACTER:
+                return ArrayElementType.CHAR;
+            case INTEGER:
+                return ArrayElementType.INT;
+            case LONG:
+                return ArrayElementType.LONG;
+            case FLOAT:
+                return ArrayElementType.FLOAT;
+            case DOUBLE:
+                return ArrayElementType.DOUBLE;
+        }
+        throw new IllegalArgumentException(type.toString());
+    }
+
+    private static Variable constant(Program program, BasicBlock block, Object value) {
+        if (value instanceof Long) {
+            LongConstantInstruction insn = new LongConstantInstruction();
+            insn.setConstant((Long) value);
+            insn.setReceiver(program.createVariable());
+            block.add(insn);
+            return insn.getReceiver();
+        } else if (value instanceof Float) {
+            FloatConstantInstruction insn = new FloatConstantInstruction();
+            insn.setConstant((Float) value);
+            insn.setReceiver(program.createVariable());
+            block.add(insn);
+            return insn.getReceiver();
+        } else if (value instanceof Double) {
+            DoubleConstantInstruction insn = new DoubleConstantInstruction();
+            insn.setConstant((Double) value);
+            insn.setReceiver(program.createVariable());
+            block.add(insn);
+            return insn.getReceiver();
+        }
+        return intConstant(program, block, toInt(value));
+    }
+
+    private static Variable intConstant(Program program, BasicBlock block, int value) {
+        IntegerConstantInstruction insn = new IntegerConstantInstruction();
+        insn.setConstant(value);
+        insn.setReceiver(program.createVariable());
+        block.add(insn);
+        return insn.getReceiver();
+    }
+
+    private static Object initialValue(FieldReader field) {
+        Object value = field.getInitialValue();
+        if (value == null && field.getType() instanceof ValueType.Primitive) {
+            value = 0;
+        }
+        return normalize(field.getType(), value);
+    }
+
+    private static Object normalize(ValueType type, Object value) {
+        if (!(type instanceof ValueType.Primitive)) {
+            return value;
+        }
+        switch (((ValueType.Primitive) type).getKind()) {
+            case BOOLEAN:
+                return toInt(value) != 0 ? 1 : 0;
+            case BYTE:
+                return (int) (byte) toInt(value);
+            case SHORT:
+                return (int) (short) toInt(value);
+            case CHARACTER:
+                return (int) (char) toInt(value);
+            case INTEGER:
+                return toInt(value);
+            case LONG:
+                return ((Number) value).longValue();
+            case FLOAT:
+                return ((Number) value).floatValue();
+            case DOUBLE:
+                return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return ((Number) value).intValue();
+    }
+
+    class Evaluator extends Interpreter {
+        private String className;
+        private Map<String, Object> values;
+        private int depth;
+
+        Evaluator(String className, Map<String, Object> values, int depth) {
+            super(classLoader);
+            this.className = className;
+            this.values = values;
+            this.depth = depth;
+        }
+
+        Object run(ProgramReader program, Object[] parameters) throws InterpretException {
+            for (int i = 0; i < program.basicBlockCount(); ++i) {
+                if (!program.basicBlockAt(i).readTryCatchBlocks().isEmpty()) {
+                    throw new IllegalStateException("Exception handlers are not supported");
+                }
+            }
+            return interpret(program, parameters);
+        }
+
+        @Override
+        protected void enterBlock(BasicBlockReader block) {
+            if (++blockCount > MAX_BLOCKS) {
+                throw new IllegalStateException("Evaluation is too long");
+            }
+        }
+
+        @Override
+        protected Object createInstance(String className) {
+            throw new IllegalStateException("Can't create instance of " + className);
+        }
+
+        @Override
+        protected Object readField(FieldReference field, Object instance) {
+            FieldReader resolved = resolveStatic(field, instance);
+            if (resolved.getOwnerName().equals(className)) {
+                return values.get(resolved.getName());
+            }
+            if (!resolved.hasModifier(ElementModifier.FINAL) || hasInitializer(resolved.getOwnerName())) {
+                throw new IllegalStateException("Can't read " + field);
+            }
+            return initialValue(resolved);
+        }
+
+        @Override
+        protected void writeField(FieldReference field, Object instance, Object value) {
+            FieldReader resolved = resolveStatic(field, instance);
+            if (!resolved.getOwnerName().equals(className)) {
+                throw new IllegalStateException("Can't write " + field);
+            }
+            values.put(resolved.getName(), normalize(resolved.getType(), value));
+        }
+
+        private FieldReader resolveStatic(FieldReference field, Object instance) {
+            FieldReader resolved = classes.resolve(field);
+            if (instance != null || resolved == null || !resolved.hasModifier(ElementModifier.STATIC)) {
+                throw new IllegalStateException("Can't access " + field);
+            }
+            return resolved;
+        }
+
+        @Override
+        protected Object invokeMethod(MethodReference method, Object instance, Object[] arguments) {
+            MethodReader resolved = classes.resolve(method);
+            if (instance != null || resolved == null || resolved.getProgram() == null
+                    || !resolved.hasModifier(ElementModifier.STATIC) || depth >= MAX_DEPTH
+                    || isExcluded(resolved.getOwnerName())
+                    || (!resolved.getOwnerName().equals(className) && hasInitializer(resolved.getOwnerName()))) {
+                throw new IllegalStateException("Can't call " + method);
+            }
+            Object[] parameters = new Object[arguments.length + 1];
+            System.arraycopy(arguments, 0, parameters, 1, arguments.length);
+            try {
+                return new Evaluator(className, values, depth + 1).run(resolved.getProgram(), parameters);
+            } catch (InterpretException e) {
+                throw new IllegalStateException("Error calling " + method, e);
+            }
+        }
+
+        @Override
+        protected void initializeClass(String className) {
+            if (!className.equals(this.className) && hasInitializer(className)) {
+                throw new IllegalStateException("Can't initialize " + className);
+            }
+        }
+    }
+}
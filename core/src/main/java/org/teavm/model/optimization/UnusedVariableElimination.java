@@ -23,6 +23,7 @@ import org.teavm.model.MethodReader;
 import org.teavm.model.Phi;
 import org.teavm.model.Program;
 import org.teavm.model.Variable;
+import org.teavm.model.analysis.MethodSideEffects;
 import org.teavm.model.instructions.AbstractInstructionVisitor;
 import org.teavm.model.instructions.ArrayLengthInstruction;
 import org.teavm.model.instructions.AssignInstruction;
@@ -40,6 +41,7 @@ import org.teavm.model.instructions.FloatConstantInstruction;
 import org.teavm.model.instructions.GetElementInstruction;
 import org.teavm.model.instructions.GetFieldInstruction;
 import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.InvocationType;
 import org.teavm.model.instructions.InvokeInstruction;
 import org.teavm.model.instructions.IsInstanceInstruction;
 import org.teavm.model.instructions.LongConstantInstruction;
@@ -51,10 +53,14 @@ import org.teavm.model.instructions.UnwrapArrayInstruction;
 public class UnusedVariableElimination implements MethodOptimization {
     @Override
     public boolean optimize(MethodOptimizationContext context, Program program) {
-        return optimize(context.getMethod(), program);
+        return optimize(context.getMethod(), program, context.getSideEffects());
     }
 
     public boolean optimize(MethodReader method, Program program) {
+        return optimize(method, program, MethodSideEffects.UNKNOWN);
+    }
+
+    public boolean optimize(MethodReader method, Program program, MethodSideEffects sideEffects) {
         Graph graph = VariableUsageGraphBuilder.build(program);
         boolean[] escaping = VariableEscapeAnalyzer.findEscapingVariables(program);
         boolean[] used = new boolean[escaping.length];
@@ -84,7 +90,7 @@ public class UnusedVariableElimination implements MethodOptimization {
             }
         }
 
-        InstructionOptimizer insnOptimizer = new InstructionOptimizer(used);
+        InstructionOptimizer insnOptimizer = new InstructionOptimizer(used, sideEffects);
         for (int i = 0; i < program.basicBlockCount(); ++i) {
             BasicBlock block = program.basicBlockAt(i);
             if (block.getExceptionVariable() != null && !used[block.getExceptionVariable().getIndex()]) {
@@ -114,15 +120,18 @@ public class UnusedVariableElimination implements MethodOptimization {
         }
         program.pack();
 
-        return false;
+        return insnOptimizer.callsEliminated;
     }
 
     static class InstructionOptimizer extends AbstractInstructionVisitor {
         private boolean[] used;
+        private MethodSideEffects sideEffects;
         boolean eliminate;
+        boolean callsEliminated;
 
-        InstructionOptimizer(boolean[] used) {
+        InstructionOptimizer(boolean[] used, MethodSideEffects sideEffects) {
             this.used = used;
+            this.sideEffects = sideEffects;
         }
 
         private void requestUsage(Variable var) {
@@ -241,6 +250,11 @@ public class UnusedVariableElimination implements MethodOptimization {
             if (insn.getReceiver() != null && !used[insn.getReceiver().getIndex()]) {
                 insn.setReceiver(null);
             }
+            if (insn.getReceiver() == null && insn.getType() == InvocationType.SPECIAL
+                    && sideEffects.get(insn.getMethod()).isRemovable()) {
+                eliminate = true;
+                callsEliminated = true;
+            }
         }
 
         @Override
@@ -399,9 +399,15 @@ class ListingLexer {
         }
 
         switch (token) {
-            case INTEGER:
-                tokenValue = Integer.parseInt(sb.toString());
+            case INTEGER: {
+                // Magnitude of Integer.MIN_VALUE is accepted here, parser only allows it after minus sign
+                long value = Long.parseLong(sb.toString());
+                if (value > -(long) Integer.MIN_VALUE) {
+                    throw new ListingParseException("Integer constant out of range", index);
+                }
+                tokenValue = (int) value;
                 break;
+            }
             case LONG:
                 tokenValue = Long.parseLong(sb.toString());
                 break;
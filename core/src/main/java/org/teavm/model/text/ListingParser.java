@@ -377,6 +377,9 @@ public class ListingParser {
                     case "cast":
                         parseCast(receiver);
                         break;
+                    case "weak":
+                        parseWeakCast(receiver);
+                        break;
                     case "new":
                         parseNew(receiver);
                         break;
@@ -636,9 +639,13 @@ public class ListingParser {
     }
 
     private void parseIntConstant(Variable receiver) throws IOException, ListingParseException {
+        int value = (Integer) lexer.getTokenValue();
+        if (value == Integer.MIN_VALUE) {
+            throw new ListingParseException("Integer constant out of range", lexer.getTokenStart());
+        }
         IntegerConstantInstruction insn = new IntegerConstantInstruction();
         insn.setReceiver(receiver);
-        insn.setConstant((Integer) lexer.getTokenValue());
+        insn.setConstant(value);
         lexer.nextToken();
         addInstruction(insn);
     }
@@ -677,6 +684,42 @@ public class ListingParser {
 
     private void parseNegate(Variable receiver) throws IOException, ListingParseException {
         lexer.nextToken();
+        switch (lexer.getToken()) {
+            case INTEGER: {
+                IntegerConstantInstruction insn = new IntegerConstantInstruction();
+                insn.setReceiver(receiver);
+                insn.setConstant(-(Integer) lexer.getTokenValue());
+                lexer.nextToken();
+                addInstruction(insn);
+                return;
+            }
+            case LONG: {
+                LongConstantInstruction insn = new LongConstantInstruction();
+                insn.setReceiver(receiver);
+                insn.setConstant(-(Long) lexer.getTokenValue());
+                lexer.nextToken();
+                addInstruction(insn);
+                return;
+            }
+            case FLOAT: {
+                FloatConstantInstruction insn = new FloatConstantInstruction();
+                insn.setReceiver(receiver);
+                insn.setConstant(-(Float) lexer.getTokenValue());
+                lexer.nextToken();
+                addInstruction(insn);
+                return;
+            }
+            case DOUBLE: {
+                DoubleConstantInstruction insn = new DoubleConstantInstruction();
+                insn.setReceiver(receiver);
+                insn.setConstant(-(Double) lexer.getTokenValue());
+                lexer.nextToken();
+                addInstruction(insn);
+                return;
+            }
+            default:
+                break;
+        }
         Variable value = expectVariable();
         expectKeyword("as");
         NumericOperandType type = expectNumericType();
@@ -848,7 +891,7 @@ public class ListingParser {
                     throw new ListingParseException("Only int can be cast to "
                             + target.subtype.name().toLowerCase(Locale.ROOT), lexer.getIndex());
                 }
-                CastIntegerInstruction insn = new CastIntegerInstruction(source.subtype,
+                CastIntegerInstruction insn = new CastIntegerInstruction(target.subtype,
                         CastIntegerDirection.FROM_INTEGER);
                 insn.setReceiver(receiver);
                 insn.setValue(value);
@@ -917,6 +960,21 @@ public class ListingParser {
         addInstruction(insn);
     }
 
+    private void parseWeakCast(Variable receiver) throws IOException, ListingParseException {
+        lexer.nextToken();
+        expectKeyword("cast");
+        Variable value = expectVariable();
+        expectKeyword("to");
+        ValueType type = expectValueType();
+
+        CastInstruction insn = new CastInstruction();
+        insn.setReceiver(receiver);
+        insn.setValue(value);
+        insn.setTargetType(type);
+        insn.setWeak(true);
+        addInstruction(insn);
+    }
+
     private void parseNew(Variable receiver) throws IOException, ListingParseException {
         lexer.nextToken();
         expect(ListingToken.IDENTIFIER);
@@ -23,14 +23,26 @@ import org.teavm.parsing.resource.ClasspathResourceReader;
 import org.teavm.parsing.resource.MapperClassHolderSource;
 import org.teavm.parsing.resource.ResourceClassHolderMapper;
 
-public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateProvider {
+public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateProvider, AutoCloseable {
     private MapperClassHolderSource innerClassSource;
     private ClasspathResourceMapper classPathMapper;
+    private ResourceClassHolderMapper rawMapper;
 
     public ClasspathClassHolderSource(ClassLoader classLoader, ReferenceCache referenceCache) {
+        this(classLoader, referenceCache, false);
+    }
+
+    /**
+     * @param prefetch when {@code true}, classes referenced by a loaded class are read from class path
+     *                 on worker threads ahead of demand.
+     */
+    public ClasspathClassHolderSource(ClassLoader classLoader, ReferenceCache referenceCache, boolean prefetch) {
         ClasspathResourceReader reader = new ClasspathResourceReader(classLoader);
-        ResourceClassHolderMapper rawMapper = new ResourceClassHolderMapper(reader, referenceCache);
+        rawMapper = new ResourceClassHolderMapper(reader, referenceCache);
         classPathMapper = new ClasspathResourceMapper(classLoader, referenceCache, rawMapper);
+        if (prefetch) {
+            rawMapper.enablePrefetching(classPathMapper::getSourceClassNames);
+        }
         innerClassSource = new MapperClassHolderSource(classPathMapper);
     }
 
@@ -43,8 +55,23 @@ public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateP
         return innerClassSource.get(name);
     }
 
+    /**
+     * Hints that given class is going to be requested soon. Has no effect unless prefetching is enabled.
+     */
+    public void prefetch(String className) {
+        rawMapper.prefetch(className);
+    }
+
     @Override
     public Date getModificationDate(String className) {
         return classPathMapper.getModificationDate(className);
     }
+
+    /**
+     * Releases worker threads used for prefetching. The source remains usable afterwards.
+     */
+    @Override
+    public void close() {
+        rawMapper.close();
+    }
 }
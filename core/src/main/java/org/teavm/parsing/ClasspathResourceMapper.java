@@ -98,6 +98,28 @@ public class ClasspathResourceMapper implements Function<String, ClassHolder>, C
         renamer = new ClassRefsRenamer(referenceCache, new CachedFunction<>(this::toUnmappedClassName));
     }
 
+    /**
+     * Returns names of class files that may provide given class, in the order {@link #apply(String)} tries them.
+     */
+    public List<String> getSourceClassNames(String name) {
+        List<String> result = new ArrayList<>();
+        for (String mappedClassName : classMappings.apply(name)) {
+            if (!classExclusions.apply(mappedClassName)) {
+                result.add(mappedClassName);
+            }
+        }
+        for (String mappedClassName : packageMappings.apply(name)) {
+            mappedClassName = prefixMapping.apply(mappedClassName);
+            if (!classExclusions.apply(mappedClassName)) {
+                result.add(mappedClassName);
+            }
+        }
+        if (!classExclusions.apply(name)) {
+            result.add(name);
+        }
+        return result;
+    }
+
     @Override
     public ClassHolder apply(String name) {
         ClassHolder cls = null;
@@ -15,13 +15,15 @@
  */
 package org.teavm.parsing;
 
-import java.io.*;
-import java.util.jar.JarFile;
-import java.util.jar.JarInputStream;
-import java.util.zip.ZipEntry;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import org.teavm.parsing.resource.JarResourceReader;
 
-public class JarFileResourceProvider implements ResourceProvider {
+public class JarFileResourceProvider implements ResourceProvider, Closeable {
     private File file;
+    private JarResourceReader reader;
 
     public JarFileResourceProvider(File file) {
         if (file == null) {
@@ -34,38 +36,40 @@ public class JarFileResourceProvider implements ResourceProvider {
         this(new File(fileName));
     }
 
+    private JarResourceReader getReader() {
+        if (!file.isFile()) {
+            throw new IllegalStateException("The underlying file does not exist");
+        }
+        if (reader == null) {
+            reader = new JarResourceReader(file);
+        }
+        return reader;
+    }
+
     @Override
     public boolean hasResource(String name) {
-        try (JarFile jar = new JarFile(file)) {
-            return jar.getEntry(name) != null;
-        } catch (FileNotFoundException ex) {
-            throw new IllegalStateException("The underlying file does not exist", ex);
-        } catch (IOException ex) {
-            throw new IllegalStateException("Error reading jar file", ex);
-        }
+        return getReader().hasResource(name);
     }
 
     @Override
     public InputStream openResource(String name) {
+        InputStream input;
         try {
-            JarInputStream input = new JarInputStream(new FileInputStream(file));
-            while (true) {
-                ZipEntry entry = input.getNextEntry();
-                if (entry == null) {
-                    input.close();
-                    throw new IllegalArgumentException("Resource not found: " + name);
-                }
-                if (entry.getName().equals(name)) {
-                    return input;
-                }
-                if (name.startsWith("/") && entry.getName().equals(name.substring(1))) {
-                    return input;
-                }
-            }
-        } catch (FileNotFoundException e) {
-            throw new IllegalStateException("The underlying file does not exist");
+            input = getReader().openResource(name);
         } catch (IOException e) {
-            throw new IllegalStateException("Error reading jar file");
+            throw new IllegalStateException("Error reading jar file", e);
+        }
+        if (input == null) {
+            throw new IllegalArgumentException("Resource not found: " + name);
+        }
+        return input;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
         }
     }
 }
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.parsing.resource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks up resources in several readers, in the order they were added. Closing this reader releases
+ * jar readers it acquired from a {@link JarResourceCache} and closes nested composite readers.
+ */
+public class CompositeResourceReader implements ResourceReader, Closeable {
+    private List<ResourceReader> readers = new ArrayList<>();
+    private JarResourceCache jarCache;
+    private List<JarResourceReader> acquiredJars = new ArrayList<>();
+
+    public CompositeResourceReader(List<? extends ResourceReader> readers) {
+        this.readers.addAll(readers);
+    }
+
+    /**
+     * Creates reader for class path entries, which can be either directories or jar files.
+     * Jar files are acquired from the given cache, so that they are opened and indexed only once
+     * while the cache's owner keeps at least one reader of them.
+     */
+    public static CompositeResourceReader fromClassPath(JarResourceCache jarCache, String[] classPath) {
+        CompositeResourceReader result = new CompositeResourceReader(List.of());
+        result.jarCache = jarCache;
+        for (String entry : classPath) {
+            File file = new File(entry);
+            if (file.isDirectory()) {
+                result.readers.add(new DirectoryResourceReader(file));
+            } else if (file.isFile()) {
+                JarResourceReader jarReader = jarCache.acquire(file);
+                result.acquiredJars.add(jarReader);
+                result.readers.add(jarReader);
+            }
+        }
+        return result;
+    }
+
+    public void add(ResourceReader reader) {
+        readers.add(reader);
+    }
+
+    @Override
+    public boolean hasResource(String name) {
+        for (ResourceReader reader : readers) {
+            if (reader.hasResource(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public InputStream openResource(String name) throws IOException {
+        for (ResourceReader reader : readers) {
+            if (reader.hasResource(name)) {
+                return reader.openResource(name);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        for (ResourceReader reader : readers) {
+            if (reader instanceof CompositeResourceReader) {
+                ((CompositeResourceReader) reader).close();
+            }
+        }
+        for (JarResourceReader jarReader : acquiredJars) {
+            jarCache.release(jarReader);
+        }
+        acquiredJars.clear();
+    }
+}
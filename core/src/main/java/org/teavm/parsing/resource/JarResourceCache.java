@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.parsing.resource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares {@link JarResourceReader} instances between users of the same jar, for example between consecutive
+ * builds of the development server. Readers are reference-counted: every {@link #acquire(File)} must be
+ * paired with {@link #release(JarResourceReader)}, and the jar is closed as soon as its last holder releases it.
+ * <p>
+ * When a jar is modified, subsequent calls to {@link #acquire(File)} open a new reader, while holders of the
+ * outdated one can keep reading from it until they release it. Closing the cache closes all readers
+ * it has ever opened and not yet closed.
+ */
+public class JarResourceCache implements Closeable {
+    private final Map<String, JarResourceReader> currentReaders = new HashMap<>();
+    private final Set<JarResourceReader> openReaders = new HashSet<>();
+    private boolean closed;
+
+    public synchronized JarResourceReader acquire(File file) {
+        if (closed) {
+            throw new IllegalStateException("Cache is closed");
+        }
+        String key = file.getAbsolutePath();
+        JarResourceReader reader = currentReaders.get(key);
+        if (reader == null || !reader.isUpToDate()) {
+            reader = new JarResourceReader(file);
+            currentReaders.put(key, reader);
+            openReaders.add(reader);
+        }
+        reader.holders++;
+        return reader;
+    }
+
+    public synchronized void release(JarResourceReader reader) {
+        if (!openReaders.contains(reader) || --reader.holders > 0) {
+            return;
+        }
+        currentReaders.remove(reader.getFile().getAbsolutePath(), reader);
+        openReaders.remove(reader);
+        reader.closeQuietly();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (JarResourceReader reader : openReaders) {
+            reader.closeQuietly();
+        }
+        openReaders.clear();
+        currentReaders.clear();
+    }
+}
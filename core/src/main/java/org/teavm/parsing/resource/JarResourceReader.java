@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.parsing.resource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Reads resources from a jar file, which is opened only once. Names of all entries are read from
+ * the central directory on first access, so that {@link #hasResource(String)} does not touch the file,
+ * and entries are read by random access.
+ * <p>
+ * The jar file stays open until the reader is closed. Long-running tools should obtain readers from
+ * a {@link JarResourceCache}, which shares them across builds and closes them once no longer used.
+ */
+public class JarResourceReader implements ResourceReader, Closeable {
+    private File file;
+    private long lastModified;
+    private long length;
+    private JarFile jarFile;
+    private Set<String> entryNames;
+    private boolean closed;
+    int holders;
+
+    public JarResourceReader(File file) {
+        this.file = file;
+        lastModified = file.lastModified();
+        length = file.length();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isUpToDate() {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    @Override
+    public boolean hasResource(String name) {
+        try {
+            return getEntryNames().contains(normalize(name));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public InputStream openResource(String name) throws IOException {
+        name = normalize(name);
+        synchronized (this) {
+            if (!getEntryNames().contains(name)) {
+                return null;
+            }
+            JarEntry entry = jarFile.getJarEntry(name);
+            return entry != null ? jarFile.getInputStream(entry) : null;
+        }
+    }
+
+    private synchronized Set<String> getEntryNames() throws IOException {
+        if (closed) {
+            throw new IOException("Reader of " + file + " is closed");
+        }
+        if (entryNames == null) {
+            jarFile = new JarFile(file);
+            Set<String> names = new HashSet<>();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    names.add(entry.getName());
+                }
+            }
+            entryNames = names;
+        }
+        return entryNames;
+    }
+
+    private static String normalize(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (jarFile != null) {
+            jarFile.close();
+            jarFile = null;
+        }
+        entryNames = null;
+    }
+
+    void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
@@ -17,35 +17,287 @@ package org.teavm.parsing.resource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
 import org.teavm.model.ClassHolder;
 import org.teavm.model.ReferenceCache;
 import org.teavm.parsing.Parser;
 
-public class ResourceClassHolderMapper implements Function<String, ClassHolder> {
+public class ResourceClassHolderMapper implements Function<String, ClassHolder>, AutoCloseable {
+    private static final int MAX_PENDING_PREFETCHES = 4096;
+    private static final int MAX_PREFETCH_THREADS = 4;
     private Parser parser;
     private ResourceReader resourceReader;
+    private volatile Function<String, List<String>> prefetchResolver;
+    private Set<String> requestedClasses = ConcurrentHashMap.newKeySet();
+    private Map<String, Prefetch> pendingPrefetches = new ConcurrentHashMap<>();
+    private Queue<Prefetch> prefetchOrder = new ArrayDeque<>();
+    private ExecutorService prefetchExecutor;
 
     public ResourceClassHolderMapper(ResourceReader resourceReader, ReferenceCache referenceCache) {
         this.resourceReader = resourceReader;
         parser = new Parser(referenceCache);
     }
 
+    /**
+     * Enables reading class files ahead of demand. When a class is requested, all classes it refers to
+     * are read and decoded by ASM on worker threads, so that I/O and decoding overlap with the work
+     * that consumes classes. Conversion to TeaVM model still happens on the requesting thread, since
+     * {@link ReferenceCache} is not thread-safe. At most {@code MAX_PENDING_PREFETCHES} results are kept;
+     * when more classes are prefetched, the oldest unconsumed results are dropped.
+     * <p>
+     * Class files are read on a small pool of daemon threads owned by this mapper, which is shut down
+     * by {@link #close()}.
+     *
+     * @param resolver maps referenced class name to the list of class file names that may provide it,
+     *                 in the order they are looked up. Called on the requesting thread only.
+     */
+    public void enablePrefetching(Function<String, List<String>> resolver) {
+        int threads = Math.min(MAX_PREFETCH_THREADS, Runtime.getRuntime().availableProcessors());
+        var executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    var thread = new Thread(runnable, "TeaVM class prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        enablePrefetching(resolver, executor);
+    }
+
+    void enablePrefetching(Function<String, List<String>> resolver, ExecutorService executor) {
+        prefetchResolver = resolver;
+        prefetchExecutor = executor;
+    }
+
+    /**
+     * Stops reading classes ahead of demand and shuts down worker threads. Classes still can be requested
+     * after that, they are read on the requesting thread.
+     */
+    @Override
+    public synchronized void close() {
+        prefetchResolver = null;
+        while (!prefetchOrder.isEmpty()) {
+            prefetchOrder.remove().cancel();
+        }
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+            prefetchExecutor = null;
+        }
+    }
+
+    public void prefetch(String name) {
+        var resolver = prefetchResolver;
+        if (resolver != null) {
+            prefetchCandidates(resolver.apply(name));
+        }
+    }
+
     @Override
     public ClassHolder apply(String name) {
-        ClassNode clsNode = new ClassNode();
+        requestedClasses.add(name);
+        ClassNode clsNode = null;
+        Prefetch prefetch = pendingPrefetches.remove(name);
+        if (prefetch != null) {
+            clsNode = prefetch.take(name);
+        }
+        if (clsNode == null) {
+            clsNode = readClass(name);
+            if (clsNode == null) {
+                return null;
+            }
+        }
+        if (prefetchResolver != null) {
+            for (String reference : collectReferences(clsNode)) {
+                prefetch(reference);
+            }
+        }
+        return parser.parseClass(clsNode);
+    }
+
+    private ClassNode readClass(String name) {
         String resourceName = name.replace('.', '/') + ".class";
         if (!resourceReader.hasResource(resourceName)) {
             return null;
         }
+        ClassNode clsNode = new ClassNode();
         try (InputStream input = resourceReader.openResource(resourceName)) {
             ClassReader reader = new ClassReader(input);
             reader.accept(clsNode, 0);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return parser.parseClass(clsNode);
+        return clsNode;
+    }
+
+    private synchronized void prefetchCandidates(List<String> candidates) {
+        if (candidates.isEmpty() || prefetchExecutor == null) {
+            return;
+        }
+        for (String candidate : candidates) {
+            if (requestedClasses.contains(candidate) || pendingPrefetches.containsKey(candidate)) {
+                return;
+            }
+        }
+
+        Prefetch prefetch = new Prefetch(candidates);
+        for (String candidate : candidates) {
+            pendingPrefetches.put(candidate, prefetch);
+        }
+        prefetchOrder.add(prefetch);
+        while (prefetchOrder.size() > MAX_PENDING_PREFETCHES) {
+            prefetchOrder.remove().cancel();
+        }
+        try {
+            prefetchExecutor.execute(prefetch::run);
+        } catch (RejectedExecutionException e) {
+            prefetch.cancel();
+        }
+    }
+
+    /*
+     * Whoever claims a prefetch first owns it: either the worker, which then reads the first existing
+     * candidate and publishes it through the future, or the requesting thread, which then reads the class
+     * itself and the worker does nothing. So a class is never read twice and a result is never lost.
+     */
+    private class Prefetch {
+        final List<String> candidates;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        CompletableFuture<ClassNode> result = new CompletableFuture<>();
+        String foundName;
+
+        Prefetch(List<String> candidates) {
+            this.candidates = candidates;
+        }
+
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                for (String candidate : candidates) {
+                    ClassNode clsNode = readClass(candidate);
+                    if (clsNode != null) {
+                        foundName = candidate;
+                        result.complete(clsNode);
+                        return;
+                    }
+                }
+                result.complete(null);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        ClassNode take(String name) {
+            if (claimed.compareAndSet(false, true)) {
+                cancel();
+                return null;
+            }
+            ClassNode clsNode;
+            try {
+                clsNode = result.join();
+            } catch (CompletionException e) {
+                // Read class once again to report error in the usual way
+                clsNode = null;
+            }
+            if (clsNode == null || !name.equals(foundName)) {
+                return null;
+            }
+            cancel();
+            // Consumed prefetch may stay in the eviction queue for a while, don't let it keep the class
+            result = null;
+            return clsNode;
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                result.complete(null);
+            }
+            for (String candidate : candidates) {
+                pendingPrefetches.remove(candidate, this);
+            }
+        }
+    }
+
+    private static Set<String> collectReferences(ClassNode cls) {
+        Set<String> result = new LinkedHashSet<>();
+        addInternalName(result, cls.superName);
+        for (String iface : cls.interfaces) {
+            addInternalName(result, iface);
+        }
+        for (FieldNode field : cls.fields) {
+            addType(result, Type.getType(field.desc));
+        }
+        for (MethodNode method : cls.methods) {
+            addType(result, Type.getMethodType(method.desc));
+            for (TryCatchBlockNode tryCatch : method.tryCatchBlocks) {
+                addInternalName(result, tryCatch.type);
+            }
+            for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                if (insn instanceof MethodInsnNode) {
+                    addInternalName(result, ((MethodInsnNode) insn).owner);
+                } else if (insn instanceof FieldInsnNode) {
+                    addInternalName(result, ((FieldInsnNode) insn).owner);
+                } else if (insn instanceof TypeInsnNode) {
+                    addInternalName(result, ((TypeInsnNode) insn).desc);
+                } else if (insn instanceof MultiANewArrayInsnNode) {
+                    addType(result, Type.getType(((MultiANewArrayInsnNode) insn).desc));
+                } else if (insn instanceof LdcInsnNode && ((LdcInsnNode) insn).cst instanceof Type) {
+                    addType(result, (Type) ((LdcInsnNode) insn).cst);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addInternalName(Set<String> result, String internalName) {
+        if (internalName != null) {
+            addType(result, Type.getObjectType(internalName));
+        }
+    }
+
+    private static void addType(Set<String> result, Type type) {
+        switch (type.getSort()) {
+            case Type.ARRAY:
+                addType(result, type.getElementType());
+                break;
+            case Type.OBJECT:
+                result.add(type.getClassName());
+                break;
+            case Type.METHOD:
+                addType(result, type.getReturnType());
+                for (Type argumentType : type.getArgumentTypes()) {
+                    addType(result, argumentType);
+                }
+                break;
+            default:
+                break;
+        }
     }
 }
@@ -72,9 +72,13 @@ import org.teavm.model.ProgramCache;
 import org.teavm.model.ValueType;
 import org.teavm.model.analysis.ClassInitializerAnalysis;
 import org.teavm.model.analysis.ClassInitializerInfo;
+import org.teavm.model.analysis.FieldImmutabilityAnalysis;
+import org.teavm.model.analysis.FieldImmutabilityInfo;
+import org.teavm.model.analysis.MethodSideEffects;
 import org.teavm.model.instructions.ExitInstruction;
 import org.teavm.model.instructions.InitClassInstruction;
 import org.teavm.model.instructions.InvokeInstruction;
+import org.teavm.model.optimization.ArrayScalarReplacement;
 import org.teavm.model.optimization.ArrayUnwrapMotion;
 import org.teavm.model.optimization.ClassInitElimination;
 import org.teavm.model.optimization.ConstantConditionElimination;
@@ -83,13 +87,20 @@ import org.teavm.model.optimization.Devirtualization;
 import org.teavm.model.optimization.GlobalValueNumbering;
 import org.teavm.model.optimization.Inlining;
 import org.teavm.model.optimization.InliningStrategy;
+import org.teavm.model.optimization.InterproceduralConstantPropagation;
 import org.teavm.model.optimization.LoopInvariantMotion;
+import org.teavm.model.optimization.LoopInversion;
+import org.teavm.model.optimization.LoopStrengthReduction;
+import org.teavm.model.optimization.LoopUnrolling;
+import org.teavm.model.optimization.LoopUnswitching;
 import org.teavm.model.optimization.MethodOptimization;
 import org.teavm.model.optimization.MethodOptimizationContext;
 import org.teavm.model.optimization.RedundantJumpElimination;
 import org.teavm.model.optimization.RedundantNullCheckElimination;
 import org.teavm.model.optimization.RepeatedFieldReadElimination;
 import org.teavm.model.optimization.ScalarReplacement;
+import org.teavm.model.optimization.SparseConditionalConstantPropagation;
+import org.teavm.model.optimization.StaticInitializerEvaluation;
 import org.teavm.model.optimization.SystemArrayCopyOptimization;
 import org.teavm.model.optimization.UnreachableBasicBlockElimination;
 import org.teavm.model.optimization.UnusedVariableElimination;
@@ -164,6 +175,8 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
     private int compileProgressValue;
     private ClassSourcePacker classSourcePacker;
     private ClassInitializerInfo classInitializerInfo;
+    private FieldImmutabilityInfo fieldImmutability = FieldImmutabilityInfo.EMPTY;
+    private MethodSideEffects sideEffects = MethodSideEffects.UNKNOWN;
 
     TeaVM(TeaVMBuilder builder) {
         target = builder.target;
@@ -467,12 +480,18 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
                 return null;
             }
 
+            evaluateStaticInitializers(classSet);
             var classInitializerAnalysis = new ClassInitializerAnalysis(classSet,
                     dependencyAnalyzer.getClassHierarchy(), entryPoint);
             classInitializerAnalysis.analyze(dependencyAnalyzer);
             classInitializerInfo = classInitializerAnalysis;
             insertClassInit(classSet);
             eliminateClassInit(classSet);
+            propagateConstants(classSet);
+            analyzeFieldImmutability(classSet);
+            if (wasCancelled()) {
+                return null;
+            }
         } else {
             insertClassInit(classSet);
             classInitializerInfo = ClassInitializerInfo.EMPTY;
@@ -499,6 +518,10 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
                 dependencyAnalyzer.getClassSource(),
                 new LinkedHashSet<>(dependencyAnalyzer.getReachableClasses())));
 
+        if (optimizationLevel != TeaVMOptimizationLevel.SIMPLE) {
+            sideEffects = MethodSideEffects.compute(classSet, dependencyAnalyzer.getCallGraph(), fieldImmutability);
+        }
+
         // Optimize and allocate registers
         optimize(classSet);
         if (wasCancelled()) {
@@ -634,6 +657,9 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         }
 
         var devirtualization = new Devirtualization(dependencyAnalyzer, dependencyAnalyzer.getClassHierarchy());
+        if (target.needsGuardedDevirtualization()) {
+            devirtualization.setMaxGuardedImplementations(optimizationLevel == TeaVMOptimizationLevel.FULL ? 3 : 2);
+        }
         for (String className : classes.getClassNames()) {
             ClassHolder cls = classes.get(className);
             for (MethodHolder method : cls.getMethods()) {
@@ -652,6 +678,40 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
             System.out.println("Devirtualization complete");
             System.out.println("Virtual calls: " + devirtualization.getVirtualCallSites());
             System.out.println("Direct calls: " + devirtualization.getDirectCallSites());
+            System.out.println("Guarded calls: " + devirtualization.getGuardedCallSites());
+        }
+    }
+
+    private void evaluateStaticInitializers(ListableClassHolderSource classes) {
+        boolean shouldLog = System.getProperty("org.teavm.logStaticInitializers", "false").equals("true");
+        var evaluation = new StaticInitializerEvaluation(classes, classLoader);
+        evaluation.apply();
+        if (shouldLog) {
+            System.out.println("Static initializer evaluation complete");
+            System.out.println("Evaluated initializers: " + evaluation.getEvaluatedClasses());
+        }
+    }
+
+    private void propagateConstants(ListableClassHolderSource classes) {
+        boolean shouldLog = System.getProperty("org.teavm.logConstantPropagation", "false").equals("true");
+        var propagation = new InterproceduralConstantPropagation(classes, this::isExternal);
+        propagation.apply();
+        if (shouldLog) {
+            System.out.println("Interprocedural constant propagation complete");
+            System.out.println("Constant parameters: " + propagation.getConstantParameters());
+            System.out.println("Constant return values: " + propagation.getConstantReturnValues());
+            System.out.println("Removed methods: " + propagation.getRemovedMethods());
+        }
+    }
+
+    private void analyzeFieldImmutability(ListableClassHolderSource classes) {
+        boolean shouldLog = System.getProperty("org.teavm.logFieldImmutability", "false").equals("true");
+        var analysis = new FieldImmutabilityAnalysis(classes);
+        analysis.analyze(dependencyAnalyzer.getCallGraph(), classInitializerInfo);
+        fieldImmutability = analysis;
+        if (shouldLog) {
+            System.out.println("Field immutability analysis complete");
+            System.out.println("Immutable fields: " + analysis.getImmutableFields());
         }
     }
 
@@ -801,6 +861,16 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         public ClassHierarchy getHierarchy() {
             return dependencyAnalyzer.getClassHierarchy();
         }
+
+        @Override
+        public MethodSideEffects getSideEffects() {
+            return sideEffects;
+        }
+
+        @Override
+        public FieldImmutabilityInfo getFieldImmutability() {
+            return fieldImmutability;
+        }
     }
 
     private List<MethodOptimization> getOptimizations() {
@@ -809,8 +879,13 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         optimizations.add(new ArrayUnwrapMotion());
         if (optimizationLevel.ordinal() >= TeaVMOptimizationLevel.ADVANCED.ordinal()) {
             optimizations.add(new ScalarReplacement());
-            //optimizations.add(new LoopInversion());
+            optimizations.add(new ArrayScalarReplacement());
+            optimizations.add(new LoopInversion());
             optimizations.add(new LoopInvariantMotion());
+            boolean full = optimizationLevel == TeaVMOptimizationLevel.FULL;
+            optimizations.add(full ? new LoopUnswitching(100, 3000) : new LoopUnswitching(40, 1000));
+            optimizations.add(full ? new LoopUnrolling(8, 100) : new LoopUnrolling(4, 40));
+            optimizations.add(new LoopStrengthReduction());
         }
         if (optimizationLevel.ordinal() >= TeaVMOptimizationLevel.ADVANCED.ordinal()) {
             optimizations.add(new RepeatedFieldReadElimination());
@@ -819,6 +894,7 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         optimizations.add(new RedundantNullCheckElimination());
         if (optimizationLevel.ordinal() >= TeaVMOptimizationLevel.ADVANCED.ordinal()) {
             optimizations.add(new ConstantConditionElimination());
+            optimizations.add(new SparseConditionalConstantPropagation());
             optimizations.add(new RedundantJumpElimination());
             optimizations.add(new UnusedVariableElimination());
         }
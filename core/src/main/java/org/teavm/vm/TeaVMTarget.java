@@ -70,4 +70,12 @@ public interface TeaVMTarget {
     default boolean needsSystemArrayCopyOptimization() {
         return true;
     }
+
+    /**
+     * Whether polymorphic call sites should be turned into {@code instanceof} guards followed by direct calls.
+     * JavaScript engines already optimize such call sites with inline caches, unlike vtable dispatch.
+     */
+    default boolean needsGuardedDevirtualization() {
+        return false;
+    }
 }
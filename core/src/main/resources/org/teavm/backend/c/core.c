@@ -59,6 +59,7 @@ TeaVM_Class* teavm_classClass;
 TeaVM_Class* teavm_objectClass;
 TeaVM_Class* teavm_stringClass;
 TeaVM_Class* teavm_charArrayClass;
+TeaVM_Class* teavm_byteArrayClass;
 
 void teavm_initClasses() {
     teavm_beforeClasses = (char*) teavm_classReferences[0];
@@ -193,6 +193,7 @@ extern TeaVM_Class* teavm_classClass;
 extern TeaVM_Class* teavm_objectClass;
 extern TeaVM_Class* teavm_stringClass;
 extern TeaVM_Class* teavm_charArrayClass;
+extern TeaVM_Class* teavm_byteArrayClass;
 extern int32_t teavm_classReferencesCount;
 extern void teavm_initClasses();
 
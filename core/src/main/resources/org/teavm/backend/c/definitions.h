@@ -69,4 +69,8 @@
 
 #ifndef TEAVM_OBFUSCATED
     #define TEAVM_OBFUSCATED 0
+#endif
+
+#ifndef TEAVM_COMPACT_STRINGS
+    #define TEAVM_COMPACT_STRINGS 0
 #endif
\ No newline at end of file
@@ -8,9 +8,39 @@
 #define TEAVM_ALLOC_STACK(sz) TEAVM_ALLOC_STACK_DEF(sz, NULL)
 #endif
 
+static inline char16_t teavm_stringCharAt(TeaVM_String* string, int32_t index) {
+    if (TEAVM_STRING_IS_LATIN1(string)) {
+        return TEAVM_ARRAY_DATA(string->characters, uint8_t)[index];
+    }
+    return TEAVM_ARRAY_DATA(string->characters, char16_t)[index];
+}
+
+// Returns UTF-16 characters of the string, Latin-1 storage is inflated into a buffer that caller must free
+static char16_t* teavm_stringChars(TeaVM_String* string, int32_t* allocated) {
+    *allocated = 0;
+    if (!TEAVM_STRING_IS_LATIN1(string)) {
+        return TEAVM_ARRAY_DATA(string->characters, char16_t);
+    }
+    int32_t length = string->characters->size;
+    uint8_t* bytes = TEAVM_ARRAY_DATA(string->characters, uint8_t);
+    char16_t* chars = malloc((length + 1) * sizeof(char16_t));
+    for (int32_t i = 0; i < length; ++i) {
+        chars[i] = bytes[i];
+    }
+    *allocated = 1;
+    return chars;
+}
+
 int32_t teavm_hashCode(TeaVM_String* string) {
     int32_t hashCode = INT32_C(0);
     int32_t length = string->characters->size;
+    if (TEAVM_STRING_IS_LATIN1(string)) {
+        uint8_t* bytes = TEAVM_ARRAY_DATA(string->characters, uint8_t);
+        for (int32_t i = INT32_C(0); i < length; ++i) {
+            hashCode = 31 * hashCode + bytes[i];
+        }
+        return hashCode;
+    }
     char16_t* chars = TEAVM_ARRAY_DATA(string->characters, char16_t);
     for (int32_t i = INT32_C(0); i < length; ++i) {
         hashCode = 31 * hashCode + chars[i];
@@ -27,9 +57,23 @@ int32_t teavm_equals(TeaVM_String* first, TeaVM_String* second) {
         return 0;
     }
 
+    int32_t length = first->characters->size;
+    int32_t firstLatin1 = TEAVM_STRING_IS_LATIN1(first);
+    if (firstLatin1 != TEAVM_STRING_IS_LATIN1(second)) {
+        for (int32_t i = INT32_C(0); i < length; ++i) {
+            if (teavm_stringCharAt(first, i) != teavm_stringCharAt(second, i)) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+    if (firstLatin1) {
+        return memcmp(TEAVM_ARRAY_DATA(first->characters, uint8_t),
+                TEAVM_ARRAY_DATA(second->characters, uint8_t), length) == 0;
+    }
+
     char16_t* firstChars = TEAVM_ARRAY_DATA(first->characters, char16_t);
     char16_t* secondChars = TEAVM_ARRAY_DATA(second->characters, char16_t);
-    int32_t length = first->characters->size;
     for (int32_t i = INT32_C(0); i < length; ++i) {
         if (firstChars[i] != secondChars[i]) {
             return 0;
@@ -76,7 +120,8 @@ char* teavm_stringToC(void* obj) {
 
     TeaVM_String* javaString = (TeaVM_String*) obj;
     TeaVM_Array* charArray = javaString->characters;
-    char16_t* javaChars = TEAVM_ARRAY_DATA(charArray, char16_t);
+    int32_t allocated;
+    char16_t* javaChars = teavm_stringChars(javaString, &allocated);
 
     size_t sz = teavm_mbSize(javaChars, charArray->size);
     char* result = malloc(sz + 1);
@@ -91,6 +136,9 @@ char* teavm_stringToC(void* obj) {
         dst += charResult;
     }
     *dst = '\0';
+    if (allocated) {
+        free(javaChars);
+    }
     return result;
 }
 
@@ -101,8 +149,13 @@ char16_t* teavm_stringToC16(void* obj) {
 
     TeaVM_String* javaString = (TeaVM_String*) obj;
     TeaVM_Array* charArray = javaString->characters;
-    char16_t* javaChars = TEAVM_ARRAY_DATA(charArray, char16_t);
     size_t sz = charArray->size;
+    int32_t allocated;
+    char16_t* javaChars = teavm_stringChars(javaString, &allocated);
+    if (allocated) {
+        javaChars[sz] = 0;
+        return javaChars;
+    }
     char16_t* result = malloc((sz + 1) * sizeof(char16_t));
     if (sz > 0) {
         memcpy(result, javaChars, sz * sizeof(char16_t));
@@ -18,6 +18,31 @@
     .hashCode = INT32_C(hash) \
 }
 
+// Latin-1 literals are marked with a fake header, teavm_registerString replaces it with byte[] class
+#define TEAVM_LATIN1_LITERAL_MARKER 1
+
+#define TEAVM_STRING_LATIN1(length, hash, s) &(TeaVM_String) { \
+    .characters = (TeaVM_Array*) & (struct { TeaVM_Array hdr; char data[(length) + 1]; }) { \
+        .hdr = { .parent = { .header = TEAVM_LATIN1_LITERAL_MARKER }, .size = length }, \
+        .data = s \
+    }, \
+    .hashCode = INT32_C(hash) \
+}
+
+#define TEAVM_STRING_LATIN1_FROM_CODES(length, hash, ...) &(TeaVM_String) { \
+    .characters = (TeaVM_Array*) & (struct { TeaVM_Array hdr; uint8_t data[(length) + 1]; }) { \
+        .hdr = { .parent = { .header = TEAVM_LATIN1_LITERAL_MARKER }, .size = length }, \
+        .data = { __VA_ARGS__ } \
+    }, \
+    .hashCode = INT32_C(hash) \
+}
+
+#if TEAVM_COMPACT_STRINGS
+    #define TEAVM_STRING_IS_LATIN1(str) (TEAVM_CLASS_OF((str)->characters) == teavm_byteArrayClass)
+#else
+    #define TEAVM_STRING_IS_LATIN1(str) 0
+#endif
+
 extern int32_t teavm_hashCode(TeaVM_String*);
 extern int32_t teavm_equals(TeaVM_String*, TeaVM_String*);
 extern TeaVM_Array* teavm_allocateStringArray(int32_t size);
@@ -67,7 +67,13 @@ static void teavm_rehashStrings() {
 
 TeaVM_String* teavm_registerString(TeaVM_String* str) {
     str->parent.header = TEAVM_PACK_CLASS(teavm_stringClass) | (int32_t) INT32_C(0x80000000);
-    str->characters->parent.header = TEAVM_PACK_CLASS(teavm_charArrayClass) | (int32_t) INT32_C(0x80000000);
+    TeaVM_Class* charactersClass = teavm_charArrayClass;
+    #if TEAVM_COMPACT_STRINGS
+        if (str->characters->parent.header == TEAVM_LATIN1_LITERAL_MARKER) {
+            charactersClass = teavm_byteArrayClass;
+        }
+    #endif
+    str->characters->parent.header = TEAVM_PACK_CLASS(charactersClass) | (int32_t) INT32_C(0x80000000);
 
     if (teavm_stringHashtable == NULL) {
         teavm_stringHashtableSize = 256;
@@ -22,6 +22,7 @@ let Long_create = (lo, hi) => teavm_globals.BigInt.asIntN(64, teavm_globals.BigI
 let Long_fromInt = val => teavm_globals.BigInt.asIntN(64, teavm_globals.BigInt(val | 0));
 let Long_fromNumber = val =>  teavm_globals.BigInt.asIntN(64, teavm_globals.BigInt(
     val >= 0 ? teavm_globals.Math.floor(val) : teavm_globals.Math.ceil(val)));
+let Long_fromSafeNumber = val => teavm_globals.BigInt(val);
 let Long_toNumber = val => teavm_globals.Number(val);
 let Long_hi = val => teavm_globals.Number(teavm_globals.BigInt.asIntN(64, val >> teavm_globals.BigInt(32))) | 0;
 let Long_lo = val => teavm_globals.Number(teavm_globals.BigInt.asIntN(32, val)) | 0;
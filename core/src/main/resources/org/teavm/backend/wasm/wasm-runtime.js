@@ -50,7 +50,10 @@ TeaVM.wasm = function() {
         let memory = instance.exports.memory.buffer;
         let arrayPtr = instance.exports.teavm_stringData(string);
         let length = instance.exports.teavm_arrayLength(arrayPtr);
-        let arrayData = new Uint16Array(memory, instance.exports.teavm_charArrayData(arrayPtr), length * 2);
+        let latin1 = instance.exports.teavm_stringLatin1 && instance.exports.teavm_stringLatin1(string);
+        let arrayData = latin1
+            ? new Uint8Array(memory, instance.exports.teavm_byteArrayData(arrayPtr), length)
+            : new Uint16Array(memory, instance.exports.teavm_charArrayData(arrayPtr), length);
         for (let i = 0; i < length; ++i) {
             putwchar(arrayData[i]);
         }
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Properties;
+import org.junit.Test;
+import org.teavm.backend.javascript.HotSwapSnapshot;
+import org.teavm.backend.javascript.codegen.DefaultAliasProvider;
+import org.teavm.backend.javascript.codegen.DefaultNamingStrategy;
+import org.teavm.backend.javascript.codegen.NamingStrategy;
+import org.teavm.backend.javascript.codegen.OutputSourceWriter;
+import org.teavm.backend.javascript.codegen.OutputSourceWriterBuilder;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ValueType;
+
+public class HotSwapRenderingTest {
+    private static final MethodReference FOO = new MethodReference("Test", "foo", ValueType.INTEGER,
+            ValueType.INTEGER);
+    private static final MethodReference BAR = new MethodReference("Test", "bar", ValueType.INTEGER,
+            ValueType.INTEGER);
+    private static final MethodReference CLINIT = new MethodReference("Test", Renderer.CLINIT_METHOD);
+
+    @Test
+    public void changedMethodBodyReEmittedAlone() {
+        var original = render("return a + 1;", "return a * 2;", "");
+        var modified = render("return a + 2;", "return a * 2;", "");
+
+        var patch = modified.snapshot.patchSince(original.snapshot);
+        assertEquals(modified.methodName(FOO) + " = (a) => {return a + 2;};\n", patch);
+        assertFalse(patch.contains(modified.methodName(BAR)));
+    }
+
+    @Test
+    public void unchangedOutputProducesEmptyPatch() {
+        var original = render("return a + 1;", "return a * 2;", "");
+        var modified = render("return a + 1;", "return a * 2;", "");
+
+        assertEquals("", modified.snapshot.patchSince(original.snapshot));
+    }
+
+    @Test
+    public void changeOutsideMethodsRequiresReload() {
+        var original = render("return a + 1;", "return a * 2;", "");
+        var modified = render("return a + 1;", "return a * 2;", "let x = 1;");
+
+        assertNull(modified.snapshot.patchSince(original.snapshot));
+    }
+
+    @Test
+    public void changedClassInitializerRequiresReload() {
+        var original = render("return a + 1;", "return a * 2;", "", "x = 1;");
+        var modified = render("return a + 1;", "return a * 2;", "", "x = 2;");
+
+        assertNull(modified.snapshot.patchSince(original.snapshot));
+    }
+
+    @Test
+    public void virtualMethodsLateBound() {
+        var result = render("return a + 1;", "return a * 2;", "");
+        var fooName = result.methodName(FOO);
+
+        assertTrue(result.code, result.code.contains("[\"foo\", function(var_1) { return " + fooName
+                + "(this, var_1); }]"));
+        assertFalse(result.code, result.code.contains("$rt_wrapFunction1"));
+    }
+
+    @Test
+    public void virtualMethodsCapturedWithoutHotSwap() {
+        var naming = createNaming();
+        var sb = new StringBuilder();
+        var writer = new OutputSourceWriterBuilder(naming).build(sb);
+        var renderer = createRenderer(writer, naming);
+        renderer.emitVirtualFunctionWrapper(FOO);
+
+        assertEquals("$rt_wrapFunction1(" + naming.methodName(FOO).name + ")", sb.toString());
+        assertNull(writer.getHotSwapSnapshot());
+    }
+
+    private RenderResult render(String fooBody, String barBody, String extra) {
+        return render(fooBody, barBody, extra, null);
+    }
+
+    private RenderResult render(String fooBody, String barBody, String extra, String clinitBody) {
+        var naming = createNaming();
+        var sb = new StringBuilder();
+        var builder = new OutputSourceWriterBuilder(naming);
+        builder.setHotSwapEnabled(true);
+        var writer = builder.build(sb);
+        var renderer = createRenderer(writer, naming);
+        renderer.setLateBoundVirtualMethods(true);
+
+        renderMethod(writer, FOO, fooBody);
+        renderMethod(writer, BAR, barBody);
+        if (clinitBody != null) {
+            writer.startVariableDeclaration().appendMethod(CLINIT).append("()").ws().append("=>").ws()
+                    .append("{").append(clinitBody).append("}").endDeclaration();
+        }
+        writer.append(extra);
+        writer.append("[\"foo\",").ws();
+        renderer.emitVirtualFunctionWrapper(FOO);
+        writer.append("]").newLine();
+        writer.finish();
+
+        return new RenderResult(naming, sb.toString(), writer.getHotSwapSnapshot());
+    }
+
+    private static void renderMethod(OutputSourceWriter writer, MethodReference method, String body) {
+        writer.startVariableDeclaration().appendMethod(method).append("(a)").ws().append("=>").ws()
+                .append("{").append(body).append("}").endDeclaration();
+    }
+
+    private static NamingStrategy createNaming() {
+        return new DefaultNamingStrategy(new DefaultAliasProvider(1000), name -> null);
+    }
+
+    private static Renderer createRenderer(OutputSourceWriter writer, NamingStrategy naming) {
+        var context = new RenderingContext(null, null, null, null, null, new Properties(), naming, null,
+                m -> true, m -> false, null, false) {
+            @Override
+            public String importModule(String name) {
+                return name;
+            }
+        };
+        return new Renderer(writer, Collections.emptySet(), context, null, Collections.emptyMap(), null, null,
+                null, new ArrayList<>(), null);
+    }
+
+    private static class RenderResult {
+        final NamingStrategy naming;
+        final String code;
+        final HotSwapSnapshot snapshot;
+
+        RenderResult(NamingStrategy naming, String code, HotSwapSnapshot snapshot) {
+            this.naming = naming;
+            this.code = code;
+            assertNotNull(snapshot);
+            this.snapshot = snapshot;
+        }
+
+        String methodName(MethodReference method) {
+            return naming.methodName(method).name;
+        }
+    }
+}
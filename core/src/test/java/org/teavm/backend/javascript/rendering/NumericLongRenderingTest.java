@@ -0,0 +1,192 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Properties;
+import org.junit.Test;
+import org.teavm.ast.BinaryOperation;
+import org.teavm.ast.Expr;
+import org.teavm.ast.OperationType;
+import org.teavm.ast.PrimitiveCastExpr;
+import org.teavm.ast.RegularMethodNode;
+import org.teavm.ast.SequentialStatement;
+import org.teavm.ast.Statement;
+import org.teavm.ast.UnaryOperation;
+import org.teavm.ast.VariableNode;
+import org.teavm.backend.javascript.codegen.DefaultAliasProvider;
+import org.teavm.backend.javascript.codegen.DefaultNamingStrategy;
+import org.teavm.backend.javascript.codegen.OutputSourceWriter;
+import org.teavm.backend.javascript.codegen.OutputSourceWriterBuilder;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ValueType;
+import org.teavm.model.util.VariableType;
+
+public class NumericLongRenderingTest {
+    private static final MethodReference METHOD = new MethodReference("Test", "test", ValueType.INTEGER,
+            ValueType.LONG);
+    private static final long MAX_SAFE = (1L << 53) - 1;
+    private static final int A = 1;
+    private static final int X = 2;
+    private static final int Y = 3;
+
+    @Test
+    public void constantsUpToSafeLimitAreNumeric() {
+        assertTrue(analyze(assign(X, Expr.constant(MAX_SAFE))).isNumeric(X));
+        assertTrue(analyze(assign(X, Expr.constant(-MAX_SAFE))).isNumeric(X));
+        assertFalse(analyze(assign(X, Expr.constant(MAX_SAFE + 1))).isNumeric(X));
+        assertFalse(analyze(assign(X, Expr.constant(-MAX_SAFE - 1))).isNumeric(X));
+    }
+
+    @Test
+    public void productReachingSafeLimitIsBigInt() {
+        assertTrue(analyze(assign(X, multiply(widen(Expr.var(A)), Expr.constant(1L << 21)))).isNumeric(X));
+        assertFalse(analyze(assign(X, multiply(widen(Expr.var(A)), Expr.constant(1L << 22)))).isNumeric(X));
+    }
+
+    @Test
+    public void sumReachingSafeLimitIsBigInt() {
+        Expr sum = Expr.binary(BinaryOperation.ADD, OperationType.LONG, Expr.constant(MAX_SAFE - 1),
+                Expr.constant(1L));
+        assertTrue(analyze(assign(X, sum)).isNumeric(X));
+        sum = Expr.binary(BinaryOperation.ADD, OperationType.LONG, Expr.constant(MAX_SAFE), Expr.constant(1L));
+        assertFalse(analyze(assign(X, sum)).isNumeric(X));
+    }
+
+    @Test
+    public void growingRangeWidenedToBigInt() {
+        NumericLongAnalysis analysis = analyze(
+                assign(X, Expr.constant(0L)),
+                assign(X, add(Expr.var(X), Expr.constant(1L))),
+                assign(Y, add(Expr.var(X), Expr.constant(1L))));
+        assertFalse(analysis.isNumeric(X));
+        assertFalse(analysis.isNumeric(Y));
+    }
+
+    @Test
+    public void stableRangeRemainsNumeric() {
+        NumericLongAnalysis analysis = analyze(
+                assign(X, Expr.constant(0L)),
+                assign(X, and(add(Expr.var(X), Expr.constant(1L)), Expr.constant(255L))),
+                assign(Y, add(Expr.var(X), Expr.constant(1L))));
+        assertTrue(analysis.isNumeric(X));
+        assertTrue(analysis.isNumeric(Y));
+    }
+
+    @Test
+    public void numericValueConvertedToBigIntWhenLeavingSubset() {
+        String code = render(
+                assign(X, multiply(widen(Expr.var(A)), Expr.constant(1000L))),
+                Statement.exitFunction(Expr.var(X)));
+        assertEquals("$x = $a * 1000;\nreturn Long_fromSafeNumber($x);\n", code);
+    }
+
+    @Test
+    public void numericValueReturnsToNumberWithoutBigInt() {
+        String code = render(
+                assign(X, and(widen(Expr.var(A)), Expr.constant(0xFFFFFFFFL))),
+                assign(Y, Expr.unary(UnaryOperation.NEGATE, OperationType.LONG, Expr.var(X))),
+                Statement.exitFunction(narrow(Expr.var(Y))));
+        assertEquals("$x = $a >>> 0;\n$y =  -$x;\nreturn $y | 0;\n", code);
+    }
+
+    @Test
+    public void valueBeyondSafeLimitUsesBigIntArithmetic() {
+        String code = render(
+                assign(X, multiply(widen(Expr.var(A)), Expr.constant(1L << 22))),
+                Statement.exitFunction(Expr.var(X)));
+        assertFalse(code, code.contains("Long_fromSafeNumber"));
+        assertTrue(code, code.contains("Long_mul("));
+    }
+
+    private static NumericLongAnalysis analyze(Statement... statements) {
+        NumericLongAnalysis analysis = new NumericLongAnalysis();
+        analysis.analyze(createMethod(statements));
+        return analysis;
+    }
+
+    private static String render(Statement... statements) {
+        var naming = new DefaultNamingStrategy(new DefaultAliasProvider(1000), name -> null);
+        var sb = new StringBuilder();
+        OutputSourceWriter writer = new OutputSourceWriterBuilder(naming).build(sb);
+        var context = new RenderingContext(null, null, null, null, null, new Properties(), naming, null,
+                m -> true, m -> false, null, false) {
+            @Override
+            public String importModule(String name) {
+                return name;
+            }
+        };
+        var renderer = new StatementRenderer(context, writer);
+        var method = createMethod(statements);
+        renderer.setCurrentMethod(method);
+        method.getBody().acceptVisitor(renderer);
+        writer.finish();
+        return sb.toString();
+    }
+
+    private static RegularMethodNode createMethod(Statement... statements) {
+        var method = new RegularMethodNode(METHOD);
+        method.getVariables().add(new VariableNode(0, VariableType.OBJECT));
+        method.getVariables().add(variable(A, VariableType.INT, "a"));
+        method.getVariables().add(variable(X, VariableType.LONG, "x"));
+        method.getVariables().add(variable(Y, VariableType.LONG, "y"));
+        var body = new SequentialStatement();
+        body.getSequence().addAll(Arrays.asList(statements));
+        method.setBody(body);
+        return method;
+    }
+
+    private static VariableNode variable(int index, VariableType type, String name) {
+        var variable = new VariableNode(index, type);
+        variable.setName(name);
+        return variable;
+    }
+
+    private static Statement assign(int variable, Expr value) {
+        return Statement.assign(Expr.var(variable), value);
+    }
+
+    private static Expr add(Expr first, Expr second) {
+        return Expr.binary(BinaryOperation.ADD, OperationType.LONG, first, second);
+    }
+
+    private static Expr multiply(Expr first, Expr second) {
+        return Expr.binary(BinaryOperation.MULTIPLY, OperationType.LONG, first, second);
+    }
+
+    private static Expr and(Expr first, Expr second) {
+        return Expr.binary(BinaryOperation.BITWISE_AND, OperationType.LONG, first, second);
+    }
+
+    private static Expr widen(Expr value) {
+        return cast(value, OperationType.INT, OperationType.LONG);
+    }
+
+    private static Expr narrow(Expr value) {
+        return cast(value, OperationType.LONG, OperationType.INT);
+    }
+
+    private static Expr cast(Expr value, OperationType source, OperationType target) {
+        var expr = new PrimitiveCastExpr();
+        expr.setValue(value);
+        expr.setSource(source);
+        expr.setTarget(target);
+        return expr;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.debugging.information;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.teavm.backend.javascript.codegen.LocationProvider;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.ReferenceCache;
+import org.teavm.model.ValueType;
+
+public class DebugInformationIOTest {
+    private static final int VARIABLE_COUNT = 50;
+    private static final int LINE_COUNT = 40;
+
+    @Test
+    public void roundTrip() throws IOException {
+        DebugInformation original = build();
+        byte[] data = write(original);
+        DebugInformation read = DebugInformation.read(new ByteArrayInputStream(data));
+
+        for (int i = 0; i < VARIABLE_COUNT; ++i) {
+            assertArrayEquals(original.getVariableMeaningAt(i, 4, "v" + i),
+                    read.getVariableMeaningAt(i, 4, "v" + i));
+        }
+        assertArrayEquals(new String[] { "local" + 7 }, read.getVariableMeaningAt(7, 4, "v7"));
+        for (int line = 0; line < LINE_COUNT; ++line) {
+            SourceLocation location = new SourceLocation("Foo.java", line);
+            assertEquals(format(original.getFollowingLines(location)), format(read.getFollowingLines(location)));
+        }
+        assertEquals("[Foo.java:4, Bar.java:14]", format(read.getFollowingLines(new SourceLocation("Foo.java", 3))));
+        assertNull(read.getFollowingLines(new SourceLocation("Foo.java", 1)));
+        assertEquals(original.getSourceLocation(3, 0).toString(), read.getSourceLocation(3, 0).toString());
+
+        assertArrayEquals(data, write(read));
+    }
+
+    @Test
+    public void concurrentLazyDecoding() throws Exception {
+        byte[] data = write(build());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int attempt = 0; attempt < 20; ++attempt) {
+                DebugInformation debugInfo = DebugInformation.read(new ByteArrayInputStream(data));
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 8; ++thread) {
+                    futures.add(executor.submit((Callable<Void>) () -> {
+                        for (int i = 0; i < VARIABLE_COUNT; ++i) {
+                            assertArrayEquals(new String[] { "local" + i },
+                                    debugInfo.getVariableMeaningAt(i, 4, "v" + i));
+                        }
+                        for (int line = 2; line < LINE_COUNT; line += 2) {
+                            assertEquals(2, debugInfo.getFollowingLines(new SourceLocation("Foo.java", line + 1))
+                                    .length);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private DebugInformation build() {
+        MutableLocation location = new MutableLocation();
+        DebugInformationBuilder builder = new DebugInformationBuilder(new ReferenceCache());
+        builder.setLocationProvider(location);
+        MethodDescriptor method = new MethodDescriptor("foo", ValueType.INTEGER, ValueType.VOID);
+        for (int i = 0; i < VARIABLE_COUNT; ++i) {
+            location.line = i;
+            location.column = 0;
+            builder.emitClass("Foo");
+            builder.emitMethod(method);
+            builder.emitLocation("Foo.java", i);
+            builder.emitStatementStart();
+            location.column = 2;
+            builder.emitVariable(new String[] { "local" + i }, "v" + i);
+        }
+        for (int line = 2; line < LINE_COUNT; line += 2) {
+            builder.addSuccessors(new SourceLocation("Foo.java", line + 1), new SourceLocation[] {
+                    new SourceLocation("Foo.java", line + 2),
+                    new SourceLocation("Bar.java", line + 12)
+            });
+        }
+        return builder.getDebugInformation();
+    }
+
+    private static byte[] write(DebugInformation debugInfo) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        debugInfo.write(output);
+        return output.toByteArray();
+    }
+
+    private static String format(SourceLocation[] locations) {
+        if (locations == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        for (SourceLocation location : locations) {
+            result.add(location.toString());
+        }
+        return result.toString();
+    }
+
+    static class MutableLocation implements LocationProvider {
+        int line;
+        int column;
+
+        @Override
+        public int getLine() {
+            return line;
+        }
+
+        @Override
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public int getOffset() {
+            return 0;
+        }
+    }
+}
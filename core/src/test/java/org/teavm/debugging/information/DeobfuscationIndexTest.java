@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.debugging.information;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ReferenceCache;
+import org.teavm.model.ValueType;
+
+public class DeobfuscationIndexTest {
+    private static final MethodReference MAIN = new MethodReference("Foo", "main", ValueType.VOID);
+    private static final MethodReference HELPER = new MethodReference("Bar", "helper", ValueType.INTEGER);
+    private static final MethodReference INNER = new MethodReference("Bar", "inner", ValueType.VOID);
+    private static final MethodReference RUN = new MethodReference("Baz", "run", ValueType.VOID);
+
+    @Test
+    public void resolvesFrames() throws IOException {
+        DeobfuscationIndex index = new DeobfuscationIndex(build());
+
+        assertEquals(List.of(frame(MAIN, "Foo.java", 10)), index.getFrames(0, 0));
+        assertEquals(List.of(frame(MAIN, "Foo.java", 10)), index.getFrames(0, 4));
+        assertEquals(List.of(frame(HELPER, "Bar.java", 20), frame(MAIN, "Foo.java", 10)), index.getFrames(0, 6));
+        assertEquals(List.of(frame(INNER, "Bar.java", 30), frame(HELPER, "Bar.java", 21),
+                frame(MAIN, "Foo.java", 10)), index.getFrames(0, 8));
+        assertEquals(List.of(frame(HELPER, "Bar.java", 21), frame(MAIN, "Foo.java", 10)), index.getFrames(0, 11));
+        assertEquals(List.of(frame(MAIN, "Foo.java", 11)), index.getFrames(0, 15));
+        assertEquals(List.of(frame(RUN, "Baz.java", 3)), index.getFrames(1, 2));
+        assertTrue(index.getFrames(2, 0).isEmpty());
+    }
+
+    @Test
+    public void matchesDebugInformation() throws IOException {
+        DebugInformation debugInfo = build();
+        DeobfuscationIndex index = new DeobfuscationIndex(debugInfo);
+        for (int line = 0; line < 3; ++line) {
+            for (int column = 0; column < 20; ++column) {
+                assertEquals("at " + line + ":" + column, expectedFrames(debugInfo, line, column),
+                        index.getFrames(line, column));
+            }
+        }
+    }
+
+    private static List<DeobfuscatedFrame> expectedFrames(DebugInformation debugInfo, int line, int column) {
+        GeneratedLocation location = new GeneratedLocation(line, column);
+        List<DeobfuscatedFrame> result = new ArrayList<>();
+        for (int layer = 0; layer < debugInfo.layerCount(); ++layer) {
+            MethodReference method = debugInfo.getMethodAt(location, layer);
+            if (method == null) {
+                break;
+            }
+            SourceLocation source = debugInfo.getSourceLocation(location, layer);
+            result.add(0, frame(method, source.getFileName(), source.getLine()));
+        }
+        return result;
+    }
+
+    private static DeobfuscatedFrame frame(MethodReference method, String fileName, int line) {
+        return new DeobfuscatedFrame(method, fileName, line);
+    }
+
+    // Emits debug information the same way the JavaScript renderer does for a method with inlined calls,
+    // and reads it back from its binary form
+    private static DebugInformation build() throws IOException {
+        DebugInformationIOTest.MutableLocation location = new DebugInformationIOTest.MutableLocation();
+        DebugInformationBuilder builder = new DebugInformationBuilder(new ReferenceCache());
+        builder.setLocationProvider(location);
+
+        location.line = 0;
+        location.column = 0;
+        enterMethod(builder, MAIN);
+        builder.emitLocation("Foo.java", 10);
+
+        location.column = 5;
+        builder.enterLocation();
+        enterMethod(builder, HELPER);
+        builder.emitLocation("Bar.java", 20);
+
+        location.column = 7;
+        builder.emitLocation("Bar.java", 21);
+        builder.enterLocation();
+        enterMethod(builder, INNER);
+        builder.emitLocation("Bar.java", 30);
+
+        location.column = 10;
+        builder.exitLocation();
+
+        location.column = 12;
+        builder.exitLocation();
+        builder.emitLocation("Foo.java", 11);
+
+        location.line = 1;
+        location.column = 0;
+        enterMethod(builder, RUN);
+        builder.emitLocation("Baz.java", 3);
+
+        location.line = 2;
+        builder.emitClass(null);
+        builder.emitMethod(null);
+        builder.emitLocation(null, -1);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        builder.getDebugInformation().write(output);
+        return DebugInformation.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private static void enterMethod(DebugInformationBuilder builder, MethodReference method) {
+        builder.emitClass(method.getClassName());
+        builder.emitMethod(new MethodDescriptor(method.getName(), method.getSignature()));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+public class InterpreterTest {
+    private static final String PREFIX = "model/interpreter/";
+    @Rule
+    public TestName name = new TestName();
+
+    @Test
+    public void intDivision() throws InterpretException {
+        assertEquals(32, run(17, 5));
+        assertEquals(-32, run(-17, 5));
+    }
+
+    @Test(expected = InterpretException.class)
+    public void intDivisionByZero() throws InterpretException {
+        interpret("intDivision", 1, 0);
+    }
+
+    @Test
+    public void longDivision() throws InterpretException {
+        assertEquals(3L << 30, run(3L << 40, 1L << 10));
+    }
+
+    @Test
+    public void longShifts() throws InterpretException {
+        long left = 3L << 40;
+        long expected = (-left >> 40) + (-left >>> 40) + left;
+        assertEquals(expected, run(3L, 40));
+    }
+
+    @Test
+    public void longCompare() throws InterpretException {
+        assertEquals(1, run(1L << 33, 1L));
+        assertEquals(-1, run(1L, 1L << 33));
+        assertEquals(0, run(1L << 33, 1L << 33));
+    }
+
+    @Test
+    public void thrown() {
+        var exception = new IllegalStateException();
+        try {
+            run(exception);
+            fail("Exception expected");
+        } catch (InterpretException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void cloneArray() throws InterpretException {
+        int[] array = { 1, 2, 3 };
+        Object copy = run(array);
+        assertNotSame(array, copy);
+        assertArrayEquals(new int[] { 42, 2, 3 }, (int[]) copy);
+        assertArrayEquals(new int[] { 1, 2, 3 }, array);
+    }
+
+    @Test
+    public void narrowArrayElements() throws InterpretException {
+        char[] chars = new char[1];
+        assertEquals(0x41, interpret("narrowArrayElements", chars, 0x10041));
+        assertEquals('A', chars[0]);
+
+        byte[] bytes = new byte[1];
+        assertEquals(-1, interpret("narrowArrayElements", bytes, 255));
+        assertEquals(-1, bytes[0]);
+
+        short[] shorts = new short[1];
+        assertEquals(-32768, interpret("narrowArrayElements", shorts, 32768));
+        assertEquals(-32768, shorts[0]);
+    }
+
+    @Test
+    public void booleanArrayElements() throws InterpretException {
+        boolean[] array = new boolean[2];
+        assertEquals(2, run(array, 1));
+        assertFalse(array[0]);
+        assertTrue(array[1]);
+    }
+
+    private Object run(Object... arguments) throws InterpretException {
+        return interpret(name.getMethodName(), arguments);
+    }
+
+    private static Object interpret(String listing, Object... arguments) throws InterpretException {
+        Program program = ListingParseUtils.parseFromResource(PREFIX + listing + ".txt");
+        Object[] parameters = new Object[arguments.length + 1];
+        System.arraycopy(arguments, 0, parameters, 1, arguments.length);
+        return new Interpreter(InterpreterTest.class.getClassLoader()).interpret(program, parameters);
+    }
+}
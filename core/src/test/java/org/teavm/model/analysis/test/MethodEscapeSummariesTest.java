@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.analysis.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.teavm.model.ListingParseUtils;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.ValueType;
+import org.teavm.model.analysis.MethodEscapeSummaries;
+
+public class MethodEscapeSummariesTest {
+    private static final String PREFIX = "model/analysis/escape-summaries/";
+    private static final ValueType A = ValueType.object("A");
+    private static final MethodReference OUTER = new MethodReference("Test", "outer", A, ValueType.INTEGER);
+    private static final MethodReference INNER = new MethodReference("Test", "inner", A, ValueType.INTEGER);
+
+    @Rule
+    public TestName name = new TestName();
+
+    private Map<MethodReference, Program> programs = new HashMap<>();
+    private MethodEscapeSummaries summaries = new MethodEscapeSummaries(programs::get);
+
+    @Test
+    public void storedParameter() {
+        var store = load(new MethodReference("Test", "store", A, A, ValueType.VOID));
+        var summary = summaries.get(store);
+        assertFalse(summary.parameterEscapes(1));
+        assertTrue(summary.parameterEscapes(2));
+        assertFalse(summary.returnsFreshObject());
+    }
+
+    @Test
+    public void returnedParameter() {
+        var identity = load(new MethodReference("Test", "identity", A, A));
+        var summary = summaries.get(identity);
+        assertTrue(summary.parameterEscapes(1));
+        assertFalse(summary.returnsFreshObject());
+    }
+
+    @Test
+    public void freshResult() {
+        var make = load(new MethodReference("Test", "make", A));
+        assertTrue(summaries.get(make).returnsFreshObject());
+    }
+
+    @Test
+    public void freshResultStored() {
+        var make = load(new MethodReference("Test", "make", A));
+        assertFalse(summaries.get(make).returnsFreshObject());
+    }
+
+    @Test
+    public void nonEscapingCallee() {
+        load(OUTER);
+        load(INNER);
+        assertFalse(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    @Test
+    public void escapingCallee() {
+        load(OUTER);
+        load(INNER);
+        assertTrue(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    @Test
+    public void virtualCall() {
+        load(OUTER);
+        assertTrue(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    @Test
+    public void unknownMethod() {
+        var summary = summaries.get(OUTER);
+        assertTrue(summary.parameterEscapes(0));
+        assertTrue(summary.parameterEscapes(1));
+        assertFalse(summary.returnsFreshObject());
+    }
+
+    @Test
+    public void recursion() {
+        load(OUTER);
+        assertTrue(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    @Test
+    public void phiAlias() {
+        load(OUTER);
+        assertTrue(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    @Test
+    public void invalidation() {
+        programs.put(INNER, ListingParseUtils.parseFromResource(PREFIX + "escapingCallee/inner.txt"));
+        programs.put(OUTER, ListingParseUtils.parseFromResource(PREFIX + "escapingCallee/outer.txt"));
+        var summary = summaries.get(OUTER);
+        assertTrue(summary.parameterEscapes(1));
+
+        programs.put(INNER, ListingParseUtils.parseFromResource(PREFIX + "nonEscapingCallee/inner.txt"));
+        summaries.invalidate(INNER);
+        summaries.invalidate(OUTER);
+        assertFalse(summaries.get(OUTER).parameterEscapes(1));
+    }
+
+    private MethodReference load(MethodReference method) {
+        var path = PREFIX + name.getMethodName() + "/" + method.getName() + ".txt";
+        programs.put(method, ListingParseUtils.parseFromResource(path));
+        return method;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization.test;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.teavm.model.ListingParseUtils;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.ValueType;
+import org.teavm.model.text.ListingBuilder;
+import org.teavm.model.transformation.BoundCheckInsertion;
+
+public class BoundCheckInsertionTest {
+    private static final String PREFIX = "model/optimization/bound-check-insertion/";
+    private static final MethodReference METHOD = new MethodReference("Test", "test",
+            ValueType.arrayOf(ValueType.INTEGER), ValueType.INTEGER);
+    @Rule
+    public TestName name = new TestName();
+
+    @Test
+    public void unknownIndex() {
+        doTest();
+    }
+
+    @Test
+    public void inductionVariable() {
+        doTest();
+    }
+
+    @Test
+    public void decrement() {
+        doTest();
+    }
+
+    @Test
+    public void addMinValue() {
+        doTest();
+    }
+
+    @Test
+    public void subtractMinValue() {
+        doTest();
+    }
+
+    private void doTest() {
+        String originalPath = PREFIX + name.getMethodName() + ".original.txt";
+        String expectedPath = PREFIX + name.getMethodName() + ".expected.txt";
+        Program original = ListingParseUtils.parseFromResource(originalPath);
+        Program expected = ListingParseUtils.parseFromResource(expectedPath);
+
+        new BoundCheckInsertion().transformProgram(original, METHOD);
+
+        String originalText = new ListingBuilder().buildListing(original, "");
+        String expectedText = new ListingBuilder().buildListing(expected, "");
+        Assert.assertEquals(expectedText, originalText);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.teavm.dependency.DependencyInfo;
+import org.teavm.model.ClassHierarchy;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.ListingParseUtils;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MutableClassHolderSource;
+import org.teavm.model.Program;
+import org.teavm.model.ValueType;
+import org.teavm.model.optimization.InterproceduralConstantPropagation;
+import org.teavm.model.optimization.MethodOptimizationContext;
+import org.teavm.model.optimization.SparseConditionalConstantPropagation;
+import org.teavm.model.text.ListingBuilder;
+
+public class ConstantPropagationTest {
+    private static final String PREFIX = "model/optimization/constant-propagation/";
+    @Rule
+    public TestName name = new TestName();
+
+    private ClassHolder testClass = new ClassHolder("Test");
+
+    @Test
+    public void deadBranch() {
+        var method = new MethodHolder("testMethod", ValueType.INTEGER, ValueType.INTEGER);
+        testClass.addMethod(method);
+        var program = ListingParseUtils.parseFromResource(PREFIX + name.getMethodName() + ".original.txt");
+
+        new SparseConditionalConstantPropagation().optimize(createContext(method), program);
+
+        assertListing(PREFIX + name.getMethodName() + ".expected.txt", program);
+    }
+
+    @Test
+    public void deadMethod() {
+        var entry = addMethod("entry", ValueType.INTEGER, ValueType.INTEGER);
+        var helper = addMethod("helper", ValueType.INTEGER, ValueType.INTEGER, ValueType.INTEGER);
+        var unused = addMethod("unused", ValueType.INTEGER, ValueType.VOID);
+        var classSource = new MutableClassHolderSource();
+        classSource.putClassHolder(testClass);
+
+        var propagation = new InterproceduralConstantPropagation(classSource,
+                method -> method.equals(entry.getReference()));
+        propagation.apply();
+
+        assertListing(PREFIX + name.getMethodName() + "/entry.txt", entry.getProgram());
+        assertListing(PREFIX + name.getMethodName() + "/helper.expected.txt", helper.getProgram());
+        assertNull(unused.getProgram());
+        assertEquals(1, propagation.getConstantParameters());
+        assertEquals(1, propagation.getRemovedMethods());
+    }
+
+    private MethodHolder addMethod(String methodName, ValueType... signature) {
+        var method = new MethodHolder(methodName, signature);
+        method.getModifiers().add(ElementModifier.STATIC);
+        method.setProgram(ListingParseUtils.parseFromResource(PREFIX + name.getMethodName() + "/"
+                + methodName + ".txt"));
+        testClass.addMethod(method);
+        return method;
+    }
+
+    private static void assertListing(String expectedPath, Program actual) {
+        var expected = ListingParseUtils.parseFromResource(expectedPath);
+        var listingBuilder = new ListingBuilder();
+        assertEquals(listingBuilder.buildListing(expected, ""), listingBuilder.buildListing(actual, ""));
+    }
+
+    private static MethodOptimizationContext createContext(MethodReader method) {
+        return new MethodOptimizationContext() {
+            @Override
+            public MethodReader getMethod() {
+                return method;
+            }
+
+            @Override
+            public DependencyInfo getDependencyInfo() {
+                return null;
+            }
+
+            @Override
+            public ClassReaderSource getClassSource() {
+                return null;
+            }
+
+            @Override
+            public ClassHierarchy getHierarchy() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization.test;
+
+import static org.junit.Assert.assertEquals;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.dependency.ClassDependencyInfo;
+import org.teavm.dependency.DependencyInfo;
+import org.teavm.dependency.FieldDependencyInfo;
+import org.teavm.dependency.MethodDependencyInfo;
+import org.teavm.dependency.ValueDependencyInfo;
+import org.teavm.model.AccessLevel;
+import org.teavm.model.ClassHierarchy;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.FieldReference;
+import org.teavm.model.ListingParseUtils;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReference;
+import org.teavm.model.MutableClassHolderSource;
+import org.teavm.model.ValueType;
+import org.teavm.model.optimization.Devirtualization;
+import org.teavm.model.text.ListingBuilder;
+
+public class DevirtualizationTest {
+    private static final String PREFIX = "model/optimization/devirtualization/";
+    private static final int VALUE_VARIABLE = 1;
+    @Rule
+    public TestName name = new TestName();
+
+    private MutableClassHolderSource classSource = new MutableClassHolderSource();
+
+    @Test
+    public void guardsOrderedByClassDepth() {
+        doTest(3, "B", "A", "C");
+    }
+
+    @Test
+    public void tooManyImplementations() {
+        doTest(2, "B", "A", "C");
+    }
+
+    @Test
+    public void voidCall() {
+        doTest(3, "A", "B");
+    }
+
+    private void doTest(int maxGuardedImplementations, String... receiverTypes) {
+        addClass("java.lang.Object", null);
+        addClass("A", "java.lang.Object");
+        addClass("B", "A");
+        addClass("C", "B");
+
+        var method = new MethodHolder("test", ValueType.object("A"), ValueType.INTEGER);
+        method.setProgram(ListingParseUtils.parseFromResource(PREFIX + name.getMethodName() + ".original.txt"));
+        var testClass = new ClassHolder("Test");
+        testClass.setParent("java.lang.Object");
+        testClass.addMethod(method);
+        classSource.putClassHolder(testClass);
+
+        var dependency = new StubDependencyInfo(classSource, method.getReference(), receiverTypes);
+        var devirtualization = new Devirtualization(dependency, new ClassHierarchy(classSource));
+        devirtualization.setMaxGuardedImplementations(maxGuardedImplementations);
+        devirtualization.apply(method);
+
+        var expected = ListingParseUtils.parseFromResource(PREFIX + name.getMethodName() + ".expected.txt");
+        var listingBuilder = new ListingBuilder();
+        assertEquals(listingBuilder.buildListing(expected, ""),
+                listingBuilder.buildListing(method.getProgram(), ""));
+    }
+
+    private void addClass(String name, String parent) {
+        var cls = new ClassHolder(name);
+        cls.setParent(parent);
+        cls.setLevel(AccessLevel.PUBLIC);
+        cls.addMethod(new MethodHolder("foo", ValueType.INTEGER));
+        cls.addMethod(new MethodHolder("bar", ValueType.VOID));
+        classSource.putClassHolder(cls);
+    }
+
+    static class StubDependencyInfo implements DependencyInfo {
+        private ClassReaderSource classSource;
+        private MethodReference method;
+        private String[] receiverTypes;
+
+        StubDependencyInfo(ClassReaderSource classSource, MethodReference method, String[] receiverTypes) {
+            this.classSource = classSource;
+            this.method = method;
+            this.receiverTypes = receiverTypes;
+        }
+
+        @Override
+        public ClassReaderSource getClassSource() {
+            return classSource;
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return DevirtualizationTest.class.getClassLoader();
+        }
+
+        @Override
+        public Collection<MethodReference> getReachableMethods() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FieldReference> getReachableFields() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<String> getReachableClasses() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public FieldDependencyInfo getField(FieldReference fieldRef) {
+            return null;
+        }
+
+        @Override
+        public MethodDependencyInfo getMethod(MethodReference methodRef) {
+            return methodRef.equals(method) ? new StubMethodDependencyInfo(methodRef, receiverTypes) : null;
+        }
+
+        @Override
+        public MethodDependencyInfo getMethodImplementation(MethodReference methodRef) {
+            // Every class of the test hierarchy declares its own implementation
+            return new StubMethodDependencyInfo(methodRef, new String[0]);
+        }
+
+        @Override
+        public ClassDependencyInfo getClass(String className) {
+            return null;
+        }
+
+        @Override
+        public CallGraph getCallGraph() {
+            return null;
+        }
+    }
+
+    static class StubMethodDependencyInfo implements MethodDependencyInfo {
+        private MethodReference reference;
+        private String[] receiverTypes;
+
+        StubMethodDependencyInfo(MethodReference reference, String[] receiverTypes) {
+            this.reference = reference;
+            this.receiverTypes = receiverTypes;
+        }
+
+        @Override
+        public ValueDependencyInfo[] getVariables() {
+            return null;
+        }
+
+        @Override
+        public int getVariableCount() {
+            return 0;
+        }
+
+        @Override
+        public ValueDependencyInfo getVariable(int index) {
+            return new StubValueDependencyInfo(index == VALUE_VARIABLE ? receiverTypes : new String[0]);
+        }
+
+        @Override
+        public int getParameterCount() {
+            return reference.parameterCount() + 1;
+        }
+
+        @Override
+        public ValueDependencyInfo getResult() {
+            return null;
+        }
+
+        @Override
+        public ValueDependencyInfo getThrown() {
+            return null;
+        }
+
+        @Override
+        public MethodReference getReference() {
+            return reference;
+        }
+
+        @Override
+        public boolean isUsed() {
+            return true;
+        }
+
+        @Override
+        public boolean isCalled() {
+            return true;
+        }
+
+        @Override
+        public boolean isMissing() {
+            return false;
+        }
+    }
+
+    static class StubValueDependencyInfo implements ValueDependencyInfo {
+        private String[] types;
+
+        StubValueDependencyInfo(String[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public String[] getTypes() {
+            return types;
+        }
+
+        @Override
+        public boolean hasType(String type) {
+            for (String candidate : types) {
+                if (candidate.equals(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasMoreTypesThan(int limit) {
+            return types.length > limit;
+        }
+
+        @Override
+        public boolean hasArrayType() {
+            return false;
+        }
+
+        @Override
+        public ValueDependencyInfo getArrayItem() {
+            return null;
+        }
+
+        @Override
+        public ValueDependencyInfo getClassValueNode() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.model.optimization.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.ListingParseUtils;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MutableClassHolderSource;
+import org.teavm.model.ValueType;
+import org.teavm.model.optimization.DefaultInliningStrategy;
+import org.teavm.model.optimization.Inlining;
+import org.teavm.model.optimization.InliningFilterFactory;
+import org.teavm.model.text.ListingBuilder;
+
+public class InliningTest {
+    private static final String PREFIX = "model/optimization/inlining/";
+    private static final ValueType A = ValueType.object("A");
+    private static final String READ_CALL = "invokeStatic `Test.read(LA;)I`";
+    @Rule
+    public TestName name = new TestName();
+
+    private MutableClassHolderSource classSource = new MutableClassHolderSource();
+    private ClassHolder testClass = new ClassHolder("Test");
+
+    @Test
+    public void nonEscapingParameterOfAllocation() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", ValueType.INTEGER);
+        assertFalse(inline(caller, false).contains(READ_CALL));
+    }
+
+    @Test
+    public void nonEscapingParameterOfForeignObject() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", A, ValueType.INTEGER);
+        assertTrue(inline(caller, false).contains(READ_CALL));
+    }
+
+    @Test
+    public void escapingParameterOfAllocation() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", ValueType.INTEGER);
+        assertTrue(inline(caller, false).contains(READ_CALL));
+    }
+
+    @Test
+    public void freshResult() {
+        addMethod("make", A);
+        var caller = addMethod("caller", ValueType.INTEGER);
+        assertFalse(inline(caller, false).contains("invokeStatic `Test.make()LA;`"));
+    }
+
+    @Test
+    public void tooComplexForAllocation() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", ValueType.INTEGER);
+        assertTrue(inline(caller, false).contains(READ_CALL));
+    }
+
+    @Test
+    public void usedTwiceWithAllocation() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", ValueType.INTEGER);
+        assertFalse(inline(caller, true).contains(READ_CALL));
+    }
+
+    @Test
+    public void usedTwiceWithForeignObject() {
+        addMethod("read", A, ValueType.INTEGER);
+        var caller = addMethod("caller", A, ValueType.INTEGER);
+        assertTrue(inline(caller, true).contains(READ_CALL));
+    }
+
+    private MethodHolder addMethod(String methodName, ValueType... signature) {
+        var method = new MethodHolder(methodName, signature);
+        method.getModifiers().add(ElementModifier.STATIC);
+        method.setProgram(ListingParseUtils.parseFromResource(PREFIX + name.getMethodName() + "/"
+                + methodName + ".txt"));
+        testClass.addMethod(method);
+        return method;
+    }
+
+    private String inline(MethodHolder caller, boolean onceUsedOnly) {
+        classSource.putClassHolder(testClass);
+        // Callees have complexity of 6, which exceeds threshold of 5, unless call exposes allocation
+        var strategy = onceUsedOnly
+                ? new DefaultInliningStrategy(100, 7, 300, true)
+                : new DefaultInliningStrategy(5, 7, 300, false);
+        var inlining = new Inlining(null, null, strategy, classSource, m -> false, false,
+                InliningFilterFactory.DEFAULT);
+        inlining.apply(caller.getProgram(), caller.getReference());
+        return new ListingBuilder().buildListing(caller.getProgram(), "");
+    }
+}
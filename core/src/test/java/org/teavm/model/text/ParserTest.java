@@ -19,8 +19,15 @@ import static org.junit.Assert.assertEquals;
 import java.io.IOException;
 import org.junit.Test;
 import org.teavm.model.BasicBlock;
+import org.teavm.model.Instruction;
 import org.teavm.model.ListingParseUtils;
 import org.teavm.model.Program;
+import org.teavm.model.instructions.DoubleConstantInstruction;
+import org.teavm.model.instructions.FloatConstantInstruction;
+import org.teavm.model.instructions.IntegerConstantInstruction;
+import org.teavm.model.instructions.LongConstantInstruction;
+import org.teavm.model.instructions.NegateInstruction;
+import org.teavm.model.instructions.NumericOperandType;
 
 public class ParserTest {
     @Test
@@ -57,6 +64,24 @@ public class ParserTest {
         assertEquals(7, block.instructionCount());
     }
 
+    @Test
+    public void negativeConstant() throws Exception {
+        Program program = runTest("negativeConstant");
+        BasicBlock block = program.basicBlockAt(0);
+        assertEquals(-23, ((IntegerConstantInstruction) block.getFirstInstruction()).getConstant());
+        assertEquals(Integer.MIN_VALUE, ((IntegerConstantInstruction) block.getFirstInstruction().getNext())
+                .getConstant());
+
+        Instruction instruction = block.getFirstInstruction().getNext().getNext();
+        assertEquals(-42L, ((LongConstantInstruction) instruction).getConstant());
+        instruction = instruction.getNext();
+        assertEquals(-2.5F, ((FloatConstantInstruction) instruction).getConstant(), 0);
+        instruction = instruction.getNext();
+        assertEquals(-0.5, ((DoubleConstantInstruction) instruction).getConstant(), 0);
+        instruction = instruction.getNext();
+        assertEquals(NumericOperandType.INT, ((NegateInstruction) instruction).getOperandType());
+    }
+
     @Test
     public void invocation() throws Exception {
         Program program = runTest("invocation");
@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.parsing.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarResourceCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readerSharedWhileHeld() throws IOException {
+        File jar = writeJar("a.jar", "foo.txt", "foo");
+        JarResourceCache cache = new JarResourceCache();
+
+        JarResourceReader first = cache.acquire(jar);
+        JarResourceReader second = cache.acquire(jar);
+        assertSame(first, second);
+
+        cache.release(first);
+        assertEquals("foo", read(second, "foo.txt"));
+
+        cache.release(second);
+        assertFalse(second.hasResource("foo.txt"));
+
+        JarResourceReader third = cache.acquire(jar);
+        assertNotSame(first, third);
+        assertEquals("foo", read(third, "foo.txt"));
+        cache.close();
+    }
+
+    @Test
+    public void outdatedReaderKeptUntilReleased() throws IOException {
+        File jar = writeJar("a.jar", "foo.txt", "foo");
+        JarResourceCache cache = new JarResourceCache();
+
+        JarResourceReader old = cache.acquire(jar);
+        assertTrue(old.hasResource("foo.txt"));
+        try (InputStream input = old.openResource("foo.txt")) {
+            writeJar("a.jar", "bar.txt", "bar-bar");
+            assertTrue(jar.setLastModified(jar.lastModified() + 2000));
+
+            JarResourceReader fresh = cache.acquire(jar);
+            assertNotSame(old, fresh);
+            assertTrue(fresh.hasResource("bar.txt"));
+            assertEquals("foo", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+
+            cache.release(fresh);
+        }
+        assertTrue(old.hasResource("foo.txt"));
+        cache.release(old);
+        assertFalse(old.hasResource("foo.txt"));
+        cache.close();
+    }
+
+    @Test
+    public void closeReleasesAllReaders() throws IOException {
+        File jar = writeJar("a.jar", "foo.txt", "foo");
+        JarResourceCache cache = new JarResourceCache();
+        CompositeResourceReader reader = CompositeResourceReader.fromClassPath(cache,
+                new String[] { jar.getPath() });
+        assertTrue(reader.hasResource("foo.txt"));
+
+        cache.close();
+        assertFalse(reader.hasResource("foo.txt"));
+    }
+
+    @Test
+    public void compositeReaderReleasesJars() throws IOException {
+        File jar = writeJar("a.jar", "foo.txt", "foo");
+        JarResourceCache cache = new JarResourceCache();
+        CompositeResourceReader first = CompositeResourceReader.fromClassPath(cache, new String[] { jar.getPath() });
+        CompositeResourceReader second = CompositeResourceReader.fromClassPath(cache, new String[] { jar.getPath() });
+
+        first.close();
+        assertTrue(second.hasResource("foo.txt"));
+        second.close();
+        assertFalse(second.hasResource("foo.txt"));
+        cache.close();
+    }
+
+    // Writes a new file and moves it over the old one, like build tools do, so that open readers keep the old data
+    private File writeJar(String name, String entryName, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        File tmpFile = new File(folder.getRoot(), name + ".tmp");
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(tmpFile))) {
+            output.putNextEntry(new JarEntry(entryName));
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+            output.closeEntry();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private static String read(JarResourceReader reader, String name) throws IOException {
+        try (InputStream input = reader.openResource(name)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.parsing.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.teavm.model.ReferenceCache;
+
+public class ResourceClassHolderMapperTest {
+    private static final String FOO = Foo.class.getName();
+    private static final String BAR = Bar.class.getName();
+    private static final String MISSING = ResourceClassHolderMapperTest.class.getName() + "$Missing";
+
+    private final CountingResourceReader reader = new CountingResourceReader();
+    private final ManualExecutor executor = new ManualExecutor();
+    private final ResourceClassHolderMapper mapper = new ResourceClassHolderMapper(reader, new ReferenceCache());
+
+    @Test
+    public void prefetchedClassReadOnce() {
+        mapper.enablePrefetching(List::of, executor);
+        mapper.prefetch(FOO);
+        executor.runAll();
+        assertEquals(1, reader.readCount(FOO));
+
+        assertEquals(FOO, mapper.apply(FOO).getName());
+        assertEquals(1, reader.readCount(FOO));
+    }
+
+    @Test
+    public void referencedClassesPrefetched() {
+        mapper.enablePrefetching(List::of, executor);
+        mapper.apply(FOO);
+        executor.runAll();
+        assertEquals(1, reader.readCount(BAR));
+
+        assertEquals(BAR, mapper.apply(BAR).getName());
+        assertEquals(1, reader.readCount(BAR));
+    }
+
+    @Test
+    public void requestingThreadClaimsPrefetchNotStartedYet() {
+        mapper.enablePrefetching(List::of, executor);
+        mapper.prefetch(FOO);
+
+        assertEquals(FOO, mapper.apply(FOO).getName());
+        assertEquals(1, reader.readCount(FOO));
+
+        executor.runAll();
+        assertEquals(1, reader.readCount(FOO));
+    }
+
+    @Test
+    public void prefetchFindsFirstExistingCandidate() {
+        mapper.enablePrefetching(name -> List.of(MISSING, name), executor);
+        mapper.prefetch(FOO);
+        executor.runAll();
+
+        assertNull(mapper.apply(MISSING));
+        assertEquals(FOO, mapper.apply(FOO).getName());
+        assertEquals(1, reader.readCount(FOO));
+    }
+
+    @Test
+    public void classRequestedOnceIsNotPrefetched() {
+        mapper.enablePrefetching(List::of, executor);
+        mapper.apply(BAR);
+        executor.runAll();
+
+        mapper.prefetch(BAR);
+        executor.runAll();
+        assertEquals(1, reader.readCount(BAR));
+    }
+
+    @Test
+    public void closeCancelsPendingPrefetches() {
+        mapper.enablePrefetching(List::of, executor);
+        mapper.prefetch(FOO);
+
+        mapper.close();
+        assertTrue(executor.isShutdown());
+        executor.runAll();
+        assertEquals(0, reader.readCount(FOO));
+
+        mapper.prefetch(BAR);
+        assertEquals(0, reader.readCount(BAR));
+        assertNotNull(mapper.apply(FOO));
+        assertEquals(1, reader.readCount(FOO));
+    }
+
+    @Test
+    public void prefetchingOnOwnThreads() {
+        mapper.enablePrefetching(List::of);
+        mapper.prefetch(FOO);
+        assertEquals(FOO, mapper.apply(FOO).getName());
+        mapper.close();
+
+        assertEquals(1, reader.readCount(FOO));
+    }
+
+    static class Foo {
+        Bar bar;
+    }
+
+    static class Bar {
+    }
+
+    private static class CountingResourceReader implements ResourceReader {
+        private final ClassLoader classLoader = ResourceClassHolderMapperTest.class.getClassLoader();
+        private final Map<String, Integer> readCounts = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean hasResource(String name) {
+            return classLoader.getResource(name) != null;
+        }
+
+        @Override
+        public InputStream openResource(String name) throws IOException {
+            readCounts.merge(name, 1, Integer::sum);
+            return classLoader.getResourceAsStream(name);
+        }
+
+        int readCount(String className) {
+            return readCounts.getOrDefault(className.replace('.', '/') + ".class", 0);
+        }
+    }
+
+    private static class ManualExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean shutdown;
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            var result = new ArrayList<>(tasks);
+            tasks.clear();
+            return result;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+}
@@ -45,8 +45,9 @@ dependencies {
     testImplementation(libs.testng)
 }
 
-tasks.test {
-    systemProperty("teavm.junit.target", layout.buildDirectory.dir("teavm-tests").get().asFile.absolutePath)
+tasks.withType<Test>().configureEach {
+    val targetDir = if (name == "test") "teavm-tests" else "teavm-tests-$name"
+    systemProperty("teavm.junit.target", layout.buildDirectory.dir(targetDir).get().asFile.absolutePath)
     val browser = providers.gradleProperty("teavm.tests.browser").orElse("browser-chrome").get()
 
     systemProperty("teavm.junit.js", providers.gradleProperty("teavm.tests.js").orElse("true").get())
@@ -68,6 +69,9 @@ tasks.test {
     systemProperty("teavm.junit.wasi.runner", providers.gradleProperty("teavm.tests.wasi.runner")
             .orElse("./run-wasi.sh").get())
 
+    systemProperty("teavm.junit.compilationCache", providers.gradleProperty("teavm.tests.compilationCache")
+            .orElse("false").get())
+
     systemProperty("teavm.junit.c", providers.gradleProperty("teavm.tests.c").orElse("true").get())
     systemProperty("teavm.junit.c.compiler", providers.gradleProperty("teavm.tests.c.compiler")
             .orElse("compile-c-unix-fast.sh").get())
@@ -91,4 +95,30 @@ tasks.test {
             .joinToString(File.pathSeparator))
 
     maxParallelForks = (Runtime.getRuntime().availableProcessors() / 2).coerceAtLeast(1)
-}
\ No newline at end of file
+}
+
+tasks.test {
+    systemProperty("teavm.junit.threads", providers.gradleProperty("teavm.tests.threads").orElse("1").get())
+}
+
+val parallelTest by tasks.registering(Test::class) {
+    description = "Runs a subset of tests with compilation and execution of tests spread over several threads"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+
+    systemProperty("teavm.junit.threads", providers.gradleProperty("teavm.tests.parallel.threads")
+            .orElse("4").get())
+    systemProperty("teavm.junit.compilationCache", providers.gradleProperty("teavm.tests.parallel.compilationCache")
+            .orElse("true").get())
+    filter {
+        // Both whole class compilation and separately compiled tests,
+        // with tests that write different additional files per test method
+        includeTestsMatching("org.teavm.vm.*")
+        includeTestsMatching("org.teavm.jso.test.ImportModuleTest")
+    }
+}
+
+tasks.check {
+    dependsOn(parallelTest)
+}
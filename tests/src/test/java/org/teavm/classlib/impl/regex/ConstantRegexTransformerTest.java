@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.impl.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.teavm.backend.javascript.JavaScriptTarget;
+import org.teavm.dependency.DependencyTestPatcher;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+
+public class ConstantRegexTransformerTest {
+    @Test(timeout = 60000)
+    public void singleHolderForNonLiteralPattern() {
+        List<String> holders = compile("compileSnippet");
+        assertEquals("Exactly one holder expected: " + holders, 1, holders.size());
+        assertTrue(holders.get(0).startsWith(ConstantRegexTransformerTest.class.getName() + "$_Regex$"));
+    }
+
+    @SuppressWarnings("unused")
+    public static void compileSnippet() {
+        consume(Pattern.compile("[a-z]+\\d"));
+        consume(Pattern.compile("[a-z]+\\d"));
+    }
+
+    protected static void consume(@SuppressWarnings("unused") Object value) {
+        // do nothing
+    }
+
+    private List<String> compile(String methodName) {
+        JavaScriptTarget target = new JavaScriptTarget();
+        TeaVM vm = new TeaVMBuilder(target).build();
+        vm.add(new DependencyTestPatcher(getClass().getName(), methodName));
+        vm.installPlugins();
+        vm.setEntryPoint(getClass().getName());
+        vm.build(fileName -> new ByteArrayOutputStream(), "tmp");
+        assertTrue("Code compiled with errors", vm.getProblemProvider().getSevereProblems().isEmpty());
+        return vm.getDependencyInfo().getReachableClasses().stream()
+                .filter(className -> className.contains("$_Regex$"))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.OnlyPlatform;
+import org.teavm.junit.TeaVMProperties;
+import org.teavm.junit.TeaVMProperty;
+import org.teavm.junit.TeaVMTestRunner;
+import org.teavm.junit.TestPlatform;
+
+/**
+ * Strings with {@code teavm.compactStrings} enabled, where strings that fit into Latin-1 are stored as
+ * {@code byte[]} and other strings as {@code char[]}.
+ */
+@RunWith(TeaVMTestRunner.class)
+@TeaVMProperties(@TeaVMProperty(key = "teavm.compactStrings", value = "true"))
+@OnlyPlatform({ TestPlatform.C, TestPlatform.WEBASSEMBLY, TestPlatform.WASI })
+public class CompactStringTest {
+    @Test
+    public void literals() {
+        String latin1 = "caféÿ";
+        assertEquals(5, latin1.length());
+        assertEquals('é', latin1.charAt(3));
+        assertEquals('ÿ', latin1.charAt(4));
+
+        String utf16 = "Āb中";
+        assertEquals(3, utf16.length());
+        assertEquals('Ā', utf16.charAt(0));
+        assertEquals('b', utf16.charAt(1));
+        assertEquals('中', utf16.charAt(2));
+
+        assertEquals("", "".substring(0));
+        assertEquals(0, "".length());
+    }
+
+    @Test
+    public void literalsEqualToStringsBuiltAtRuntime() {
+        assertEquals("café", new String(new char[] { 'c', 'a', 'f', 'é' }));
+        assertEquals("Āb", new String(new char[] { 'Ā', 'b' }));
+        assertEquals("café", new StringBuilder().append("ca").append('f').append('é').toString());
+        assertSame("caféÿ", new String(new char[] { 'c', 'a', 'f', 'é', 'ÿ' }).intern());
+        assertSame("Āb", new StringBuilder().append('Ā').append('b').toString().intern());
+    }
+
+    @Test
+    public void hashCodeAndEqualsAcrossCoders() {
+        String latin1 = "abcé";
+        String compressed = "Āabcé".substring(1);
+        String utf16 = "abcĀ";
+
+        assertEquals(latin1, compressed);
+        assertEquals(latin1.hashCode(), compressed.hashCode());
+        assertEquals("abcé".hashCode(), latin1.hashCode());
+        assertEquals(31 * 31 * 31 * 'a' + 31 * 31 * 'b' + 31 * 'c' + 0xE9, latin1.hashCode());
+        assertEquals(31 * 31 * 31 * 'a' + 31 * 31 * 'b' + 31 * 'c' + 0x100, utf16.hashCode());
+
+        assertNotEquals(latin1, utf16);
+        assertNotEquals(utf16, latin1);
+        assertEquals(-1, latin1.compareTo(latin1 + "x"));
+        assertEquals(0xE9 - 0x100, latin1.compareTo(utf16));
+        assertEquals(0x100 - 0xE9, utf16.compareTo(latin1));
+        assertEquals(3, utf16.indexOf('Ā'));
+        assertEquals(3, latin1.indexOf('é'));
+        assertEquals(-1, latin1.indexOf('Ā'));
+        assertEquals(0, (utf16 + latin1).indexOf("abc"));
+        assertEquals(4, (utf16 + latin1).indexOf(latin1));
+    }
+
+    @Test
+    public void substring() {
+        String latin1 = "héllo";
+        assertEquals("éll", latin1.substring(1, 4));
+        assertEquals("", latin1.substring(2, 2));
+        assertEquals(latin1, latin1.substring(0));
+
+        String mixed = "abĀcdé";
+        assertEquals("ab", mixed.substring(0, 2));
+        assertEquals("bĀc", mixed.substring(1, 4));
+        assertEquals("cdé", mixed.substring(3));
+        assertEquals("cdé".hashCode(), mixed.substring(3).hashCode());
+        assertEquals('é', mixed.substring(3).charAt(2));
+    }
+
+    @Test
+    public void getBytes() {
+        String latin1 = "café";
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', (byte) 0xE9 },
+                latin1.getBytes(StandardCharsets.ISO_8859_1));
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', (byte) 0xC3, (byte) 0xA9 },
+                latin1.getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new byte[] { 'c', 'a', 'f', '?' }, latin1.getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(new byte[] { 0, 'c', 0, 'a', 0, 'f', 0, (byte) 0xE9 },
+                latin1.getBytes(StandardCharsets.UTF_16BE));
+        assertArrayEquals(new byte[] { 'a', 'b', 'c' }, "abc".getBytes(StandardCharsets.UTF_8));
+
+        String utf16 = "aĀ";
+        assertArrayEquals(new byte[] { 'a', (byte) 0xC4, (byte) 0x80 }, utf16.getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new byte[] { 'a', '?' }, utf16.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void stringFromBytes() {
+        byte[] latin1Bytes = { 'c', 'a', 'f', (byte) 0xE9 };
+        String latin1 = new String(latin1Bytes, StandardCharsets.ISO_8859_1);
+        assertEquals("café", latin1);
+        assertEquals("café".hashCode(), latin1.hashCode());
+        latin1Bytes[0] = 'x';
+        assertEquals("café", latin1);
+
+        assertEquals("abc", new String(new byte[] { 'a', 'b', 'c' }, StandardCharsets.UTF_8));
+        assertEquals("abc", new String(new byte[] { 'a', 'b', 'c' }, StandardCharsets.US_ASCII));
+        assertEquals("café", new String(new byte[] { 'c', 'a', 'f', (byte) 0xC3, (byte) 0xA9 },
+                StandardCharsets.UTF_8));
+        assertEquals("aĀ", new String(new byte[] { 'a', (byte) 0xC4, (byte) 0x80 }, StandardCharsets.UTF_8));
+        assertEquals("a�", new String(new byte[] { 'a', (byte) 0xE9 }, StandardCharsets.US_ASCII));
+        assertEquals("bc", new String(new byte[] { 'a', 'b', 'c' }, 1, 2, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -283,6 +283,27 @@ public class StringTest {
         assertArrayEquals(new byte[] { 65, -62, -69, -32, -82, -69, -16, -66, -78, -69 }, bytes);
     }
 
+    @Test
+    public void latin1ByteArrayRoundTrip() throws UnsupportedEncodingException {
+        byte[] bytes = { 65, -23, 0, -1 };
+        String str = new String(bytes, "ISO-8859-1");
+        assertEquals("A\u00E9\u0000\u00FF", str);
+        assertArrayEquals(bytes, str.getBytes("ISO-8859-1"));
+        assertArrayEquals(new byte[] { 65, -61, -87, 0, -61, -65 }, str.getBytes("UTF-8"));
+        assertArrayEquals(new byte[] { 65, 63, 0, 63 }, str.getBytes("US-ASCII"));
+    }
+
+    @Test
+    public void substringsOfMixedStrings() {
+        String str = "ab\u00E9\u0BBBcd";
+        assertEquals("ab\u00E9", str.substring(0, 3));
+        assertEquals("\u0BBBcd", str.substring(3));
+        assertEquals("cd", str.substring(4));
+        assertEquals("cd".hashCode(), str.substring(4).hashCode());
+        assertEquals("", str.substring(6));
+        assertArrayEquals(new char[] { 'a', 'b', '\u00E9' }, str.substring(0, 3).toCharArray());
+    }
+
     @Test
     public void getUTF8ByteArrayOfLongString() throws UnsupportedEncodingException {
         char[] chars = new char[8192];
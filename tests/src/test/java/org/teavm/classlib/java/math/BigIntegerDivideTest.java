@@ -717,4 +717,27 @@ public class BigIntegerDivideTest {
         }
         assertEquals("incorrect sign", 1, result.signum());
     }
+
+    /**
+     * Divide numbers large enough to use Burnikel-Ziegler algorithm
+     */
+    @Test
+    public void divideLargeNumbers() {
+        BigInteger a = BigInteger.TEN.pow(2000).add(BigInteger.valueOf(12345));
+        BigInteger b = BigInteger.ONE.shiftLeft(4000).subtract(BigInteger.valueOf(3));
+        BigInteger c = BigInteger.valueOf(7).pow(900);
+        BigInteger dividend = a.multiply(b).add(c);
+
+        BigInteger[] result = dividend.divideAndRemainder(b);
+        assertEquals(a, result[0]);
+        assertEquals(c, result[1]);
+        assertEquals(a, dividend.divide(b));
+        assertEquals(c, dividend.remainder(b));
+
+        result = dividend.negate().divideAndRemainder(b);
+        assertEquals(a.negate(), result[0]);
+        assertEquals(c.negate(), result[1]);
+        assertEquals(a.negate(), dividend.divide(b.negate()));
+        assertEquals(c.negate(), dividend.negate().remainder(b.negate()));
+    }
 }
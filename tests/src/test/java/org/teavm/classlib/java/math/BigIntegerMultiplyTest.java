@@ -422,4 +422,32 @@ public class BigIntegerMultiplyTest {
         }
         assertEquals("incorrect sign", 1, result.signum());
     }
+
+    /**
+     * Multiply numbers large enough to use Toom-Cook algorithm
+     */
+    @Test
+    public void multiplyLargeNumbers() {
+        BigInteger a = BigInteger.ONE.shiftLeft(12000).subtract(BigInteger.ONE);
+        BigInteger b = BigInteger.ONE.shiftLeft(9000).add(BigInteger.ONE).negate();
+        BigInteger expected = BigInteger.ONE.shiftLeft(21000).add(BigInteger.ONE.shiftLeft(12000))
+                .subtract(BigInteger.ONE.shiftLeft(9000)).subtract(BigInteger.ONE).negate();
+        assertEquals(expected, a.multiply(b));
+        assertEquals(expected, b.multiply(a));
+    }
+
+    /**
+     * Square numbers large enough to use Karatsuba and Toom-Cook algorithms
+     */
+    @Test
+    public void squareLargeNumbers() {
+        for (int bits : new int[] { 5000, 10000 }) {
+            BigInteger a = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+            BigInteger expected = BigInteger.ONE.shiftLeft(bits * 2).subtract(BigInteger.ONE.shiftLeft(bits + 1))
+                    .add(BigInteger.ONE);
+            assertEquals(expected, a.multiply(a));
+            assertEquals(expected, a.pow(2));
+            assertEquals(expected, a.negate().multiply(a.negate()));
+        }
+    }
 }
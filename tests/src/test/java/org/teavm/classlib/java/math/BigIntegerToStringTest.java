@@ -36,6 +36,7 @@
 
 package org.teavm.classlib.java.math;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import java.math.BigInteger;
 import org.junit.Test;
@@ -176,4 +177,34 @@ public class BigIntegerToStringTest {
         String result = aNumber.toString(radix);
         assertTrue(result.equals(value));
     }
+
+    /**
+     * test number large enough to use divide-and-conquer conversion
+     */
+    @Test
+    public void testLargeNumber() {
+        StringBuilder sb = new StringBuilder("-1");
+        for (int i = 0; i < 3000; i++) {
+            sb.append('0');
+        }
+        sb.append("123456789");
+        String value = sb.toString();
+        BigInteger aNumber = new BigInteger(value);
+        assertEquals(value, aNumber.toString());
+        assertEquals(value.substring(1), aNumber.negate().toString());
+        assertEquals(value, new BigInteger(aNumber.toString(7), 7).toString());
+    }
+
+    /**
+     * test power of radix large enough to use divide-and-conquer conversion
+     */
+    @Test
+    public void testLargePowerOfRadix() {
+        String result = BigInteger.valueOf(3).pow(2000).toString(3);
+        assertEquals(2001, result.length());
+        assertEquals('1', result.charAt(0));
+        for (int i = 1; i < result.length(); i++) {
+            assertEquals('0', result.charAt(i));
+        }
+    }
 }
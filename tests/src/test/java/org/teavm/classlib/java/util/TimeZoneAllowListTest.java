@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMProperties;
+import org.teavm.junit.TeaVMProperty;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@TeaVMProperties(@TeaVMProperty(key = "java.util.TimeZone.available", value = "Europe/*, US/Eastern"))
+@SkipJVM
+public class TimeZoneAllowListTest {
+    private static final int ONE_HOUR = 3600000;
+
+    @Test
+    public void onlyAllowedZonesAvailable() {
+        List<String> ids = Arrays.asList(TimeZone.getAvailableIDs());
+        assertTrue(ids.contains("Europe/Berlin"));
+        assertTrue(ids.contains("US/Eastern"));
+        assertTrue(ids.contains("UTC"));
+        assertFalse(ids.contains("Asia/Tokyo"));
+    }
+
+    @Test
+    public void aliasTargetKept() {
+        assertEquals(-5 * ONE_HOUR, TimeZone.getTimeZone("US/Eastern").getRawOffset());
+        assertEquals(ONE_HOUR, TimeZone.getTimeZone("Europe/Berlin").getRawOffset());
+    }
+
+    @Test
+    public void excludedZoneFallsBackToGmt() {
+        assertEquals("GMT", TimeZone.getTimeZone("Asia/Tokyo").getID());
+    }
+}
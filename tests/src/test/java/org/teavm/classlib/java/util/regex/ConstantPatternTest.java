@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.util.regex;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+public class ConstantPatternTest {
+    @Test
+    public void literalSplit() {
+        assertArrayEquals(new String[] { "a", "b", "c" }, "a,b,c".split(","));
+        assertArrayEquals(new String[] { "", "a", "", "b" }, ",a,,b,,".split(","));
+        assertArrayEquals(new String[0], ",,,".split(","));
+        assertArrayEquals(new String[] { "" }, "".split(","));
+        assertArrayEquals(new String[] { "a", "b,c" }, "a,b,c".split(",", 2));
+        assertArrayEquals(new String[] { "a", "", "" }, "a,,".split(",", -1));
+        assertArrayEquals(new String[] { "1", "2", "3" }, "1.2.3".split("\\."));
+        assertArrayEquals(new String[] { "x", "y" }, "x::y".split("::"));
+    }
+
+    @Test
+    public void regexSplit() {
+        assertArrayEquals(new String[] { "a", "b", "c" }, "a1b22c".split("\\d+"));
+        assertArrayEquals(new String[] { "a", "b1c" }, "a1b1c".split("[0-9]", 2));
+    }
+
+    @Test
+    public void matches() {
+        assertTrue("abc".matches("abc"));
+        assertFalse("abcd".matches("abc"));
+        assertTrue("a.c".matches("a\\.c"));
+        assertFalse("abc".matches("a\\.c"));
+        assertTrue("abc".matches("a.c"));
+        assertTrue(Pattern.matches("ab", new StringBuilder("ab")));
+        assertTrue(Pattern.matches("[a-z]+", "abc"));
+    }
+
+    @Test
+    public void replace() {
+        assertEquals("a-b-c", "a,b,c".replaceAll(",", "-"));
+        assertEquals("a-b,c", "a,b,c".replaceFirst(",", "-"));
+        assertEquals("a,b,c", "a,b,c".replaceFirst(";", "-"));
+        assertEquals("<a>,<b>", "a,b".replaceAll("(\\w)", "<$1>"));
+        assertEquals("$,b", "a,b".replaceFirst("a", "\\$"));
+    }
+
+    @Test
+    @SkipJVM
+    public void compiledPatternIsShared() {
+        Pattern first = null;
+        for (int i = 0; i < 2; ++i) {
+            Pattern pattern = Pattern.compile("[a-z]+\\d");
+            if (first == null) {
+                first = pattern;
+            } else {
+                assertSame(first, pattern);
+            }
+        }
+        assertTrue(first.matcher("abc1").matches());
+    }
+
+    @Test
+    public void flagsRespected() {
+        assertTrue(Pattern.compile("abc", Pattern.CASE_INSENSITIVE).matcher("ABC").matches());
+        assertTrue(Pattern.compile("a.c", Pattern.LITERAL).matcher("a.c").matches());
+        assertFalse(Pattern.compile("a.c", Pattern.LITERAL).matcher("abc").matches());
+    }
+
+    @Test
+    public void invalidPatternReportedAtRuntime() {
+        try {
+            Pattern.compile("(unclosed");
+            fail("Exception expected");
+        } catch (PatternSyntaxException e) {
+            // ok
+        }
+    }
+
+    @Test
+    @SkipJVM
+    public void patternUnsupportedByClasslibReportedAtRuntime() {
+        try {
+            Pattern.compile("\\R");
+            fail("Exception expected");
+        } catch (PatternSyntaxException e) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.teavm.backend.javascript.JavaScriptTarget;
+import org.teavm.tooling.ConsoleTeaVMToolLog;
+import org.teavm.tooling.TeaVMProblemRenderer;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+
+public class CompilationCacheTest {
+    @Test
+    public void warmCacheProducesSameCode() {
+        var uncached = compile(null);
+
+        var entry = CompilationCache.acquire(getClass().getName());
+        var cold = compile(entry);
+        int coldMethods = entry.getProgramCache().getPendingItemsCount();
+        entry.release(true);
+
+        entry = CompilationCache.acquire(getClass().getName());
+        var warm = compile(entry);
+        int warmMethods = entry.getProgramCache().getPendingItemsCount();
+        entry.release(true);
+
+        assertTrue("Cold compilation should fill cache", coldMethods > 0);
+        assertTrue("Warm compilation should take methods from cache, compiled " + warmMethods + " of "
+                + coldMethods, warmMethods < coldMethods);
+        assertEquals(uncached, cold);
+        assertEquals(cold, warm);
+    }
+
+    private Map<String, String> compile(CompilationCache.Entry cacheEntry) {
+        var target = new JavaScriptTarget();
+        TeaVMTestConfiguration.JS_DEFAULT.apply(target);
+        TeaVM vm = new TeaVMBuilder(target).build();
+        TeaVMTestConfiguration.JS_DEFAULT.apply(vm);
+        if (cacheEntry != null) {
+            vm.setProgramCache(cacheEntry.getProgramCache());
+            vm.setCacheStatus(CompilationCache.CACHE_STATUS);
+            target.setAstCache(cacheEntry.getAstCache());
+        }
+        vm.installPlugins();
+        vm.setEntryPoint(Snippet.class.getName());
+
+        var files = new HashMap<String, ByteArrayOutputStream>();
+        vm.build(fileName -> files.computeIfAbsent(fileName, k -> new ByteArrayOutputStream()), "classes.js");
+        if (!vm.getProblemProvider().getSevereProblems().isEmpty()) {
+            TeaVMProblemRenderer.describeProblems(vm, new ConsoleTeaVMToolLog(false));
+            fail("Code compiled with errors");
+        }
+
+        var result = new TreeMap<String, String>();
+        for (var file : files.entrySet()) {
+            result.put(file.getKey(), file.getValue().toString(StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    public static class Snippet {
+        public static void main(String[] args) {
+            List<String> items = new ArrayList<>();
+            for (var arg : args) {
+                items.add(arg.trim().toUpperCase());
+            }
+            var counts = new HashMap<String, Integer>();
+            for (var item : items) {
+                counts.put(item, counts.getOrDefault(item, 0) + 1);
+            }
+            System.out.println(String.join(",", items) + " " + counts);
+        }
+    }
+}
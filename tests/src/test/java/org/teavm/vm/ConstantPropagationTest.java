@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class ConstantPropagationTest {
+    @Test
+    public void constantFlowsThroughLoop() {
+        int x = 1;
+        int i = 0;
+        while (i < id(5)) {
+            if (x != 1) {
+                x = 2;
+            }
+            i++;
+        }
+        assertEquals(6, x + i);
+    }
+
+    @Test
+    public void constantArgumentsPropagated() {
+        assertEquals(10, scale(id(2), 5) + scale(0, 5));
+        assertEquals(20, mode(2));
+    }
+
+    @Test
+    public void constantReturnValueUsedInBranch() {
+        int r = 0;
+        if (level() > 2) {
+            r += 3;
+        } else {
+            r += debugOnly();
+        }
+        assertEquals(3, r);
+    }
+
+    @Test
+    public void callThatNeverReturnsKeepsFollowingCode() {
+        try {
+            int v = alwaysThrows();
+            if (v > 0) {
+                fail();
+            }
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void narrowingCastFolded() {
+        long a = 5;
+        double d = a * 2.5;
+        int t = (int) d;
+        byte b = (byte) (t * 100);
+        assertEquals(-80, b);
+    }
+
+    private static int scale(int x, int factor) {
+        if (factor == 5) {
+            return x * 5;
+        }
+        return x * factor + debugOnly();
+    }
+
+    private static int mode(int m) {
+        switch (m) {
+            case 1:
+                return 10;
+            case 2:
+                return 20;
+            default:
+                return 30;
+        }
+    }
+
+    private static int level() {
+        return 3;
+    }
+
+    private static int debugOnly() {
+        return 1000;
+    }
+
+    private static int alwaysThrows() {
+        throw new IllegalStateException();
+    }
+
+    private static int id(int value) {
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class FieldImmutabilityTest {
+    @Test
+    public void configReadInLoop() {
+        Config config = new Config(3, 4);
+        int sum = 0;
+        for (int i = 0; i < 10; ++i) {
+            sum += config.width * config.height + config.counter;
+            config.touch();
+        }
+        assertEquals(165, sum);
+    }
+
+    @Test
+    public void staticConstantFolded() {
+        int result = 0;
+        if (Limits.max > 5) {
+            result += Limits.max + Limits.computed;
+        }
+        Limits.change();
+        assertEquals(16, result + Limits.changed);
+    }
+
+    @Test
+    public void fieldObservedBeforeInitialization() {
+        Leaking leaking = new Leaking(7);
+        assertEquals(0, leaking.observed);
+        assertEquals(7, leaking.value);
+    }
+
+    @Test
+    public void fieldWrittenOutsideConstructorIsMutable() {
+        Config config = new Config(1, 2);
+        int before = config.counter;
+        config.touch();
+        assertEquals(1, config.counter - before);
+    }
+
+    static class Config {
+        final int width;
+        int height;
+        int counter;
+
+        Config(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        void touch() {
+            counter++;
+        }
+    }
+
+    static class Limits {
+        static int max = 8;
+        static int computed = Integer.parseInt("5");
+        static int changed = 2;
+
+        static void change() {
+            changed++;
+        }
+    }
+
+    static class Leaking {
+        final int value;
+        int observed;
+
+        Leaking(int value) {
+            observed = read(this);
+            this.value = value;
+        }
+
+        private static int read(Leaking leaking) {
+            return leaking.value;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class LoopTest {
+    @Test
+    public void constantTripCountLoopUnrolled() {
+        int[] a = { 1, 2, 3, 4, 5 };
+        int s = 0;
+        for (int i = 0; i < 4; ++i) {
+            s = s * 10 + a[i];
+        }
+        assertEquals(1234, s);
+
+        s = 0;
+        for (int i = 10; i > 0; i -= 3) {
+            s += i;
+        }
+        assertEquals(22, s);
+    }
+
+    @Test
+    public void nestedLoopUnrolled() {
+        int[] a = { 1, 2, 3, 4, 5, 6 };
+        int s = 0;
+        for (int i = 0; i < id(2); ++i) {
+            for (int j = 0; j < 3; ++j) {
+                s += a[i * 3 + j] * (j + 1);
+            }
+        }
+        assertEquals(46, s);
+    }
+
+    @Test
+    public void consecutiveLoopsSharingCounterUnrolled() {
+        int first = 0;
+        int second = 0;
+        int i = 0;
+        for (; i < 2; ++i) {
+            first++;
+        }
+        for (; i < 4; ++i) {
+            second++;
+        }
+        assertEquals(2, first);
+        assertEquals(2, second);
+    }
+
+    @Test
+    public void loopUnswitched() {
+        assertEquals(15, unswitch(5, true));
+        assertEquals(-15, unswitch(5, false));
+        assertEquals(0, unswitch(0, true));
+    }
+
+    private static int unswitch(int n, boolean add) {
+        int s = 0;
+        for (int i = 1; i <= n; ++i) {
+            if (add) {
+                s += i;
+            } else {
+                s -= i;
+            }
+        }
+        return s;
+    }
+
+    @Test
+    public void inductionVariableStrengthReduced() {
+        int[] a = new int[30];
+        for (int i = 0; i < id(10); ++i) {
+            a[i * 3] = i * 5;
+        }
+        assertEquals(45, a[27]);
+        assertEquals(0, a[28]);
+
+        long s = 0;
+        for (long i = id(1); i < 7; i += 2) {
+            s += i * 1000003L;
+        }
+        assertEquals(9000027L, s);
+
+        int overflow = 0;
+        for (int i = Integer.MAX_VALUE - id(2); i != Integer.MIN_VALUE + 2; ++i) {
+            overflow ^= i * 7;
+        }
+        assertEquals(expectedOverflow(), overflow);
+    }
+
+    private static int expectedOverflow() {
+        int result = 0;
+        for (int i : new int[] { Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MIN_VALUE + 1 }) {
+            result ^= i * 7;
+        }
+        return result;
+    }
+
+    private static int id(int value) {
+        return value;
+    }
+}
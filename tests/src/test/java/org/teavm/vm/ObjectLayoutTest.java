@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class ObjectLayoutTest {
+    @Test
+    public void mixedSizeFieldsPreserved() {
+        Object ref = new Object();
+        Mixed mixed = new Mixed((byte) -3, 1L << 40, 123456, ref, (short) -2, 'x', true, 2.5);
+        assertEquals(-3, mixed.b);
+        assertEquals(1L << 40, mixed.l);
+        assertEquals(123456, mixed.i);
+        assertSame(ref, mixed.ref);
+        assertEquals(-2, mixed.s);
+        assertEquals('x', mixed.c);
+        assertEquals(true, mixed.z);
+        assertEquals(2.5, mixed.d, 0.0001);
+    }
+
+    @Test
+    public void subclassFieldsPreserved() {
+        Derived derived = new Derived();
+        derived.b = 1;
+        derived.l = 2;
+        derived.extraByte = 3;
+        derived.extraLong = 4;
+        derived.extraRef = "foo";
+        assertEquals(1, derived.b);
+        assertEquals(2, derived.l);
+        assertEquals(3, derived.extraByte);
+        assertEquals(4, derived.extraLong);
+        assertEquals("foo", derived.extraRef);
+    }
+
+    @Test
+    public void writeOnlyFieldIgnored() {
+        WriteOnly writeOnly = new WriteOnly(5);
+        for (int i = 0; i < 3; ++i) {
+            writeOnly.update(i);
+        }
+        assertEquals(8, writeOnly.value);
+    }
+
+    static class Mixed {
+        byte b;
+        long l;
+        int i;
+        Object ref;
+        short s;
+        char c;
+        boolean z;
+        double d;
+
+        Mixed(byte b, long l, int i, Object ref, short s, char c, boolean z, double d) {
+            this.b = b;
+            this.l = l;
+            this.i = i;
+            this.ref = ref;
+            this.s = s;
+            this.c = c;
+            this.z = z;
+            this.d = d;
+        }
+    }
+
+    static class Derived extends Mixed {
+        byte extraByte;
+        long extraLong;
+        Object extraRef;
+
+        Derived() {
+            super((byte) 0, 0, 0, null, (short) 0, '\0', false, 0);
+        }
+    }
+
+    static class WriteOnly {
+        int value;
+        Object trace;
+        long counter;
+
+        WriteOnly(int value) {
+            this.value = value;
+            trace = new Object();
+        }
+
+        void update(int delta) {
+            value += delta;
+            trace = this;
+            counter += delta;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class PureCallTest {
+    private static int counter;
+    private int state;
+
+    @Test
+    public void pureCallsInLoop() {
+        int n = id(10);
+        int sum = 0;
+        for (int i = 0; i < n; ++i) {
+            sum += square(n) + square(n) - i;
+            square(i);
+        }
+        assertEquals(1955, sum);
+    }
+
+    @Test
+    public void impureCallsKept() {
+        counter = 0;
+        int n = id(5);
+        int sum = 0;
+        for (int i = 0; i < n; ++i) {
+            sum += count(n) + count(n);
+            count(i);
+        }
+        assertEquals(50, sum);
+        assertEquals(15, counter);
+    }
+
+    @Test
+    public void readingCallsSeeWrites() {
+        state = 1;
+        int a = readState();
+        state = 2;
+        int b = readState();
+        assertEquals(3, a + b);
+    }
+
+    @Test
+    public void virtualCallsKept() {
+        counter = 0;
+        Base[] items = { new Base(), new Counting() };
+        for (Base item : items) {
+            item.value();
+            item.value();
+        }
+        assertEquals(2, counter);
+    }
+
+    @Test
+    public void throwingCallKept() {
+        try {
+            check(id(-1));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void finalFieldReadInConstructor() {
+        Point p = new Point(3);
+        assertEquals(0, p.before);
+        assertEquals(3, p.after);
+    }
+
+    private static int square(int x) {
+        return x * x;
+    }
+
+    private static int count(int x) {
+        counter++;
+        return x;
+    }
+
+    private int readState() {
+        return state;
+    }
+
+    private static int check(int x) {
+        if (x < 0) {
+            throw new IllegalArgumentException();
+        }
+        return x;
+    }
+
+    private static int id(int value) {
+        return value;
+    }
+
+    static class Base {
+        int value() {
+            return 1;
+        }
+    }
+
+    static class Counting extends Base {
+        @Override
+        int value() {
+            counter++;
+            return 2;
+        }
+    }
+
+    static class Point {
+        final int x;
+        final int before;
+        final int after;
+
+        Point(int x) {
+            before = getX(this);
+            this.x = x;
+            after = getX(this);
+        }
+
+        private static int getX(Point p) {
+            return p.x;
+        }
+    }
+}
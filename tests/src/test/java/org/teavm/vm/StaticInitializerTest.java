@@ -0,0 +1,194 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.EachTestCompiledSeparately;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@EachTestCompiledSeparately
+public class StaticInitializerTest {
+    @Test
+    public void computedValuesAvailable() {
+        assertEquals(328350, Squares.sum);
+        assertEquals((1L << 40) - 1, Masks.mask);
+        assertEquals(14, Masks.quotient);
+        assertEquals(1.0 / 3, Masks.third, 1E-12);
+    }
+
+    @Test
+    public void narrowTypesAndStrings() {
+        assertEquals("foo", Strings.name);
+        assertEquals('b', Strings.letter);
+        assertEquals(true, Strings.flag);
+        assertEquals(44, Strings.truncated);
+    }
+
+    @Test
+    public void temporaryArraysUsed() {
+        assertEquals(115, Table.fromTable);
+    }
+
+    @Test
+    public void primitiveArraysStored() {
+        assertArrayEquals(new int[] { 0, 1, 4, 9, 16 }, PrimitiveArrays.squares);
+        assertArrayEquals(new byte[] { 0, 44, -1 }, PrimitiveArrays.bytes);
+        assertArrayEquals(new char[] { 'a', 'b', 'c' }, PrimitiveArrays.letters);
+        assertArrayEquals(new long[] { 1L << 40, -1 }, PrimitiveArrays.longs);
+        assertArrayEquals(new double[] { 0.5, -0.0 }, PrimitiveArrays.doubles, 0);
+        assertArrayEquals(new boolean[] { false, true }, PrimitiveArrays.flags);
+        assertEquals(1000, PrimitiveArrays.empty.length);
+        assertEquals(5, PrimitiveArrays.count);
+    }
+
+    @Test
+    public void storedArrayModifiedAfterInitialization() {
+        int[] squares = PrimitiveArrays.squares;
+        squares[0] = 100;
+        assertSame(squares, PrimitiveArrays.squares);
+        assertEquals(100, PrimitiveArrays.squares[0]);
+        squares[0] = 0;
+    }
+
+    @Test
+    public void arraySharedBetweenFieldsKeepsIdentity() {
+        assertSame(SharedArray.first, SharedArray.second);
+        assertEquals(3, SharedArray.first[2]);
+    }
+
+    @Test
+    public void finalFieldOfOtherClassUsed() {
+        assertEquals(6, DependsOnFinal.doubled);
+    }
+
+    @Test
+    public void valueModifiedAfterInitialization() {
+        int before = Squares.sum;
+        Squares.sum++;
+        assertEquals(before + 1, Squares.sum);
+    }
+
+    @Test
+    public void initializerWithSideEffectsRuns() {
+        Log.messages.setLength(0);
+        assertEquals(2, WithSideEffects.value);
+        assertEquals("init;", Log.messages.toString());
+    }
+
+    static class Squares {
+        static int sum;
+
+        static {
+            for (int i = 0; i < 100; ++i) {
+                sum += i * i;
+            }
+        }
+    }
+
+    static class Masks {
+        static final long mask = compute(40);
+        static double third = 1.0 / 3;
+        static int quotient = 100 / 7;
+
+        private static long compute(int bits) {
+            return (1L << bits) - 1;
+        }
+    }
+
+    static class Strings {
+        static String name = "foo";
+        static char letter = (char) ('a' + 1);
+        static boolean flag = letter > 'a';
+        static byte truncated = (byte) 300;
+    }
+
+    static class Table {
+        static int fromTable;
+
+        static {
+            int[] table = new int[8];
+            boolean[] flags = new boolean[3];
+            for (int i = 0; i < table.length; ++i) {
+                table[i] = i * 3;
+            }
+            flags[1] = true;
+            fromTable = table[5] + (flags[1] ? 100 : 0);
+        }
+    }
+
+    static class PrimitiveArrays {
+        static int[] squares = new int[5];
+        static byte[] bytes = new byte[3];
+        static char[] letters = new char[3];
+        static long[] longs = { 1L << 40, -1 };
+        static double[] doubles = { 0.5, -0.0 };
+        static boolean[] flags = new boolean[2];
+        static int[] empty = new int[1000];
+        static int count;
+
+        static {
+            for (int i = 0; i < squares.length; ++i) {
+                squares[i] = i * i;
+            }
+            bytes[1] = (byte) 300;
+            bytes[2] = (byte) 255;
+            for (int i = 0; i < letters.length; ++i) {
+                letters[i] = (char) ('a' + i);
+            }
+            flags[1] = true;
+            count = squares.length;
+        }
+    }
+
+    static class SharedArray {
+        static int[] first = { 1, 2, 3 };
+        static int[] second = first;
+    }
+
+    static class Base {
+        static final int base;
+
+        static {
+            int sum = 0;
+            for (int i = 0; i < 4; ++i) {
+                sum += i;
+            }
+            base = sum / 2;
+        }
+    }
+
+    static class DependsOnFinal {
+        static int doubled = Base.base * 2;
+    }
+
+    static class Log {
+        static StringBuilder messages = new StringBuilder();
+    }
+
+    static class WithSideEffects {
+        static int value;
+
+        static {
+            Log.messages.append("init;");
+            value = 2;
+        }
+    }
+}
@@ -24,7 +24,6 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -45,6 +44,8 @@ import org.teavm.model.PreOptimizingClassHolderSource;
 import org.teavm.model.ReferenceCache;
 import org.teavm.parsing.ClasspathResourceMapper;
 import org.teavm.parsing.resource.ClasspathResourceReader;
+import org.teavm.parsing.resource.CompositeResourceReader;
+import org.teavm.parsing.resource.JarResourceCache;
 import org.teavm.parsing.resource.ResourceClassHolderMapper;
 import org.teavm.tooling.EmptyTeaVMToolLog;
 import org.teavm.tooling.TeaVMProblemRenderer;
@@ -74,6 +75,8 @@ public class IncrementalCBuilder {
     private FileSystemWatcher watcher;
     private TeaVMToolLog log = new EmptyTeaVMToolLog();
     private MemoryCachedClassReaderSource classSource;
+    private JarResourceCache jarCache;
+    private CompositeResourceReader classPathReader;
 
     private ReferenceCache referenceCache = new ReferenceCache();
     private InMemorySymbolTable symbolTable = new InMemorySymbolTable();
@@ -221,7 +224,7 @@ public class IncrementalCBuilder {
                     synchronized (statusLock) {
                         waiting = true;
                     }
-                    watcher.waitForChange(750);
+                    watcher.waitForChange();
                     synchronized (statusLock) {
                         waiting = false;
                     }
@@ -233,7 +236,7 @@ public class IncrementalCBuilder {
                     log.info("Build triggered by user");
                 }
 
-                List<String> staleClasses = getChangedClasses(watcher.grabChangedFiles());
+                List<String> staleClasses = watcher.grabChangedClasses();
                 if (staleClasses.size() > 15) {
                     List<String> displayedStaleClasses = staleClasses.subList(0, 10);
                     log.debug("Following classes changed (" + staleClasses.size() + "): "
@@ -253,37 +256,12 @@ public class IncrementalCBuilder {
         }
     }
 
-    private List<String> getChangedClasses(Collection<File> changedFiles) {
-        List<String> result = new ArrayList<>();
-        String[] prefixes = Arrays.stream(classPath).map(s -> s.replace('\\', '/')).toArray(String[]::new);
-
-        for (File file : changedFiles) {
-            String path = file.getPath().replace('\\', '/');
-            if (!path.endsWith(".class")) {
-                continue;
-            }
-
-            String prefix = Arrays.stream(prefixes)
-                    .filter(path::startsWith)
-                    .findFirst()
-                    .orElse("");
-            int start = prefix.length();
-            if (start < path.length() && path.charAt(start) == '/') {
-                ++start;
-            }
-
-            path = path.substring(start, path.length() - ".class".length()).replace('/', '.');
-            result.add(path);
-        }
-
-        return result;
-    }
-
     private void initBuilder() throws IOException {
         buildTarget = new IncrementalDirectoryBuildTarget(new File(targetPath));
         watcher = new FileSystemWatcher(classPath);
 
         classSource = createCachedSource();
+        jarCache = new JarResourceCache();
         astCache = new InMemoryMethodNodeCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
         programCache = new InMemoryProgramCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
     }
@@ -294,7 +272,13 @@ public class IncrementalCBuilder {
         } catch (IOException e) {
             log.debug("Exception caught", e);
         }
+        if (classPathReader != null) {
+            classPathReader.close();
+        }
+        jarCache.close();
         classSource = null;
+        classPathReader = null;
+        jarCache = null;
         watcher = null;
         astCache = null;
         programCache = null;
@@ -312,7 +296,14 @@ public class IncrementalCBuilder {
         reportProgress(0);
 
         ClassLoader classLoader = initClassLoader();
-        ClasspathResourceReader reader = new ClasspathResourceReader(classLoader);
+        CompositeResourceReader reader = new CompositeResourceReader(List.of(
+                new ClasspathResourceReader(IncrementalCBuilder.class.getClassLoader())));
+        reader.add(CompositeResourceReader.fromClassPath(jarCache, classPath));
+        // Jars that are still on the class path and unmodified stay open, since the new reader holds them too
+        if (classPathReader != null) {
+            classPathReader.close();
+        }
+        classPathReader = reader;
         ResourceClassHolderMapper rawMapper = new ResourceClassHolderMapper(reader, referenceCache);
         Function<String, ClassHolder> classPathMapper = new ClasspathResourceMapper(classLoader, referenceCache,
                 rawMapper);
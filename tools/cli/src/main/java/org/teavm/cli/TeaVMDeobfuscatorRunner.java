@@ -0,0 +1,191 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cli;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.teavm.debugging.information.DebugInformation;
+import org.teavm.tooling.deobfuscate.StackTraceDeobfuscator;
+
+public class TeaVMDeobfuscatorRunner {
+    private static final int BATCH_SIZE = 256;
+    private static Options options = new Options();
+    private CommandLine commandLine;
+    private StackTraceDeobfuscator deobfuscator;
+    private ForkJoinPool pool;
+    private PrintStream out = System.out;
+
+    static {
+        setupOptions();
+    }
+
+    private static void setupOptions() {
+        options.addOption(Option.builder("d")
+                .argName("file")
+                .hasArg()
+                .required()
+                .desc("debug information file (.teavmdbg) produced along with JavaScript")
+                .longOpt("debug-info")
+                .build());
+        options.addOption(Option.builder("c")
+                .argName("name")
+                .hasArg()
+                .desc("name of generated JavaScript file (classes.js by default)")
+                .longOpt("classes-file")
+                .build());
+        options.addOption(Option.builder("t")
+                .argName("number")
+                .hasArg()
+                .desc("number of threads used to process stack traces (number of processors by default)")
+                .longOpt("threads")
+                .build());
+    }
+
+    private TeaVMDeobfuscatorRunner(CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    public static void main(String[] args) {
+        CommandLineParser parser = new DefaultParser();
+        CommandLine commandLine;
+        try {
+            commandLine = parser.parse(options, args);
+        } catch (ParseException e) {
+            printUsage();
+            return;
+        }
+
+        TeaVMDeobfuscatorRunner runner = new TeaVMDeobfuscatorRunner(commandLine);
+        try {
+            runner.parseArguments();
+            runner.runAll();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private void parseArguments() throws IOException {
+        DebugInformation debugInformation;
+        try (InputStream input = new FileInputStream(commandLine.getOptionValue('d'))) {
+            debugInformation = DebugInformation.read(input);
+        }
+        String classesFileName = commandLine.getOptionValue('c', "classes.js");
+        deobfuscator = new StackTraceDeobfuscator(debugInformation, classesFileName);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (commandLine.hasOption('t')) {
+            try {
+                threads = Integer.parseInt(commandLine.getOptionValue('t'));
+            } catch (NumberFormatException e) {
+                threads = 0;
+            }
+            if (threads <= 0) {
+                System.err.println("Wrong thread count: " + commandLine.getOptionValue('t'));
+                printUsage();
+            }
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    private void runAll() throws IOException {
+        try {
+            String[] args = commandLine.getArgs();
+            if (args.length == 0) {
+                process(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            } else {
+                for (String arg : args) {
+                    try (var reader = new InputStreamReader(new FileInputStream(arg), StandardCharsets.UTF_8)) {
+                        process(reader);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void process(InputStreamReader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        List<String> batch = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        while (true) {
+            String line = reader.readLine();
+            if (line == null || line.isBlank()) {
+                if (current.length() > 0) {
+                    batch.add(current.toString());
+                    current.setLength(0);
+                    if (batch.size() >= BATCH_SIZE) {
+                        flush(batch);
+                    }
+                }
+                if (line == null) {
+                    break;
+                }
+            } else {
+                if (current.length() > 0) {
+                    current.append('\n');
+                }
+                current.append(line);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> result;
+        try {
+            result = pool.submit(() -> deobfuscator.deobfuscateAll(batch)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        for (String stackTrace : result) {
+            out.println(stackTrace);
+            out.println();
+        }
+        out.flush();
+        batch.clear();
+    }
+
+    private static void printUsage() {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("java " + TeaVMDeobfuscatorRunner.class.getName()
+                + " [OPTIONS] [stack trace files]", options);
+        System.exit(-1);
+    }
+}
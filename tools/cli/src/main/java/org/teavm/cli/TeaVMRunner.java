@@ -426,7 +426,7 @@ public final class TeaVMRunner {
 
             try {
                 System.out.println("Waiting for changes...");
-                watcher.waitForChange(750);
+                watcher.waitForChange();
                 watcher.grabChangedFiles();
                 System.out.println();
                 System.out.println("Changes detected. Recompiling...");
@@ -62,6 +62,7 @@ import org.teavm.model.PreOptimizingClassHolderSource;
 import org.teavm.model.ReferenceCache;
 import org.teavm.model.transformation.AssertionRemoval;
 import org.teavm.parsing.ClasspathClassHolderSource;
+import org.teavm.parsing.CompositeClassHolderSource;
 import org.teavm.tooling.sources.SourceFileProvider;
 import org.teavm.vm.BuildTarget;
 import org.teavm.vm.DirectoryBuildTarget;
@@ -91,6 +92,7 @@ public class TeaVMTool {
     private List<String> classesToPreserve = new ArrayList<>();
     private TeaVMToolLog log = new EmptyTeaVMToolLog();
     private ClassLoader classLoader = TeaVMTool.class.getClassLoader();
+    private ClassHolderSource libraryClassSource;
     private DiskCachedClassReaderSource cachedClassSource;
     private DiskProgramCache programCache;
     private DiskMethodNodeCache astCache;
@@ -101,6 +103,7 @@ public class TeaVMTool {
     private TeaVMProgressListener progressListener;
     private TeaVM vm;
     private boolean fastDependencyAnalysis;
+    private boolean classPrefetching;
     private TeaVMOptimizationLevel optimizationLevel = TeaVMOptimizationLevel.SIMPLE;
     private List<SourceFileProvider> sourceFileProviders = new ArrayList<>();
     private DebugInformationBuilder debugEmitter;
@@ -252,6 +255,18 @@ public class TeaVMTool {
         this.fastDependencyAnalysis = fastDependencyAnalysis;
     }
 
+    public boolean isClassPrefetching() {
+        return classPrefetching;
+    }
+
+    /**
+     * Enables reading class files on worker threads ahead of demand in non-incremental builds.
+     * Can also be enabled by setting {@code teavm.classPrefetching} property to {@code true}.
+     */
+    public void setClassPrefetching(boolean classPrefetching) {
+        this.classPrefetching = classPrefetching;
+    }
+
     public void setMinHeapSize(int minHeapSize) {
         this.minHeapSize = minHeapSize;
     }
@@ -268,6 +283,15 @@ public class TeaVMTool {
         this.classLoader = classLoader;
     }
 
+    /**
+     * Specifies source of library classes that is shared with other builds. Classes found in this source take
+     * precedence over classes found via class loader. The source must be safe to use from multiple threads
+     * and must return pre-optimized classes. Ignored by incremental builds.
+     */
+    public void setLibraryClassSource(ClassHolderSource libraryClassSource) {
+        this.libraryClassSource = libraryClassSource;
+    }
+
     public WasmBinaryVersion getWasmVersion() {
         return wasmVersion;
     }
@@ -395,6 +419,7 @@ public class TeaVMTool {
     }
 
     public void generate() throws TeaVMToolException {
+        ClasspathClassHolderSource prefetchingClassSource = null;
         try {
             cancelled = false;
             log.info("Running TeaVM");
@@ -429,8 +454,22 @@ public class TeaVMTool {
                 vmBuilder.setClassLoader(classLoader).setClassSource(cachedClassSource);
                 cacheStatus = cachedClassSource;
             } else {
-                vmBuilder.setClassLoader(classLoader).setClassSource(new PreOptimizingClassHolderSource(
-                        new ClasspathClassHolderSource(classLoader, referenceCache)));
+                boolean prefetch = classPrefetching
+                        || Boolean.parseBoolean(properties.getProperty("teavm.classPrefetching", "false"));
+                ClasspathClassHolderSource classSource = new ClasspathClassHolderSource(classLoader,
+                        referenceCache, prefetch);
+                if (prefetch) {
+                    prefetchingClassSource = classSource;
+                    if (mainClass != null) {
+                        classSource.prefetch(mainClass);
+                    }
+                }
+                ClassHolderSource optimizedClassSource = new PreOptimizingClassHolderSource(classSource);
+                if (libraryClassSource != null) {
+                    optimizedClassSource = new CompositeClassHolderSource(List.of(libraryClassSource,
+                            optimizedClassSource));
+                }
+                vmBuilder.setClassLoader(classLoader).setClassSource(optimizedClassSource);
                 cacheStatus = AlwaysStaleCacheStatus.INSTANCE;
             }
 
@@ -519,6 +558,10 @@ public class TeaVMTool {
             printStats();
         } catch (IOException e) {
             throw new TeaVMToolException("IO error occurred", e);
+        } finally {
+            if (prefetchingClassSource != null) {
+                prefetchingClassSource.close();
+            }
         }
     }
 
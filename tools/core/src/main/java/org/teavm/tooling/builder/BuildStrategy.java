@@ -36,6 +36,13 @@ public interface BuildStrategy {
 
     void setClassPathEntries(List<String> entries);
 
+    /**
+     * Marks class path entries that don't change between builds, so that strategy can reuse classes
+     * parsed from them. These entries must also be passed to {@link #setClassPathEntries(List)}.
+     */
+    default void setLibraryClassPathEntries(List<String> entries) {
+    }
+
     void setTargetType(TeaVMTargetType targetType);
 
     void setMainClass(String mainClass);
@@ -69,6 +69,12 @@ public class RemoteBuildStrategy implements BuildStrategy {
         request.classPath.addAll(entries);
     }
 
+    @Override
+    public void setLibraryClassPathEntries(List<String> entries) {
+        request.libraryClassPath.clear();
+        request.libraryClassPath.addAll(entries);
+    }
+
     @Override
     public void setTargetType(TeaVMTargetType targetType) {
         request.targetType = targetType;
@@ -31,9 +31,10 @@ import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -57,6 +58,7 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
     private File incrementalCache;
     private ClassLoader lastJarClassLoader;
     private List<String> lastJarClassPath;
+    private final LibraryClassCache libraryClassCache = new LibraryClassCache();
 
     BuildDaemon(boolean incremental) throws RemoteException {
         super();
@@ -144,7 +146,13 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         tool.setEntryPointName(request.entryPointName);
         tool.setTargetDirectory(new File(request.targetDirectory));
         tool.setTargetFileName(request.tagetFileName);
-        tool.setClassLoader(buildClassLoader(request.classPath, incremental && request.incremental));
+        LibraryClassCache.Entry libraries = null;
+        if (!tool.isIncremental() && !request.libraryClassPath.isEmpty()) {
+            libraries = libraryClassCache.acquire(request.libraryClassPath);
+            setupLibraryClasses(tool, request, libraries);
+        } else {
+            tool.setClassLoader(buildClassLoader(request.classPath, incremental && request.incremental));
+        }
 
         tool.setSourceMapsFileGenerated(request.sourceMapsFileGenerated);
         tool.setDebugInformationGenerated(request.debugInformationGenerated);
@@ -181,6 +189,10 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
             System.out.println("Build complete");
         } catch (TeaVMToolException | RuntimeException | Error e) {
             response.exception = e;
+        } finally {
+            if (libraries != null) {
+                libraryClassCache.release(libraries);
+            }
         }
 
         if (response.exception == null) {
@@ -192,15 +204,39 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         return response;
     }
 
-    private ClassLoader buildClassLoader(List<String> classPathEntries, boolean incremental) {
+    private void setupLibraryClasses(TeaVMTool tool, RemoteBuildRequest request, LibraryClassCache.Entry libraries) {
+        Set<String> libraryEntries = new HashSet<>(request.libraryClassPath);
+        URL[] urls = request.classPath.stream()
+                .filter(entry -> !libraryEntries.contains(entry))
+                .map(BuildDaemon::toUrl)
+                .toArray(URL[]::new);
+        URLClassLoader classLoader = new URLClassLoader(urls, libraries.classLoader);
+        tool.setClassLoader(classLoader);
+
+        // Package mappings declared by project classes would affect how library classes are resolved,
+        // so classes parsed for other builds can't be used in this case
+        boolean hasOwnProperties;
+        try {
+            hasOwnProperties = classLoader.findResources("META-INF/teavm.properties").hasMoreElements();
+        } catch (IOException e) {
+            hasOwnProperties = true;
+        }
+        if (!hasOwnProperties) {
+            System.out.println("Using shared library classes");
+            tool.setLibraryClassSource(libraries.classSource);
+        }
+    }
+
+    private static URL toUrl(String entry) {
+        try {
+            return new File(entry).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(entry);
+        }
+    }
+
+    private synchronized ClassLoader buildClassLoader(List<String> classPathEntries, boolean incremental) {
         System.out.println("Classpath: " + classPathEntries);
-        Function<String, URL> mapper = entry -> {
-            try {
-                return new File(entry).toURI().toURL();
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(entry);
-            }
-        };
         List<String> jarEntries = classPathEntries.stream()
                 .filter(entry -> entry.endsWith(".jar"))
                 .collect(Collectors.toList());
@@ -218,7 +254,7 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         }
         if (jarClassLoader == null) {
             URL[] jarUrls = jarEntries.stream()
-                    .map(mapper)
+                    .map(BuildDaemon::toUrl)
                     .toArray(URL[]::new);
             jarClassLoader = new URLClassLoader(jarUrls);
         }
@@ -229,7 +265,7 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
 
         URL[] urls = classPathEntries.stream()
                 .filter(entry -> !entry.endsWith(".jar"))
-                .map(mapper)
+                .map(BuildDaemon::toUrl)
                 .toArray(URL[]::new);
 
         return new URLClassLoader(urls, jarClassLoader);
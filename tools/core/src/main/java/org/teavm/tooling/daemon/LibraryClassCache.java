@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tooling.daemon;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.model.ClassHolderSource;
+import org.teavm.model.PreOptimizingClassHolderSource;
+import org.teavm.model.ReferenceCache;
+import org.teavm.model.SynchronizedClassHolderSource;
+import org.teavm.parsing.ClasspathClassHolderSource;
+
+/**
+ * Keeps parsed and pre-optimized classes of libraries (i.e. class path entries that don't change between
+ * builds, like TeaVM class library) so that builds served by daemon don't parse them again. Entries are
+ * identified by library files along with their sizes and modification dates, so a rebuilt library
+ * gets a fresh entry. Each build holds the entry it uses from {@link #acquire(List)} till
+ * {@link #release(Entry)}, so that class loader of an evicted entry is only closed after the last build
+ * that uses it completes.
+ */
+class LibraryClassCache {
+    private static final int MAX_ENTRIES = 4;
+    private final int maxEntries;
+    private final Map<List<String>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    LibraryClassCache() {
+        this(MAX_ENTRIES);
+    }
+
+    LibraryClassCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    synchronized Entry acquire(List<String> libraryClassPath) {
+        List<String> key = new ArrayList<>();
+        for (String path : libraryClassPath) {
+            File file = new File(path);
+            key.add(path + ":" + file.length() + ":" + file.lastModified());
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(libraryClassPath);
+            entries.put(key, entry);
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxEntries) {
+                Entry evicted = iterator.next();
+                iterator.remove();
+                evicted.evicted = true;
+                if (evicted.users == 0) {
+                    evicted.close();
+                }
+            }
+        }
+        entry.users++;
+        return entry;
+    }
+
+    synchronized void release(Entry entry) {
+        if (--entry.users == 0 && entry.evicted) {
+            entry.close();
+        }
+    }
+
+    static class Entry {
+        final URLClassLoader classLoader;
+        final ClassHolderSource classSource;
+        private int users;
+        private boolean evicted;
+        private boolean closed;
+
+        Entry(List<String> libraryClassPath) {
+            URL[] urls = new URL[libraryClassPath.size()];
+            for (int i = 0; i < urls.length; ++i) {
+                try {
+                    urls[i] = new File(libraryClassPath.get(i)).toURI().toURL();
+                } catch (MalformedURLException e) {
+                    throw new RuntimeException(libraryClassPath.get(i));
+                }
+            }
+            classLoader = new URLClassLoader(urls);
+            classSource = new SynchronizedClassHolderSource(new PreOptimizingClassHolderSource(
+                    new ClasspathClassHolderSource(classLoader, new ReferenceCache())));
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private void close() {
+            closed = true;
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                // Nobody uses this entry anymore, so failing to close it only leaks file handles
+            }
+        }
+    }
+}
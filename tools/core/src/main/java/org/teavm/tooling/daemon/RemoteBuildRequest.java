@@ -29,6 +29,7 @@ public class RemoteBuildRequest implements Serializable {
     public final List<String> sourceDirectories = new ArrayList<>();
     public final List<String> sourceJarFiles = new ArrayList<>();
     public final List<String> classPath = new ArrayList<>();
+    public final List<String> libraryClassPath = new ArrayList<>();
     public String[] transformers;
     public String[] classesToPreserve;
     public TeaVMTargetType targetType;
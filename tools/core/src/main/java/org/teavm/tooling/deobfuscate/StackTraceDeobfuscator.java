@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tooling.deobfuscate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.teavm.debugging.information.DebugInformation;
+import org.teavm.debugging.information.DeobfuscatedFrame;
+import org.teavm.debugging.information.DeobfuscationIndex;
+
+/**
+ * Deobfuscates JavaScript stack traces on JVM side, using debug information produced by TeaVM.
+ * Instances are thread-safe and are supposed to be long-lived: symbol tables are indexed once
+ * and frames that were already resolved are served from cache.
+ */
+public class StackTraceDeobfuscator {
+    private static final Pattern FRAME_PATTERN = Pattern.compile(""
+            + "(^ *at ([^(]+) *\\((.+):([0-9]+):([0-9]+)\\) *$)|"
+            + "(^([^@]*)@(.+):([0-9]+):([0-9]+)$)");
+    private static final int MAX_CACHED_FRAMES = 1 << 16;
+    private final DeobfuscationIndex index;
+    private final String classesFileName;
+    private final Map<Long, List<String>> frameCache;
+
+    public StackTraceDeobfuscator(DebugInformation debugInformation, String classesFileName) {
+        this(new DeobfuscationIndex(debugInformation), classesFileName);
+    }
+
+    public StackTraceDeobfuscator(DeobfuscationIndex index, String classesFileName) {
+        this(index, classesFileName, MAX_CACHED_FRAMES);
+    }
+
+    StackTraceDeobfuscator(DeobfuscationIndex index, String classesFileName, int maxCachedFrames) {
+        this.index = index;
+        this.classesFileName = classesFileName;
+        frameCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+                return size() > maxCachedFrames;
+            }
+        };
+    }
+
+    public String deobfuscate(String stackTrace) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : stackTrace.split("\r?\n", -1)) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            deobfuscateLine(line, sb);
+        }
+        return sb.toString();
+    }
+
+    public List<String> deobfuscateAll(List<String> stackTraces) {
+        if (stackTraces.size() < 2) {
+            List<String> result = new ArrayList<>(stackTraces.size());
+            for (String stackTrace : stackTraces) {
+                result.add(deobfuscate(stackTrace));
+            }
+            return result;
+        }
+        return stackTraces.parallelStream().map(this::deobfuscate).collect(Collectors.toList());
+    }
+
+    private void deobfuscateLine(String line, StringBuilder sb) {
+        Matcher matcher = FRAME_PATTERN.matcher(line);
+        if (!matcher.matches()) {
+            sb.append(line);
+            return;
+        }
+        int groupOffset = matcher.group(1) != null ? 1 : 6;
+        String fileName = matcher.group(2 + groupOffset);
+        if (!isClassesFile(fileName)) {
+            sb.append(line);
+            return;
+        }
+        int lineNumber = Integer.parseInt(matcher.group(3 + groupOffset));
+        int columnNumber = Integer.parseInt(matcher.group(4 + groupOffset));
+        List<String> frames = getFrames(lineNumber - 1, columnNumber - 1);
+        if (frames.isEmpty()) {
+            sb.append(line);
+            return;
+        }
+        String indent = line.substring(0, line.length() - line.stripLeading().length());
+        if (indent.isEmpty()) {
+            indent = "    ";
+        }
+        for (int i = 0; i < frames.size(); ++i) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(indent).append("at ").append(frames.get(i));
+        }
+    }
+
+    private boolean isClassesFile(String fileName) {
+        if (fileName.equals(classesFileName)) {
+            return true;
+        }
+        int queryIndex = fileName.indexOf('?');
+        if (queryIndex >= 0) {
+            fileName = fileName.substring(0, queryIndex);
+        }
+        return fileName.endsWith("/" + classesFileName);
+    }
+
+    // Least recently used frames are evicted one by one, so that hot frames survive a burst of rare ones.
+    // Frames are resolved outside of the lock, the index itself is thread-safe.
+    private List<String> getFrames(int line, int column) {
+        long key = ((long) line << 32) | (column & 0xFFFFFFFFL);
+        List<String> result;
+        synchronized (frameCache) {
+            result = frameCache.get(key);
+        }
+        if (result == null) {
+            result = formatFrames(index.getFrames(line, column));
+            synchronized (frameCache) {
+                frameCache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    boolean isFrameCached(int line, int column) {
+        synchronized (frameCache) {
+            return frameCache.containsKey(((long) line << 32) | (column & 0xFFFFFFFFL));
+        }
+    }
+
+    private static List<String> formatFrames(List<DeobfuscatedFrame> frames) {
+        List<String> result = new ArrayList<>(frames.size());
+        for (DeobfuscatedFrame frame : frames) {
+            String fileName = frame.getFileName();
+            if (fileName != null) {
+                fileName = fileName.substring(fileName.lastIndexOf('/') + 1);
+            }
+            result.add(new DeobfuscatedFrame(frame.getMethod(), fileName, frame.getLine()).toString());
+        }
+        return List.copyOf(result);
+    }
+}
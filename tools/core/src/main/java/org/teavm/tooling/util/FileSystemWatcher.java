@@ -40,7 +40,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class FileSystemWatcher {
+    /**
+     * How long watcher waits for more changes after the last one, in milliseconds. IDEs and build tools
+     * usually write class files in a short burst, so this should be enough to gather the whole burst.
+     */
+    public static final int DEFAULT_QUIET_PERIOD = 300;
+
+    /**
+     * Upper bound of time between first detected change and reporting changes, in milliseconds, so that
+     * continuous stream of changes does not postpone rebuild forever.
+     */
+    public static final int DEFAULT_MAX_DELAY = 3000;
+
     private WatchService watchService;
+    private List<Path> roots = new ArrayList<>();
     private Map<WatchKey, Path> keysToPath = new HashMap<>();
     private Map<Path, WatchKey> pathsToKey = new HashMap<>();
     private Map<Path, Integer> refCount = new HashMap<>();
@@ -53,6 +66,7 @@ public class FileSystemWatcher {
             File file = path.toFile();
             if (file.exists()) {
                 if (file.isDirectory()) {
+                    roots.add(path);
                     register(path);
                 }
             }
@@ -104,13 +118,32 @@ public class FileSystemWatcher {
         }
     }
 
+    public void waitForChange() throws InterruptedException, IOException {
+        waitForChange(DEFAULT_QUIET_PERIOD, DEFAULT_MAX_DELAY);
+    }
+
     public void waitForChange(int timeout) throws InterruptedException, IOException {
+        waitForChange(timeout, 0);
+    }
+
+    /**
+     * Waits until some changes occur, then gathers subsequent changes until either no changes occur
+     * during {@code quietPeriod} or {@code maxDelay} passes since first change.
+     *
+     * @param quietPeriod time in milliseconds.
+     * @param maxDelay time in milliseconds, non-positive value means no limit.
+     */
+    public void waitForChange(int quietPeriod, int maxDelay) throws InterruptedException, IOException {
         if (!hasChanges()) {
             take();
         }
-        if (timeout > 0) {
-            while (poll(timeout)) {
-                // continue polling
+        if (quietPeriod > 0) {
+            long deadline = maxDelay > 0 ? System.currentTimeMillis() + maxDelay : Long.MAX_VALUE;
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !poll((int) Math.min(quietPeriod, remaining))) {
+                    break;
+                }
             }
         }
         pollChanges();
@@ -122,6 +155,44 @@ public class FileSystemWatcher {
         return result;
     }
 
+    /**
+     * Returns names of classes which class files were created, modified or deleted since last call,
+     * and forgets about them. Other changed files are forgotten as well.
+     */
+    public List<String> grabChangedClasses() {
+        Set<String> result = new LinkedHashSet<>();
+        for (File file : grabChangedFiles()) {
+            String className = getClassName(file.toPath());
+            if (className != null) {
+                result.add(className);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private String getClassName(Path path) {
+        String fileName = path.getFileName().toString();
+        if (!fileName.endsWith(".class")) {
+            return null;
+        }
+        Path root = null;
+        for (Path candidate : roots) {
+            if (path.startsWith(candidate) && (root == null || candidate.getNameCount() > root.getNameCount())) {
+                root = candidate;
+            }
+        }
+        if (root == null) {
+            return null;
+        }
+        Path relative = root.relativize(path);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < relative.getNameCount() - 1; ++i) {
+            sb.append(relative.getName(i)).append('.');
+        }
+        sb.append(fileName, 0, fileName.length() - ".class".length());
+        return sb.toString();
+    }
+
     private void take() throws InterruptedException, IOException {
         while (true) {
             WatchKey key = watchService.take();
@@ -159,6 +230,10 @@ public class FileSystemWatcher {
     private boolean filter(WatchKey key) throws IOException {
         boolean hasNew = false;
         for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                hasNew |= rescan(key);
+                continue;
+            }
             List<Path> paths = filter(key, event);
             if (!paths.isEmpty()) {
                 changedFiles.addAll(paths.stream().map(Path::toFile).collect(Collectors.toList()));
@@ -169,6 +244,21 @@ public class FileSystemWatcher {
         return hasNew;
     }
 
+    // Some events were lost, so we can't tell which files in directory changed.
+    // Report all of them to avoid missing changes.
+    private boolean rescan(WatchKey key) {
+        Path path = keysToPath.get(key);
+        if (path == null) {
+            return false;
+        }
+        File[] files = path.toFile().listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            return false;
+        }
+        changedFiles.addAll(Arrays.asList(files));
+        return true;
+    }
+
     private List<Path> filter(WatchKey baseKey, WatchEvent<?> event) throws IOException {
         if (!(event.context() instanceof Path)) {
             return Collections.emptyList();
@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tooling.daemon;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibraryClassCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameLibrariesShareEntry() throws IOException {
+        var cache = new LibraryClassCache(2);
+        var classPath = library("a");
+
+        var first = cache.acquire(classPath);
+        var second = cache.acquire(classPath);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void modifiedLibraryGetsFreshEntry() throws IOException {
+        var cache = new LibraryClassCache(2);
+        var classPath = library("a");
+        var first = cache.acquire(classPath);
+        cache.release(first);
+
+        var file = new File(classPath.get(0));
+        var lastModified = file.lastModified();
+        writeJar(file, "modified content");
+        assertTrue(file.setLastModified(lastModified + 1000));
+        var second = cache.acquire(classPath);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void unusedEntryClosedOnEviction() throws IOException {
+        var cache = new LibraryClassCache(1);
+        var first = cache.acquire(library("a"));
+        cache.release(first);
+
+        cache.acquire(library("b"));
+
+        assertTrue(first.isClosed());
+        assertNull(first.classLoader.getResource("resource.txt"));
+    }
+
+    @Test
+    public void evictedEntryClosedAfterLastUserReleasesIt() throws IOException {
+        var cache = new LibraryClassCache(1);
+        var classPath = library("a");
+        var first = cache.acquire(classPath);
+        cache.acquire(classPath);
+
+        cache.acquire(library("b"));
+        assertFalse(first.isClosed());
+        assertNotNull(first.classLoader.getResource("resource.txt"));
+
+        cache.release(first);
+        assertFalse(first.isClosed());
+        assertNotNull(first.classLoader.getResource("resource.txt"));
+
+        cache.release(first);
+        assertTrue(first.isClosed());
+    }
+
+    @Test
+    public void releasedEntryKeptUntilEvicted() throws IOException {
+        var cache = new LibraryClassCache(2);
+        var first = cache.acquire(library("a"));
+        cache.release(first);
+
+        cache.acquire(library("b"));
+
+        assertFalse(first.isClosed());
+        assertSame(first, cache.acquire(library("a")));
+    }
+
+    private List<String> library(String name) throws IOException {
+        var file = new File(folder.getRoot(), name + ".jar");
+        if (!file.exists()) {
+            writeJar(file, name);
+        }
+        return List.of(file.getPath());
+    }
+
+    private static void writeJar(File file, String content) throws IOException {
+        try (var output = new JarOutputStream(new FileOutputStream(file))) {
+            output.putNextEntry(new JarEntry("resource.txt"));
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+            output.closeEntry();
+        }
+    }
+}
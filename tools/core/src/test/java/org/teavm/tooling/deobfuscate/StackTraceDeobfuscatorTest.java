@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tooling.deobfuscate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.teavm.backend.javascript.codegen.LocationProvider;
+import org.teavm.debugging.information.DebugInformation;
+import org.teavm.debugging.information.DebugInformationBuilder;
+import org.teavm.debugging.information.DeobfuscationIndex;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.ReferenceCache;
+import org.teavm.model.ValueType;
+
+public class StackTraceDeobfuscatorTest {
+    private DeobfuscationIndex index;
+
+    @Before
+    public void buildIndex() throws IOException {
+        int[] position = new int[2];
+        DebugInformationBuilder builder = new DebugInformationBuilder(new ReferenceCache());
+        builder.setLocationProvider(new LocationProvider() {
+            @Override
+            public int getLine() {
+                return position[0];
+            }
+
+            @Override
+            public int getColumn() {
+                return position[1];
+            }
+
+            @Override
+            public int getOffset() {
+                return 0;
+            }
+        });
+
+        builder.emitClass("com.example.Foo");
+        builder.emitMethod(new MethodDescriptor("main", ValueType.VOID));
+        builder.emitLocation("com/example/Foo.java", 10);
+        position[1] = 20;
+        builder.emitLocation("com/example/Foo.java", 12);
+
+        position[0] = 1;
+        position[1] = 0;
+        builder.emitClass("com.example.Bar");
+        builder.emitMethod(new MethodDescriptor("run", ValueType.INTEGER));
+        builder.emitLocation("com/example/Bar.java", 5);
+
+        position[0] = 2;
+        builder.emitClass(null);
+        builder.emitMethod(null);
+        builder.emitLocation(null, -1);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        builder.getDebugInformation().write(output);
+        index = new DeobfuscationIndex(DebugInformation.read(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test
+    public void chromeFrames() {
+        StackTraceDeobfuscator deobfuscator = new StackTraceDeobfuscator(index, "classes.js");
+        String trace = "Error: boom\n"
+                + "    at $rt_throw (http://localhost/classes.js:1:5)\n"
+                + "    at foo (http://localhost/classes.js:1:25)\n"
+                + "    at bar (http://localhost/other.js:1:25)\n"
+                + "    at baz (http://localhost/classes.js:3:1)";
+        assertEquals("Error: boom\n"
+                + "    at com.example.Foo.main(Foo.java:10)\n"
+                + "    at com.example.Foo.main(Foo.java:12)\n"
+                + "    at bar (http://localhost/other.js:1:25)\n"
+                + "    at baz (http://localhost/classes.js:3:1)", deobfuscator.deobfuscate(trace));
+    }
+
+    @Test
+    public void firefoxFrames() {
+        StackTraceDeobfuscator deobfuscator = new StackTraceDeobfuscator(index, "classes.js");
+        String trace = "foo@http://localhost/classes.js?v=2:2:3\nbar@http://localhost/classes.js:1:1";
+        assertEquals("    at com.example.Bar.run(Bar.java:5)\n    at com.example.Foo.main(Foo.java:10)",
+                deobfuscator.deobfuscate(trace));
+    }
+
+    @Test
+    public void batch() {
+        StackTraceDeobfuscator deobfuscator = new StackTraceDeobfuscator(index, "classes.js");
+        List<String> result = deobfuscator.deobfuscateAll(List.of("    at a (classes.js:1:1)",
+                "    at b (classes.js:2:1)", "    at c (classes.js:1:30)"));
+        assertEquals(List.of("    at com.example.Foo.main(Foo.java:10)", "    at com.example.Bar.run(Bar.java:5)",
+                "    at com.example.Foo.main(Foo.java:12)"), result);
+    }
+
+    @Test
+    public void leastRecentlyUsedFrameEvicted() {
+        StackTraceDeobfuscator deobfuscator = new StackTraceDeobfuscator(index, "classes.js", 2);
+        deobfuscator.deobfuscate("    at a (classes.js:1:1)");
+        deobfuscator.deobfuscate("    at b (classes.js:2:1)");
+        deobfuscator.deobfuscate("    at a (classes.js:1:1)");
+        deobfuscator.deobfuscate("    at c (classes.js:1:30)");
+
+        assertTrue(deobfuscator.isFrameCached(0, 0));
+        assertFalse(deobfuscator.isFrameCached(1, 0));
+        assertTrue(deobfuscator.isFrameCached(0, 29));
+        assertEquals("    at com.example.Bar.run(Bar.java:5)", deobfuscator.deobfuscate("    at b (classes.js:2:1)"));
+    }
+}
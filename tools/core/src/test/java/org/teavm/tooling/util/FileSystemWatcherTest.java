@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tooling.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSystemWatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private FileSystemWatcher watcher;
+
+    @Before
+    public void createWatcher() throws IOException {
+        root = folder.getRoot();
+        new File(root, "foo").mkdirs();
+        watcher = new FileSystemWatcher(new String[] { root.getPath() });
+    }
+
+    @After
+    public void disposeWatcher() throws IOException {
+        watcher.dispose();
+    }
+
+    @Test
+    public void reportsClassNames() throws Exception {
+        write("foo/A.class");
+        write("B.class");
+        write("foo/resource.txt");
+
+        watcher.waitForChange(100, 0);
+
+        assertEquals(Set.of("foo.A", "B"), new HashSet<>(watcher.grabChangedClasses()));
+        assertEquals(List.of(), watcher.grabChangedFiles());
+    }
+
+    @Test
+    public void coalescesBurstWithinQuietPeriod() throws Exception {
+        var writer = new Thread(() -> {
+            try {
+                for (var i = 0; i < 5; ++i) {
+                    write("foo/C" + i + ".class");
+                    Thread.sleep(50);
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+
+        watcher.waitForChange(500, 0);
+        writer.join();
+
+        var expected = new HashSet<String>();
+        for (var i = 0; i < 5; ++i) {
+            expected.add("foo.C" + i);
+        }
+        assertEquals(expected, new HashSet<>(watcher.grabChangedClasses()));
+        assertEquals(List.of(), watcher.grabChangedClasses());
+    }
+
+    @Test
+    public void maxDelayLimitsContinuousChanges() throws Exception {
+        var stop = new AtomicBoolean();
+        var writer = new Thread(() -> {
+            try {
+                var i = 0;
+                while (!stop.get()) {
+                    write("foo/D" + i++ + ".class");
+                    Thread.sleep(20);
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+
+        long start = System.currentTimeMillis();
+        try {
+            watcher.waitForChange(300, 500);
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("Waited for " + elapsed + " ms", elapsed < 3000);
+        assertTrue(watcher.grabChangedClasses().contains("foo.D0"));
+    }
+
+    @Test
+    public void rescansDirectoryAfterOverflow() throws Exception {
+        // Watch service reports OVERFLOW instead of individual events once too many events are queued
+        // for a single key, so the rest of the files can only be found by rescanning the directory.
+        var count = 2000;
+        for (var i = 0; i < count; ++i) {
+            write("foo/E" + i + ".class");
+        }
+
+        watcher.waitForChange(200, 0);
+
+        var changed = new HashSet<>(watcher.grabChangedClasses());
+        var missing = new ArrayList<String>();
+        for (var i = 0; i < count; ++i) {
+            if (!changed.contains("foo.E" + i)) {
+                missing.add("foo.E" + i);
+            }
+        }
+        assertEquals(List.of(), missing);
+        assertEquals(count, changed.size());
+    }
+
+    @Test
+    public void registersCreatedDirectories() throws Exception {
+        write("bar/F.class");
+        watcher.waitForChange(200, 0);
+        assertEquals(List.of("bar.F"), watcher.grabChangedClasses());
+
+        write("bar/G.class");
+        watcher.waitForChange(200, 0);
+        assertEquals(List.of("bar.G"), watcher.grabChangedClasses());
+    }
+
+    private void write(String path) throws IOException {
+        var file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new ArrayList<>(List.of("x")));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.teavm.devserver;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -33,7 +34,6 @@ import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -44,9 +44,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -67,6 +64,7 @@ import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.eclipse.jetty.websocket.client.io.UpgradeListener;
 import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.teavm.backend.javascript.HotSwapSnapshot;
 import org.teavm.backend.javascript.JSModuleType;
 import org.teavm.backend.javascript.JavaScriptTarget;
 import org.teavm.cache.InMemoryMethodNodeCache;
@@ -83,6 +81,9 @@ import org.teavm.model.PreOptimizingClassHolderSource;
 import org.teavm.model.ReferenceCache;
 import org.teavm.parsing.ClasspathResourceMapper;
 import org.teavm.parsing.resource.ClasspathResourceReader;
+import org.teavm.parsing.resource.CompositeResourceReader;
+import org.teavm.parsing.resource.JarResourceCache;
+import org.teavm.parsing.resource.JarResourceReader;
 import org.teavm.parsing.resource.ResourceClassHolderMapper;
 import org.teavm.tooling.EmptyTeaVMToolLog;
 import org.teavm.tooling.TeaVMProblemRenderer;
@@ -113,6 +114,7 @@ public class CodeServlet extends HttpServlet {
     private boolean indicator;
     private boolean deobfuscateStack;
     private boolean automaticallyReloaded;
+    private boolean hotSwap;
     private int port;
     private int debugPort;
     private String proxyUrl;
@@ -126,10 +128,13 @@ public class CodeServlet extends HttpServlet {
     private JSModuleType jsModuleType;
 
     private Map<String, Supplier<InputStream>> sourceFileCache = new HashMap<>();
+    private final Map<String, JarResourceReader> sourceJars = new HashMap<>();
 
     private volatile boolean stopped;
     private FileSystemWatcher watcher;
     private MemoryCachedClassReaderSource classSource;
+    private JarResourceCache jarCache;
+    private CompositeResourceReader classPathReader;
     private InMemoryProgramCache programCache;
     private InMemoryMethodNodeCache astCache;
     private int lastReachedClasses;
@@ -137,7 +142,12 @@ public class CodeServlet extends HttpServlet {
 
     private final Object contentLock = new Object();
     private final Map<String, byte[]> content = new HashMap<>();
+    private DebugInformation debugInformation;
+    private DebugInformation pendingDebugInformation;
     private MemoryBuildTarget buildTarget = new MemoryBuildTarget();
+    private volatile int buildId;
+    private HotSwapSnapshot hotSwapSnapshot;
+    private HotSwapSnapshot pendingHotSwapSnapshot;
 
     private final Set<ProgressHandler> progressHandlers = new LinkedHashSet<>();
     private final Object statusLock = new Object();
@@ -201,6 +211,10 @@ public class CodeServlet extends HttpServlet {
         this.automaticallyReloaded = automaticallyReloaded;
     }
 
+    public void setHotSwap(boolean hotSwap) {
+        this.hotSwap = hotSwap;
+    }
+
     public void setProxyUrl(String proxyUrl) {
         this.proxyUrl = proxyUrl;
     }
@@ -371,6 +385,9 @@ public class CodeServlet extends HttpServlet {
                     boolean firstTime;
                     synchronized (contentLock) {
                         fileContent = content.get(fileName);
+                        if (fileContent == null) {
+                            fileContent = generateDebugFile(fileName);
+                        }
                         firstTime = this.firstTime;
                     }
                     if (fileContent != null) {
@@ -634,6 +651,12 @@ public class CodeServlet extends HttpServlet {
     @Override
     public void destroy() {
         super.destroy();
+        synchronized (sourceJars) {
+            for (JarResourceReader reader : sourceJars.values()) {
+                closeSourceJar(reader);
+            }
+            sourceJars.clear();
+        }
         try {
             wsFactory.stop();
         } catch (Exception e) {
@@ -722,29 +745,39 @@ public class CodeServlet extends HttpServlet {
     }
 
     private Supplier<InputStream> findSourceFileInZip(File zipFile, String fileName) {
-        try (ZipFile zip = new ZipFile(zipFile)) {
-            ZipEntry entry = zip.getEntry(fileName);
-            if (entry == null) {
+        if (!getSourceJar(zipFile).hasResource(fileName)) {
+            return null;
+        }
+        // Suppliers are cached, so look the reader up on each call to pick up a rebuilt jar
+        return () -> {
+            try {
+                return getSourceJar(zipFile).openResource(fileName);
+            } catch (IOException e) {
                 return null;
             }
-            return () -> {
-                try {
-                    ZipInputStream input = new ZipInputStream(new FileInputStream(zipFile));
-                    while (true) {
-                        ZipEntry e = input.getNextEntry();
-                        if (e == null) {
-                            return null;
-                        }
-                        if (e.getName().equals(fileName)) {
-                            return input;
-                        }
-                    }
-                } catch (IOException e) {
-                    return null;
+        };
+    }
+
+    private JarResourceReader getSourceJar(File zipFile) {
+        synchronized (sourceJars) {
+            String key = zipFile.getAbsolutePath();
+            JarResourceReader reader = sourceJars.get(key);
+            if (reader == null || !reader.isUpToDate()) {
+                if (reader != null) {
+                    closeSourceJar(reader);
                 }
-            };
+                reader = new JarResourceReader(zipFile);
+                sourceJars.put(key, reader);
+            }
+            return reader;
+        }
+    }
+
+    private void closeSourceJar(JarResourceReader reader) {
+        try {
+            reader.close();
         } catch (IOException e) {
-            return null;
+            log.debug("Error closing source jar " + reader.getFile(), e);
         }
     }
 
@@ -758,7 +791,7 @@ public class CodeServlet extends HttpServlet {
             resp.setContentType("text/plain");
             noCache(resp);
             resp.getWriter().write("function main() { }\n");
-            resp.getWriter().write(getIndicatorScript(true));
+            resp.getWriter().write(getIndicatorScript(true, buildId));
         }
         resp.getWriter().flush();
         log.debug("Served boot file");
@@ -785,7 +818,7 @@ public class CodeServlet extends HttpServlet {
                         waiting = true;
                     }
                     if (fileSystemWatched) {
-                        watcher.waitForChange(750);
+                        watcher.waitForChange();
                         log.info("Changes detected. Recompiling.");
                     } else {
                         while (true) {
@@ -807,7 +840,7 @@ public class CodeServlet extends HttpServlet {
                     log.info("Build triggered by user");
                 }
 
-                List<String> staleClasses = getChangedClasses(watcher.grabChangedFiles());
+                List<String> staleClasses = watcher.grabChangedClasses();
                 if (staleClasses.size() > 15) {
                     List<String> displayedStaleClasses = staleClasses.subList(0, 10);
                     log.debug("Following classes changed (" + staleClasses.size() + "): "
@@ -832,6 +865,7 @@ public class CodeServlet extends HttpServlet {
         watcher = new FileSystemWatcher(classPath);
 
         classSource = createCachedSource();
+        jarCache = new JarResourceCache();
         astCache = new InMemoryMethodNodeCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
         programCache = new InMemoryProgramCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
     }
@@ -847,12 +881,20 @@ public class CodeServlet extends HttpServlet {
         } catch (IOException e) {
             log.debug("Exception caught", e);
         }
+        if (classPathReader != null) {
+            classPathReader.close();
+        }
+        jarCache.close();
         classSource = null;
+        classPathReader = null;
+        jarCache = null;
         watcher = null;
         astCache = null;
         programCache = null;
-        synchronized (content) {
+        hotSwapSnapshot = null;
+        synchronized (contentLock) {
             content.clear();
+            debugInformation = null;
         }
         buildTarget.clear();
 
@@ -865,7 +907,14 @@ public class CodeServlet extends HttpServlet {
 
         DebugInformationBuilder debugInformationBuilder = new DebugInformationBuilder(referenceCache);
         ClassLoader classLoader = initClassLoader();
-        ClasspathResourceReader reader = new ClasspathResourceReader(classLoader);
+        CompositeResourceReader reader = new CompositeResourceReader(List.of(
+                new ClasspathResourceReader(CodeServlet.class.getClassLoader())));
+        reader.add(CompositeResourceReader.fromClassPath(jarCache, classPath));
+        // Jars that are still on the class path and unmodified stay open, since the new reader holds them too
+        if (classPathReader != null) {
+            classPathReader.close();
+        }
+        classPathReader = reader;
         ResourceClassHolderMapper rawMapper = new ResourceClassHolderMapper(reader, referenceCache);
         Function<String, ClassHolder> classPathMapper = new ClasspathResourceMapper(classLoader, referenceCache,
                 rawMapper);
@@ -886,6 +935,7 @@ public class CodeServlet extends HttpServlet {
 
         jsTarget.setStackTraceIncluded(true);
         jsTarget.setObfuscated(false);
+        jsTarget.setHotSwapEnabled(hotSwap && automaticallyReloaded);
         jsTarget.setAstCache(astCache);
         jsTarget.setDebugEmitter(debugInformationBuilder);
         if (jsModuleType != null) {
@@ -912,6 +962,7 @@ public class CodeServlet extends HttpServlet {
         vm.build(buildTarget, fileName);
         addIndicator();
         generateDebug(debugInformationBuilder);
+        pendingHotSwapSnapshot = jsTarget.getHotSwapSnapshot();
 
         postBuild(vm, startTime);
     }
@@ -933,7 +984,7 @@ public class CodeServlet extends HttpServlet {
     }
 
     private void addIndicator() {
-        String script = getIndicatorScript(false);
+        String script = getIndicatorScript(false, buildId + 1);
         try (Writer writer = new OutputStreamWriter(buildTarget.appendToResource(fileName), StandardCharsets.UTF_8)) {
             writer.append("\n");
             writer.append(script);
@@ -942,7 +993,7 @@ public class CodeServlet extends HttpServlet {
         }
     }
 
-    private String getIndicatorScript(boolean boot) {
+    private String getIndicatorScript(boolean boot, int build) {
         try (Reader reader = new InputStreamReader(CodeServlet.class.getResourceAsStream("indicator.js"),
                 StandardCharsets.UTF_8)) {
             String script = IOUtils.toString(reader);
@@ -955,6 +1006,7 @@ public class CodeServlet extends HttpServlet {
             script = script.replace("FILE_NAME", "\"" + fileName + "\"");
             script = script.replace("PATH_TO_FILE", "\"http://localhost:" + port + pathToFile + "\"");
             script = script.replace("DEOBFUSCATE_FLAG", String.valueOf(deobfuscateStack));
+            script = script.replace("BUILD_ID", Integer.toString(build));
             return script;
         } catch (IOException e) {
             throw new RuntimeException("IO error occurred writing debug information", e);
@@ -962,23 +1014,38 @@ public class CodeServlet extends HttpServlet {
     }
 
     private void generateDebug(DebugInformationBuilder debugInformationBuilder) {
-        try {
-            DebugInformation debugInformation = debugInformationBuilder.getDebugInformation();
-            String sourceMapName = fileName + ".map";
-
-            try (Writer writer = new OutputStreamWriter(buildTarget.appendToResource(fileName),
-                    StandardCharsets.UTF_8)) {
-                writer.append("\n//# sourceMappingURL=" + sourceMapName);
-            }
+        try (Writer writer = new OutputStreamWriter(buildTarget.appendToResource(fileName),
+                StandardCharsets.UTF_8)) {
+            writer.append("\n//# sourceMappingURL=" + fileName + ".map");
+        } catch (IOException e) {
+            throw new RuntimeException("IO error occurred writing debug information", e);
+        }
+        pendingDebugInformation = debugInformationBuilder.getDebugInformation();
+    }
 
-            try (Writer writer = new OutputStreamWriter(buildTarget.createResource(sourceMapName),
-                    StandardCharsets.UTF_8)) {
-                debugInformation.writeAsSourceMaps(writer, "src", fileName);
+    // Source maps and debug information are only requested when browser developer tools are open or
+    // a debugger is attached, so they are encoded on first request rather than after every build.
+    private byte[] generateDebugFile(String name) {
+        if (debugInformation == null) {
+            return null;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            if (name.equals(fileName + ".map")) {
+                try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+                    debugInformation.writeAsSourceMaps(writer, "src", fileName);
+                }
+            } else if (name.equals(fileName + ".teavmdbg")) {
+                debugInformation.write(output);
+            } else {
+                return null;
             }
-            debugInformation.write(buildTarget.createResource(fileName + ".teavmdbg"));
         } catch (IOException e) {
             throw new RuntimeException("IO error occurred writing debug information", e);
         }
+        byte[] result = output.toByteArray();
+        content.put(name, result);
+        return result;
     }
 
     private void postBuild(TeaVM vm, long startTime) {
@@ -986,11 +1053,19 @@ public class CodeServlet extends HttpServlet {
             log.info("Recompiled stale methods: " + programCache.getPendingItemsCount());
             if (vm.getProblemProvider().getSevereProblems().isEmpty()) {
                 log.info("Build complete successfully");
+                String hotSwapCode = pendingHotSwapSnapshot != null
+                        ? pendingHotSwapSnapshot.patchSince(hotSwapSnapshot)
+                        : null;
+                hotSwapSnapshot = pendingHotSwapSnapshot;
+                int previousBuildId = buildId;
                 saveNewResult();
                 lastReachedClasses = vm.getDependencyInfo().getReachableClasses().size();
                 classSource.commit();
                 programCache.commit();
                 astCache.commit();
+                if (hotSwapCode != null) {
+                    reportHotSwap(previousBuildId, hotSwapCode);
+                }
                 reportCompilationComplete(true);
             } else {
                 log.info("Build complete with errors");
@@ -1009,6 +1084,8 @@ public class CodeServlet extends HttpServlet {
         astCache.discard();
         programCache.discard();
         buildTarget.clear();
+        pendingDebugInformation = null;
+        pendingHotSwapSnapshot = null;
         cancelRequested = false;
     }
 
@@ -1035,35 +1112,11 @@ public class CodeServlet extends HttpServlet {
             for (String name : buildTarget.getNames()) {
                 content.put(name, buildTarget.getContent(name));
             }
+            debugInformation = pendingDebugInformation;
+            buildId++;
         }
     }
 
-    private List<String> getChangedClasses(Collection<File> changedFiles) {
-        List<String> result = new ArrayList<>();
-        String[] prefixes = Arrays.stream(classPath).map(s -> s.replace('\\', '/')).toArray(String[]::new);
-
-        for (File file : changedFiles) {
-            String path = file.getPath().replace('\\', '/');
-            if (!path.endsWith(".class")) {
-                continue;
-            }
-
-            String prefix = Arrays.stream(prefixes)
-                    .filter(path::startsWith)
-                    .findFirst()
-                    .orElse("");
-            int start = prefix.length();
-            if (start < path.length() && path.charAt(start) == '/') {
-                ++start;
-            }
-
-            path = path.substring(start, path.length() - ".class".length()).replace('/', '.');
-            result.add(path);
-        }
-
-        return result;
-    }
-
     private ClassLoader initClassLoader() {
         URL[] urls = new URL[classPath.length];
         try {
@@ -1099,6 +1152,19 @@ public class CodeServlet extends HttpServlet {
         }
     }
 
+    private void reportHotSwap(int baseBuildId, String code) {
+        log.info("Changes can be applied to running page without reloading");
+
+        ProgressHandler[] handlers;
+        synchronized (progressHandlers) {
+            handlers = progressHandlers.toArray(new ProgressHandler[0]);
+        }
+
+        for (ProgressHandler handler : handlers) {
+            handler.hotSwap(baseBuildId, buildId, code);
+        }
+    }
+
     private void reportCompilationComplete(boolean success) {
         synchronized (statusLock) {
             if (!compiling) {
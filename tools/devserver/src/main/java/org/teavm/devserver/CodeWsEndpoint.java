@@ -15,6 +15,7 @@
  */
 package org.teavm.devserver;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
 import org.eclipse.jetty.websocket.api.Session;
@@ -24,6 +25,7 @@ import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
 @WebSocket
 public class CodeWsEndpoint {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
     private Map<Session, ProgressHandlerImpl> progressHandlerMap = new HashMap<>();
     private CodeServlet servlet;
 
@@ -56,6 +58,16 @@ public class CodeWsEndpoint {
             session.getRemote().sendStringByFuture("{ \"command\": \"compiling\", \"progress\": " + value + " }");
         }
 
+        @Override
+        public void hotSwap(int baseBuildId, int buildId, String code) {
+            var message = MAPPER.createObjectNode();
+            message.put("command", "hotswap");
+            message.put("base", baseBuildId);
+            message.put("build", buildId);
+            message.put("code", code);
+            session.getRemote().sendStringByFuture(message.toString());
+        }
+
         @Override
         public void complete(boolean success) {
             session.getRemote().sendStringByFuture("{ \"command\": \"complete\", \"success\": " + success + " }");
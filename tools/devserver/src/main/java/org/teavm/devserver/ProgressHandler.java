@@ -19,4 +19,6 @@ public interface ProgressHandler {
     void complete(boolean success);
 
     void progress(double value);
+
+    void hotSwap(int baseBuildId, int buildId, String code);
 }
@@ -21,6 +21,8 @@
     let deobfuscate = DEOBFUSCATE_FLAG;
     let fileName = FILE_NAME;
     let pathToFile = PATH_TO_FILE;
+    let build = BUILD_ID;
+    let hotSwapped = false;
 
     function createWebSocket() {
         return new WebSocket("ws://WS_PATH");
@@ -165,6 +167,20 @@
         main();
     }
 
+    function applyHotSwap(message) {
+        if (boot || !reload || message.base !== build || typeof globalThis.$teavm_hotswap !== "function") {
+            return false;
+        }
+        try {
+            globalThis.$teavm_hotswap(message.code);
+        } catch (e) {
+            console.error("Could not apply changes to running code", e);
+            return false;
+        }
+        build = message.build;
+        return true;
+    }
+
     let ws = createWebSocket();
     ws.onmessage = function(event) {
         const message = JSON.parse(event.data);
@@ -173,8 +189,14 @@
                 indicator.show("Compiling...");
                 indicator.showProgress(message.progress || 0);
                 break;
+            case "hotswap":
+                hotSwapped = applyHotSwap(message);
+                break;
             case "complete":
-                if (message.success) {
+                if (message.success && hotSwapped) {
+                    hotSwapped = false;
+                    indicator.show("Changes applied", 10);
+                } else if (message.success) {
                     indicator.show("Compilation complete", 10);
                     if (reload) {
                         window.location.reload();
@@ -26,6 +26,8 @@ description = "TeaVM Gradle plugin"
 dependencies {
     implementation(project(":core"))
     implementation(project(":tools:core"))
+
+    testImplementation(libs.junit)
 }
 
 gradlePlugin {
@@ -274,6 +274,8 @@ public class TeaVMPlugin implements Plugin<Project> {
                 d -> new File(d.getAsFile(), configuration.getRelativePathInOutputDir().get())));
 
         var project = task.getProject();
+        var extension = project.getExtensions().getByType(TeaVMExtension.class);
+        task.getBuildsPerDaemon().convention(extension.property("buildsPerDaemon").map(Integer::parseInt).orElse(2));
 
         var sourceSets = project.getExtensions().findByType(SourceSetContainer.class);
         if (sourceSets != null) {
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.gradle.tasks;
+
+import java.io.IOException;
+import java.rmi.NotBoundException;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.teavm.tooling.daemon.BuildDaemon;
+import org.teavm.tooling.daemon.DaemonLog;
+import org.teavm.tooling.daemon.RemoteBuildService;
+
+/**
+ * Keeps build daemons alive between builds, so that subsequent builds don't pay for JVM warm-up and
+ * for parsing of libraries. Builds that run in parallel are dispatched to the same daemon, up to a given
+ * limit, so that they share parsed library classes as well. Daemons are stopped after being idle for
+ * a while and when Gradle daemon exits.
+ */
+public final class BuildDaemonPool {
+    static final long IDLE_TIMEOUT = 10 * 60 * 1000;
+    private static BuildDaemonPool instance;
+    private final Map<String, List<PooledDaemon>> daemons = new HashMap<>();
+    private final Logger logger = Logging.getLogger(BuildDaemonPool.class);
+    private final DaemonStarter starter;
+    private Thread evictionThread;
+
+    BuildDaemonPool(DaemonStarter starter) {
+        this.starter = starter;
+    }
+
+    public static synchronized BuildDaemonPool instance() {
+        if (instance == null) {
+            instance = new BuildDaemonPool(BuildDaemonPool::startDaemon);
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::stopAll));
+            instance.ensureEvictionThread();
+        }
+        return instance;
+    }
+
+    public Lease acquire(String[] classPath, int memory, int maxBuildsPerDaemon)
+            throws IOException, NotBoundException {
+        var key = memory + ":" + String.join(":", classPath);
+        PooledDaemon daemon;
+        synchronized (this) {
+            var list = daemons.computeIfAbsent(key, k -> new ArrayList<>());
+            list.removeIf(d -> !d.process.isAlive());
+            daemon = null;
+            for (var candidate : list) {
+                if (candidate.activeBuilds < maxBuildsPerDaemon
+                        && (daemon == null || candidate.activeBuilds < daemon.activeBuilds)) {
+                    daemon = candidate;
+                }
+            }
+            if (daemon != null) {
+                daemon.activeBuilds++;
+            }
+        }
+
+        if (daemon == null) {
+            daemon = starter.start(key, classPath, memory);
+            daemon.activeBuilds++;
+            synchronized (this) {
+                daemons.computeIfAbsent(key, k -> new ArrayList<>()).add(daemon);
+            }
+        } else {
+            logger.info("Reusing TeaVM daemon on port {}", daemon.port);
+        }
+        return new Lease(daemon);
+    }
+
+    private static PooledDaemon startDaemon(String key, String[] classPath, int memory)
+            throws IOException, NotBoundException {
+        var info = BuildDaemon.start(false, memory, new DaemonLogImpl(), classPath);
+        var registry = LocateRegistry.getRegistry("localhost", info.getPort());
+        var service = (RemoteBuildService) registry.lookup(RemoteBuildService.ID);
+        return new PooledDaemon(key, info.getPort(), info.getProcess(), service);
+    }
+
+    private synchronized void release(PooledDaemon daemon, boolean broken) {
+        daemon.activeBuilds--;
+        daemon.lastUsed = System.currentTimeMillis();
+        if (broken) {
+            var list = daemons.get(daemon.key);
+            if (list != null) {
+                list.remove(daemon);
+            }
+            daemon.retired = true;
+        }
+        if (daemon.retired && daemon.activeBuilds == 0) {
+            daemon.process.destroy();
+        }
+    }
+
+    private void ensureEvictionThread() {
+        if (evictionThread != null) {
+            return;
+        }
+        evictionThread = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(IDLE_TIMEOUT / 10);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                evictIdle(System.currentTimeMillis());
+            }
+        }, "TeaVM daemon pool eviction");
+        evictionThread.setDaemon(true);
+        evictionThread.start();
+    }
+
+    synchronized void evictIdle(long now) {
+        for (var list : daemons.values()) {
+            for (var iter = list.iterator(); iter.hasNext();) {
+                var daemon = iter.next();
+                if (daemon.activeBuilds == 0 && now - daemon.lastUsed > IDLE_TIMEOUT) {
+                    logger.info("Stopping idle TeaVM daemon on port {}", daemon.port);
+                    daemon.process.destroy();
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    synchronized void stopAll() {
+        for (var list : daemons.values()) {
+            for (var daemon : list) {
+                daemon.process.destroy();
+            }
+        }
+        daemons.clear();
+    }
+
+    interface DaemonStarter {
+        PooledDaemon start(String key, String[] classPath, int memory) throws IOException, NotBoundException;
+    }
+
+    static class PooledDaemon {
+        final String key;
+        final int port;
+        final Process process;
+        final RemoteBuildService service;
+        int activeBuilds;
+        long lastUsed;
+        boolean retired;
+
+        PooledDaemon(String key, int port, Process process, RemoteBuildService service) {
+            this.key = key;
+            this.port = port;
+            this.process = process;
+            this.service = service;
+        }
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final PooledDaemon daemon;
+        private boolean broken;
+
+        private Lease(PooledDaemon daemon) {
+            this.daemon = daemon;
+        }
+
+        public RemoteBuildService getService() {
+            return daemon.service;
+        }
+
+        /**
+         * Tells that daemon should not be used by subsequent builds, e.g. because it failed with an error
+         * that may have left it in inconsistent state.
+         */
+        public void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            release(daemon, broken);
+        }
+    }
+
+    static class DaemonLogImpl implements DaemonLog {
+        private final Logger logger = Logging.getLogger(BuildDaemonPool.class);
+
+        @Override
+        public void error(String message) {
+            logger.error(message);
+        }
+
+        @Override
+        public void error(String message, Throwable e) {
+            logger.error(message, e);
+        }
+
+        @Override
+        public void info(String message) {
+            logger.info(message);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.rmi.NotBoundException;
 import java.rmi.registry.LocateRegistry;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import javax.inject.Inject;
 import org.gradle.api.DefaultTask;
@@ -107,6 +108,9 @@ public abstract class TeaVMTask extends DefaultTask {
     @Internal
     public abstract Property<Integer> getDaemonDebugPort();
 
+    @Internal
+    public abstract Property<Integer> getBuildsPerDaemon();
+
     @Inject
     protected abstract ProgressLoggerFactory getProgressLoggerFactory();
 
@@ -120,7 +124,23 @@ public abstract class TeaVMTask extends DefaultTask {
     }
 
     private void executeInSeparateProcess() throws BuildException, IOException, NotBoundException {
-        var debugPort = getDaemonDebugPort().isPresent() ? getDaemonDebugPort().get() : 0;
+        if (getDaemonDebugPort().isPresent()) {
+            executeInDebuggedProcess(getDaemonDebugPort().get());
+            return;
+        }
+        try (var lease = BuildDaemonPool.instance().acquire(createDaemonClassPath(), getProcessMemory().get(),
+                getBuildsPerDaemon().get())) {
+            var builder = new RemoteBuildStrategy(lease.getService());
+            try {
+                executeWithBuilder(builder);
+            } catch (BuildException e) {
+                lease.markBroken();
+                throw e;
+            }
+        }
+    }
+
+    private void executeInDebuggedProcess(int debugPort) throws BuildException, IOException, NotBoundException {
         var daemon = BuildDaemon.start(debugPort, false, getProcessMemory().get(), new DaemonLogImpl(),
                 createDaemonClassPath());
 
@@ -145,6 +165,7 @@ public abstract class TeaVMTask extends DefaultTask {
             classPathStrings.add(file.getAbsolutePath());
         }
         builder.setClassPathEntries(classPathStrings);
+        builder.setLibraryClassPathEntries(createLibraryClassPath());
         builder.setTargetFileName(getTargetFileName().get());
         builder.setOptimizationLevel(map(getOptimization().get()));
         builder.setFastDependencyAnalysis(getFastGlobalAnalysis().get());
@@ -238,6 +259,17 @@ public abstract class TeaVMTask extends DefaultTask {
         return result.toArray(new String[0]);
     }
 
+    private List<String> createLibraryClassPath() {
+        var rootDir = getProject().getRootDir().toPath();
+        var result = new ArrayList<String>();
+        for (var file : getClasspath()) {
+            if (file.isFile() && file.getName().endsWith(".jar") && !file.toPath().startsWith(rootDir)) {
+                result.add(file.getAbsolutePath());
+            }
+        }
+        return result;
+    }
+
     class DaemonLogImpl implements DaemonLog {
         @Override
         public void error(String message) {
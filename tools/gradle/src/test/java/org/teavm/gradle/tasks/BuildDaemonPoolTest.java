@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.gradle.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class BuildDaemonPoolTest {
+    private static final String[] CLASS_PATH = { "teavm-tooling.jar" };
+    private final List<FakeProcess> processes = new ArrayList<>();
+    private final BuildDaemonPool pool = new BuildDaemonPool((key, classPath, memory) -> {
+        var process = new FakeProcess();
+        processes.add(process);
+        return new BuildDaemonPool.PooledDaemon(key, processes.size(), process, null);
+    });
+
+    @Test
+    public void reusesIdleDaemon() throws Exception {
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        pool.acquire(CLASS_PATH, 512, 1).close();
+
+        assertEquals(1, processes.size());
+        assertTrue(processes.get(0).isAlive());
+    }
+
+    @Test
+    public void parallelBuildsShareDaemonUpToLimit() throws Exception {
+        var first = pool.acquire(CLASS_PATH, 512, 2);
+        var second = pool.acquire(CLASS_PATH, 512, 2);
+        assertEquals(1, processes.size());
+
+        var third = pool.acquire(CLASS_PATH, 512, 2);
+        assertEquals(2, processes.size());
+
+        first.close();
+        second.close();
+        third.close();
+    }
+
+    @Test
+    public void differentMemorySettingsUseDifferentDaemons() throws Exception {
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        pool.acquire(CLASS_PATH, 1024, 1).close();
+
+        assertEquals(2, processes.size());
+    }
+
+    @Test
+    public void brokenDaemonStoppedAfterLastBuild() throws Exception {
+        var first = pool.acquire(CLASS_PATH, 512, 2);
+        var second = pool.acquire(CLASS_PATH, 512, 2);
+        assertSame(first.getService(), second.getService());
+
+        first.markBroken();
+        first.close();
+        assertTrue(processes.get(0).isAlive());
+
+        second.close();
+        assertFalse(processes.get(0).isAlive());
+
+        pool.acquire(CLASS_PATH, 512, 2).close();
+        assertEquals(2, processes.size());
+    }
+
+    @Test
+    public void deadDaemonReplaced() throws Exception {
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        processes.get(0).destroy();
+
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        assertEquals(2, processes.size());
+    }
+
+    @Test
+    public void idleDaemonEvicted() throws Exception {
+        var busy = pool.acquire(CLASS_PATH, 512, 1);
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        assertNotSame(processes.get(0), processes.get(1));
+
+        var now = System.currentTimeMillis();
+        pool.evictIdle(now);
+        assertTrue(processes.get(1).isAlive());
+
+        pool.evictIdle(now + BuildDaemonPool.IDLE_TIMEOUT + 1);
+        assertTrue(processes.get(0).isAlive());
+        assertFalse(processes.get(1).isAlive());
+
+        busy.close();
+        pool.acquire(CLASS_PATH, 512, 1).close();
+        assertEquals(2, processes.size());
+    }
+
+    @Test
+    public void stopAllStopsDaemons() throws Exception {
+        var lease = pool.acquire(CLASS_PATH, 512, 1);
+        pool.acquire(CLASS_PATH, 1024, 1).close();
+
+        pool.stopAll();
+
+        assertFalse(processes.get(0).isAlive());
+        assertFalse(processes.get(1).isAlive());
+        lease.close();
+    }
+
+    private static class FakeProcess extends Process {
+        private boolean alive = true;
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return alive;
+        }
+
+        @Override
+        public void destroy() {
+            alive = false;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import org.teavm.backend.c.CTarget;
 import org.teavm.backend.c.generate.CNameProvider;
+import org.teavm.cache.MethodNodeCache;
 import org.teavm.model.ClassHolderSource;
 import org.teavm.model.ReferenceCache;
 import org.teavm.vm.TeaVM;
@@ -98,6 +99,11 @@ class CPlatformSupport extends TestPlatformSupport<CTarget> {
         return cTarget;
     }
 
+    @Override
+    void setAstCache(CTarget target, MethodNodeCache astCache) {
+        target.setAstCache(astCache);
+    }
+
     @Override
     boolean usesFileName() {
         return false;
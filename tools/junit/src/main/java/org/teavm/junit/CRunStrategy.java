@@ -33,6 +33,11 @@ class CRunStrategy implements TestRunStrategy {
         this.compilerCommand = compilerCommand;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public void runTest(TestRun run) throws IOException {
         try {
@@ -78,8 +83,10 @@ class CRunStrategy implements TestRunStrategy {
     }
 
     private void writeLines(List<String> lines) {
-        for (String line : lines) {
-            System.out.println(line);
+        synchronized (System.out) {
+            for (String line : lines) {
+                System.out.println(line);
+            }
         }
     }
 
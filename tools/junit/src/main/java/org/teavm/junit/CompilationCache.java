@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.junit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.teavm.cache.CacheStatus;
+import org.teavm.cache.InMemoryMethodNodeCache;
+import org.teavm.cache.InMemoryProgramCache;
+import org.teavm.cache.InMemorySymbolTable;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ReferenceCache;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Keeps optimized programs and ASTs of methods between compilations of test classes in the same JVM,
+ * so that each compilation only processes methods that were not seen before, which are mostly methods
+ * of tests themselves.
+ * <p>
+ * Cached code depends on target, configuration and compiler properties, so there's a separate cache for
+ * each combination of them. Only compilations with {@link TeaVMOptimizationLevel#SIMPLE} are cached, since
+ * full optimization makes code of a method depend on the whole program. Classes of the class path never
+ * change during a test run, so all of them are considered fresh, except for entry points in this package,
+ * which are rewritten for every test.
+ * <p>
+ * The cache is off unless {@link PropertyNames#COMPILATION_CACHE} is set, which the {@code parallelTest}
+ * task of the test suite does. Each cache is dropped once it has stored more than
+ * {@link PropertyNames#COMPILATION_CACHE_MAX_METHODS} methods, which bounds memory used by a long test run.
+ */
+final class CompilationCache {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(PropertyNames.COMPILATION_CACHE,
+            "false"));
+    private static final int MAX_METHODS = Integer.getInteger(PropertyNames.COMPILATION_CACHE_MAX_METHODS, 20000);
+    private static final String ENTRY_POINT_PACKAGE = CompilationCache.class.getPackageName() + ".";
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    static final CacheStatus CACHE_STATUS = new CacheStatus() {
+        @Override
+        public boolean isStaleClass(String className) {
+            return className.startsWith(ENTRY_POINT_PACKAGE);
+        }
+
+        @Override
+        public boolean isStaleMethod(MethodReference method) {
+            return isStaleClass(method.getClassName());
+        }
+    };
+
+    private CompilationCache() {
+    }
+
+    /**
+     * Returns cache for given compilation, locked for exclusive use until {@link Entry#release(boolean)}.
+     * Returns {@code null} if compilation can't be cached or cache is being used by another compilation
+     * that runs concurrently, in which case compilation should proceed without cache.
+     */
+    static Entry acquire(TeaVM vm, TestPlatformSupport<?> platform, TeaVMTestConfiguration<?> configuration) {
+        if (!ENABLED || vm.getOptimizationLevel() != TeaVMOptimizationLevel.SIMPLE) {
+            return null;
+        }
+        var key = new StringBuilder(platform.getPath()).append(':').append(configuration.getSuffix());
+        for (var property : new TreeMap<>(vm.getProperties()).entrySet()) {
+            key.append(':').append(property.getKey()).append('=').append(property.getValue());
+        }
+        return acquire(key.toString());
+    }
+
+    static Entry acquire(String key) {
+        var entry = entries.computeIfAbsent(key, k -> new Entry());
+        return entry.lock.tryLock() ? entry : null;
+    }
+
+    static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final InMemoryProgramCache programCache;
+        private final InMemoryMethodNodeCache astCache;
+        private int storedMethods;
+
+        private Entry() {
+            var referenceCache = new ReferenceCache();
+            var symbolTable = new InMemorySymbolTable();
+            var fileSymbolTable = new InMemorySymbolTable();
+            var variableSymbolTable = new InMemorySymbolTable();
+            programCache = new InMemoryProgramCache(referenceCache, symbolTable, fileSymbolTable,
+                    variableSymbolTable);
+            astCache = new InMemoryMethodNodeCache(referenceCache, symbolTable, fileSymbolTable,
+                    variableSymbolTable);
+        }
+
+        InMemoryProgramCache getProgramCache() {
+            return programCache;
+        }
+
+        InMemoryMethodNodeCache getAstCache() {
+            return astCache;
+        }
+
+        void release(boolean success) {
+            if (success) {
+                storedMethods += programCache.getPendingItemsCount();
+                if (storedMethods > MAX_METHODS) {
+                    programCache.invalidate();
+                    astCache.invalidate();
+                    storedMethods = 0;
+                } else {
+                    programCache.commit();
+                    astCache.commit();
+                }
+            } else {
+                programCache.discard();
+                astCache.discard();
+            }
+            lock.unlock();
+        }
+    }
+}
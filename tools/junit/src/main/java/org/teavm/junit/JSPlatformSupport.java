@@ -36,6 +36,7 @@ import java.util.function.Supplier;
 import org.teavm.backend.javascript.JSModuleType;
 import org.teavm.backend.javascript.JavaScriptTarget;
 import org.teavm.browserrunner.BrowserRunner;
+import org.teavm.cache.MethodNodeCache;
 import org.teavm.debugging.information.DebugInformation;
 import org.teavm.debugging.information.DebugInformationBuilder;
 import org.teavm.model.ClassHolderSource;
@@ -182,6 +183,11 @@ class JSPlatformSupport extends TestPlatformSupport<JavaScriptTarget> {
         }
     }
 
+    @Override
+    void setAstCache(JavaScriptTarget target, MethodNodeCache astCache) {
+        target.setAstCache(astCache);
+    }
+
     @Override
     boolean usesFileName() {
         return true;
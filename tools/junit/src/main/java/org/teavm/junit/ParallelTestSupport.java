@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2024 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * Runs compilation and execution of tests on a bounded pool of worker threads, when
+ * {@link PropertyNames#THREADS} is greater than one. Otherwise everything runs on the calling thread,
+ * exactly as before.
+ */
+final class ParallelTestSupport {
+    private static final int THREADS = Math.max(1, Integer.getInteger(PropertyNames.THREADS, 1));
+    private static final ThreadLocal<ReferenceCache> REFERENCE_CACHE = ThreadLocal.withInitial(ReferenceCache::new);
+    private static ExecutorService executor;
+
+    private ParallelTestSupport() {
+    }
+
+    static boolean isEnabled() {
+        return THREADS > 1;
+    }
+
+    /**
+     * Returns reference cache to pass to compiler. {@link ReferenceCache} is not thread-safe, so in parallel
+     * mode each worker thread gets its own instance.
+     */
+    static ReferenceCache referenceCache(ReferenceCache shared) {
+        return isEnabled() ? REFERENCE_CACHE.get() : shared;
+    }
+
+    static <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(call(task));
+        }
+        return CompletableFuture.supplyAsync(() -> call(task), getExecutor());
+    }
+
+    /**
+     * Runs all tasks and returns their results in the order of tasks, regardless of the order in which
+     * they complete.
+     */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        var futures = new ArrayList<CompletableFuture<T>>();
+        for (var task : tasks) {
+            futures.add(submit(task));
+        }
+        var result = new ArrayList<T>();
+        for (var future : futures) {
+            result.add(join(future));
+        }
+        return result;
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            var threadIndex = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+                var thread = new Thread(runnable, "teavm-test-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
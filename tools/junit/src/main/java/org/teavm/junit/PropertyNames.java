@@ -32,6 +32,9 @@ final class PropertyNames {
     static final String MINIFIED = "teavm.junit.minified";
     static final String OPTIMIZED = "teavm.junit.optimized";
     static final String SOURCE_DIRS = "teavm.junit.sourceDirs";
+    static final String THREADS = "teavm.junit.threads";
+    static final String COMPILATION_CACHE = "teavm.junit.compilationCache";
+    static final String COMPILATION_CACHE_MAX_METHODS = "teavm.junit.compilationCache.maxMethods";
 
     private PropertyNames() {
     }
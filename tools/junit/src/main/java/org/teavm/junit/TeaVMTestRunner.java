@@ -38,6 +38,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -61,6 +65,7 @@ import org.teavm.model.MethodReader;
 import org.teavm.model.MethodReference;
 import org.teavm.model.PreOptimizingClassHolderSource;
 import org.teavm.model.ReferenceCache;
+import org.teavm.model.SynchronizedClassHolderSource;
 import org.teavm.model.ValueType;
 import org.teavm.parsing.ClasspathClassHolderSource;
 import org.teavm.vm.TeaVM;
@@ -86,7 +91,7 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     private static ClassLoader classLoader;
     private Description suiteDescription;
     private static File outputDir;
-    private Map<Method, Description> descriptions = new HashMap<>();
+    private Map<Method, Description> descriptions = new ConcurrentHashMap<>();
     private static Map<TestPlatform, TestRunStrategy> runners = new HashMap<>();
     private List<Method> filteredChildren;
     private static ReferenceCache referenceCache = new ReferenceCache();
@@ -162,8 +167,16 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         if (isWholeClassCompilation) {
             classCompilationOk = compileWholeClass(children, notifier);
         }
+        Map<Method, CompletableFuture<ChildOutcome>> outcomes = new HashMap<>();
+        if (ParallelTestSupport.isEnabled() && outputDir != null) {
+            for (Method child : children) {
+                if (!isIgnored(child)) {
+                    outcomes.put(child, ParallelTestSupport.submit(() -> compileAndRunChild(child)));
+                }
+            }
+        }
         for (Method child : children) {
-            runChild(child, notifier);
+            runChild(child, notifier, outcomes.get(child));
         }
 
         writeRunsDescriptor();
@@ -218,8 +231,17 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     private boolean compileWholeClass(List<Method> children, RunNotifier notifier) {
         Description description = getDescription();
 
-        for (var platformSupport : participatingPlatforms) {
-            if (!compileClassForPlatform(platformSupport, children, description, notifier)) {
+        List<Callable<CompileResult>> compilations = new ArrayList<>();
+        for (var platform : participatingPlatforms) {
+            if (platform.isEnabled() && hasChildrenToRun(children, platform.getPlatform())) {
+                for (var configuration : platform.getConfigurations()) {
+                    compilations.add(() -> compileClassForPlatform(platform, configuration, children));
+                }
+            }
+        }
+        for (var result : ParallelTestSupport.invokeAll(compilations)) {
+            if (!result.success) {
+                notifier.fireTestFailure(createFailure(description, result));
                 return false;
             }
         }
@@ -227,22 +249,13 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     }
 
     @SuppressWarnings("unchecked")
-    private boolean compileClassForPlatform(TestPlatformSupport<?> platform, List<Method> children,
-            Description description, RunNotifier notifier) {
-        if (platform.isEnabled() && hasChildrenToRun(children, platform.getPlatform())) {
-            for (var configuration : platform.getConfigurations()) {
-                var path = getOutputPathForClass(platform);
-                var castPlatform = (TestPlatformSupport<TeaVMTarget>) platform;
-                var castConfiguration = (TeaVMTestConfiguration<TeaVMTarget>) configuration;
-                var result = castPlatform.compile(wholeClass(children, platform.getPlatform()), "classTest",
-                        castConfiguration, path, testClass);
-                if (!result.success) {
-                    notifier.fireTestFailure(createFailure(description, result));
-                    return false;
-                }
-            }
-        }
-        return true;
+    private CompileResult compileClassForPlatform(TestPlatformSupport<?> platform,
+            TeaVMTestConfiguration<?> configuration, List<Method> children) {
+        var path = getOutputPathForClass(platform, configuration);
+        var castPlatform = (TestPlatformSupport<TeaVMTarget>) platform;
+        var castConfiguration = (TeaVMTestConfiguration<TeaVMTarget>) configuration;
+        return castPlatform.compile(wholeClass(children, platform.getPlatform()), "classTest",
+                castConfiguration, path, testClass);
     }
 
     private boolean isPlatformPresent(AnnotatedElement declaration, TestPlatform platform) {
@@ -281,7 +294,7 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         return isPlatformPresent(testClass, platform) && isPlatformPresent(child, platform);
     }
 
-    private void runChild(Method child, RunNotifier notifier) {
+    private void runChild(Method child, RunNotifier notifier, CompletableFuture<ChildOutcome> pendingOutcome) {
         Description description = describeChild(child);
         notifier.fireTestStarted(description);
 
@@ -302,27 +315,13 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
 
         if (success && outputDir != null) {
-            List<TestRun> runs = new ArrayList<>();
-
             try {
-                if (isWholeClassCompilation) {
-                    if (!classCompilationOk) {
-                        notifier.fireTestFailure(new Failure(description,
-                                new AssertionError("Could not compile test class")));
-                    } else {
-                        prepareTestsFromWholeClass(child, runs);
-                    }
-                } else {
-                    prepareCompiledTest(child, notifier, runs);
-                }
-
-                for (var run : runs) {
-                    try {
-                        submitRun(run);
-                    } catch (Throwable e) {
-                        notifier.fireTestFailure(new Failure(description, e));
-                        break;
-                    }
+                var outcome = pendingOutcome != null
+                        ? ParallelTestSupport.join(pendingOutcome)
+                        : compileAndRunChild(child);
+                runsInCurrentClass.addAll(outcome.runs);
+                for (var failure : outcome.failures) {
+                    notifier.fireTestFailure(failure);
                 }
             } finally {
                 notifier.fireTestFinished(description);
@@ -335,52 +334,116 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
     }
 
-    private void prepareTestsFromWholeClass(Method child, List<TestRun> runs) {
-        MethodDescriptor descriptor = getDescriptor(child);
-        MethodReference reference = new MethodReference(child.getDeclaringClass().getName(), descriptor);
+    /**
+     * Compiles (unless whole class is compiled at once) and runs a test on all participating platforms.
+     * Does not report to JUnit, since it may run on a worker thread; results are reported
+     * by {@link #runChild} in the order of tests.
+     */
+    private ChildOutcome compileAndRunChild(Method child) {
+        var outcome = new ChildOutcome();
+        var description = describeChild(child);
+
+        if (isWholeClassCompilation && !classCompilationOk) {
+            outcome.failures.add(new Failure(description, new AssertionError("Could not compile test class")));
+            return outcome;
+        }
 
         for (var platform : participatingPlatforms) {
-            if (platform.isEnabled() && shouldRunChild(child, platform.getPlatform())) {
-                var outputPath = getOutputPathForClass(platform);
-                var outputPathForMethod = getOutputPath(child, platform);
-                for (var configuration : platform.getConfigurations()) {
-                    var testPath = getOutputFile(outputPath, "classTest", configuration.getSuffix(), false,
-                            platform.getExtension());
-                    runs.add(createTestRun(configuration, testPath, child, platform.getPlatform(),
-                            reference.toString(), isModule(child)));
-                    platform.additionalOutput(outputPath, outputPathForMethod, configuration, reference);
+            if (!platform.isEnabled() || !shouldRunChild(child, platform.getPlatform())) {
+                continue;
+            }
+            var strategy = runners.get(platform.getPlatform());
+            boolean success;
+            if (isWholeClassCompilation) {
+                // Output of whole class compilation is shared between tests, so tests that can't run
+                // concurrently should not see it changed by other tests while they run
+                success = runExclusivelyIfNeeded(strategy, () -> {
+                    var runs = new ArrayList<TestRun>();
+                    prepareTestsFromWholeClass(child, platform, runs);
+                    return submitRuns(child, runs, outcome);
+                });
+            } else {
+                var runs = new ArrayList<TestRun>();
+                if (!prepareCompiledTest(child, platform, outcome.failures, runs)) {
+                    break;
                 }
-                platform.additionalOutputForAllConfigurations(outputPath, child);
+                success = runExclusivelyIfNeeded(strategy, () -> submitRuns(child, runs, outcome));
             }
+            if (!success) {
+                break;
+            }
+        }
+        return outcome;
+    }
+
+    private static boolean runExclusivelyIfNeeded(TestRunStrategy strategy, BooleanSupplier action) {
+        if (strategy == null || strategy.isThreadSafe()) {
+            return action.getAsBoolean();
+        }
+        synchronized (strategy) {
+            return action.getAsBoolean();
+        }
+    }
+
+    private boolean submitRuns(Method child, List<TestRun> runs, ChildOutcome outcome) {
+        for (var run : runs) {
+            outcome.runs.add(run);
+            try {
+                submitRun(run);
+            } catch (Throwable e) {
+                outcome.failures.add(new Failure(describeChild(child), e));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class ChildOutcome {
+        final List<TestRun> runs = new ArrayList<>();
+        final List<Failure> failures = new ArrayList<>();
+    }
+
+    private void prepareTestsFromWholeClass(Method child, TestPlatformSupport<?> platform, List<TestRun> runs) {
+        MethodDescriptor descriptor = getDescriptor(child);
+        MethodReference reference = new MethodReference(child.getDeclaringClass().getName(), descriptor);
+
+        var outputPathForMethod = getOutputPath(child, platform);
+        for (var configuration : platform.getConfigurations()) {
+            var outputPath = getOutputPathForClass(platform, configuration);
+            var testPath = getOutputFile(outputPath, "classTest", configuration.getSuffix(), false,
+                    platform.getExtension());
+            runs.add(createTestRun(configuration, testPath, child, platform.getPlatform(),
+                    reference.toString(), isModule(child)));
+            platform.additionalOutput(outputPath, outputPathForMethod, configuration, reference);
+            platform.additionalOutputForAllConfigurations(outputPath, child);
         }
     }
 
-    private void prepareCompiledTest(Method child, RunNotifier notifier, List<TestRun> runs) {
+    private boolean prepareCompiledTest(Method child, TestPlatformSupport<?> platform, List<Failure> failures,
+            List<TestRun> runs) {
         MethodDescriptor descriptor = getDescriptor(child);
         MethodReference reference = new MethodReference(child.getDeclaringClass().getName(), descriptor);
 
         try {
-            for (var platform : participatingPlatforms) {
-                if (platform.isEnabled() && shouldRunChild(child, platform.getPlatform())) {
-                    File outputPath = getOutputPath(child, platform);
-                    for (var configuration : platform.getConfigurations()) {
-                        @SuppressWarnings("unchecked")
-                        var castPlatform = (TestPlatformSupport<TeaVMTarget>) platform;
-                        @SuppressWarnings("unchecked")
-                        var castConfig = (TeaVMTestConfiguration<TeaVMTarget>) configuration;
-                        var compileResult = castPlatform.compile(singleTest(child), "test", castConfig, outputPath,
-                                child);
-                        var run = prepareRun(configuration, child, compileResult, notifier, platform.getPlatform());
-                        if (run != null) {
-                            runs.add(run);
-                            platform.additionalSingleTestOutput(outputPath, configuration, reference);
-                        }
-                    }
-                    platform.additionalOutputForAllConfigurations(outputPath, child);
+            File outputPath = getOutputPath(child, platform);
+            for (var configuration : platform.getConfigurations()) {
+                @SuppressWarnings("unchecked")
+                var castPlatform = (TestPlatformSupport<TeaVMTarget>) platform;
+                @SuppressWarnings("unchecked")
+                var castConfig = (TeaVMTestConfiguration<TeaVMTarget>) configuration;
+                var compileResult = castPlatform.compile(singleTest(child), "test", castConfig, outputPath,
+                        child);
+                var run = prepareRun(configuration, child, compileResult, failures, platform.getPlatform());
+                if (run != null) {
+                    runs.add(run);
+                    platform.additionalSingleTestOutput(outputPath, configuration, reference);
                 }
             }
+            platform.additionalOutputForAllConfigurations(outputPath, child);
+            return true;
         } catch (Throwable e) {
-            notifier.fireTestFailure(new Failure(describeChild(child), e));
+            failures.add(new Failure(describeChild(child), e));
+            return false;
         }
     }
 
@@ -707,11 +770,11 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     }
 
     private TestRun prepareRun(TeaVMTestConfiguration<?> configuration, Method child, CompileResult result,
-            RunNotifier notifier, TestPlatform kind) {
+            List<Failure> failures, TestPlatform kind) {
         Description description = describeChild(child);
 
         if (!result.success) {
-            notifier.fireTestFailure(createFailure(description, result));
+            failures.add(createFailure(description, result));
             return null;
         }
 
@@ -746,7 +809,6 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     }
 
     private void submitRun(TestRun run) throws IOException {
-        runsInCurrentClass.add(run);
         var strategy = runners.get(run.getKind());
         if (strategy == null) {
             return;
@@ -770,6 +832,18 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         return path;
     }
 
+    /**
+     * Each configuration gets its own directory for whole class compilation, since configurations
+     * of a platform may be compiled concurrently and compilers write files besides the main output file.
+     * Directory names contain a dash, so they never clash with directories of test methods.
+     */
+    private File getOutputPathForClass(TestPlatformSupport<?> platform, TeaVMTestConfiguration<?> configuration) {
+        var suffix = configuration.getSuffix();
+        var path = new File(getOutputPathForClass(platform), "compiled-" + (suffix.isEmpty() ? "default" : suffix));
+        path.mkdirs();
+        return path;
+    }
+
     private Consumer<TeaVM> singleTest(Method method) {
         ClassHolder classHolder = classSource.get(method.getDeclaringClass().getName());
         MethodHolder methodHolder = classHolder.getMethod(getDescriptor(method));
@@ -848,7 +922,12 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     }
 
     private static ClassHolderSource getClassSource(ClassLoader classLoader) {
-        return new PreOptimizingClassHolderSource(new ClasspathClassHolderSource(classLoader, referenceCache));
+        ClassHolderSource source = new PreOptimizingClassHolderSource(new ClasspathClassHolderSource(classLoader,
+                referenceCache));
+        if (ParallelTestSupport.isEnabled()) {
+            source = new SynchronizedClassHolderSource(source);
+        }
+        return source;
     }
 
     @Override
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import org.teavm.cache.MethodNodeCache;
 import org.teavm.callgraph.CallGraph;
 import org.teavm.dependency.DependencyAnalyzerFactory;
 import org.teavm.dependency.PreciseDependencyAnalyzer;
@@ -79,17 +80,25 @@ abstract class TestPlatformSupport<T extends TeaVMTarget> {
 
         DependencyAnalyzerFactory dependencyAnalyzerFactory = PreciseDependencyAnalyzer::new;
 
+        CompilationCache.Entry cacheEntry = null;
+        boolean success = false;
         try {
             TeaVM vm = new TeaVMBuilder(target)
                     .setClassLoader(classLoader)
                     .setClassSource(classSource)
-                    .setReferenceCache(referenceCache)
+                    .setReferenceCache(ParallelTestSupport.referenceCache(referenceCache))
                     .setDependencyAnalyzerFactory(dependencyAnalyzerFactory)
                     .setStrict(true)
                     .build();
 
             configuration.apply(vm);
             additionalProcessing.accept(vm);
+            cacheEntry = CompilationCache.acquire(vm, this, configuration);
+            if (cacheEntry != null) {
+                vm.setProgramCache(cacheEntry.getProgramCache());
+                vm.setCacheStatus(CompilationCache.CACHE_STATUS);
+                setAstCache(target, cacheEntry.getAstCache());
+            }
             vm.installPlugins();
 
             new TestExceptionPlugin().install(vm);
@@ -109,6 +118,7 @@ abstract class TestPlatformSupport<T extends TeaVMTarget> {
                 result.success = false;
                 result.errorMessage = buildErrorMessage(vm);
             } else {
+                success = true;
                 if (postBuild != null) {
                     postBuild.process(vm, outputFile);
                 }
@@ -120,9 +130,16 @@ abstract class TestPlatformSupport<T extends TeaVMTarget> {
             result.success = false;
             result.throwable = e;
             return result;
+        } finally {
+            if (cacheEntry != null) {
+                cacheEntry.release(success);
+            }
         }
     }
 
+    void setAstCache(T target, MethodNodeCache astCache) {
+    }
+
     protected final File getOutputFile(File path, String baseName, String suffix, String extension) {
         StringBuilder simpleName = new StringBuilder();
         simpleName.append(baseName);
@@ -166,7 +183,7 @@ abstract class TestPlatformSupport<T extends TeaVMTarget> {
         var testPath = getOutputFile(outputPath, "classTest", configuration.getSuffix(), getExtension());
         var htmlPath = getOutputFile(outputPathForMethod, "test", configuration.getSuffix(), ".html");
         var properties = Map.of(
-                "SCRIPT", "../" + testPath.getName(),
+                "SCRIPT", relativePath(outputPathForMethod, testPath),
                 "IDENTIFIER", reference.toString()
         );
         try {
@@ -176,6 +193,11 @@ abstract class TestPlatformSupport<T extends TeaVMTarget> {
         }
     }
 
+    private static String relativePath(File from, File to) {
+        var path = from.toPath().toAbsolutePath().relativize(to.toPath().toAbsolutePath());
+        return path.toString().replace(File.separatorChar, '/');
+    }
+
     protected final void htmlSingleTestOutput(File outputPathForMethod, TeaVMTestConfiguration<?> configuration,
             String template) {
         File testPath = getOutputFile(outputPathForMethod, "test", configuration.getSuffix(), getExtension());
@@ -25,4 +25,12 @@ interface TestRunStrategy {
     }
 
     void runTest(TestRun run) throws IOException;
+
+    /**
+     * Tells whether tests can be run concurrently by this strategy. When parallel test execution is enabled,
+     * tests run by other strategies are run one at a time, together with writing their shared output files.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
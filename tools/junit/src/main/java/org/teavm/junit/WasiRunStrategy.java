@@ -30,6 +30,11 @@ class WasiRunStrategy implements TestRunStrategy {
         this.runCommand = runCommand;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public void runTest(TestRun run) throws IOException {
         try {
@@ -63,8 +68,10 @@ class WasiRunStrategy implements TestRunStrategy {
     }
 
     private void writeLines(List<String> lines) {
-        for (String line : lines) {
-            System.out.println(line);
+        synchronized (System.out) {
+            for (String line : lines) {
+                System.out.println(line);
+            }
         }
     }
 